@@ -0,0 +1,92 @@
+package com.fjuul.sdk.activitysources.adapters;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.activitysources.adapters.GFUploadDataJsonAdapterLegacyOutputTest.LegacyGFUploadDataJsonAdapter;
+import com.fjuul.sdk.activitysources.entities.internal.GFUploadData;
+import com.fjuul.sdk.activitysources.http.GFUploadDataRequestBody;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+
+import android.os.Build;
+import okio.Buffer;
+
+/**
+ * Compares the streaming json adapter of the upload data with the legacy adapter of
+ * {@link GFUploadDataJsonAdapterLegacyOutputTest} on a 30-day backfill. The measured numbers are printed to the
+ * standard output. Run it with {@code ./gradlew :activitysources:testDebugUnitTest -Pbenchmarks}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class GFUploadDataJsonAdapterBenchmarkTest {
+    private static final int BACKFILL_DAYS = 30;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    @Test
+    public void toJson_comparedWithLegacyAdapter() throws IOException {
+        final JsonAdapter<GFUploadData> legacyAdapter =
+            new Moshi.Builder().add(Date.class, new Rfc3339DateJsonAdapter())
+                .add(new LegacyGFUploadDataJsonAdapter())
+                .build()
+                .adapter(GFUploadData.class);
+        final GFUploadData uploadData = GFUploadDataJsonAdapterLegacyOutputTest.buildBackfillUploadData(BACKFILL_DAYS);
+        final GFUploadDataRequestBody requestBody = new GFUploadDataRequestBody(uploadData);
+
+        final Buffer legacyJson = new Buffer();
+        legacyAdapter.toJson(legacyJson, uploadData);
+        final Buffer streamedJson = new Buffer();
+        requestBody.writeTo(streamedJson);
+        assertEquals("produces the same json", legacyJson.snapshot(), streamedJson.snapshot());
+        final long jsonBytes = legacyJson.size();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            legacyAdapter.toJson(new Buffer(), uploadData);
+            requestBody.writeTo(new Buffer());
+        }
+
+        long allocatedBytes = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            final Buffer sink = new Buffer();
+            legacyAdapter.toJson(sink, uploadData);
+            sink.clear();
+        }
+        final long legacyNanos = System.nanoTime() - start;
+        final long legacyAllocatedBytes = getAllocatedBytes() - allocatedBytes;
+        allocatedBytes = getAllocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            final Buffer sink = new Buffer();
+            requestBody.writeTo(sink);
+            sink.clear();
+        }
+        final long streamingNanos = System.nanoTime() - start;
+        final long streamingAllocatedBytes = getAllocatedBytes() - allocatedBytes;
+
+        System.out.println(String.format(Locale.US,
+            "upload data json of %d days (%d bytes): legacy %.2f ms/op, %d allocated bytes/op; "
+                + "streaming %.2f ms/op, %d allocated bytes/op",
+            BACKFILL_DAYS,
+            jsonBytes,
+            legacyNanos / 1e6 / MEASURED_ITERATIONS,
+            legacyAllocatedBytes / MEASURED_ITERATIONS,
+            streamingNanos / 1e6 / MEASURED_ITERATIONS,
+            streamingAllocatedBytes / MEASURED_ITERATIONS));
+    }
+}
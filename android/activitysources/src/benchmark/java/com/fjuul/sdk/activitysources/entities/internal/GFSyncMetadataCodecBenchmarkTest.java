@@ -0,0 +1,85 @@
+package com.fjuul.sdk.activitysources.entities.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncCaloriesMetadata;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncMetadataCodec;
+import com.fjuul.sdk.core.adapters.LocalDateJsonAdapter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+
+import android.os.Build;
+
+/**
+ * Compares the binary codec of sync metadata with the legacy json format. The measured numbers are printed to the
+ * standard output, the test itself only checks that both formats produce the same metadata. Run it with
+ * {@code ./gradlew :activitysources:testDebugUnitTest -Pbenchmarks}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class GFSyncMetadataCodecBenchmarkTest {
+    private static final int WARMUP_ITERATIONS = 5_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    @Test
+    public void encodeAndDecode_comparedWithJson() throws IOException {
+        final Moshi moshi =
+            new Moshi.Builder().add(Date.class, new Rfc3339DateJsonAdapter()).add(new LocalDateJsonAdapter()).build();
+        final JsonAdapter<GFSyncCaloriesMetadata> jsonAdapter = moshi.adapter(GFSyncCaloriesMetadata.class);
+        final GFSyncCaloriesMetadata metadata = new GFSyncCaloriesMetadata(48,
+            2150.7512f,
+            LocalDate.parse("2020-09-10"),
+            Date.from(Instant.parse("2020-09-15T21:30:00Z")));
+        final String json = jsonAdapter.toJson(metadata);
+        final String binary = GFSyncMetadataCodec.encode(metadata);
+        assertEquals(jsonAdapter.fromJson(json), GFSyncMetadataCodec.decode(GFSyncCaloriesMetadata.class, binary));
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            jsonAdapter.fromJson(jsonAdapter.toJson(metadata));
+            GFSyncMetadataCodec.decode(GFSyncCaloriesMetadata.class, GFSyncMetadataCodec.encode(metadata));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            jsonAdapter.toJson(metadata);
+        }
+        final long jsonEncodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            jsonAdapter.fromJson(json);
+        }
+        final long jsonDecodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            GFSyncMetadataCodec.encode(metadata);
+        }
+        final long binaryEncodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            GFSyncMetadataCodec.decode(GFSyncCaloriesMetadata.class, binary);
+        }
+        final long binaryDecodeNanos = System.nanoTime() - start;
+
+        System.out.println(String.format(Locale.US,
+            "sync metadata codec: json %d chars, encode %.0f ns/op, decode %.0f ns/op; "
+                + "binary %d chars, encode %.0f ns/op, decode %.0f ns/op",
+            json.length(),
+            (double) jsonEncodeNanos / MEASURED_ITERATIONS,
+            (double) jsonDecodeNanos / MEASURED_ITERATIONS,
+            binary.length(),
+            (double) binaryEncodeNanos / MEASURED_ITERATIONS,
+            (double) binaryDecodeNanos / MEASURED_ITERATIONS));
+    }
+}
@@ -1,100 +1,166 @@
 package com.fjuul.sdk.activitysources.adapters;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import com.fjuul.sdk.activitysources.entities.internal.GFUploadData;
 import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFDataPoint;
 import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFHRSummaryDataPoint;
 import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFScalarDataPoint;
 import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFSessionBundle;
-import com.fjuul.sdk.activitysources.json.GFUploadDataJson;
-import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFInstantMeasureSampleEntryJson;
-import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFIntradayHRSampleEntryJson;
-import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFIntradaySampleEntryJson;
-import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFSampleEntryJson;
-import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFSampleJson;
-import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFSessionJson;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonWriter;
 import com.squareup.moshi.ToJson;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
 
 import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
 
+/**
+ * Writes {@link GFUploadData} straight to the json writer point by point, without building an intermediate object
+ * graph of the json representation.<br>
+ * Keys of json objects are written in the alphabetical order and data points are grouped by their data sources in the
+ * order of {@link java.util.stream.Collectors#groupingBy}, so the output is the same as of the reflective serialization
+ * of the grouped graph.
+ */
 public class GFUploadDataJsonAdapter {
-    @SuppressLint("NewApi")
+    private final JsonAdapter<Date> dateAdapter = new Rfc3339DateJsonAdapter();
+
     @ToJson
-    GFUploadDataJson toJson(GFUploadData uploadData) {
-        final List<GFSampleJson<GFIntradaySampleEntryJson<Float>>> caloriesData =
-            groupAndMapGFPointsToJsonSample(uploadData.getCaloriesData(), this::mapDataPointToIntradayEntry);
-        final List<GFSampleJson<GFIntradaySampleEntryJson<Integer>>> stepsData =
-            groupAndMapGFPointsToJsonSample(uploadData.getStepsData(), this::mapDataPointToIntradayEntry);
-        final List<GFSampleJson<GFIntradayHRSampleEntryJson>> hrData =
-            groupAndMapGFPointsToJsonSample(uploadData.getHrData(), this::mapDataPointToIntradayHREntry);
-        final List<GFSessionJson> sessionsData =
-            uploadData.getSessionsData().stream().map(this::mapSessionBundleToJson).collect(Collectors.toList());
-        return new GFUploadDataJson(caloriesData, stepsData, hrData, sessionsData);
+    public void toJson(@NonNull JsonWriter writer, @NonNull GFUploadData uploadData) throws IOException {
+        writer.beginObject();
+        writer.name("caloriesData");
+        writeSamples(writer, uploadData.getCaloriesData(), this::writeIntradayEntry);
+        writer.name("hrData");
+        writeSamples(writer, uploadData.getHrData(), this::writeIntradayHREntry);
+        writer.name("sessionsData");
+        writer.beginArray();
+        for (final GFSessionBundle sessionBundle : uploadData.getSessionsData()) {
+            writeSession(writer, sessionBundle);
+        }
+        writer.endArray();
+        writer.name("stepsData");
+        writeSamples(writer, uploadData.getStepsData(), this::writeIntradayEntry);
+        writer.endObject();
     }
 
-    @SuppressLint("NewApi")
-    private <T extends GFDataPoint, O> List<GFSampleJson<O>> groupAndMapGFPointsToJsonSample(List<T> dataPoints,
-        Function<T, O> pointMapper) {
-        final Map<Optional<String>, List<T>> groupedByDataSource =
-            dataPoints.stream().collect(Collectors.groupingBy(point -> Optional.ofNullable(point.getDataSource())));
-        final List<GFSampleJson<O>> samples = groupedByDataSource.entrySet().stream().map((entry) -> {
-            final String dataSource = entry.getKey().orElse(null);
-            List<O> entries = entry.getValue().stream().map(pointMapper).collect(Collectors.toList());
-            return new GFSampleJson<>(dataSource, entries);
-        }).collect(Collectors.toList());
-        return samples;
+    private void writeSession(@NonNull JsonWriter writer, @NonNull GFSessionBundle sessionBundle) throws IOException {
+        writer.beginObject();
+        writer.name("activitySegments");
+        writeSamples(writer, sessionBundle.getActivitySegments(), this::writeSampleEntry);
+        writer.name("applicationIdentifier").value(sessionBundle.getApplicationIdentifier());
+        writer.name("calories");
+        writeSamples(writer, sessionBundle.getCalories(), this::writeSampleEntry);
+        writer.name("heartRate");
+        writeSamples(writer, sessionBundle.getHeartRate(), this::writeInstantMeasureSampleEntry);
+        writer.name("id").value(sessionBundle.getId());
+        writer.name("name").value(sessionBundle.getName());
+        writer.name("power");
+        writeSamples(writer, sessionBundle.getPower(), this::writeInstantMeasureSampleEntry);
+        writer.name("speed");
+        writeSamples(writer, sessionBundle.getSpeed(), this::writeInstantMeasureSampleEntry);
+        writer.name("steps");
+        writeSamples(writer, sessionBundle.getSteps(), this::writeSampleEntry);
+        writer.name("timeEnd");
+        dateAdapter.toJson(writer, sessionBundle.getTimeEnd());
+        writer.name("timeStart");
+        dateAdapter.toJson(writer, sessionBundle.getTimeStart());
+        writer.name("type").value(sessionBundle.getType());
+        writer.endObject();
     }
 
-    private GFSessionJson mapSessionBundleToJson(GFSessionBundle sessionBundle) {
-        final List<GFSampleJson<GFSampleEntryJson<Integer>>> activitySegmentsData =
-            groupAndMapGFPointsToJsonSample(sessionBundle.getActivitySegments(), this::mapDataPointToSampleEntry);
-        final List<GFSampleJson<GFSampleEntryJson<Float>>> caloriesData =
-            groupAndMapGFPointsToJsonSample(sessionBundle.getCalories(), this::mapDataPointToSampleEntry);
-        final List<GFSampleJson<GFSampleEntryJson<Integer>>> stepsData =
-            groupAndMapGFPointsToJsonSample(sessionBundle.getSteps(), this::mapDataPointToSampleEntry);
-        final List<GFSampleJson<GFInstantMeasureSampleEntryJson<Float>>> speedData =
-            groupAndMapGFPointsToJsonSample(sessionBundle.getSpeed(), this::mapDataPointToInstantMeasureSampleEntry);
-        final List<GFSampleJson<GFInstantMeasureSampleEntryJson<Float>>> hrData =
-            groupAndMapGFPointsToJsonSample(sessionBundle.getHeartRate(),
-                this::mapDataPointToInstantMeasureSampleEntry);
-        final List<GFSampleJson<GFInstantMeasureSampleEntryJson<Float>>> powerData =
-            groupAndMapGFPointsToJsonSample(sessionBundle.getPower(), this::mapDataPointToInstantMeasureSampleEntry);
-        return new GFSessionJson(sessionBundle.getId(),
-            sessionBundle.getName(),
-            sessionBundle.getApplicationIdentifier(),
-            sessionBundle.getTimeStart(),
-            sessionBundle.getTimeEnd(),
-            sessionBundle.getType(),
-            activitySegmentsData,
-            caloriesData,
-            stepsData,
-            speedData,
-            hrData,
-            powerData);
+    private <T extends GFDataPoint> void writeSamples(@NonNull JsonWriter writer,
+        @NonNull List<T> dataPoints,
+        @NonNull EntryWriter<T> entryWriter) throws IOException {
+        writer.beginArray();
+        for (final Map.Entry<Optional<String>, List<T>> sample : groupByDataSource(dataPoints).entrySet()) {
+            writer.beginObject();
+            writer.name("dataSource").value(sample.getKey().orElse(null));
+            writer.name("entries");
+            writer.beginArray();
+            for (final T point : sample.getValue()) {
+                entryWriter.write(writer, point);
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        writer.endArray();
     }
 
-    private <T extends Number> GFIntradaySampleEntryJson<T> mapDataPointToIntradayEntry(GFScalarDataPoint<T> point) {
-        return new GFIntradaySampleEntryJson<>(point.getStart(), point.getValue());
+    /**
+     * Groups data points into a hash map keyed in the same way as {@link java.util.stream.Collectors#groupingBy} does
+     * it, so the samples are iterated in the same order.
+     */
+    @SuppressLint("NewApi")
+    @NonNull
+    private static <T extends GFDataPoint> Map<Optional<String>, List<T>> groupByDataSource(
+        @NonNull List<T> dataPoints) {
+        final Map<Optional<String>, List<T>> groups = new HashMap<>();
+        String lastDataSource = null;
+        List<T> lastGroup = null;
+        for (final T point : dataPoints) {
+            final String dataSource = point.getDataSource();
+            // NOTE: consecutive points mostly come from the same data source, so the map lookup can be skipped
+            if (lastGroup == null || !Objects.equals(lastDataSource, dataSource)) {
+                lastGroup = groups.computeIfAbsent(Optional.ofNullable(dataSource), key -> new ArrayList<>());
+                lastDataSource = dataSource;
+            }
+            lastGroup.add(point);
+        }
+        return groups;
+    }
+
+    private void writeIntradayEntry(@NonNull JsonWriter writer, @NonNull GFScalarDataPoint<? extends Number> point)
+        throws IOException {
+        writer.beginObject();
+        writer.name("start");
+        dateAdapter.toJson(writer, point.getStart());
+        writer.name("value").value(point.getValue());
+        writer.endObject();
     }
 
-    private GFIntradayHRSampleEntryJson mapDataPointToIntradayHREntry(GFHRSummaryDataPoint point) {
-        return new GFIntradayHRSampleEntryJson(point.getStart(), point.getAvg(), point.getMin(), point.getMax());
+    private void writeIntradayHREntry(@NonNull JsonWriter writer, @NonNull GFHRSummaryDataPoint point)
+        throws IOException {
+        // NOTE: floats are written as numbers to keep the float precision like the reflective serialization does
+        writer.beginObject();
+        writer.name("avg").value(Float.valueOf(point.getAvg()));
+        writer.name("max").value(Float.valueOf(point.getMax()));
+        writer.name("min").value(Float.valueOf(point.getMin()));
+        writer.name("start");
+        dateAdapter.toJson(writer, point.getStart());
+        writer.endObject();
     }
 
-    private <T extends Number> GFSampleEntryJson<T> mapDataPointToSampleEntry(GFScalarDataPoint<T> point) {
+    private void writeSampleEntry(@NonNull JsonWriter writer, @NonNull GFScalarDataPoint<? extends Number> point)
+        throws IOException {
         if (point.getEnd() == null) {
             throw new IllegalStateException("GFScalarDataPoint must have the defined end time: " + point.toString());
         }
-        return new GFSampleEntryJson<>(point.getStart(), point.getEnd(), point.getValue());
+        writer.beginObject();
+        writer.name("end");
+        dateAdapter.toJson(writer, point.getEnd());
+        writer.name("start");
+        dateAdapter.toJson(writer, point.getStart());
+        writer.name("value").value(point.getValue());
+        writer.endObject();
+    }
+
+    private void writeInstantMeasureSampleEntry(@NonNull JsonWriter writer,
+        @NonNull GFScalarDataPoint<? extends Number> point) throws IOException {
+        writer.beginObject();
+        writer.name("timestamp");
+        dateAdapter.toJson(writer, point.getStart());
+        writer.name("value").value(point.getValue());
+        writer.endObject();
     }
 
-    private <T extends Number> GFInstantMeasureSampleEntryJson<T> mapDataPointToInstantMeasureSampleEntry(
-        GFScalarDataPoint<T> point) {
-        return new GFInstantMeasureSampleEntryJson<>(point.getStart(), point.getValue());
+    private interface EntryWriter<T> {
+        void write(@NonNull JsonWriter writer, @NonNull T point) throws IOException;
     }
 }
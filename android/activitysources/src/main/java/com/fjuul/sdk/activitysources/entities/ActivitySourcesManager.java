@@ -3,6 +3,7 @@ package com.fjuul.sdk.activitysources.entities;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -16,6 +17,7 @@ import com.fjuul.sdk.core.ApiClient;
 import com.fjuul.sdk.core.entities.Callback;
 import com.fjuul.sdk.core.entities.Result;
 import com.fjuul.sdk.core.exceptions.FjuulException;
+import com.fjuul.sdk.core.http.utils.CallbackExecutors;
 import com.fjuul.sdk.core.utils.Logger;
 import com.google.android.gms.tasks.Task;
 
@@ -72,6 +74,8 @@ public final class ActivitySourcesManager {
     @NonNull
     private final ActivitySourceResolver activitySourceResolver;
     @NonNull
+    private final Executor callbackExecutor;
+    @NonNull
     private volatile CopyOnWriteArrayList<TrackerConnection> currentConnections;
 
     @Nullable
@@ -83,8 +87,10 @@ public final class ActivitySourcesManager {
         @NonNull ActivitySourcesStateStore stateStore,
         @NonNull ActivitySourceResolver activitySourceResolver,
         @NonNull CopyOnWriteArrayList<TrackerConnection> connections,
-        @NonNull Context applicationContext) {
+        @NonNull Context applicationContext,
+        @NonNull Executor callbackExecutor) {
         this.applicationContext = applicationContext;
+        this.callbackExecutor = callbackExecutor;
         this.config = config;
         this.backgroundWorkManager = backgroundWorkManager;
         this.sourcesService = sourcesService;
@@ -135,7 +141,10 @@ public final class ActivitySourcesManager {
             client.getUserToken(),
             client.getUserSecret(),
             client.getApiKey(),
-            client.getBaseUrl());
+            client.getBaseUrl(),
+            client.getRequestCompressionMinBodyBytes(),
+            client.getRetryPolicy(),
+            config.getDailyStatsPrefetchPolicy());
         GoogleFitActivitySource.initialize(client, config);
         HealthConnectActivitySource.initialize(client, config, client.getStorage());
 
@@ -147,7 +156,8 @@ public final class ActivitySourcesManager {
             stateStore,
             activitySourceResolver,
             currentConnections,
-            context);
+            context,
+            client.getCallbackExecutor());
         newInstance.configureExternalStateByConnections(currentConnections);
 
         instance = newInstance;
@@ -287,10 +297,11 @@ public final class ActivitySourcesManager {
         @NonNull final Callback<Void> callback) {
         // TODO: validate if sourceConnection was already ended ?
         final Runnable runnableDisconnect = () -> {
-            sourcesService.disconnect(sourceConnection).enqueue((call, apiCallResult) -> {
+            // NOTE: the state is updated on the background thread, only the callback is delivered by the executor
+            sourcesService.disconnect(sourceConnection).enqueue(CallbackExecutors.direct(), (call, apiCallResult) -> {
                 if (apiCallResult.isError()) {
                     if (callback != null) {
-                        callback.onResult(Result.error(apiCallResult.getError()));
+                        callbackExecutor.execute(() -> callback.onResult(Result.error(apiCallResult.getError())));
                     }
                     return;
                 }
@@ -301,7 +312,7 @@ public final class ActivitySourcesManager {
                 this.currentConnections.remove(connectionToRemove);
                 this.stateStore.setConnections(this.currentConnections);
                 this.configureExternalStateByConnections(currentConnections);
-                callback.onResult(Result.value(null));
+                callbackExecutor.execute(() -> callback.onResult(Result.value(null)));
             });
         };
         final ActivitySource activitySource = sourceConnection.getActivitySource();
@@ -346,10 +357,11 @@ public final class ActivitySourcesManager {
      */
     @SuppressLint("NewApi")
     public void refreshCurrent(@Nullable Callback<List<ActivitySourceConnection>> callback) {
-        sourcesService.getCurrentConnections().enqueue((call, apiCallResult) -> {
+        // NOTE: the state is updated on the background thread, only the callback is delivered by the executor
+        sourcesService.getCurrentConnections().enqueue(CallbackExecutors.direct(), (call, apiCallResult) -> {
             if (apiCallResult.isError()) {
                 if (callback != null) {
-                    callback.onResult(Result.error(apiCallResult.getError()));
+                    callbackExecutor.execute(() -> callback.onResult(Result.error(apiCallResult.getError())));
                 }
                 return;
             }
@@ -362,7 +374,7 @@ public final class ActivitySourcesManager {
                 final List<ActivitySourceConnection> sourceConnections =
                     convertTrackerConnectionsToActivitySourcesConnections(activitySourceResolver,
                         freshTrackerConnections);
-                callback.onResult(Result.value(sourceConnections));
+                callbackExecutor.execute(() -> callback.onResult(Result.value(sourceConnections)));
             }
         });
     }
@@ -6,6 +6,9 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.fjuul.sdk.analytics.entities.DailyStatsCachePolicy;
+import com.fjuul.sdk.analytics.entities.DailyStatsPrefetchPolicy;
+
 import android.annotation.SuppressLint;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -47,6 +50,9 @@ public class ActivitySourcesManagerConfig {
     @NonNull
     private BackgroundSyncMode healthConnectProfileSyncMode;
 
+    @Nullable
+    private DailyStatsPrefetchPolicy dailyStatsPrefetchPolicy;
+
     /**
      * Returns the mode that indicates whether intraday data of Google Fit should be synced in the background.
      *
@@ -132,6 +138,17 @@ public class ActivitySourcesManagerConfig {
         return healthConnectProfileSyncMode;
     }
 
+    /**
+     * Returns the policy of the prefetch of daily stats after background syncs. It's not public, so users of the
+     * module don't depend on the analytics module.
+     *
+     * @return prefetch policy, or null if the prefetch is disabled
+     */
+    @Nullable
+    DailyStatsPrefetchPolicy getDailyStatsPrefetchPolicy() {
+        return dailyStatsPrefetchPolicy;
+    }
+
     public static class Builder {
         @NonNull
         final private ActivitySourcesManagerConfig config;
@@ -267,6 +284,26 @@ public class ActivitySourcesManagerConfig {
             return this;
         }
 
+        /**
+         * Enables the prefetch of daily stats of recent days into the daily stats cache of the analytics module after
+         * every successful background sync of intraday or daily data. The prefetch is disabled by default.<br>
+         * Note: the prefetched recent days are served only by an {@code AnalyticsService} with the cache policy which
+         * has the same max age of recent days and default values of other parameters.
+         *
+         * @param days number of the most recent days (including today) to prefetch
+         * @param recentDaysMaxAge positive max age of recent days in the cache of the application
+         * @return configured builder
+         */
+        @NonNull
+        public Builder enableDailyStatsPrefetch(int days, @NonNull Duration recentDaysMaxAge) {
+            Objects.requireNonNull(recentDaysMaxAge, "max age of recent days must be not null");
+            final DailyStatsCachePolicy cachePolicy =
+                new DailyStatsCachePolicy.Builder().setRecentDaysMaxAge(recentDaysMaxAge).build();
+            config.dailyStatsPrefetchPolicy =
+                new DailyStatsPrefetchPolicy.Builder().setDays(days).setCachePolicy(cachePolicy).build();
+            return this;
+        }
+
         /**
          * Disables background syncing of intraday data from Google Fit.
          *
@@ -350,6 +387,17 @@ public class ActivitySourcesManagerConfig {
             return this;
         }
 
+        /**
+         * Disables the prefetch of daily stats after background syncs.
+         *
+         * @return configured builder
+         */
+        @NonNull
+        public Builder disableDailyStatsPrefetch() {
+            config.dailyStatsPrefetchPolicy = null;
+            return this;
+        }
+
         /**
          * Disables any kind of background syncs. Use this building method if you want to sure that everything must be
          * synchronized only manually by explicit invocations.
@@ -128,13 +128,15 @@ class HealthConnectActivitySource private constructor(
     }
 
     fun forInternalUseOnly_clearChangesTokens() {
-        storage.set(HealthConnectDataManager.HEART_RATE_CHANGES_TOKEN, "")
-        storage.set(HealthConnectDataManager.TOTAL_CALORIES_CHANGES_TOKEN, "")
-        storage.set(HealthConnectDataManager.ACTIVE_CALORIES_CHANGES_TOKEN, "")
-        storage.set(HealthConnectDataManager.RESTING_HEART_RATE_CHANGES_TOKEN, "")
-        storage.set(HealthConnectDataManager.STEPS_CHANGES_TOKEN, "")
-        storage.set(HealthConnectDataManager.HEIGHT_CHANGES_TOKEN, "")
-        storage.set(HealthConnectDataManager.WEIGHT_CHANGES_TOKEN, "")
+        storage.beginTransaction()
+            .put(HealthConnectDataManager.HEART_RATE_CHANGES_TOKEN, "")
+            .put(HealthConnectDataManager.TOTAL_CALORIES_CHANGES_TOKEN, "")
+            .put(HealthConnectDataManager.ACTIVE_CALORIES_CHANGES_TOKEN, "")
+            .put(HealthConnectDataManager.RESTING_HEART_RATE_CHANGES_TOKEN, "")
+            .put(HealthConnectDataManager.STEPS_CHANGES_TOKEN, "")
+            .put(HealthConnectDataManager.HEIGHT_CHANGES_TOKEN, "")
+            .put(HealthConnectDataManager.WEIGHT_CHANGES_TOKEN, "")
+            .commit()
     }
 
     fun <T : Any> executeSynchronized(
@@ -7,14 +7,20 @@ import java.util.concurrent.TimeUnit;
 import com.fjuul.sdk.activitysources.entities.FitnessMetricsType;
 import com.fjuul.sdk.activitysources.workers.GFIntradaySyncWorker;
 import com.fjuul.sdk.activitysources.workers.GFSessionsSyncWorker;
+import com.fjuul.sdk.activitysources.workers.GFSyncMetadataCompactionWorker;
 import com.fjuul.sdk.activitysources.workers.GFSyncWorker;
 import com.fjuul.sdk.activitysources.workers.HCDailySyncWorker;
 import com.fjuul.sdk.activitysources.workers.HCIntradaySyncWorker;
 import com.fjuul.sdk.activitysources.workers.HCProfileSyncWorker;
 import com.fjuul.sdk.activitysources.workers.ProfileSyncWorker;
+import com.fjuul.sdk.analytics.entities.DailyStatsPrefetchPolicy;
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsPrefetchWorkScheduler;
+import com.fjuul.sdk.core.http.utils.RetryPolicy;
+import com.fjuul.sdk.core.http.utils.RetryPolicyArgs;
 
 import android.annotation.SuppressLint;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.work.Constraints;
 import androidx.work.Data;
 import androidx.work.ExistingPeriodicWorkPolicy;
@@ -25,6 +31,8 @@ import androidx.work.WorkManager;
 public class ActivitySourceWorkScheduler {
     public static final String GF_INTRADAY_SYNC_WORK_NAME = "com.fjuul.sdk.background_work.gf_intraday_sync";
     public static final String GF_SESSIONS_SYNC_WORK_NAME = "com.fjuul.sdk.background_work.gf_sessions_sync";
+    public static final String GF_SYNC_METADATA_COMPACTION_WORK_NAME =
+        "com.fjuul.sdk.background_work.gf_sync_metadata_compaction";
     public static final String PROFILE_SYNC_WORK_NAME = "com.fjuul.sdk.background_work.profile_sync";
     public static final String HC_INTRADAY_SYNC_WORK_NAME = "com.fjuul.sdk.background_work.hc_intraday_sync";
     private static final String HC_DAILY_SYNC_WORK_NAME = "com.fjuul.sdk.background_work.hc_daily_sync";
@@ -40,8 +48,15 @@ public class ActivitySourceWorkScheduler {
     private final String apiKey;
     @NonNull
     private final String baseUrl;
+    @Nullable
+    private final Long requestCompressionMinBodyBytes;
+    @Nullable
+    private final RetryPolicy retryPolicy;
+    @Nullable
+    private final DailyStatsPrefetchPolicy dailyStatsPrefetchPolicy;
     private volatile boolean gfIntradaySyncWorkEnqueued = false;
     private volatile boolean gfSessionsSyncWorkEnqueued = false;
+    private volatile boolean gfSyncMetadataCompactionWorkEnqueued = false;
     private volatile boolean profileSyncWorkEnqueued = false;
     private volatile boolean hcIntradaySyncWorkEnqueued = false;
     private volatile boolean hcDailySyncWorkEnqueued = false;
@@ -51,26 +66,35 @@ public class ActivitySourceWorkScheduler {
         @NonNull String userToken,
         @NonNull String userSecret,
         @NonNull String apiKey,
-        @NonNull String baseUrl) {
+        @NonNull String baseUrl,
+        @Nullable Long requestCompressionMinBodyBytes,
+        @Nullable RetryPolicy retryPolicy,
+        @Nullable DailyStatsPrefetchPolicy dailyStatsPrefetchPolicy) {
         this.workManager = workManager;
         this.userToken = userToken;
         this.userSecret = userSecret;
         this.apiKey = apiKey;
         this.baseUrl = baseUrl;
+        this.requestCompressionMinBodyBytes = requestCompressionMinBodyBytes;
+        this.retryPolicy = retryPolicy;
+        this.dailyStatsPrefetchPolicy = dailyStatsPrefetchPolicy;
     }
 
     public static void cancelWorks(@NonNull WorkManager workManager) {
         workManager.cancelUniqueWork(GF_INTRADAY_SYNC_WORK_NAME);
         workManager.cancelUniqueWork(GF_SESSIONS_SYNC_WORK_NAME);
+        workManager.cancelUniqueWork(GF_SYNC_METADATA_COMPACTION_WORK_NAME);
         workManager.cancelUniqueWork(PROFILE_SYNC_WORK_NAME);
         workManager.cancelUniqueWork(HC_INTRADAY_SYNC_WORK_NAME);
         workManager.cancelUniqueWork(HC_PROFILE_SYNC_WORK_NAME);
         workManager.cancelUniqueWork(HC_DAILY_SYNC_WORK_NAME);
+        DailyStatsPrefetchWorkScheduler.cancelPrefetchWork(workManager);
     }
 
     public synchronized void cancelWorks() {
         cancelGFIntradaySyncWork();
         cancelGFSessionsSyncWork();
+        cancelGFSyncMetadataCompactionWork();
         cancelProfileSyncWork();
         cancelHCIntradaySyncWork();
         cancelHCDailySyncWork();
@@ -128,6 +152,32 @@ public class ActivitySourceWorkScheduler {
         gfSessionsSyncWorkEnqueued = false;
     }
 
+    public synchronized void scheduleGFSyncMetadataCompactionWork() {
+        if (gfSyncMetadataCompactionWorkEnqueued) {
+            return;
+        }
+        // NOTE: the compaction doesn't need the network, so it's deferred until the device is idle
+        final Constraints constraints =
+            new Constraints.Builder().setRequiresBatteryNotLow(true).setRequiresDeviceIdle(true).build();
+        final PeriodicWorkRequest periodicWorkRequest =
+            new PeriodicWorkRequest.Builder(GFSyncMetadataCompactionWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .setInitialDelay(1, TimeUnit.DAYS)
+                .setInputData(buildEssentialInputData().build())
+                .build();
+        // NOTE: the existing work is updated instead of replaced, otherwise every start of the app would postpone the
+        // compaction by one more day and it would never run
+        workManager.enqueueUniquePeriodicWork(GF_SYNC_METADATA_COMPACTION_WORK_NAME,
+            ExistingPeriodicWorkPolicy.UPDATE,
+            periodicWorkRequest);
+        gfSyncMetadataCompactionWorkEnqueued = true;
+    }
+
+    public synchronized void cancelGFSyncMetadataCompactionWork() {
+        workManager.cancelUniqueWork(GF_SYNC_METADATA_COMPACTION_WORK_NAME);
+        gfSyncMetadataCompactionWorkEnqueued = false;
+    }
+
     public synchronized void scheduleProfileSyncWork(@NonNull Set<FitnessMetricsType> profileMetrics) {
         if (profileSyncWorkEnqueued) {
             return;
@@ -232,10 +282,18 @@ public class ActivitySourceWorkScheduler {
     }
 
     private Data.Builder buildEssentialInputData() {
-        return new Data.Builder().putString(GFSyncWorker.KEY_USER_TOKEN_ARG, userToken)
+        final Data.Builder builder = new Data.Builder().putString(GFSyncWorker.KEY_USER_TOKEN_ARG, userToken)
             .putString(GFSyncWorker.KEY_USER_SECRET_ARG, userSecret)
             .putString(GFSyncWorker.KEY_API_KEY_ARG, apiKey)
             .putString(GFSyncWorker.KEY_BASE_URL_ARG, baseUrl);
+        if (requestCompressionMinBodyBytes != null) {
+            builder.putLong(GFSyncWorker.KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG, requestCompressionMinBodyBytes);
+        }
+        builder.putAll(RetryPolicyArgs.toArgs(retryPolicy));
+        if (dailyStatsPrefetchPolicy != null) {
+            DailyStatsPrefetchWorkScheduler.putPrefetchPolicy(builder, dailyStatsPrefetchPolicy);
+        }
+        return builder;
     }
 
     private Constraints buildCommonWorkConstraints() {
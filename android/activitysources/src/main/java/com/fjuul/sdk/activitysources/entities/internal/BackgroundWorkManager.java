@@ -4,6 +4,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.fjuul.sdk.activitysources.entities.ActivitySourcesManagerConfig;
+import com.fjuul.sdk.activitysources.entities.ActivitySourcesManagerConfig.BackgroundSyncMode;
 import com.fjuul.sdk.activitysources.entities.FitnessMetricsType;
 
 import android.annotation.SuppressLint;
@@ -56,11 +57,19 @@ public class BackgroundWorkManager {
                 break;
             }
         }
+        final BackgroundSyncMode intradayMode = config.getGoogleFitIntradayBackgroundSyncMode();
+        final BackgroundSyncMode sessionsMode = config.getGoogleFitSessionsBackgroundSyncMode();
+        if (intradayMode == BackgroundSyncMode.ENABLED || sessionsMode == BackgroundSyncMode.ENABLED) {
+            workScheduler.scheduleGFSyncMetadataCompactionWork();
+        } else if (intradayMode == BackgroundSyncMode.DISABLED && sessionsMode == BackgroundSyncMode.DISABLED) {
+            workScheduler.cancelGFSyncMetadataCompactionWork();
+        }
     }
 
     public void cancelGFSyncWorks() {
         workScheduler.cancelGFIntradaySyncWork();
         workScheduler.cancelGFSessionsSyncWork();
+        workScheduler.cancelGFSyncMetadataCompactionWork();
     }
 
     @SuppressLint("NewApi")
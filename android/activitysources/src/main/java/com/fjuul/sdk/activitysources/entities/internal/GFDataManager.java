@@ -17,7 +17,6 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.fjuul.sdk.activitysources.entities.FitnessMetricsType;
 import com.fjuul.sdk.activitysources.entities.GoogleFitIntradaySyncOptions;
@@ -34,7 +33,9 @@ import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.G
 import com.fjuul.sdk.activitysources.exceptions.GoogleFitActivitySourceExceptions.CommonException;
 import com.fjuul.sdk.activitysources.http.services.ActivitySourcesService;
 import com.fjuul.sdk.activitysources.utils.GoogleTaskUtils;
+import com.fjuul.sdk.core.http.utils.ApiCall;
 import com.fjuul.sdk.core.http.utils.ApiCallResult;
+import com.fjuul.sdk.core.http.utils.CallbackExecutors;
 import com.fjuul.sdk.core.utils.Logger;
 import com.google.android.gms.tasks.CancellationToken;
 import com.google.android.gms.tasks.CancellationTokenSource;
@@ -169,9 +170,13 @@ public class GFDataManager {
             });
         final Task<Void> saveSyncMetadataTask =
             sendDataIfNotEmptyTask.onSuccessTask(localBackgroundExecutor, apiCallResult -> {
-                finalGetCaloriesTask.getResult().forEach(gfSyncMetadataStore::saveSyncMetadataOfCalories);
-                finalGetStepsTask.getResult().forEach(gfSyncMetadataStore::saveSyncMetadataOfSteps);
-                finalGetHRTask.getResult().forEach(gfSyncMetadataStore::saveSyncMetadataOfHR);
+                final List<GFDataPointsBatch<GFCalorieDataPoint>> caloriesBatches = finalGetCaloriesTask.getResult();
+                final List<GFDataPointsBatch<GFStepsDataPoint>> stepsBatches = finalGetStepsTask.getResult();
+                final List<GFDataPointsBatch<GFHRSummaryDataPoint>> hrBatches = finalGetHRTask.getResult();
+                if (!caloriesBatches.isEmpty() || !stepsBatches.isEmpty() || !hrBatches.isEmpty()) {
+                    // NOTE: persist metadata of the whole sync at once
+                    gfSyncMetadataStore.saveSyncMetadataOfIntraday(caloriesBatches, stepsBatches, hrBatches);
+                }
                 return Tasks.forResult(null);
             });
         return saveSyncMetadataTask;
@@ -199,6 +204,10 @@ public class GFDataManager {
         final Task<List<GFSessionBundle>> getNotSyncedSessionsTask =
             client.getSessions(startDate, endDate, options.getMinimumSessionDuration())
                 .onSuccessTask(localBackgroundExecutor, sessions -> {
+                    if (sessions.isEmpty()) {
+                        return Tasks.forResult(sessions);
+                    }
+                    gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
                     final List<GFSessionBundle> notSyncedSessions = sessions.stream()
                         .filter(gfSyncMetadataStore::isNeededToSyncSessionBundle)
                         .collect(Collectors.toList());
@@ -304,11 +313,16 @@ public class GFDataManager {
             final Pair<Date, Date> batchingDates = gfUtils.roundDatesByIntradayBatchDuration(start, end, batchDuration);
             final List<GFDataPointsBatch<GFCalorieDataPoint>> batches = this.gfUtils
                 .groupPointsIntoBatchesByDuration(batchingDates.first, batchingDates.second, calories, batchDuration);
-            final Stream<GFDataPointsBatch<GFCalorieDataPoint>> notEmptyBatches =
-                batches.stream().filter(b -> !b.getPoints().isEmpty());
-            final List<GFDataPointsBatch<GFCalorieDataPoint>> notSyncedBatches =
-                notEmptyBatches.filter(this.gfSyncMetadataStore::isNeededToSyncCaloriesBatch)
-                    .collect(Collectors.toList());
+            final List<GFDataPointsBatch<GFCalorieDataPoint>> notEmptyBatches =
+                batches.stream().filter(b -> !b.getPoints().isEmpty()).collect(Collectors.toList());
+            if (notEmptyBatches.isEmpty()) {
+                return Tasks.forResult(notEmptyBatches);
+            }
+            this.gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
+            this.gfSyncMetadataStore.prefetchSyncMetadataOfCaloriesBatches(notEmptyBatches);
+            final List<GFDataPointsBatch<GFCalorieDataPoint>> notSyncedBatches = notEmptyBatches.stream()
+                .filter(this.gfSyncMetadataStore::isNeededToSyncCaloriesBatch)
+                .collect(Collectors.toList());
             return Tasks.forResult(notSyncedBatches);
         });
     }
@@ -323,10 +337,16 @@ public class GFDataManager {
             final Pair<Date, Date> batchingDates = gfUtils.roundDatesByIntradayBatchDuration(start, end, batchDuration);
             final List<GFDataPointsBatch<GFStepsDataPoint>> batches = this.gfUtils
                 .groupPointsIntoBatchesByDuration(batchingDates.first, batchingDates.second, steps, batchDuration);
-            final Stream<GFDataPointsBatch<GFStepsDataPoint>> notEmptyBatches =
-                batches.stream().filter(b -> !b.getPoints().isEmpty());
-            final List<GFDataPointsBatch<GFStepsDataPoint>> notSyncedBatches =
-                notEmptyBatches.filter(this.gfSyncMetadataStore::isNeededToSyncStepsBatch).collect(Collectors.toList());
+            final List<GFDataPointsBatch<GFStepsDataPoint>> notEmptyBatches =
+                batches.stream().filter(b -> !b.getPoints().isEmpty()).collect(Collectors.toList());
+            if (notEmptyBatches.isEmpty()) {
+                return Tasks.forResult(notEmptyBatches);
+            }
+            this.gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
+            this.gfSyncMetadataStore.prefetchSyncMetadataOfStepsBatches(notEmptyBatches);
+            final List<GFDataPointsBatch<GFStepsDataPoint>> notSyncedBatches = notEmptyBatches.stream()
+                .filter(this.gfSyncMetadataStore::isNeededToSyncStepsBatch)
+                .collect(Collectors.toList());
             return Tasks.forResult(notSyncedBatches);
         });
     }
@@ -341,10 +361,16 @@ public class GFDataManager {
             final Pair<Date, Date> batchingDates = gfUtils.roundDatesByIntradayBatchDuration(start, end, batchDuration);
             final List<GFDataPointsBatch<GFHRSummaryDataPoint>> batches = this.gfUtils
                 .groupPointsIntoBatchesByDuration(batchingDates.first, batchingDates.second, hr, batchDuration);
-            final Stream<GFDataPointsBatch<GFHRSummaryDataPoint>> notEmptyBatches =
-                batches.stream().filter(b -> !b.getPoints().isEmpty());
-            final List<GFDataPointsBatch<GFHRSummaryDataPoint>> notSyncedBatches =
-                notEmptyBatches.filter(this.gfSyncMetadataStore::isNeededToSyncHRBatch).collect(Collectors.toList());
+            final List<GFDataPointsBatch<GFHRSummaryDataPoint>> notEmptyBatches =
+                batches.stream().filter(b -> !b.getPoints().isEmpty()).collect(Collectors.toList());
+            if (notEmptyBatches.isEmpty()) {
+                return Tasks.forResult(notEmptyBatches);
+            }
+            this.gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
+            this.gfSyncMetadataStore.prefetchSyncMetadataOfHRBatches(notEmptyBatches);
+            final List<GFDataPointsBatch<GFHRSummaryDataPoint>> notSyncedBatches = notEmptyBatches.stream()
+                .filter(this.gfSyncMetadataStore::isNeededToSyncHRBatch)
+                .collect(Collectors.toList());
             return Tasks.forResult(notSyncedBatches);
         });
     }
@@ -372,7 +398,8 @@ public class GFDataManager {
     @NonNull
     private Task<ApiCallResult<Void>> sendGFUploadData(@NonNull GFUploadData uploadData) {
         final TaskCompletionSource<ApiCallResult<Void>> sendDataTaskCompletionSource = new TaskCompletionSource<>();
-        activitySourcesService.uploadGoogleFitData(uploadData).enqueue((apiCall, result) -> {
+        // NOTE: the result only completes the task, so there is no need to hop to another thread
+        activitySourcesService.uploadGoogleFitData(uploadData).enqueue(CallbackExecutors.direct(), (call, result) -> {
             if (result.isError()) {
                 Logger.get().d("failed to send GF data: %s", result.getError().getMessage());
                 final CommonException exception =
@@ -389,7 +416,8 @@ public class GFDataManager {
     @NonNull
     private Task<ApiCallResult<Void>> sendGFProfileParams(@NonNull GFSynchronizableProfileParams profileParams) {
         final TaskCompletionSource<ApiCallResult<Void>> sendDataTaskCompletionSource = new TaskCompletionSource<>();
-        activitySourcesService.updateProfileOnBehalfOfGoogleFit(profileParams).enqueue((apiCall, result) -> {
+        final ApiCall<Void> apiCall = activitySourcesService.updateProfileOnBehalfOfGoogleFit(profileParams);
+        apiCall.enqueue(CallbackExecutors.direct(), (call, result) -> {
             if (result.isError()) {
                 Logger.get().d("failed to send the profile data: %s", result.getError().getMessage());
                 final CommonException exception =
@@ -0,0 +1,167 @@
+package com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Date;
+
+import android.annotation.SuppressLint;
+import android.util.Base64;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Compact storage format of intraday and session sync metadata records.<br>
+ * A record is packed into bytes without field names (record type, schema version, edit time and the fields of the
+ * entity) and encoded with Base64 behind the {@link #BINARY_PREFIX} marker. The marker can't be the first character of
+ * a JSON object, so values stored in the legacy JSON format can be recognized and read as before.
+ */
+public final class GFSyncMetadataCodec {
+    static final String BINARY_PREFIX = "~";
+
+    private static final byte CALORIES_RECORD = 1;
+    private static final byte STEPS_RECORD = 2;
+    private static final byte HR_RECORD = 3;
+    private static final byte SESSION_RECORD = 4;
+    private static final int BASE64_FLAGS = Base64.NO_WRAP | Base64.NO_PADDING;
+
+    private GFSyncMetadataCodec() {}
+
+    /**
+     * @return true if the stored value was produced by this codec, false if it's in the legacy JSON format
+     */
+    public static boolean isEncoded(@NonNull String value) {
+        return value.startsWith(BINARY_PREFIX);
+    }
+
+    @SuppressLint("NewApi")
+    @NonNull
+    public static String encode(@NonNull GFSyncEntityMetadata metadata) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        final DataOutputStream output = new DataOutputStream(bytes);
+        try {
+            if (metadata instanceof GFSyncCaloriesMetadata) {
+                final GFSyncCaloriesMetadata calories = (GFSyncCaloriesMetadata) metadata;
+                writeHeader(output, CALORIES_RECORD, calories);
+                output.writeInt((int) calories.getDate().toEpochDay());
+                output.writeInt(calories.getCount());
+                output.writeFloat(calories.getTotalKcals());
+            } else if (metadata instanceof GFSyncStepsMetadata) {
+                final GFSyncStepsMetadata steps = (GFSyncStepsMetadata) metadata;
+                writeHeader(output, STEPS_RECORD, steps);
+                output.writeInt((int) steps.getDate().toEpochDay());
+                output.writeInt(steps.getCount());
+                output.writeInt(steps.getTotalSteps());
+            } else if (metadata instanceof GFSyncHRMetadata) {
+                final GFSyncHRMetadata hr = (GFSyncHRMetadata) metadata;
+                writeHeader(output, HR_RECORD, hr);
+                output.writeInt((int) hr.getDate().toEpochDay());
+                output.writeInt(hr.getCount());
+                output.writeFloat(hr.getSumOfAverages());
+            } else if (metadata instanceof GFSyncSessionMetadata) {
+                final GFSyncSessionMetadata session = (GFSyncSessionMetadata) metadata;
+                writeHeader(output, SESSION_RECORD, session);
+                output.writeUTF(session.getId());
+                writeNullableString(output, session.getName());
+                writeNullableString(output, session.getApplicationIdentifier());
+                output.writeLong(session.getTimeStart().getTime());
+                output.writeLong(session.getTimeEnd().getTime());
+                output.writeInt(session.getType());
+                output.writeInt(session.getActivitySegmentsCount());
+                output.writeInt(session.getCaloriesCount());
+                output.writeInt(session.getStepsCount());
+                output.writeInt(session.getHeartRateCount());
+                output.writeInt(session.getSpeedCount());
+                output.writeInt(session.getPowerCount());
+            } else {
+                throw new IllegalArgumentException("Invalid metadata to encode in the binary format");
+            }
+            output.flush();
+        } catch (IOException e) {
+            // NOTE: writing to the byte array can't fail
+            throw new IllegalStateException(e);
+        }
+        return BINARY_PREFIX + Base64.encodeToString(bytes.toByteArray(), BASE64_FLAGS);
+    }
+
+    /**
+     * Decodes the record produced by {@link #encode(GFSyncEntityMetadata)}.
+     *
+     * @return decoded metadata or null if the value is malformed, belongs to another entity or was written with an
+     *         unknown schema version
+     */
+    @SuppressLint("NewApi")
+    @Nullable
+    public static <T extends GFSyncEntityMetadata> T decode(@NonNull Class<T> tClass, @NonNull String value) {
+        if (!isEncoded(value)) {
+            return null;
+        }
+        try {
+            final byte[] bytes = Base64.decode(value.substring(BINARY_PREFIX.length()), BASE64_FLAGS);
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            final byte recordType = input.readByte();
+            final int schemaVersion = input.readUnsignedByte();
+            final Date editedAt = new Date(input.readLong());
+            final GFSyncEntityMetadata metadata;
+            if (recordType == CALORIES_RECORD && schemaVersion == GFSyncCaloriesMetadata.CURRENT_SCHEMA_VERSION) {
+                final LocalDate date = LocalDate.ofEpochDay(input.readInt());
+                metadata = new GFSyncCaloriesMetadata(input.readInt(), input.readFloat(), date, editedAt);
+            } else if (recordType == STEPS_RECORD && schemaVersion == GFSyncStepsMetadata.CURRENT_SCHEMA_VERSION) {
+                final LocalDate date = LocalDate.ofEpochDay(input.readInt());
+                metadata = new GFSyncStepsMetadata(input.readInt(), input.readInt(), date, editedAt);
+            } else if (recordType == HR_RECORD && schemaVersion == GFSyncHRMetadata.CURRENT_SCHEMA_VERSION) {
+                final LocalDate date = LocalDate.ofEpochDay(input.readInt());
+                metadata = new GFSyncHRMetadata(input.readInt(), input.readFloat(), date, editedAt);
+            } else if (recordType == SESSION_RECORD
+                && schemaVersion == GFSyncSessionMetadata.CURRENT_SCHEMA_VERSION) {
+                final String id = input.readUTF();
+                final String name = readNullableString(input);
+                final String applicationIdentifier = readNullableString(input);
+                final Date timeStart = new Date(input.readLong());
+                final Date timeEnd = new Date(input.readLong());
+                metadata = new GFSyncSessionMetadata(id,
+                    name,
+                    applicationIdentifier,
+                    timeStart,
+                    timeEnd,
+                    input.readInt(),
+                    input.readInt(),
+                    input.readInt(),
+                    input.readInt(),
+                    input.readInt(),
+                    input.readInt(),
+                    input.readInt(),
+                    editedAt);
+            } else {
+                return null;
+            }
+            return tClass.isInstance(metadata) ? tClass.cast(metadata) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeHeader(@NonNull DataOutputStream output,
+        byte recordType,
+        @NonNull GFSyncEntityMetadata metadata) throws IOException {
+        output.writeByte(recordType);
+        output.writeByte(metadata.getSchemaVersion());
+        output.writeLong(metadata.getEditedAt().getTime());
+    }
+
+    private static void writeNullableString(@NonNull DataOutputStream output, @Nullable String value)
+        throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(@NonNull DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+}
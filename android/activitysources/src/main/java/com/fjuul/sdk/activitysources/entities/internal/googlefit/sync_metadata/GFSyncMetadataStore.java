@@ -1,13 +1,17 @@
 package com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TimeZone;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -25,32 +29,30 @@ import com.squareup.moshi.Moshi;
 import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
 
 import android.annotation.SuppressLint;
+import android.util.LruCache;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 public class GFSyncMetadataStore {
+    private static final String KEY_PREFIX = "gf-sync-metadata.";
+    private static final String SESSION_KEY_PREFIX = KEY_PREFIX + "session.";
+    private static final String SESSION_LIST_KEY_PREFIX = KEY_PREFIX + "sessions.";
     private static final String WEIGHT_LOOKUP_KEY = "gf-sync-metadata.weight";
     private static final String HEIGHT_LOOKUP_KEY = "gf-sync-metadata.height";
+    /**
+     * Max number of decoded metadata objects kept in memory. It's enough to hold 30-minute batches of 3 days for
+     * calories and heart rate, 6-hour batches of steps and sessions of the same period.
+     */
+    static final int METADATA_CACHE_SIZE = 512;
+    private static final String LOOKUP_KEYS_VERSION_KEY = "gf-sync-metadata.lookup-keys-version";
+    private static final String CURRENT_LOOKUP_KEYS_VERSION = "2";
+    private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final int MINUTES_PER_DAY = (int) TimeUnit.DAYS.toMinutes(1);
+    // NOTE: intraday batches are aligned in the local time zone, offsets of all time zones are multiple of 15 minutes
+    private static final int LEGACY_BATCH_START_STEP_MINUTES = 15;
 
     private final IStorage storage;
-    private final ThreadLocal<SimpleDateFormat> dateFormatter = new ThreadLocal<SimpleDateFormat>() {
-        @Nullable
-        @Override
-        protected SimpleDateFormat initialValue() {
-            final SimpleDateFormat format = new SimpleDateFormat("'D'dd'T'HH:mm", Locale.US);
-            format.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return format;
-        }
-    };
-    private final ThreadLocal<SimpleDateFormat> sessionListDateFormatter = new ThreadLocal<SimpleDateFormat>() {
-        @Nullable
-        @Override
-        protected SimpleDateFormat initialValue() {
-            final SimpleDateFormat format = new SimpleDateFormat("'D'dd", Locale.US);
-            format.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return format;
-        }
-    };
     private final JsonAdapter<GFSyncCaloriesMetadata> syncCaloriesMetadataJsonAdapter;
     private final JsonAdapter<GFSyncStepsMetadata> syncStepsMetadataJsonAdapter;
     private final JsonAdapter<GFSyncHRMetadata> syncHRMetadataJsonAdapter;
@@ -59,6 +61,13 @@ public class GFSyncMetadataStore {
     private final JsonAdapter<GFSyncWeightMetadata> syncWeightMetadataJsonAdapter;
     private final JsonAdapter<GFSyncHeightMetadata> syncHeightMetadataJsonAdapter;
     private final Clock clock;
+    // NOTE: the cache holds only metadata of intraday batches loaded by the prefetch, and every sync prefetches its
+    // batches again. So the cache never outlives one sync, and writes made by other store instances (e.g. by the
+    // compaction work) or the cleared storage are picked up by the next sync. An empty optional means that there is no
+    // stored metadata by the lookup key.
+    private final LruCache<String, Optional<GFSyncEntityMetadata>> metadataCache =
+        new LruCache<>(METADATA_CACHE_SIZE);
+    private boolean lookupKeysMigrated = false;
 
     @SuppressLint("NewApi")
     public GFSyncMetadataStore(@NonNull IStorage storage) {
@@ -144,45 +153,148 @@ public class GFSyncMetadataStore {
         return !newMetadata.equals(storedMetadata);
     }
 
+    /**
+     * Moves metadata stored by lookup keys of the legacy scheme to the current one. Legacy keys contained only the
+     * day of month and time (e.g. "D10T10:00-D10T11:00"), so the batches of different months overwrote each other.
+     * Current keys are built from epoch minutes and epoch days.<br>
+     * Legacy keys can't be listed, so all possible keys are checked once and the full date is restored from the date
+     * of the stored metadata. The migration runs only once per storage and should be called off the main thread
+     * before any lookup of intraday batches or session lists.
+     */
+    @SuppressLint("NewApi")
+    public synchronized void migrateLegacyLookupKeysIfNeeded() {
+        if (lookupKeysMigrated) {
+            return;
+        }
+        if (!CURRENT_LOOKUP_KEYS_VERSION.equals(storage.get(LOOKUP_KEYS_VERSION_KEY))) {
+            final MetadataTransaction transaction = new MetadataTransaction();
+            // NOTE: durations must be equal to the batch durations used by GFDataManager
+            migrateLegacyIntradayLookupKeys(transaction, GFSyncCaloriesMetadata.class, 30);
+            migrateLegacyIntradayLookupKeys(transaction, GFSyncStepsMetadata.class, 6 * 60);
+            migrateLegacyIntradayLookupKeys(transaction, GFSyncHRMetadata.class, 30);
+            migrateLegacySessionListLookupKeys(transaction);
+            if (!transaction.commit()) {
+                // NOTE: try again on the next sync
+                return;
+            }
+            storage.set(LOOKUP_KEYS_VERSION_KEY, CURRENT_LOOKUP_KEYS_VERSION);
+        }
+        lookupKeysMigrated = true;
+    }
+
+    /**
+     * Removes metadata of intraday batches, session lists and sessions which ended before the threshold. Such metadata
+     * is out of the sync window and will never be looked up again.
+     *
+     * @param threshold time before which metadata is considered stale
+     * @return number of removed entries
+     */
+    @SuppressLint("NewApi")
+    public synchronized int removeSyncMetadataOlderThan(@NonNull Date threshold) {
+        migrateLegacyLookupKeysIfNeeded();
+        final long thresholdEpochMinute = toEpochMinutes(threshold);
+        final long thresholdEpochDay = Math.floorDiv(threshold.getTime(), MILLIS_PER_DAY);
+        final MetadataTransaction transaction = new MetadataTransaction();
+        int removedCount = 0;
+        for (Map.Entry<String, String> entry : storage.getAllByPrefix(KEY_PREFIX).entrySet()) {
+            if (isStaleSyncMetadata(entry.getKey(), entry.getValue(), thresholdEpochMinute, thresholdEpochDay)) {
+                transaction.remove(entry.getKey());
+                removedCount++;
+            }
+        }
+        if (removedCount == 0) {
+            return 0;
+        }
+        return transaction.commit() ? removedCount : 0;
+    }
+
+    /**
+     * Loads metadata of the given calories batches into the memory with one storage read, so subsequent
+     * {@link #isNeededToSyncCaloriesBatch} calls don't touch the storage. Previously loaded metadata of the batches is
+     * replaced with the stored one.
+     */
+    public void prefetchSyncMetadataOfCaloriesBatches(
+        @NonNull List<GFDataPointsBatch<GFCalorieDataPoint>> caloriesBatches) {
+        prefetchSyncMetadataOfIntraday(GFSyncCaloriesMetadata.class, caloriesBatches);
+    }
+
+    /**
+     * Loads metadata of the given steps batches into the memory with one storage read, so subsequent
+     * {@link #isNeededToSyncStepsBatch} calls don't touch the storage. Previously loaded metadata of the batches is
+     * replaced with the stored one.
+     */
+    public void prefetchSyncMetadataOfStepsBatches(@NonNull List<GFDataPointsBatch<GFStepsDataPoint>> stepsBatches) {
+        prefetchSyncMetadataOfIntraday(GFSyncStepsMetadata.class, stepsBatches);
+    }
+
+    /**
+     * Loads metadata of the given heart rate batches into the memory with one storage read, so subsequent
+     * {@link #isNeededToSyncHRBatch} calls don't touch the storage. Previously loaded metadata of the batches is
+     * replaced with the stored one.
+     */
+    public void prefetchSyncMetadataOfHRBatches(@NonNull List<GFDataPointsBatch<GFHRSummaryDataPoint>> hrBatches) {
+        prefetchSyncMetadataOfIntraday(GFSyncHRMetadata.class, hrBatches);
+    }
+
     @SuppressLint("NewApi")
     public void saveSyncMetadataOfCalories(@NonNull GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch) {
         final GFSyncCaloriesMetadata metadata = GFSyncCaloriesMetadata.buildFromBatch(caloriesBatch, clock);
-        final String jsonValue = syncCaloriesMetadataJsonAdapter.toJson(metadata);
+        final String encodedValue = GFSyncMetadataCodec.encode(metadata);
         final String key = buildLookupKeyForIntraday(GFSyncCaloriesMetadata.class,
             caloriesBatch.getStartTime(),
             caloriesBatch.getEndTime());
-        storage.set(key, jsonValue);
+        storage.set(key, encodedValue);
+        updateCachedSyncMetadata(key, metadata);
     }
 
     @SuppressLint("NewApi")
     public void saveSyncMetadataOfSteps(@NonNull GFDataPointsBatch<GFStepsDataPoint> stepsBatch) {
         final GFSyncStepsMetadata metadata = GFSyncStepsMetadata.buildFromBatch(stepsBatch, clock);;
-        final String jsonValue = syncStepsMetadataJsonAdapter.toJson(metadata);
+        final String encodedValue = GFSyncMetadataCodec.encode(metadata);
         final String key =
             buildLookupKeyForIntraday(GFSyncStepsMetadata.class, stepsBatch.getStartTime(), stepsBatch.getEndTime());
-        storage.set(key, jsonValue);
+        storage.set(key, encodedValue);
+        updateCachedSyncMetadata(key, metadata);
     }
 
     @SuppressLint("NewApi")
     public void saveSyncMetadataOfHR(@NonNull GFDataPointsBatch<GFHRSummaryDataPoint> hrBatch) {
         final GFSyncHRMetadata metadata = GFSyncHRMetadata.buildFromBatch(hrBatch, clock);;
-        final String jsonValue = syncHRMetadataJsonAdapter.toJson(metadata);
+        final String encodedValue = GFSyncMetadataCodec.encode(metadata);
         final String key =
             buildLookupKeyForIntraday(GFSyncHRMetadata.class, hrBatch.getStartTime(), hrBatch.getEndTime());
-        storage.set(key, jsonValue);
+        storage.set(key, encodedValue);
+        updateCachedSyncMetadata(key, metadata);
+    }
+
+    /**
+     * Saves metadata of the given intraday batches with a single storage write.
+     */
+    @SuppressLint("NewApi")
+    public void saveSyncMetadataOfIntraday(@NonNull List<GFDataPointsBatch<GFCalorieDataPoint>> caloriesBatches,
+        @NonNull List<GFDataPointsBatch<GFStepsDataPoint>> stepsBatches,
+        @NonNull List<GFDataPointsBatch<GFHRSummaryDataPoint>> hrBatches) {
+        if (caloriesBatches.isEmpty() && stepsBatches.isEmpty() && hrBatches.isEmpty()) {
+            return;
+        }
+        final MetadataTransaction transaction = new MetadataTransaction();
+        caloriesBatches.forEach(batch -> putSyncMetadataOfCalories(transaction, batch));
+        stepsBatches.forEach(batch -> putSyncMetadataOfSteps(transaction, batch));
+        hrBatches.forEach(batch -> putSyncMetadataOfHR(transaction, batch));
+        transaction.commit();
     }
 
     @SuppressLint("NewApi")
     public void saveSyncMetadataOfSessions(@NonNull List<GFSessionBundle> sessionBundles) {
         final Map<String, List<GFSessionBundle>> keyToSessionBundles =
             sessionBundles.stream().collect(Collectors.groupingBy(this::buildLookupKeyForSessionBundleList));
+        final MetadataTransaction transaction = new MetadataTransaction();
 
         keyToSessionBundles.forEach((key, sessionBundleList) -> {
             final GFSyncSessionsMetadata storedMetadata = retrieveSyncMetadataOf(GFSyncSessionsMetadata.class, key);
             final GFSyncSessionsMetadata newMetadata = GFSyncSessionsMetadata.buildFromList(sessionBundleList, clock);
             if (storedMetadata == null) {
-                final String json = syncSessionsMetadataJsonAdapter.toJson(newMetadata);
-                storage.set(key, json);
+                transaction.put(key, syncSessionsMetadataJsonAdapter.toJson(newMetadata), newMetadata);
                 return;
             }
 
@@ -190,10 +302,9 @@ public class GFSyncMetadataStore {
                 // remove previously stored stale session metadata
                 storedMetadata.getIdentifiers().forEach(sessionId -> {
                     final String staleSessionMetadataKey = buildLookupKeyForSessionBundle(sessionId);
-                    storage.set(staleSessionMetadataKey, null);
+                    transaction.remove(staleSessionMetadataKey);
                 });
-                final String json = syncSessionsMetadataJsonAdapter.toJson(newMetadata);
-                storage.set(key, json);
+                transaction.put(key, syncSessionsMetadataJsonAdapter.toJson(newMetadata), newMetadata);
                 return;
             }
 
@@ -203,64 +314,245 @@ public class GFSyncMetadataStore {
                     .collect(Collectors.toList());
             final GFSyncSessionsMetadata mergedMetadata =
                 new GFSyncSessionsMetadata(mergedIdentifiers, newMetadata.getDate(), Date.from(clock.instant()));
-            final String json = syncSessionsMetadataJsonAdapter.toJson(mergedMetadata);
-            storage.set(key, json);
+            transaction.put(key, syncSessionsMetadataJsonAdapter.toJson(mergedMetadata), mergedMetadata);
         });
 
-        sessionBundles.forEach(this::saveSyncMetadataOfSession);
+        sessionBundles.forEach(sessionBundle -> putSyncMetadataOfSession(transaction, sessionBundle));
+        transaction.commit();
     }
 
     @SuppressLint("NewApi")
     public void saveSyncMetadataOfSession(@NonNull GFSessionBundle sessionBundle) {
         final GFSyncSessionMetadata metadata = GFSyncSessionMetadata.buildFromSessionBundle(sessionBundle, clock);;
-        final String jsonValue = syncSessionMetadataJsonAdapter.toJson(metadata);
+        final String encodedValue = GFSyncMetadataCodec.encode(metadata);
         final String key = buildLookupKeyForSessionBundle(sessionBundle);
-        storage.set(key, jsonValue);
+        storage.set(key, encodedValue);
+        updateCachedSyncMetadata(key, metadata);
     }
 
     public void saveSyncMetadataOfWeight(@NonNull GFWeightDataPoint dataPoint) {
         final GFSyncWeightMetadata metadata = GFSyncWeightMetadata.buildFromDataPoint(dataPoint, clock);
         final String jsonValue = syncWeightMetadataJsonAdapter.toJson(metadata);
         storage.set(WEIGHT_LOOKUP_KEY, jsonValue);
+        updateCachedSyncMetadata(WEIGHT_LOOKUP_KEY, metadata);
     }
 
     public void saveSyncMetadataOfHeight(@NonNull GFHeightDataPoint dataPoint) {
         final GFSyncHeightMetadata metadata = GFSyncHeightMetadata.buildFromDataPoint(dataPoint, clock);
         final String jsonValue = syncHeightMetadataJsonAdapter.toJson(metadata);
         storage.set(HEIGHT_LOOKUP_KEY, jsonValue);
+        updateCachedSyncMetadata(HEIGHT_LOOKUP_KEY, metadata);
+    }
+
+    @SuppressLint("NewApi")
+    private void putSyncMetadataOfCalories(@NonNull MetadataTransaction transaction,
+        @NonNull GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch) {
+        final GFSyncCaloriesMetadata metadata = GFSyncCaloriesMetadata.buildFromBatch(caloriesBatch, clock);
+        final String key = buildLookupKeyForIntraday(GFSyncCaloriesMetadata.class,
+            caloriesBatch.getStartTime(),
+            caloriesBatch.getEndTime());
+        transaction.put(key, GFSyncMetadataCodec.encode(metadata), metadata);
+    }
+
+    @SuppressLint("NewApi")
+    private void putSyncMetadataOfSteps(@NonNull MetadataTransaction transaction,
+        @NonNull GFDataPointsBatch<GFStepsDataPoint> stepsBatch) {
+        final GFSyncStepsMetadata metadata = GFSyncStepsMetadata.buildFromBatch(stepsBatch, clock);
+        final String key =
+            buildLookupKeyForIntraday(GFSyncStepsMetadata.class, stepsBatch.getStartTime(), stepsBatch.getEndTime());
+        transaction.put(key, GFSyncMetadataCodec.encode(metadata), metadata);
+    }
+
+    @SuppressLint("NewApi")
+    private void putSyncMetadataOfHR(@NonNull MetadataTransaction transaction,
+        @NonNull GFDataPointsBatch<GFHRSummaryDataPoint> hrBatch) {
+        final GFSyncHRMetadata metadata = GFSyncHRMetadata.buildFromBatch(hrBatch, clock);
+        final String key =
+            buildLookupKeyForIntraday(GFSyncHRMetadata.class, hrBatch.getStartTime(), hrBatch.getEndTime());
+        transaction.put(key, GFSyncMetadataCodec.encode(metadata), metadata);
+    }
+
+    @SuppressLint("NewApi")
+    private void putSyncMetadataOfSession(@NonNull MetadataTransaction transaction,
+        @NonNull GFSessionBundle sessionBundle) {
+        final GFSyncSessionMetadata metadata = GFSyncSessionMetadata.buildFromSessionBundle(sessionBundle, clock);
+        final String key = buildLookupKeyForSessionBundle(sessionBundle);
+        transaction.put(key, GFSyncMetadataCodec.encode(metadata), metadata);
+    }
+
+    @SuppressLint("NewApi")
+    private <T extends GFSyncEntityMetadata> void prefetchSyncMetadataOfIntraday(Class<T> tClass,
+        @NonNull List<? extends GFDataPointsBatch<?>> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        final Map<String, String> storedValues =
+            storage.getAllByPrefix(KEY_PREFIX + getIntradayEntityKey(tClass) + ".");
+        for (GFDataPointsBatch<?> batch : batches) {
+            final String lookupKey = buildLookupKeyForIntraday(tClass, batch.getStartTime(), batch.getEndTime());
+            final String storedValue = storedValues.get(lookupKey);
+            cacheSyncMetadata(lookupKey, storedValue == null ? null : decodeSyncMetadata(tClass, storedValue));
+        }
     }
 
     @Nullable
+    @SuppressLint("NewApi")
     private <T extends GFSyncEntityMetadata> T retrieveSyncMetadataOf(Class<T> tClass, @NonNull String lookupKey) {
-        final String jsonValue = storage.get(lookupKey);
-        if (jsonValue == null) {
+        final Optional<GFSyncEntityMetadata> cachedMetadata = metadataCache.get(lookupKey);
+        if (cachedMetadata != null && (!cachedMetadata.isPresent() || tClass.isInstance(cachedMetadata.get()))) {
+            return cachedMetadata.map(tClass::cast).orElse(null);
+        }
+        return readSyncMetadataOf(tClass, lookupKey);
+    }
+
+    @Nullable
+    private <T extends GFSyncEntityMetadata> T readSyncMetadataOf(Class<T> tClass, @NonNull String lookupKey) {
+        final String storedValue = storage.get(lookupKey);
+        if (storedValue == null) {
             return null;
         }
+        return decodeSyncMetadata(tClass, storedValue);
+    }
+
+    @Nullable
+    private <T extends GFSyncEntityMetadata> T decodeSyncMetadata(Class<T> tClass, @NonNull String storedValue) {
+        if (GFSyncMetadataCodec.isEncoded(storedValue)) {
+            return GFSyncMetadataCodec.decode(tClass, storedValue);
+        }
+        // NOTE: values written before the binary format was introduced are stored as json
         final JsonAdapter<T> jsonAdapter = getJSONAdapterFor(tClass);
         try {
-            return jsonAdapter.fromJson(jsonValue);
+            return jsonAdapter.fromJson(storedValue);
         } catch (IOException e) {
             return null;
         }
     }
 
+    @SuppressLint("NewApi")
+    private <T extends GFSyncDatedEntityMetadata> void migrateLegacyIntradayLookupKeys(
+        @NonNull MetadataTransaction transaction,
+        @NonNull Class<T> tClass,
+        int batchDurationMinutes) {
+        final String entityKey = getIntradayEntityKey(tClass);
+        for (int dayOfMonth = 1; dayOfMonth <= 31; dayOfMonth++) {
+            for (int startMinute = 0; startMinute < MINUTES_PER_DAY; startMinute += LEGACY_BATCH_START_STEP_MINUTES) {
+                final int endMinute = startMinute + batchDurationMinutes;
+                final boolean endsOnNextDay = endMinute >= MINUTES_PER_DAY;
+                // NOTE: the next day may be the first day of the next month
+                final int[] endDaysOfMonth = !endsOnNextDay ? new int[] {dayOfMonth}
+                    : dayOfMonth < 31 ? new int[] {dayOfMonth + 1, 1} : new int[] {1};
+                for (int endDayOfMonth : endDaysOfMonth) {
+                    final String legacyKey = String.format(Locale.US,
+                        "gf-sync-metadata.%s.D%02dT%02d:%02d-D%02dT%02d:%02d",
+                        entityKey,
+                        dayOfMonth,
+                        startMinute / 60,
+                        startMinute % 60,
+                        endDayOfMonth,
+                        (endMinute % MINUTES_PER_DAY) / 60,
+                        endMinute % 60);
+                    final String storedValue = storage.get(legacyKey);
+                    if (storedValue == null) {
+                        continue;
+                    }
+                    transaction.remove(legacyKey);
+                    final T metadata = decodeSyncMetadata(tClass, storedValue);
+                    if (metadata == null || metadata.getDate().getDayOfMonth() != dayOfMonth) {
+                        continue;
+                    }
+                    final ZonedDateTime startTime =
+                        metadata.getDate().atStartOfDay(ZoneOffset.UTC).plusMinutes(startMinute);
+                    final ZonedDateTime endTime = startTime.plusMinutes(batchDurationMinutes);
+                    final String key = buildLookupKeyForIntraday(tClass,
+                        Date.from(startTime.toInstant()),
+                        Date.from(endTime.toInstant()));
+                    if (storage.get(key) == null) {
+                        transaction.put(key, GFSyncMetadataCodec.encode(metadata), metadata);
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressLint("NewApi")
+    private void migrateLegacySessionListLookupKeys(@NonNull MetadataTransaction transaction) {
+        for (int dayOfMonth = 1; dayOfMonth <= 31; dayOfMonth++) {
+            final String legacyKey = String.format(Locale.US, "gf-sync-metadata.sessions.D%02d", dayOfMonth);
+            final String storedValue = storage.get(legacyKey);
+            if (storedValue == null) {
+                continue;
+            }
+            transaction.remove(legacyKey);
+            final GFSyncSessionsMetadata metadata = decodeSyncMetadata(GFSyncSessionsMetadata.class, storedValue);
+            if (metadata == null || metadata.getDate().getDayOfMonth() != dayOfMonth) {
+                continue;
+            }
+            final String key = buildLookupKeyForSessionBundleList(metadata.getDate().toEpochDay());
+            if (storage.get(key) == null) {
+                transaction.put(key, syncSessionsMetadataJsonAdapter.toJson(metadata), metadata);
+            }
+        }
+    }
+
+    private boolean isStaleSyncMetadata(@NonNull String key,
+        @NonNull String storedValue,
+        long thresholdEpochMinute,
+        long thresholdEpochDay) {
+        try {
+            if (key.startsWith(SESSION_LIST_KEY_PREFIX)) {
+                return Long.parseLong(key.substring(SESSION_LIST_KEY_PREFIX.length())) < thresholdEpochDay;
+            }
+            if (key.startsWith(SESSION_KEY_PREFIX)) {
+                final GFSyncSessionMetadata metadata = decodeSyncMetadata(GFSyncSessionMetadata.class, storedValue);
+                // NOTE: metadata which can't be decoded is useless
+                return metadata == null || toEpochMinutes(metadata.getTimeEnd()) < thresholdEpochMinute;
+            }
+            for (Class<? extends GFSyncDatedEntityMetadata> tClass : Arrays
+                .asList(GFSyncCaloriesMetadata.class, GFSyncStepsMetadata.class, GFSyncHRMetadata.class)) {
+                final String intradayKeyPrefix = KEY_PREFIX + getIntradayEntityKey(tClass) + ".";
+                if (key.startsWith(intradayKeyPrefix)) {
+                    final String endEpochMinute = key.substring(key.lastIndexOf('-') + 1);
+                    return Long.parseLong(endEpochMinute) < thresholdEpochMinute;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // NOTE: the key doesn't belong to the current scheme, leave it as is
+        }
+        return false;
+    }
+
+    @SuppressLint("NewApi")
+    private void cacheSyncMetadata(@NonNull String lookupKey, @Nullable GFSyncEntityMetadata metadata) {
+        metadataCache.put(lookupKey, Optional.ofNullable(metadata));
+    }
+
+    /**
+     * Replaces the cached metadata with the written one. Metadata which wasn't prefetched is not cached, so its lookups
+     * keep reading the storage.
+     */
+    private void updateCachedSyncMetadata(@NonNull String lookupKey, @Nullable GFSyncEntityMetadata metadata) {
+        if (metadataCache.get(lookupKey) != null) {
+            cacheSyncMetadata(lookupKey, metadata);
+        }
+    }
+
     private <T extends GFSyncEntityMetadata> String buildLookupKeyForIntraday(Class<T> tClass,
         Date startTime,
         Date endTime) {
-        String entityKey = null;
+        return KEY_PREFIX + getIntradayEntityKey(tClass) + "." + toEpochMinutes(startTime) + "-"
+            + toEpochMinutes(endTime);
+    }
+
+    private <T extends GFSyncEntityMetadata> String getIntradayEntityKey(Class<T> tClass) {
         if (tClass == GFSyncStepsMetadata.class) {
-            entityKey = "steps";
+            return "steps";
         } else if (tClass == GFSyncCaloriesMetadata.class) {
-            entityKey = "calories";
+            return "calories";
         } else if (tClass == GFSyncHRMetadata.class) {
-            entityKey = "hr";
+            return "hr";
         } else {
             throw new IllegalArgumentException("Invalid class to evaluate the metadata key");
         }
-        return String.format("gf-sync-metadata.%s.%s-%s",
-            entityKey,
-            dateFormatter.get().format(startTime),
-            dateFormatter.get().format(endTime));
     }
 
     private String buildLookupKeyForSessionBundle(GFSessionBundle sessionBundle) {
@@ -268,12 +560,20 @@ public class GFSyncMetadataStore {
     }
 
     private String buildLookupKeyForSessionBundle(String sessionId) {
-        return String.format("gf-sync-metadata.session.%s", sessionId);
+        return SESSION_KEY_PREFIX + sessionId;
     }
 
     private String buildLookupKeyForSessionBundleList(GFSessionBundle sessionBundle) {
-        String monthDay = sessionListDateFormatter.get().format(sessionBundle.getTimeStart());
-        return String.format("gf-sync-metadata.sessions.%s", monthDay);
+        final long epochDay = Math.floorDiv(sessionBundle.getTimeStart().getTime(), MILLIS_PER_DAY);
+        return buildLookupKeyForSessionBundleList(epochDay);
+    }
+
+    private String buildLookupKeyForSessionBundleList(long epochDay) {
+        return SESSION_LIST_KEY_PREFIX + epochDay;
+    }
+
+    private static long toEpochMinutes(@NonNull Date date) {
+        return Math.floorDiv(date.getTime(), MILLIS_PER_MINUTE);
     }
 
     private <T extends GFSyncEntityMetadata> JsonAdapter<T> getJSONAdapterFor(Class<T> tClass) {
@@ -295,4 +595,38 @@ public class GFSyncMetadataStore {
             throw new IllegalArgumentException("Invalid class to identify the json adapter");
         }
     }
+
+    /**
+     * Storage transaction which keeps the in-memory cache consistent with the stored metadata once it's committed.
+     * Written metadata replaces the prefetched one, so the batches uploaded by the current sync are not looked up in
+     * the storage.
+     */
+    private class MetadataTransaction {
+        private final IStorage.Transaction transaction = storage.beginTransaction();
+        private final Map<String, GFSyncEntityMetadata> changes = new HashMap<>();
+
+        void put(@NonNull String key, @NonNull String value, @NonNull GFSyncEntityMetadata metadata) {
+            transaction.put(key, value);
+            changes.put(key, metadata);
+        }
+
+        void remove(@NonNull String key) {
+            transaction.remove(key);
+            changes.put(key, null);
+        }
+
+        @SuppressLint("NewApi")
+        boolean commit() {
+            final boolean committed = transaction.commit();
+            changes.forEach((key, metadata) -> {
+                if (committed) {
+                    updateCachedSyncMetadata(key, metadata);
+                } else {
+                    // NOTE: the state of the storage is unknown, so the next lookup will read it again
+                    metadataCache.remove(key);
+                }
+            });
+            return committed;
+        }
+    }
 }
@@ -59,6 +59,59 @@ class GFSyncSessionMetadata extends GFSyncEntityMetadata {
         this.powerCount = powerCount;
     }
 
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    @Nullable
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public String getApplicationIdentifier() {
+        return applicationIdentifier;
+    }
+
+    @NonNull
+    public Date getTimeStart() {
+        return timeStart;
+    }
+
+    @NonNull
+    public Date getTimeEnd() {
+        return timeEnd;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getActivitySegmentsCount() {
+        return activitySegmentsCount;
+    }
+
+    public int getCaloriesCount() {
+        return caloriesCount;
+    }
+
+    public int getStepsCount() {
+        return stepsCount;
+    }
+
+    public int getHeartRateCount() {
+        return heartRateCount;
+    }
+
+    public int getSpeedCount() {
+        return speedCount;
+    }
+
+    public int getPowerCount() {
+        return powerCount;
+    }
+
     @SuppressLint("NewApi")
     static public GFSyncSessionMetadata buildFromSessionBundle(@NonNull GFSessionBundle sessionBundle,
         @NonNull Clock clock) {
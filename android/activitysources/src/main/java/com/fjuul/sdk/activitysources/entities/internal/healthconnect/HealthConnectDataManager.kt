@@ -22,6 +22,7 @@ import com.fjuul.sdk.activitysources.entities.FitnessMetricsType
 import com.fjuul.sdk.activitysources.http.services.ActivitySourcesService
 import com.fjuul.sdk.activitysources.utils.roundTo
 import com.fjuul.sdk.core.entities.IStorage
+import com.fjuul.sdk.core.http.utils.await
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
@@ -572,7 +573,7 @@ class HealthConnectDataManager(
      *
      * @param buckets list of updated buckets
      */
-    private fun uploadIntradayBuckets(buckets: List<AggregationResultGroupedByDuration>) {
+    private suspend fun uploadIntradayBuckets(buckets: List<AggregationResultGroupedByDuration>) {
         // Group by date and upload
         buckets
             .toSet()
@@ -627,14 +628,7 @@ class HealthConnectDataManager(
 
                     // Upload and check for errors
                     service.uploadHealthConnectIntraday(payload)
-                        .execute()
-                        .let {
-                            if (it.isError) {
-                                it.error?.let { error ->
-                                    throw error
-                                }
-                            }
-                        }
+                        .await()
                 }
 
             }
@@ -679,7 +673,7 @@ class HealthConnectDataManager(
      * @param buckets contains buckets that we need to upload
      * @param onSuccess callback when upload did successful
      */
-    private fun uploadDailyBucketsByPeriod(
+    private suspend fun uploadDailyBucketsByPeriod(
         buckets: List<AggregationResultGroupedByPeriod>,
         onSuccess: () -> Unit,
     ) {
@@ -708,14 +702,7 @@ class HealthConnectDataManager(
 
         if (entries.isNotEmpty()) {
             service.uploadHealthConnectDailies(HealthConnectDailiesPayload(entries))
-                .execute()
-                .let {
-                    if (it.isError) {
-                        it.error?.let { error ->
-                            throw error
-                        }
-                    }
-                }
+                .await()
         }
 
         onSuccess()
@@ -827,18 +814,13 @@ class HealthConnectDataManager(
             service.uploadHealthConnectProfile(
                 HealthConnectProfilePayload(height = latestHeightCm, weight = latestWeightKg)
             )
-                .execute()
-                .let {
-                    if (it.isError) {
-                        it.error?.let { error ->
-                            throw error
-                        }
-                    }
-                }
+                .await()
         }
 
-        storage.set(HEIGHT_CHANGES_TOKEN, heightChangesToken)
-        storage.set(WEIGHT_CHANGES_TOKEN, weightChangesToken)
+        storage.beginTransaction()
+            .put(HEIGHT_CHANGES_TOKEN, heightChangesToken)
+            .put(WEIGHT_CHANGES_TOKEN, weightChangesToken)
+            .commit()
     }
 
     private suspend fun makeFullHeightSync(
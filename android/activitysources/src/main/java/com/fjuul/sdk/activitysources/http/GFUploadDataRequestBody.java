@@ -0,0 +1,48 @@
+package com.fjuul.sdk.activitysources.http;
+
+import java.io.IOException;
+
+import com.fjuul.sdk.activitysources.adapters.GFUploadDataJsonAdapter;
+import com.fjuul.sdk.activitysources.entities.internal.GFUploadData;
+import com.squareup.moshi.JsonWriter;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body which serializes the upload data to json directly into the sink every time it's written, so the json
+ * isn't kept in the memory besides the buffers of the http stack.
+ */
+public class GFUploadDataRequestBody extends RequestBody {
+    private static final MediaType MEDIA_TYPE = MediaType.get("application/json; charset=UTF-8");
+    private static final GFUploadDataJsonAdapter JSON_ADAPTER = new GFUploadDataJsonAdapter();
+
+    @NonNull
+    private final GFUploadData uploadData;
+
+    public GFUploadDataRequestBody(@NonNull GFUploadData uploadData) {
+        this.uploadData = uploadData;
+    }
+
+    @NonNull
+    public GFUploadData getUploadData() {
+        return uploadData;
+    }
+
+    @SuppressLint("UnknownNullness")
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        final JsonWriter writer = JsonWriter.of(sink);
+        JSON_ADAPTER.toJson(writer, uploadData);
+        // NOTE: the writer isn't closed because it would close the sink owned by the caller
+        writer.flush();
+    }
+}
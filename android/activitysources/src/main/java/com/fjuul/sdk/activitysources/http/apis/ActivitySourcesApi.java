@@ -4,14 +4,15 @@ import java.util.Map;
 
 import com.fjuul.sdk.activitysources.entities.TrackerConnection;
 import com.fjuul.sdk.activitysources.entities.internal.GFSynchronizableProfileParams;
-import com.fjuul.sdk.activitysources.entities.internal.GFUploadData;
 import com.fjuul.sdk.activitysources.entities.internal.healthconnect.HealthConnectDailiesPayload;
 import com.fjuul.sdk.activitysources.entities.internal.healthconnect.HealthConnectIntradayPayload;
 import com.fjuul.sdk.activitysources.entities.internal.healthconnect.HealthConnectProfilePayload;
 import com.fjuul.sdk.core.http.utils.ApiCall;
+import com.fjuul.sdk.core.http.utils.Retryable;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
@@ -41,7 +42,8 @@ public interface ActivitySourcesApi {
 
     @NonNull
     @POST("/sdk/activity-sources/v1/{userToken}/googlefit")
-    ApiCall<Void> uploadGoogleFitData(@Path("userToken") @NonNull String userToken, @Body @NonNull GFUploadData data);
+    @Retryable
+    ApiCall<Void> uploadGoogleFitData(@Path("userToken") @NonNull String userToken, @Body @NonNull RequestBody data);
 
     @PUT("/sdk/activity-sources/v1/{userToken}/googlefit/profile")
     @NonNull
@@ -49,11 +51,13 @@ public interface ActivitySourcesApi {
         @Body @NonNull GFSynchronizableProfileParams params);
 
     @POST("/sdk/activity-sources/v1/{userToken}/healthconnect")
+    @Retryable
     @NonNull
     ApiCall<Void> uploadHealthConnectIntraday(@Path("userToken") @NonNull String userToken,
         @Body @NonNull HealthConnectIntradayPayload data);
 
     @POST("/sdk/activity-sources/v1/{userToken}/healthconnect/dailies")
+    @Retryable
     @NonNull
     ApiCall<Void> uploadHealthConnectDailies(@Path("userToken") @NonNull String userToken,
         @Body @NonNull HealthConnectDailiesPayload data);
@@ -4,7 +4,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
-import com.fjuul.sdk.activitysources.adapters.GFUploadDataJsonAdapter;
 import com.fjuul.sdk.activitysources.entities.ConnectionResult;
 import com.fjuul.sdk.activitysources.entities.TrackerConnection;
 import com.fjuul.sdk.activitysources.entities.internal.GFSynchronizableProfileParams;
@@ -14,18 +13,17 @@ import com.fjuul.sdk.activitysources.entities.internal.healthconnect.HealthConne
 import com.fjuul.sdk.activitysources.entities.internal.healthconnect.HealthConnectProfilePayload;
 import com.fjuul.sdk.activitysources.exceptions.ActivitySourcesApiExceptions;
 import com.fjuul.sdk.activitysources.http.ActivitySourcesApiResponseTransformer;
+import com.fjuul.sdk.activitysources.http.GFUploadDataRequestBody;
 import com.fjuul.sdk.activitysources.http.apis.ActivitySourcesApi;
 import com.fjuul.sdk.core.ApiClient;
 import com.fjuul.sdk.core.http.utils.ApiCall;
 import com.fjuul.sdk.core.http.utils.ApiCallAdapterFactory;
-import com.fjuul.sdk.core.utils.Logger;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
 import com.squareup.moshi.kotlin.reflect.KotlinJsonAdapterFactory;
 
 import androidx.annotation.NonNull;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.moshi.MoshiConverterFactory;
 
@@ -48,18 +46,14 @@ public class ActivitySourcesService {
      */
     public ActivitySourcesService(@NonNull ApiClient client) {
         this.clientBuilder = client;
-        HttpLoggingInterceptor logging =
-            new HttpLoggingInterceptor(message -> Logger.get().d("HTTP LOGS: %s", message));
-        logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-        OkHttpClient httpClient = client.buildSigningClient().newBuilder().addInterceptor(logging).build();
+        OkHttpClient httpClient = client.buildSigningClient();
         Moshi moshi = new Moshi.Builder().add(Date.class, new Rfc3339DateJsonAdapter())
-            .add(new GFUploadDataJsonAdapter())
             .add(new KotlinJsonAdapterFactory())
             .build();
         ActivitySourcesApiResponseTransformer responseTransformer = new ActivitySourcesApiResponseTransformer();
         Retrofit retrofit = new Retrofit.Builder().baseUrl(client.getBaseUrl())
             .client(httpClient)
-            .addCallAdapterFactory(ApiCallAdapterFactory.create(responseTransformer))
+            .addCallAdapterFactory(ApiCallAdapterFactory.create(responseTransformer, client.getCallbackExecutor()))
             .addConverterFactory(MoshiConverterFactory.create(moshi))
             .build();
         apiClient = retrofit.create(ActivitySourcesApi.class);
@@ -125,7 +119,7 @@ public class ActivitySourcesService {
     @Deprecated(since = "2.0")
     @NonNull
     public ApiCall<Void> uploadGoogleFitData(@NonNull GFUploadData dataToUpload) {
-        return apiClient.uploadGoogleFitData(clientBuilder.getUserToken(), dataToUpload);
+        return apiClient.uploadGoogleFitData(clientBuilder.getUserToken(), new GFUploadDataRequestBody(dataToUpload));
     }
 
     /**
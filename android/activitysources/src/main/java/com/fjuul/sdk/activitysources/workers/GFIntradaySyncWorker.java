@@ -46,6 +46,7 @@ public class GFIntradaySyncWorker extends GFSyncWorker {
         }));
         try {
             Tasks.await(taskCompletionSource.getTask());
+            scheduleDailyStatsPrefetch();
             return Result.success();
         } catch (ExecutionException exception) {
             Exception originCause = (Exception) exception.getCause();
@@ -0,0 +1,48 @@
+package com.fjuul.sdk.activitysources.workers;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncMetadataStore;
+import com.fjuul.sdk.core.ApiClient;
+import com.fjuul.sdk.core.entities.IStorage;
+import com.fjuul.sdk.core.entities.UserCredentials;
+import com.fjuul.sdk.core.utils.Logger;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Drops the sync metadata which is out of the maximum sync window of Google Fit and can't be looked up anymore.
+ */
+public class GFSyncMetadataCompactionWorker extends Worker {
+    // NOTE: the max sync window is one month; one more day covers shifts of the user's time zone
+    static final long RETENTION_PERIOD_DAYS = 32;
+
+    public GFSyncMetadataCompactionWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        final String userToken = getInputData().getString(GFSyncWorker.KEY_USER_TOKEN_ARG);
+        final String userSecret = getInputData().getString(GFSyncWorker.KEY_USER_SECRET_ARG);
+        final String apiKey = getInputData().getString(GFSyncWorker.KEY_API_KEY_ARG);
+        final String baseUrl = getInputData().getString(GFSyncWorker.KEY_BASE_URL_ARG);
+        if (userToken == null || userSecret == null || apiKey == null || baseUrl == null) {
+            return Result.failure();
+        }
+        final ApiClient client = new ApiClient.Builder(getApplicationContext(), baseUrl, apiKey)
+            .setUserCredentials(new UserCredentials(userToken, userSecret))
+            .build();
+        final IStorage storage = client.getStorage();
+        final Date threshold = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(RETENTION_PERIOD_DAYS));
+        Logger.get().d("compacting gf sync metadata older than %s, %s", threshold, storage.getStats());
+        final int removedCount = new GFSyncMetadataStore(storage).removeSyncMetadataOlderThan(threshold);
+        Logger.get().d("removed %d gf sync metadata entries, %s", removedCount, storage.getStats());
+        return Result.success();
+    }
+}
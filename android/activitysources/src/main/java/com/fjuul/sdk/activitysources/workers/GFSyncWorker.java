@@ -7,8 +7,11 @@ import com.fjuul.sdk.activitysources.entities.ActivitySourceConnection;
 import com.fjuul.sdk.activitysources.entities.ActivitySourcesManager;
 import com.fjuul.sdk.activitysources.entities.ActivitySourcesManagerConfig;
 import com.fjuul.sdk.activitysources.entities.GoogleFitActivitySource;
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsPrefetchWorkScheduler;
 import com.fjuul.sdk.core.ApiClient;
 import com.fjuul.sdk.core.entities.UserCredentials;
+import com.fjuul.sdk.core.http.utils.RetryPolicy;
+import com.fjuul.sdk.core.http.utils.RetryPolicyArgs;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
@@ -22,6 +25,7 @@ public abstract class GFSyncWorker extends Worker {
     public static final String KEY_USER_SECRET_ARG = "USER_SECRET";
     public static final String KEY_API_KEY_ARG = "API_KEY";
     public static final String KEY_BASE_URL_ARG = "BASE_URL";
+    public static final String KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG = "REQUEST_COMPRESSION_MIN_BYTES";
 
     public GFSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
@@ -40,9 +44,17 @@ public abstract class GFSyncWorker extends Worker {
             final String userSecret = getInputData().getString(KEY_USER_SECRET_ARG);
             final String apiKey = getInputData().getString(KEY_API_KEY_ARG);
             final String baseUrl = getInputData().getString(KEY_BASE_URL_ARG);
-            final ApiClient client = new ApiClient.Builder(getApplicationContext(), baseUrl, apiKey)
-                .setUserCredentials(new UserCredentials(userToken, userSecret))
-                .build();
+            final ApiClient.Builder clientBuilder = new ApiClient.Builder(getApplicationContext(), baseUrl, apiKey)
+                .setUserCredentials(new UserCredentials(userToken, userSecret));
+            final long requestCompressionMinBytes = getInputData().getLong(KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG, -1);
+            if (requestCompressionMinBytes >= 0) {
+                clientBuilder.setRequestCompression(requestCompressionMinBytes);
+            }
+            final RetryPolicy retryPolicy = RetryPolicyArgs.fromArgs(getInputData().getKeyValueMap());
+            if (retryPolicy != null) {
+                clientBuilder.setRetryPolicy(retryPolicy);
+            }
+            final ApiClient client = clientBuilder.build();
             // NOTE: here we build the config with the untouched mode because we don't want to reset
             // previously scheduled periodic gf sync works.
             // NOTE: the empty set is a workaround to initialize the sources manager from background workers.
@@ -58,6 +70,13 @@ public abstract class GFSyncWorker extends Worker {
         return sourcesManager;
     }
 
+    /**
+     * Schedules the prefetch of daily stats if it's enabled, as the uploaded data changes stats of recent days.
+     */
+    protected void scheduleDailyStatsPrefetch() {
+        DailyStatsPrefetchWorkScheduler.schedulePrefetchWork(getApplicationContext(), getInputData());
+    }
+
     @SuppressLint("NewApi")
     @Nullable
     protected static ActivitySourceConnection getGoogleFitActivitySourceConnection(
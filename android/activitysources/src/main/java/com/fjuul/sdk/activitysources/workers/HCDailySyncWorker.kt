@@ -33,6 +33,7 @@ class HCDailySyncWorker(context: Context, workerParams: WorkerParameters) :
             }
             try {
                 Tasks.await<Void?>(taskCompletionSource.getTask())
+                scheduleDailyStatsPrefetch()
                 return Result.success()
             } catch (_: Exception) {
             }
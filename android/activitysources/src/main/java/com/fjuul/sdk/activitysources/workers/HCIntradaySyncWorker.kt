@@ -33,6 +33,7 @@ class HCIntradaySyncWorker(context: Context, workerParams: WorkerParameters) :
 
             try {
                 Tasks.await<Void?>(taskCompletionSource.getTask())
+                scheduleDailyStatsPrefetch()
                 return Result.success()
             } catch (e: Exception) {
                 Logger.get().e(e, "Exception during intraday sync")
@@ -8,8 +8,10 @@ import com.fjuul.sdk.activitysources.entities.ActivitySourcesManager
 import com.fjuul.sdk.activitysources.entities.ActivitySourcesManagerConfig
 import com.fjuul.sdk.activitysources.entities.FitnessMetricsType
 import com.fjuul.sdk.activitysources.entities.HealthConnectActivitySource
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsPrefetchWorkScheduler
 import com.fjuul.sdk.core.ApiClient
 import com.fjuul.sdk.core.entities.UserCredentials
+import com.fjuul.sdk.core.http.utils.RetryPolicyArgs
 
 abstract class HCSyncWorker(context: Context, workerParams: WorkerParameters) :
     CoroutineWorker(context, workerParams) {
@@ -24,9 +26,14 @@ abstract class HCSyncWorker(context: Context, workerParams: WorkerParameters) :
                 val userSecret = inputData.getString(KEY_USER_SECRET_ARG) ?: EMPTY
                 val apiKey = inputData.getString(KEY_API_KEY_ARG) ?: EMPTY
                 val baseUrl = inputData.getString(KEY_BASE_URL_ARG) ?: EMPTY
-                val client = ApiClient.Builder(applicationContext, baseUrl, apiKey)
+                val clientBuilder = ApiClient.Builder(applicationContext, baseUrl, apiKey)
                     .setUserCredentials(UserCredentials(userToken, userSecret))
-                    .build()
+                val requestCompressionMinBytes = inputData.getLong(KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG, -1)
+                if (requestCompressionMinBytes >= 0) {
+                    clientBuilder.setRequestCompression(requestCompressionMinBytes)
+                }
+                RetryPolicyArgs.fromArgs(inputData.keyValueMap)?.let { clientBuilder.setRetryPolicy(it) }
+                val client = clientBuilder.build()
                 val config =
                     ActivitySourcesManagerConfig.Builder().keepUntouchedBackgroundSync()
                         .setCollectableFitnessMetrics(mutableSetOf<FitnessMetricsType>())
@@ -37,6 +44,10 @@ abstract class HCSyncWorker(context: Context, workerParams: WorkerParameters) :
             return sourcesManager
         }
 
+    protected fun scheduleDailyStatsPrefetch() {
+        DailyStatsPrefetchWorkScheduler.schedulePrefetchWork(applicationContext, inputData)
+    }
+
     protected fun getHealthConnectActivitySourceConnection(
         manager: ActivitySourcesManager
     ): ActivitySourceConnection? {
@@ -52,6 +63,7 @@ abstract class HCSyncWorker(context: Context, workerParams: WorkerParameters) :
         const val KEY_USER_SECRET_ARG: String = "USER_SECRET"
         const val KEY_API_KEY_ARG: String = "API_KEY"
         const val KEY_BASE_URL_ARG: String = "BASE_URL"
+        const val KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG: String = "REQUEST_COMPRESSION_MIN_BYTES"
         const val EMPTY: String = ""
     }
 }
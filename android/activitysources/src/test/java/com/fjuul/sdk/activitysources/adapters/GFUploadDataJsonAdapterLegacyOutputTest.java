@@ -0,0 +1,187 @@
+package com.fjuul.sdk.activitysources.adapters;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.activitysources.entities.internal.GFUploadData;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFActivitySegmentDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFCalorieDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFHRDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFHRSummaryDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFPowerDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFScalarDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFSessionBundle;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFSpeedDataPoint;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFStepsDataPoint;
+import com.fjuul.sdk.activitysources.http.GFUploadDataRequestBody;
+import com.fjuul.sdk.activitysources.json.GFUploadDataJson;
+import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFInstantMeasureSampleEntryJson;
+import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFIntradayHRSampleEntryJson;
+import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFIntradaySampleEntryJson;
+import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFSampleEntryJson;
+import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFSampleJson;
+import com.fjuul.sdk.activitysources.json.GFUploadDataJson.GFSessionJson;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.ToJson;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+
+import android.os.Build;
+import okio.Buffer;
+
+/**
+ * Checks that the streaming json adapter of the upload data produces the same bytes as the legacy adapter which mapped
+ * the data to the graph of json entities before the reflective serialization.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class GFUploadDataJsonAdapterLegacyOutputTest {
+    private static final int BACKFILL_DAYS = 2;
+    private static final String[] INTRADAY_DATA_SOURCES =
+        {"derived:com.google.calories.expended:com.google.android.gms", "raw:com.google.heart_rate.bpm:com.mc.miband2",
+            null};
+
+    /**
+     * The adapter which was used before the streaming one.
+     */
+    static class LegacyGFUploadDataJsonAdapter {
+        @ToJson
+        GFUploadDataJson toJson(GFUploadData uploadData) {
+            return new GFUploadDataJson(groupAndMap(uploadData.getCaloriesData(), this::mapToIntradayEntry),
+                groupAndMap(uploadData.getStepsData(), this::mapToIntradayEntry),
+                groupAndMap(uploadData.getHrData(),
+                    point -> new GFIntradayHRSampleEntryJson(point.getStart(),
+                        point.getAvg(),
+                        point.getMin(),
+                        point.getMax())),
+                uploadData.getSessionsData().stream().map(this::mapSessionToJson).collect(Collectors.toList()));
+        }
+
+        <T extends GFDataPoint, O> List<GFSampleJson<O>> groupAndMap(List<T> dataPoints, Function<T, O> pointMapper) {
+            final Map<Optional<String>, List<T>> groupedByDataSource =
+                dataPoints.stream().collect(Collectors.groupingBy(point -> Optional.ofNullable(point.getDataSource())));
+            return groupedByDataSource.entrySet()
+                .stream()
+                .map(entry -> new GFSampleJson<>(entry.getKey().orElse(null),
+                    entry.getValue().stream().map(pointMapper).collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        }
+
+        GFSessionJson mapSessionToJson(GFSessionBundle session) {
+            return new GFSessionJson(session.getId(),
+                session.getName(),
+                session.getApplicationIdentifier(),
+                session.getTimeStart(),
+                session.getTimeEnd(),
+                session.getType(),
+                groupAndMap(session.getActivitySegments(), this::mapToSampleEntry),
+                groupAndMap(session.getCalories(), this::mapToSampleEntry),
+                groupAndMap(session.getSteps(), this::mapToSampleEntry),
+                groupAndMap(session.getSpeed(), this::mapToInstantMeasureEntry),
+                groupAndMap(session.getHeartRate(), this::mapToInstantMeasureEntry),
+                groupAndMap(session.getPower(), this::mapToInstantMeasureEntry));
+        }
+
+        <T extends Number> GFIntradaySampleEntryJson<T> mapToIntradayEntry(GFScalarDataPoint<T> point) {
+            return new GFIntradaySampleEntryJson<>(point.getStart(), point.getValue());
+        }
+
+        <T extends Number> GFSampleEntryJson<T> mapToSampleEntry(GFScalarDataPoint<T> point) {
+            return new GFSampleEntryJson<>(point.getStart(), point.getEnd(), point.getValue());
+        }
+
+        <T extends Number> GFInstantMeasureSampleEntryJson<T> mapToInstantMeasureEntry(GFScalarDataPoint<T> point) {
+            return new GFInstantMeasureSampleEntryJson<>(point.getStart(), point.getValue());
+        }
+    }
+
+    static GFUploadData buildBackfillUploadData(int days) {
+        final Random random = new Random(42);
+        final long start = 1_600_000_000_000L;
+        final long minute = TimeUnit.MINUTES.toMillis(1);
+        final List<GFCalorieDataPoint> calories = new ArrayList<>();
+        final List<GFStepsDataPoint> steps = new ArrayList<>();
+        final List<GFHRSummaryDataPoint> hr = new ArrayList<>();
+        for (int i = 0; i < days * 24 * 60; i++) {
+            final Date pointStart = new Date(start + i * minute);
+            final Date pointEnd = new Date(start + (i + 1) * minute);
+            final String dataSource = INTRADAY_DATA_SOURCES[(i / 90) % INTRADAY_DATA_SOURCES.length];
+            calories.add(new GFCalorieDataPoint(1 + random.nextFloat() * 3, pointStart, pointEnd, dataSource));
+            steps.add(new GFStepsDataPoint(random.nextInt(120), pointStart, pointEnd, dataSource));
+            final float min = 55 + random.nextInt(40);
+            hr.add(new GFHRSummaryDataPoint(min + random.nextFloat() * 5, min, min + 5, pointStart, dataSource));
+        }
+        final List<GFSessionBundle> sessions = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            final long sessionStart = start + TimeUnit.DAYS.toMillis(day);
+            final List<GFHRDataPoint> heartRate = new ArrayList<>();
+            final List<GFSpeedDataPoint> speed = new ArrayList<>();
+            final List<GFPowerDataPoint> power = new ArrayList<>();
+            // NOTE: an hour-long session with samples every 5 seconds
+            for (int second = 0; second < 3600; second += 5) {
+                final Date timestamp = new Date(sessionStart + TimeUnit.SECONDS.toMillis(second));
+                heartRate.add(new GFHRDataPoint(120 + random.nextFloat() * 40, timestamp, "raw:hr:com.mc.miband2"));
+                speed.add(new GFSpeedDataPoint(random.nextFloat() * 4, timestamp, "raw:distance:com.mc.miband2"));
+                power.add(new GFPowerDataPoint(random.nextFloat() * 300, timestamp, "raw:power:com.mc.miband2"));
+            }
+            final Date timeStart = new Date(sessionStart);
+            final Date timeEnd = new Date(sessionStart + TimeUnit.HOURS.toMillis(1));
+            sessions.add(new GFSessionBundle.Builder().setId("session-" + day)
+                .setName(day % 2 == 0 ? "Morning run" : null)
+                .setApplicationIdentifier("com.mc.miband2")
+                .setTimeStart(timeStart)
+                .setTimeEnd(timeEnd)
+                .setActivityType("running")
+                .setType(8)
+                .setActivitySegments(
+                    Collections.singletonList(new GFActivitySegmentDataPoint(8, timeStart, timeEnd, "raw:segments")))
+                .setCalories(
+                    Collections.singletonList(new GFCalorieDataPoint(512.4f, timeStart, timeEnd, "raw:calories")))
+                .setSteps(Collections.singletonList(new GFStepsDataPoint(9120, timeStart, timeEnd, "raw:steps")))
+                .setHeartRate(heartRate)
+                .setSpeed(speed)
+                .setPower(power)
+                .build());
+        }
+        final GFUploadData uploadData = new GFUploadData();
+        uploadData.setCaloriesData(calories);
+        uploadData.setStepsData(steps);
+        uploadData.setHrData(hr);
+        uploadData.setSessionsData(sessions);
+        return uploadData;
+    }
+
+    @Test
+    public void toJson_backfill_producesSameJsonAsLegacyAdapter() throws IOException {
+        final JsonAdapter<GFUploadData> legacyAdapter =
+            new Moshi.Builder().add(Date.class, new Rfc3339DateJsonAdapter())
+                .add(new LegacyGFUploadDataJsonAdapter())
+                .build()
+                .adapter(GFUploadData.class);
+        final GFUploadData uploadData = buildBackfillUploadData(BACKFILL_DAYS);
+        final GFUploadDataRequestBody requestBody = new GFUploadDataRequestBody(uploadData);
+
+        final Buffer legacyJson = new Buffer();
+        legacyAdapter.toJson(legacyJson, uploadData);
+        final Buffer streamedJson = new Buffer();
+        requestBody.writeTo(streamedJson);
+        assertEquals("produces the same json", legacyJson.snapshot(), streamedJson.snapshot());
+    }
+}
@@ -45,6 +45,7 @@ import com.fjuul.sdk.core.exceptions.ApiExceptions;
 import com.fjuul.sdk.core.http.utils.ApiCall;
 import com.fjuul.sdk.core.http.utils.ApiCallCallback;
 import com.fjuul.sdk.core.http.utils.ApiCallResult;
+import com.fjuul.sdk.core.http.utils.CallbackExecutors;
 import com.fjuul.sdk.test.LoggableTestSuite;
 import com.google.android.gms.tasks.Tasks;
 
@@ -85,7 +86,8 @@ public class ActivitySourcesManagerTest {
                     mockedStateStore,
                     activitySourceResolver,
                     trackerConnections,
-                    mockContext);
+                    mockContext,
+                    CallbackExecutors.direct());
             }
 
             @Test
@@ -214,16 +216,17 @@ public class ActivitySourcesManagerTest {
                         mockedStateStore,
                         activitySourceResolver,
                         trackerConnections,
-                        mockContext);
+                        mockContext,
+                        CallbackExecutors.direct());
                     final Callback<Void> mockedCallback = mock(Callback.class);
                     when(googleFit.disable()).thenReturn(Tasks.forResult(null));
                     final ApiCall<Void> mockedDisconnectApiCall = mock(ApiCall.class);
                     doAnswer(invocation -> {
                         final ApiCallCallback<ConnectionResult> callback =
-                            invocation.getArgument(0, ApiCallCallback.class);
+                            invocation.getArgument(1, ApiCallCallback.class);
                         callback.onResult(null, ApiCallResult.value(null));
                         return null;
-                    }).when(mockedDisconnectApiCall).enqueue(any());
+                    }).when(mockedDisconnectApiCall).enqueue(any(), any());
                     mocked.when(() -> HealthConnectActivitySource.getHealthConnectAvailability(mockContext))
                         .thenReturn(HealthConnectAvailability.SDK_AVAILABLE);
                     when(mockedSourcesService.disconnect(gfConnection)).thenReturn(mockedDisconnectApiCall);
@@ -236,7 +239,7 @@ public class ActivitySourcesManagerTest {
                     verify(googleFit).disable();
                     // should ask the sources service to disconnect
                     verify(mockedSourcesService).disconnect(gfConnection);
-                    verify(mockedDisconnectApiCall).enqueue(any());
+                    verify(mockedDisconnectApiCall).enqueue(any(), any());
                     assertTrue("should remove the source connection from the current ones",
                         subject.getCurrent().isEmpty());
                     // should pass the changed connections to the activity sources state store
@@ -272,15 +275,16 @@ public class ActivitySourcesManagerTest {
                         mockedStateStore,
                         activitySourceResolver,
                         trackerConnections,
-                        mockContext);
+                        mockContext,
+                        CallbackExecutors.direct());
                     final Callback<Void> mockedCallback = mock(Callback.class);
                     final ApiCall<Void> mockedDisconnectApiCall = mock(ApiCall.class);
                     doAnswer(invocation -> {
                         final ApiCallCallback<ConnectionResult> callback =
-                            invocation.getArgument(0, ApiCallCallback.class);
+                            invocation.getArgument(1, ApiCallCallback.class);
                         callback.onResult(null, ApiCallResult.value(null));
                         return null;
-                    }).when(mockedDisconnectApiCall).enqueue(any());
+                    }).when(mockedDisconnectApiCall).enqueue(any(), any());
                     mocked.when(() -> HealthConnectActivitySource.getHealthConnectAvailability(mockContext))
                         .thenReturn(HealthConnectAvailability.SDK_AVAILABLE);
                     when(mockedSourcesService.disconnect(fitbitConnection)).thenReturn(mockedDisconnectApiCall);
@@ -289,7 +293,7 @@ public class ActivitySourcesManagerTest {
 
                     // should ask the sources service to disconnect
                     verify(mockedSourcesService).disconnect(fitbitConnection);
-                    verify(mockedDisconnectApiCall).enqueue(any());
+                    verify(mockedDisconnectApiCall).enqueue(any(), any());
                     assertTrue("should remove the source connection from the current ones",
                         subject.getCurrent().isEmpty());
                     // should pass the changed connections to the activity sources state store
@@ -332,7 +336,8 @@ public class ActivitySourcesManagerTest {
                     mockedStateStore,
                     activitySourceResolver,
                     new CopyOnWriteArrayList<>(),
-                    mockContext);
+                    mockContext,
+                    CallbackExecutors.direct());
                 assertEquals(Collections.emptyList(), subject.getCurrent());
             }
 
@@ -355,7 +360,8 @@ public class ActivitySourcesManagerTest {
                     mockedStateStore,
                     activitySourceResolver,
                     trackerConnections,
-                    mockContext);
+                    mockContext,
+                    CallbackExecutors.direct());
                 final List<ActivitySourceConnection> activitySourceConnections = subject.getCurrent();
                 assertEquals("should have 2 activity source connections", 2, activitySourceConnections.size());
                 final ActivitySourceConnection fitbitActivitySourceConnection = activitySourceConnections.get(0);
@@ -403,7 +409,8 @@ public class ActivitySourcesManagerTest {
                         mockedStateStore,
                         mockedActivitySourceResolver,
                         new CopyOnWriteArrayList<>(),
-                        mockContext);
+                        mockContext,
+                        CallbackExecutors.direct());
 
                     final Date connectionCreatedAt = Date.from(Instant.parse("2020-09-10T10:05:00Z"));
                     final TrackerConnection gfTrackerConnection =
@@ -413,10 +420,10 @@ public class ActivitySourcesManagerTest {
                     final ApiCall<TrackerConnection[]> mockedGetConnectionsApiCall = mock(ApiCall.class);
                     doAnswer(invocation -> {
                         final ApiCallCallback<TrackerConnection[]> callback =
-                            invocation.getArgument(0, ApiCallCallback.class);
+                            invocation.getArgument(1, ApiCallCallback.class);
                         callback.onResult(null, ApiCallResult.value(newConnections));
                         return null;
-                    }).when(mockedGetConnectionsApiCall).enqueue(any());
+                    }).when(mockedGetConnectionsApiCall).enqueue(any(), any());
                     mocked.when(() -> HealthConnectActivitySource.getHealthConnectAvailability(mockContext))
                         .thenReturn(HealthConnectAvailability.SDK_AVAILABLE);
                     when(mockedSourcesService.getCurrentConnections()).thenReturn(mockedGetConnectionsApiCall);
@@ -430,7 +437,7 @@ public class ActivitySourcesManagerTest {
 
                     // should ask the sources service to get fresh ones
                     verify(mockedSourcesService).getCurrentConnections();
-                    verify(mockedGetConnectionsApiCall).enqueue(any());
+                    verify(mockedGetConnectionsApiCall).enqueue(any(), any());
                     // should pass new connections to the activity sources state store
                     verify(mockedStateStore).setConnections(Arrays.asList(newConnections));
                     List<ActivitySourceConnection> currentActivitySourceConnections = subject.getCurrent();
@@ -462,7 +469,8 @@ public class ActivitySourcesManagerTest {
                         mockedStateStore,
                         mockedActivitySourceResolver,
                         new CopyOnWriteArrayList<>(),
-                        mockContext);
+                        mockContext,
+                        CallbackExecutors.direct());
 
                     final TrackerConnection polarTrackerConnection = new TrackerConnection("polar_c_id",
                         TrackerValue.POLAR.getValue(),
@@ -473,10 +481,10 @@ public class ActivitySourcesManagerTest {
                     final ApiCall<TrackerConnection[]> mockedGetConnectionsApiCall = mock(ApiCall.class);
                     doAnswer(invocation -> {
                         final ApiCallCallback<TrackerConnection[]> callback =
-                            invocation.getArgument(0, ApiCallCallback.class);
+                            invocation.getArgument(1, ApiCallCallback.class);
                         callback.onResult(null, ApiCallResult.value(newConnections));
                         return null;
-                    }).when(mockedGetConnectionsApiCall).enqueue(any());
+                    }).when(mockedGetConnectionsApiCall).enqueue(any(), any());
                     mocked.when(() -> HealthConnectActivitySource.getHealthConnectAvailability(mockContext))
                         .thenReturn(HealthConnectAvailability.SDK_AVAILABLE);
                     when(mockedSourcesService.getCurrentConnections()).thenReturn(mockedGetConnectionsApiCall);
@@ -493,7 +501,7 @@ public class ActivitySourcesManagerTest {
 
                     // should ask the sources service to get fresh ones
                     verify(mockedSourcesService).getCurrentConnections();
-                    verify(mockedGetConnectionsApiCall).enqueue(any());
+                    verify(mockedGetConnectionsApiCall).enqueue(any(), any());
                     // should pass new connections to the activity sources state store
                     verify(mockedStateStore).setConnections(Arrays.asList(newConnections));
                     final List<ActivitySourceConnection> currentActivitySourceConnections = subject.getCurrent();
@@ -535,17 +543,18 @@ public class ActivitySourcesManagerTest {
                     mockedStateStore,
                     mockedActivitySourceResolver,
                     new CopyOnWriteArrayList<>(),
-                    mockContext);
+                    mockContext,
+                    CallbackExecutors.direct());
 
                 final ApiExceptions.BadRequestException apiCallException =
                     new ApiExceptions.BadRequestException("Bad request");
                 final ApiCall<TrackerConnection[]> mockedGetConnectionsApiCall = mock(ApiCall.class);
                 doAnswer(invocation -> {
                     final ApiCallCallback<TrackerConnection[]> callback =
-                        invocation.getArgument(0, ApiCallCallback.class);
+                        invocation.getArgument(1, ApiCallCallback.class);
                     callback.onResult(null, ApiCallResult.error(apiCallException));
                     return null;
-                }).when(mockedGetConnectionsApiCall).enqueue(any());
+                }).when(mockedGetConnectionsApiCall).enqueue(any(), any());
                 when(mockedSourcesService.getCurrentConnections()).thenReturn(mockedGetConnectionsApiCall);
                 final Callback<List<ActivitySourceConnection>> mockedCallback = mock(Callback.class);
 
@@ -553,7 +562,7 @@ public class ActivitySourcesManagerTest {
 
                 // should ask the sources service to get fresh ones
                 verify(mockedSourcesService).getCurrentConnections();
-                verify(mockedGetConnectionsApiCall).enqueue(any());
+                verify(mockedGetConnectionsApiCall).enqueue(any(), any());
                 // should not interact with the state store
                 verifyNoInteractions(mockedStateStore);
                 // should not interact with background work manager
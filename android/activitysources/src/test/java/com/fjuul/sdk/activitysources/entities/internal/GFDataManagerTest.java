@@ -386,10 +386,10 @@ public class GFDataManagerTest {
             final ApiExceptions.BadRequestException apiCallException =
                 new ApiExceptions.BadRequestException("Bad request");
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.error(apiCallException));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.uploadGoogleFitData(any())).thenReturn(mockedApiCall);
 
             Task<Void> result = subject.syncIntradayMetrics(options);
@@ -425,6 +425,11 @@ public class GFDataManagerTest {
                     caloriesBatch.getEndTime());
                 return true;
             }));
+            // should migrate legacy lookup keys before reading the metadata
+            verify(mockedGFSyncMetadataStore).migrateLegacyLookupKeysIfNeeded();
+            // should prefetch the metadata of the calories batch
+            verify(mockedGFSyncMetadataStore)
+                .prefetchSyncMetadataOfCaloriesBatches(argThat(batches -> batches.size() == 1));
             // should not store the metadata
             verifyNoMoreInteractions(mockedGFSyncMetadataStore);
             // should try to send the data to the server
@@ -474,10 +479,10 @@ public class GFDataManagerTest {
 
             final ApiCall<Void> mockedApiCall = mock(ApiCall.class);
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.value(null));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.uploadGoogleFitData(any())).thenReturn(mockedApiCall);
 
             Task<Void> result = subject.syncIntradayMetrics(options);
@@ -512,7 +517,9 @@ public class GFDataManagerTest {
                 Date.from(Instant.parse("2020-10-01T09:30:00Z")),
                 caloriesBatch.getEndTime());
             // should ask the metadata store to save the metadata
-            verify(mockedGFSyncMetadataStore).saveSyncMetadataOfCalories(caloriesBatch);
+            verify(mockedGFSyncMetadataStore).saveSyncMetadataOfIntraday(Arrays.asList(caloriesBatch),
+                Collections.emptyList(),
+                Collections.emptyList());
             // should try to send the data to the server
             verify(mockedActivitySourcesService).uploadGoogleFitData(argThat(uploadData -> {
                 assertEquals("should send the calories data", uploadData.getCaloriesData(), calories);
@@ -576,10 +583,10 @@ public class GFDataManagerTest {
 
             final ApiCall<Void> mockedApiCall = mock(ApiCall.class);
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.value(null));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.uploadGoogleFitData(any())).thenReturn(mockedApiCall);
 
             Task<Void> result = subject.syncIntradayMetrics(options);
@@ -646,6 +653,10 @@ public class GFDataManagerTest {
                 Date.from(LocalDateTime.parse("2020-10-01T12:00:00").atZone(testZoneId).toInstant()),
                 stepsBatch.getEndTime());
 
+            // should prefetch the metadata of all intraday batches at once
+            verify(mockedGFSyncMetadataStore).prefetchSyncMetadataOfCaloriesBatches(Arrays.asList(caloriesBatch));
+            verify(mockedGFSyncMetadataStore).prefetchSyncMetadataOfStepsBatches(Arrays.asList(stepsBatch));
+
             // should ask the metadata store about the hr batch
             ArgumentCaptor<GFDataPointsBatch<GFHRSummaryDataPoint>> hrBatchCaptor =
                 ArgumentCaptor.forClass(GFDataPointsBatch.class);
@@ -658,13 +669,12 @@ public class GFDataManagerTest {
             assertEquals("hr batch should have right end time",
                 Date.from(LocalDateTime.parse("2020-10-01T09:30:00").atZone(testZoneId).toInstant()),
                 hrBatch.getEndTime());
+            verify(mockedGFSyncMetadataStore).prefetchSyncMetadataOfHRBatches(Arrays.asList(hrBatch));
 
-            // should ask the metadata store to save the metadata of calories batch
-            verify(mockedGFSyncMetadataStore).saveSyncMetadataOfCalories(caloriesBatch);
-            // should ask the metadata store to save the metadata of steps batch
-            verify(mockedGFSyncMetadataStore).saveSyncMetadataOfSteps(stepsBatch);
-            // should ask the metadata store to save the metadata of hr batch
-            verify(mockedGFSyncMetadataStore).saveSyncMetadataOfHR(hrBatch);
+            // should ask the metadata store to save the metadata of calories, steps and hr batches at once
+            verify(mockedGFSyncMetadataStore).saveSyncMetadataOfIntraday(Arrays.asList(caloriesBatch),
+                Arrays.asList(stepsBatch),
+                Arrays.asList(hrBatch));
 
             // should try to send the data to the server
             verify(mockedActivitySourcesService).uploadGoogleFitData(argThat(uploadData -> {
@@ -861,6 +871,7 @@ public class GFDataManagerTest {
             // should ask client-wrapper for data for the specified time interval in the local timezone
             verify(mockedGFClientWrapper).getSessions(startRequestDate, endRequestDate, minDuration);
             // should ask the sync metadata store about session
+            verify(mockedGFSyncMetadataStore).migrateLegacyLookupKeysIfNeeded();
             verify(mockedGFSyncMetadataStore).isNeededToSyncSessionBundle(stubSessionBundle);
             verifyNoMoreInteractions(mockedGFSyncMetadataStore);
             // shouldn't interact with the activity sources service
@@ -902,10 +913,10 @@ public class GFDataManagerTest {
             final ApiExceptions.BadRequestException requestException =
                 new ApiExceptions.BadRequestException("Bad request");
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.error(requestException));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.uploadGoogleFitData(any())).thenReturn(mockedApiCall);
 
             Task<Void> result = subject.syncSessions(options);
@@ -922,6 +933,7 @@ public class GFDataManagerTest {
             // should ask client-wrapper for data for the specified time interval in the local timezone
             verify(mockedGFClientWrapper).getSessions(startRequestDate, endRequestDate, minDuration);
             // should ask the sync metadata store about session
+            verify(mockedGFSyncMetadataStore).migrateLegacyLookupKeysIfNeeded();
             verify(mockedGFSyncMetadataStore).isNeededToSyncSessionBundle(stubSessionBundle);
             // should not store the metadata
             verifyNoMoreInteractions(mockedGFSyncMetadataStore);
@@ -972,10 +984,10 @@ public class GFDataManagerTest {
             when(mockedGFSyncMetadataStore.isNeededToSyncSessionBundle(stubSessionBundle)).thenReturn(true);
             final ApiCall mockedApiCall = mock(ApiCall.class);
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.value(null));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.uploadGoogleFitData(any())).thenReturn(mockedApiCall);
 
             Task<Void> result = subject.syncSessions(options);
@@ -1120,10 +1132,10 @@ public class GFDataManagerTest {
             final ApiExceptions.BadRequestException apiCallException =
                 new ApiExceptions.BadRequestException("Bad request");
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.error(apiCallException));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.updateProfileOnBehalfOfGoogleFit(any())).thenReturn(mockedApiCall);
 
             Task<Boolean> result = subject.syncProfile(options);
@@ -1172,10 +1184,10 @@ public class GFDataManagerTest {
 
             final ApiCall<Void> mockedApiCall = mock(ApiCall.class);
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.value(null));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.updateProfileOnBehalfOfGoogleFit(any())).thenReturn(mockedApiCall);
 
             Task<Boolean> result = subject.syncProfile(options);
@@ -1226,10 +1238,10 @@ public class GFDataManagerTest {
 
             final ApiCall<Void> mockedApiCall = mock(ApiCall.class);
             doAnswer(invocation -> {
-                final ApiCallCallback<Void> callback = invocation.getArgument(0, ApiCallCallback.class);
+                final ApiCallCallback<Void> callback = invocation.getArgument(1, ApiCallCallback.class);
                 callback.onResult(null, ApiCallResult.value(null));
                 return null;
-            }).when(mockedApiCall).enqueue(any());
+            }).when(mockedApiCall).enqueue(any(), any());
             when(mockedActivitySourcesService.updateProfileOnBehalfOfGoogleFit(any())).thenReturn(mockedApiCall);
 
             Task<Boolean> result = subject.syncProfile(options);
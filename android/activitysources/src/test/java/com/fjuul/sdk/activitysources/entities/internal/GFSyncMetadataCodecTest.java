@@ -0,0 +1,101 @@
+package com.fjuul.sdk.activitysources.entities.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncCaloriesMetadata;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncHRMetadata;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncMetadataCodec;
+import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncStepsMetadata;
+import com.fjuul.sdk.core.adapters.LocalDateJsonAdapter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+
+import android.os.Build;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class GFSyncMetadataCodecTest {
+    final Date editedAt = Date.from(Instant.parse("2020-09-15T21:30:00Z"));
+    final LocalDate date = LocalDate.parse("2020-09-10");
+
+    @Test
+    public void encode_caloriesMetadata_canBeDecodedBack() {
+        final GFSyncCaloriesMetadata metadata = new GFSyncCaloriesMetadata(3, 14.8147f, date, editedAt);
+        final String value = GFSyncMetadataCodec.encode(metadata);
+        assertTrue("should be marked as encoded", GFSyncMetadataCodec.isEncoded(value));
+        final GFSyncCaloriesMetadata decoded = GFSyncMetadataCodec.decode(GFSyncCaloriesMetadata.class, value);
+        assertEquals(metadata, decoded);
+        assertEquals(editedAt, decoded.getEditedAt());
+        assertEquals(GFSyncCaloriesMetadata.CURRENT_SCHEMA_VERSION, decoded.getSchemaVersion());
+    }
+
+    @Test
+    public void encode_stepsMetadata_canBeDecodedBack() {
+        final GFSyncStepsMetadata metadata = new GFSyncStepsMetadata(3, 10064, date, editedAt);
+        final String value = GFSyncMetadataCodec.encode(metadata);
+        assertEquals("~AgEAAAF0k6ynwAAASFMAAAADAAAnUA", value);
+        assertEquals(metadata, GFSyncMetadataCodec.decode(GFSyncStepsMetadata.class, value));
+    }
+
+    @Test
+    public void encode_hrMetadata_isMuchShorterThanJson() {
+        final GFSyncHRMetadata metadata = new GFSyncHRMetadata(3, 212.41478f, date, editedAt);
+        final String value = GFSyncMetadataCodec.encode(metadata);
+        final String legacyJson =
+            "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"sumOfAverages\":212.41478}";
+        assertTrue("should take less than a half of the json", value.length() * 2 < legacyJson.length());
+        assertEquals(metadata, GFSyncMetadataCodec.decode(GFSyncHRMetadata.class, value));
+    }
+
+    @Test
+    public void decode_caloriesMetadata_equalsMetadataOfLegacyJson() throws IOException {
+        final Moshi moshi =
+            new Moshi.Builder().add(Date.class, new Rfc3339DateJsonAdapter()).add(new LocalDateJsonAdapter()).build();
+        final JsonAdapter<GFSyncCaloriesMetadata> jsonAdapter = moshi.adapter(GFSyncCaloriesMetadata.class);
+        final GFSyncCaloriesMetadata metadata = new GFSyncCaloriesMetadata(48, 2150.7512f, date, editedAt);
+        final String binary = GFSyncMetadataCodec.encode(metadata);
+        assertEquals(jsonAdapter.fromJson(jsonAdapter.toJson(metadata)),
+            GFSyncMetadataCodec.decode(GFSyncCaloriesMetadata.class, binary));
+    }
+
+    @Test
+    public void isEncoded_legacyJson_returnsFalse() {
+        assertFalse(GFSyncMetadataCodec.isEncoded("{\"count\":3,\"schemaVersion\":1}"));
+    }
+
+    @Test
+    public void decode_recordOfAnotherEntity_returnsNull() {
+        final String value = GFSyncMetadataCodec.encode(new GFSyncStepsMetadata(3, 10064, date, editedAt));
+        assertNull(GFSyncMetadataCodec.decode(GFSyncCaloriesMetadata.class, value));
+    }
+
+    @Test
+    public void decode_unknownSchemaVersion_returnsNull() {
+        // steps record of the schema version 2
+        assertNull(GFSyncMetadataCodec.decode(GFSyncStepsMetadata.class, "~AgIAAAF0k6ynwAAASFMAAAADAAAnUA"));
+    }
+
+    @Test
+    public void decode_truncatedRecord_returnsNull() {
+        assertNull(GFSyncMetadataCodec.decode(GFSyncStepsMetadata.class, "~AgEAAAF0k6ynwAAASFMA"));
+    }
+
+    @Test
+    public void decode_malformedBase64_returnsNull() {
+        assertNull(GFSyncMetadataCodec.decode(GFSyncStepsMetadata.class, "~!@#"));
+    }
+}
@@ -1,7 +1,10 @@
 package com.fjuul.sdk.activitysources.entities.internal;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,8 +13,11 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,6 +41,7 @@ import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFStepsDataPoin
 import com.fjuul.sdk.activitysources.entities.internal.googlefit.GFWeightDataPoint;
 import com.fjuul.sdk.activitysources.entities.internal.googlefit.sync_metadata.GFSyncMetadataStore;
 import com.fjuul.sdk.core.entities.IStorage;
+import com.fjuul.sdk.core.entities.InMemoryStorage;
 
 import android.os.Build;
 
@@ -70,10 +77,9 @@ public class GFSyncMetadataStoreTest {
                 Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                 Date.from(Instant.parse("2020-09-10T11:00:00Z")));
             gfSyncMetadataStore.saveSyncMetadataOfCalories(caloriesBatch);
-            final String expectedKey = "gf-sync-metadata.calories.D10T10:00-D10T11:00";
-            final String expectedJson =
-                "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalKcals\":14.8147}";
-            verify(mockedStorage, times(1)).set(expectedKey, expectedJson);
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
+            final String expectedValue = "~AQEAAAF0k6ynwAAASFMAAAADQW0JAw";
+            verify(mockedStorage, times(1)).set(expectedKey, expectedValue);
         }
     }
 
@@ -97,10 +103,9 @@ public class GFSyncMetadataStoreTest {
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
             gfSyncMetadataStore.saveSyncMetadataOfHR(hrBatch);
-            final String expectedKey = "gf-sync-metadata.hr.D10T10:00-D10T11:00";
-            final String expectedJson =
-                "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"sumOfAverages\":212.41478}";
-            verify(mockedStorage, times(1)).set(expectedKey, expectedJson);
+            final String expectedKey = "gf-sync-metadata.hr.26662200-26662260";
+            final String expectedValue = "~AwEAAAF0k6ynwAAASFMAAAADQ1RqLw";
+            verify(mockedStorage, times(1)).set(expectedKey, expectedValue);
         }
     }
 
@@ -123,10 +128,56 @@ public class GFSyncMetadataStoreTest {
                 Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                 Date.from(Instant.parse("2020-09-10T11:00:00Z")));
             gfSyncMetadataStore.saveSyncMetadataOfSteps(stepsBatch);
-            final String expectedKey = "gf-sync-metadata.steps.D10T10:00-D10T11:00";
-            final String expectedJson =
-                "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalSteps\":10064}";
-            verify(mockedStorage, times(1)).set(expectedKey, expectedJson);
+            final String expectedKey = "gf-sync-metadata.steps.26662200-26662260";
+            final String expectedValue = "~AgEAAAF0k6ynwAAASFMAAAADAAAnUA";
+            verify(mockedStorage, times(1)).set(expectedKey, expectedValue);
+        }
+    }
+
+    public static class SaveSyncMetadataOfIntradayTest extends GivenRobolectricContext {
+        Clock fixedClock;
+        GFSyncMetadataStore gfSyncMetadataStore;
+        IStorage mockedStorage;
+        IStorage.Transaction mockedTransaction;
+
+        @Before
+        public void beforeTests() {
+            String instantExpected = "2020-09-15T21:30:00Z";
+            fixedClock = Clock.fixed(Instant.parse(instantExpected), ZoneId.of("UTC"));
+            mockedStorage = mock(IStorage.class);
+            mockedTransaction = mock(IStorage.Transaction.class, RETURNS_SELF);
+            when(mockedStorage.beginTransaction()).thenReturn(mockedTransaction);
+            gfSyncMetadataStore = new GFSyncMetadataStore(mockedStorage, fixedClock);
+        }
+
+        @Test
+        public void saveSyncMetadataOfIntraday_savesAllBatchesByOneTransaction() {
+            final GFDataPointsBatch<GFStepsDataPoint> stepsBatch =
+                new GFDataPointsBatch<>(TestIntradaySamplesData.stepsList,
+                    Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                    Date.from(Instant.parse("2020-09-10T11:00:00Z")));
+            final GFDataPointsBatch<GFHRSummaryDataPoint> hrBatch =
+                new GFDataPointsBatch<>(TestIntradaySamplesData.hrSummaryList,
+                    Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                    Date.from(Instant.parse("2020-09-10T11:00:00Z")));
+            gfSyncMetadataStore.saveSyncMetadataOfIntraday(Collections.emptyList(),
+                Arrays.asList(stepsBatch),
+                Arrays.asList(hrBatch));
+
+            verify(mockedTransaction).put("gf-sync-metadata.steps.26662200-26662260",
+                "~AgEAAAF0k6ynwAAASFMAAAADAAAnUA");
+            verify(mockedTransaction).put("gf-sync-metadata.hr.26662200-26662260",
+                "~AwEAAAF0k6ynwAAASFMAAAADQ1RqLw");
+            verify(mockedTransaction, times(1)).commit();
+            verify(mockedStorage, never()).set(any(), any());
+        }
+
+        @Test
+        public void saveSyncMetadataOfIntraday_whenNoBatches_doesNotTouchStorage() {
+            gfSyncMetadataStore.saveSyncMetadataOfIntraday(Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList());
+            verify(mockedStorage, never()).beginTransaction();
         }
     }
 
@@ -161,9 +212,9 @@ public class GFSyncMetadataStoreTest {
                 .build();
             gfSyncMetadataStore.saveSyncMetadataOfSession(session);
             final String expectedKey = "gf-sync-metadata.session.679acf3c-3d38-4931-8822-0b355d8134e1";
-            final String expectedJson =
-                "{\"activitySegmentsCount\":2,\"applicationIdentifier\":\"com.google.android.apps.fitness\",\"caloriesCount\":3,\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"heartRateCount\":3,\"id\":\"679acf3c-3d38-4931-8822-0b355d8134e1\",\"name\":\"short walk\",\"powerCount\":1,\"schemaVersion\":1,\"speedCount\":2,\"stepsCount\":3,\"timeEnd\":\"2020-10-16T13:00:00.000Z\",\"timeStart\":\"2020-10-16T11:20:00.000Z\",\"type\":7}";
-            verify(mockedStorage).set(expectedKey, expectedJson);
+            final String expectedValue =
+                "~BAEAAAF0k6ynwAAkNjc5YWNmM2MtM2QzOC00OTMxLTg4MjItMGIzNTVkODEzNGUxAQAKc2hvcnQgd2FsawEAH2NvbS5nb29nbGUuYW5kcm9pZC5hcHBzLmZpdG5lc3MAAAF1MSNTAAAAAXUxfuCAAAAABwAAAAIAAAADAAAAAwAAAAMAAAACAAAAAQ";
+            verify(mockedStorage).set(expectedKey, expectedValue);
         }
     }
 
@@ -171,12 +222,15 @@ public class GFSyncMetadataStoreTest {
         Clock fixedClock;
         GFSyncMetadataStore gfSyncMetadataStore;
         IStorage mockedStorage;
+        IStorage.Transaction mockedTransaction;
 
         @Before
         public void beforeTests() {
             String instantExpected = "2020-10-16T21:30:00Z";
             fixedClock = Clock.fixed(Instant.parse(instantExpected), ZoneId.of("UTC"));
             mockedStorage = mock(IStorage.class);
+            mockedTransaction = mock(IStorage.Transaction.class, RETURNS_SELF);
+            when(mockedStorage.beginTransaction()).thenReturn(mockedTransaction);
             gfSyncMetadataStore = new GFSyncMetadataStore(mockedStorage, fixedClock);
         }
 
@@ -192,7 +246,7 @@ public class GFSyncMetadataStoreTest {
                 .build();
             final List<GFSessionBundle> sessionBundles = Stream.of(session).collect(Collectors.toList());
 
-            final String expectedSessionListKey = "gf-sync-metadata.sessions.D16";
+            final String expectedSessionListKey = "gf-sync-metadata.sessions.18551";
             when(mockedStorage.get(expectedSessionListKey)).thenReturn(null);
 
             gfSyncMetadataStore.saveSyncMetadataOfSessions(sessionBundles);
@@ -200,12 +254,15 @@ public class GFSyncMetadataStoreTest {
             // should save new metadata of the list
             String expectedListMetadataJson =
                 "{\"date\":\"2020-10-16\",\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"identifiers\":[\"679acf3c-3d38-4931-8822-0b355d8134e1\"],\"schemaVersion\":1}";
-            verify(mockedStorage).set(expectedSessionListKey, expectedListMetadataJson);
+            verify(mockedTransaction).put(expectedSessionListKey, expectedListMetadataJson);
             // should save each session metadata
             final String expectedSessionKey = "gf-sync-metadata.session.679acf3c-3d38-4931-8822-0b355d8134e1";
-            final String expectedSessionMetadataJson =
-                "{\"activitySegmentsCount\":0,\"applicationIdentifier\":\"com.google.android.apps.fitness\",\"caloriesCount\":0,\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"heartRateCount\":0,\"id\":\"679acf3c-3d38-4931-8822-0b355d8134e1\",\"name\":\"short walk\",\"powerCount\":0,\"schemaVersion\":1,\"speedCount\":0,\"stepsCount\":0,\"timeEnd\":\"2020-10-16T13:00:00.000Z\",\"timeStart\":\"2020-10-16T11:20:00.000Z\",\"type\":7}";
-            verify(mockedStorage).set(expectedSessionKey, expectedSessionMetadataJson);
+            final String expectedSessionMetadataValue =
+                "~BAEAAAF1M1HLwAAkNjc5YWNmM2MtM2QzOC00OTMxLTg4MjItMGIzNTVkODEzNGUxAQAKc2hvcnQgd2FsawEAH2NvbS5nb29nbGUuYW5kcm9pZC5hcHBzLmZpdG5lc3MAAAF1MSNTAAAAAXUxfuCAAAAABwAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+            verify(mockedTransaction).put(expectedSessionKey, expectedSessionMetadataValue);
+            // should write all changes at once
+            verify(mockedTransaction, times(1)).commit();
+            verify(mockedStorage, never()).set(any(), any());
         }
 
         @Test
@@ -220,7 +277,7 @@ public class GFSyncMetadataStoreTest {
                 .build();
             final List<GFSessionBundle> sessionBundles = Stream.of(session).collect(Collectors.toList());
 
-            final String expectedSessionListKey = "gf-sync-metadata.sessions.D16";
+            final String expectedSessionListKey = "gf-sync-metadata.sessions.18551";
             final String staleListMetadataJson =
                 "{\"date\":\"2020-09-16\",\"editedAt\":\"2020-09-16T21:30:00.000Z\",\"identifiers\":[\"old_session_id\"],\"schemaVersion\":1}";
             when(mockedStorage.get(expectedSessionListKey)).thenReturn(staleListMetadataJson);
@@ -229,17 +286,20 @@ public class GFSyncMetadataStoreTest {
 
             // should remove the previous session identifier
             final String staleSessionKey = "gf-sync-metadata.session.old_session_id";
-            verify(mockedStorage).set(staleSessionKey, null);
+            verify(mockedTransaction).remove(staleSessionKey);
 
             // should save new metadata of the list
             String expectedListMetadataJson =
                 "{\"date\":\"2020-10-16\",\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"identifiers\":[\"679acf3c-3d38-4931-8822-0b355d8134e1\"],\"schemaVersion\":1}";
-            verify(mockedStorage).set(expectedSessionListKey, expectedListMetadataJson);
+            verify(mockedTransaction).put(expectedSessionListKey, expectedListMetadataJson);
             // should save each new session metadata
             final String expectedSessionKey = "gf-sync-metadata.session.679acf3c-3d38-4931-8822-0b355d8134e1";
-            final String expectedSessionMetadataJson =
-                "{\"activitySegmentsCount\":0,\"applicationIdentifier\":\"com.google.android.apps.fitness\",\"caloriesCount\":0,\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"heartRateCount\":0,\"id\":\"679acf3c-3d38-4931-8822-0b355d8134e1\",\"name\":\"short walk\",\"powerCount\":0,\"schemaVersion\":1,\"speedCount\":0,\"stepsCount\":0,\"timeEnd\":\"2020-10-16T13:00:00.000Z\",\"timeStart\":\"2020-10-16T11:20:00.000Z\",\"type\":7}";
-            verify(mockedStorage).set(expectedSessionKey, expectedSessionMetadataJson);
+            final String expectedSessionMetadataValue =
+                "~BAEAAAF1M1HLwAAkNjc5YWNmM2MtM2QzOC00OTMxLTg4MjItMGIzNTVkODEzNGUxAQAKc2hvcnQgd2FsawEAH2NvbS5nb29nbGUuYW5kcm9pZC5hcHBzLmZpdG5lc3MAAAF1MSNTAAAAAXUxfuCAAAAABwAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+            verify(mockedTransaction).put(expectedSessionKey, expectedSessionMetadataValue);
+            // should write all changes at once
+            verify(mockedTransaction, times(1)).commit();
+            verify(mockedStorage, never()).set(any(), any());
         }
 
         @Test
@@ -254,7 +314,7 @@ public class GFSyncMetadataStoreTest {
                 .build();
             final List<GFSessionBundle> sessionBundles = Stream.of(session).collect(Collectors.toList());
 
-            final String expectedSessionListKey = "gf-sync-metadata.sessions.D16";
+            final String expectedSessionListKey = "gf-sync-metadata.sessions.18551";
             final String listMetadataJson =
                 "{\"date\":\"2020-10-16\",\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"identifiers\":[\"other_session_id\"],\"schemaVersion\":1}";
             when(mockedStorage.get(expectedSessionListKey)).thenReturn(listMetadataJson);
@@ -264,12 +324,15 @@ public class GFSyncMetadataStoreTest {
             // should save the merged metadata of both lists
             String expectedListMetadataJson =
                 "{\"date\":\"2020-10-16\",\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"identifiers\":[\"other_session_id\",\"new_session_id\"],\"schemaVersion\":1}";
-            verify(mockedStorage).set(expectedSessionListKey, expectedListMetadataJson);
+            verify(mockedTransaction).put(expectedSessionListKey, expectedListMetadataJson);
             // should save each new session metadata
             final String expectedSessionKey = "gf-sync-metadata.session.new_session_id";
-            final String expectedSessionMetadataJson =
-                "{\"activitySegmentsCount\":0,\"applicationIdentifier\":\"com.google.android.apps.fitness\",\"caloriesCount\":0,\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"heartRateCount\":0,\"id\":\"new_session_id\",\"name\":\"short walk\",\"powerCount\":0,\"schemaVersion\":1,\"speedCount\":0,\"stepsCount\":0,\"timeEnd\":\"2020-10-16T13:00:00.000Z\",\"timeStart\":\"2020-10-16T11:20:00.000Z\",\"type\":7}";
-            verify(mockedStorage).set(expectedSessionKey, expectedSessionMetadataJson);
+            final String expectedSessionMetadataValue =
+                "~BAEAAAF1M1HLwAAObmV3X3Nlc3Npb25faWQBAApzaG9ydCB3YWxrAQAfY29tLmdvb2dsZS5hbmRyb2lkLmFwcHMuZml0bmVzcwAAAXUxI1MAAAABdTF+4IAAAAAHAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+            verify(mockedTransaction).put(expectedSessionKey, expectedSessionMetadataValue);
+            // should write all changes at once
+            verify(mockedTransaction, times(1)).commit();
+            verify(mockedStorage, never()).set(any(), any());
         }
     }
 
@@ -341,7 +404,7 @@ public class GFSyncMetadataStoreTest {
                 .collect(Collectors.toList()),
                 Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                 Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.calories.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
             when(mockedStorage.get(expectedKey)).thenReturn(null);
             boolean result = gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch);
             assertTrue("should require the sync", result);
@@ -357,7 +420,7 @@ public class GFSyncMetadataStoreTest {
                 .collect(Collectors.toList()),
                 Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                 Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.calories.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-08-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalKcals\":14.8147}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -375,7 +438,7 @@ public class GFSyncMetadataStoreTest {
                 .collect(Collectors.toList()),
                 Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                 Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.calories.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
             // NOTE: there is a diff more than 0.001, the current totalKcals is 14.8147
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalKcals\":14.8248}";
@@ -394,7 +457,7 @@ public class GFSyncMetadataStoreTest {
                 .collect(Collectors.toList()),
                 Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                 Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.calories.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
             final String storedJson =
                 "{\"count\":2,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalKcals\":14.8147}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -412,7 +475,7 @@ public class GFSyncMetadataStoreTest {
                 .collect(Collectors.toList()),
                 Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                 Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.calories.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalKcals\":14.8150}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -420,6 +483,101 @@ public class GFSyncMetadataStoreTest {
             assertFalse("should not require the sync", result);
             verify(mockedStorage, times(1)).get(expectedKey);
         }
+
+        @Test
+        public void isNeededToSyncCaloriesBatch_whenStoredBinaryMetadataIsEqual_returnsFalse() {
+            final GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch = new GFDataPointsBatch<>(Stream.of(
+                new GFCalorieDataPoint(5.2751f, Date.from(Instant.parse("2020-09-10T10:05:00Z")), CALORIES_DATA_SOURCE),
+                new GFCalorieDataPoint(1.2698f, Date.from(Instant.parse("2020-09-10T10:07:00Z")), CALORIES_DATA_SOURCE),
+                new GFCalorieDataPoint(8.2698f, Date.from(Instant.parse("2020-09-10T10:31:00Z")), CALORIES_DATA_SOURCE))
+                .collect(Collectors.toList()),
+                Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                Date.from(Instant.parse("2020-09-10T11:00:00Z")));
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
+            when(mockedStorage.get(expectedKey)).thenReturn("~AQEAAAF0k6ynwAAASFMAAAADQW0JAw");
+            boolean result = gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch);
+            assertFalse("should not require the sync", result);
+            verify(mockedStorage, times(1)).get(expectedKey);
+        }
+
+        @Test
+        public void isNeededToSyncCaloriesBatch_afterPrefetch_doesNotReadStorageAgain() {
+            final GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch = new GFDataPointsBatch<>(Stream.of(
+                new GFCalorieDataPoint(5.2751f, Date.from(Instant.parse("2020-09-10T10:05:00Z")), CALORIES_DATA_SOURCE))
+                .collect(Collectors.toList()),
+                Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                Date.from(Instant.parse("2020-09-10T11:00:00Z")));
+            when(mockedStorage.getAllByPrefix("gf-sync-metadata.calories.")).thenReturn(Collections.emptyMap());
+            gfSyncMetadataStore.prefetchSyncMetadataOfCaloriesBatches(Arrays.asList(caloriesBatch));
+            boolean firstResult = gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch);
+            boolean secondResult = gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch);
+            assertTrue("should require the sync", firstResult);
+            assertTrue("should require the sync", secondResult);
+            verify(mockedStorage, times(1)).getAllByPrefix("gf-sync-metadata.calories.");
+            verify(mockedStorage, never()).get(any());
+        }
+
+        @Test
+        public void isNeededToSyncCaloriesBatch_whenStorageChangedBeforeNextPrefetch_usesStoredMetadata() {
+            final GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch = new GFDataPointsBatch<>(Stream.of(
+                new GFCalorieDataPoint(5.2751f, Date.from(Instant.parse("2020-09-10T10:05:00Z")), CALORIES_DATA_SOURCE),
+                new GFCalorieDataPoint(1.2698f, Date.from(Instant.parse("2020-09-10T10:07:00Z")), CALORIES_DATA_SOURCE),
+                new GFCalorieDataPoint(8.2698f, Date.from(Instant.parse("2020-09-10T10:31:00Z")), CALORIES_DATA_SOURCE))
+                .collect(Collectors.toList()),
+                Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                Date.from(Instant.parse("2020-09-10T11:00:00Z")));
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
+            final Map<String, String> storedValues = new HashMap<>();
+            storedValues.put(expectedKey, "~AQEAAAF0k6ynwAAASFMAAAADQW0JAw");
+            when(mockedStorage.getAllByPrefix("gf-sync-metadata.calories.")).thenReturn(storedValues)
+                .thenReturn(Collections.emptyMap());
+            gfSyncMetadataStore.prefetchSyncMetadataOfCaloriesBatches(Arrays.asList(caloriesBatch));
+            assertFalse("should not require the sync", gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch));
+            // the storage was cleared by someone else, e.g. by the logout
+            gfSyncMetadataStore.prefetchSyncMetadataOfCaloriesBatches(Arrays.asList(caloriesBatch));
+            assertTrue("should require the sync", gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch));
+            verify(mockedStorage, never()).get(any());
+        }
+
+        @Test
+        public void isNeededToSyncCaloriesBatch_afterSavingMetadata_returnsFalseWithoutReadingStorage() {
+            final GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch = new GFDataPointsBatch<>(Stream.of(
+                new GFCalorieDataPoint(5.2751f, Date.from(Instant.parse("2020-09-10T10:05:00Z")), CALORIES_DATA_SOURCE))
+                .collect(Collectors.toList()),
+                Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                Date.from(Instant.parse("2020-09-10T11:00:00Z")));
+            final IStorage.Transaction mockedTransaction = mock(IStorage.Transaction.class, RETURNS_SELF);
+            when(mockedStorage.getAllByPrefix("gf-sync-metadata.calories.")).thenReturn(Collections.emptyMap());
+            when(mockedStorage.beginTransaction()).thenReturn(mockedTransaction);
+            when(mockedTransaction.commit()).thenReturn(true);
+            gfSyncMetadataStore.prefetchSyncMetadataOfCaloriesBatches(Arrays.asList(caloriesBatch));
+            gfSyncMetadataStore.saveSyncMetadataOfIntraday(Arrays.asList(caloriesBatch),
+                Collections.emptyList(),
+                Collections.emptyList());
+            boolean result = gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch);
+            assertFalse("should not require the sync", result);
+            verify(mockedStorage, never()).get(any());
+        }
+
+        @Test
+        public void isNeededToSyncCaloriesBatch_whenSavingMetadataFailed_readsStorage() {
+            final GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch = new GFDataPointsBatch<>(Stream.of(
+                new GFCalorieDataPoint(5.2751f, Date.from(Instant.parse("2020-09-10T10:05:00Z")), CALORIES_DATA_SOURCE))
+                .collect(Collectors.toList()),
+                Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                Date.from(Instant.parse("2020-09-10T11:00:00Z")));
+            final String expectedKey = "gf-sync-metadata.calories.26662200-26662260";
+            final IStorage.Transaction mockedTransaction = mock(IStorage.Transaction.class, RETURNS_SELF);
+            when(mockedStorage.beginTransaction()).thenReturn(mockedTransaction);
+            when(mockedTransaction.commit()).thenReturn(false);
+            when(mockedStorage.get(expectedKey)).thenReturn(null);
+            gfSyncMetadataStore.saveSyncMetadataOfIntraday(Arrays.asList(caloriesBatch),
+                Collections.emptyList(),
+                Collections.emptyList());
+            boolean result = gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch);
+            assertTrue("should require the sync", result);
+            verify(mockedStorage, times(1)).get(expectedKey);
+        }
     }
 
     public static class CheckIfNeedToSyncHeartRateSummaryBatch extends GivenRobolectricContext {
@@ -441,7 +599,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.hrSummaryList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.hr.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.hr.26662200-26662260";
             when(mockedStorage.get(expectedKey)).thenReturn(null);
             boolean result = gfSyncMetadataStore.isNeededToSyncHRBatch(hrBatch);
             assertTrue("should require the sync", result);
@@ -454,7 +612,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.hrSummaryList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.hr.D10RT10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.hr.26662200-26662260";
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-08-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"sumOfAverages\":212.41478}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -468,7 +626,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.hrSummaryList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.hr.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.hr.26662200-26662260";
             // NOTE: there is a diff more than 0.01, the current sum is 212.41478
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"sumOfAverages\":212.42479}";
@@ -484,7 +642,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.hrSummaryList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.hr.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.hr.26662200-26662260";
             final String storedJson =
                 "{\"count\":2,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"sumOfAverages\":212.41478}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -498,7 +656,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.hrSummaryList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.hr.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.hr.26662200-26662260";
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"sumOfAverages\":212.41480}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -527,7 +685,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.stepsList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.steps.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.steps.26662200-26662260";
             when(mockedStorage.get(expectedKey)).thenReturn(null);
             boolean result = gfSyncMetadataStore.isNeededToSyncStepsBatch(stepsBatch);
             assertTrue("should require the sync", result);
@@ -540,7 +698,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.stepsList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.steps.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.steps.26662200-26662260";
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-08-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"totalSteps\":10064}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -554,7 +712,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.stepsList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.steps.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.steps.26662200-26662260";
             // NOTE: there is a diff in 1 step, the current total is 10064
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"totalSteps\":10063}";
@@ -570,7 +728,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.stepsList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.steps.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.steps.26662200-26662260";
             final String storedJson =
                 "{\"count\":2,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"totalSteps\":10064}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -584,7 +742,7 @@ public class GFSyncMetadataStoreTest {
                 new GFDataPointsBatch<>(TestIntradaySamplesData.stepsList,
                     Date.from(Instant.parse("2020-09-10T10:00:00Z")),
                     Date.from(Instant.parse("2020-09-10T11:00:00Z")));
-            final String expectedKey = "gf-sync-metadata.steps.D10T10:00-D10T11:00";
+            final String expectedKey = "gf-sync-metadata.steps.26662200-26662260";
             final String storedJson =
                 "{\"count\":3,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:40:00.000Z\",\"schemaVersion\":1,\"totalSteps\":10064}";
             when(mockedStorage.get(expectedKey)).thenReturn(storedJson);
@@ -879,6 +1037,134 @@ public class GFSyncMetadataStoreTest {
             verify(mockedStorage, times(1)).get(expectedKey);
         }
     }
+
+    public static class MigrateLegacyLookupKeysTest extends GivenRobolectricContext {
+        Clock fixedClock;
+        GFSyncMetadataStore gfSyncMetadataStore;
+        InMemoryStorage storage;
+
+        @Before
+        public void beforeTests() {
+            String instantExpected = "2020-10-16T21:30:00Z";
+            fixedClock = Clock.fixed(Instant.parse(instantExpected), ZoneId.of("UTC"));
+            storage = new InMemoryStorage();
+            gfSyncMetadataStore = new GFSyncMetadataStore(storage, fixedClock);
+        }
+
+        @Test
+        public void migrateLegacyLookupKeysIfNeeded_whenLegacyIntradayKeys_movesMetadataToEpochKeys() {
+            storage.set("gf-sync-metadata.calories.D10T10:00-D10T10:30",
+                "{\"count\":1,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalKcals\":5.2751}");
+            storage.set("gf-sync-metadata.steps.D30T21:00-D01T03:00",
+                "{\"count\":3,\"date\":\"2020-09-30\",\"editedAt\":\"2020-10-01T21:30:00.000Z\",\"schemaVersion\":1,\"totalSteps\":10064}");
+
+            gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
+
+            assertNull("should remove the legacy key", storage.get("gf-sync-metadata.calories.D10T10:00-D10T10:30"));
+            assertNull("should remove the legacy key", storage.get("gf-sync-metadata.steps.D30T21:00-D01T03:00"));
+            assertNotNull("should store the metadata by the new key",
+                storage.get("gf-sync-metadata.calories.26662200-26662230"));
+            assertNotNull("should restore the month of the batch end",
+                storage.get("gf-sync-metadata.steps.26691660-26692020"));
+            assertEquals("2", storage.get("gf-sync-metadata.lookup-keys-version"));
+
+            final GFDataPointsBatch<GFCalorieDataPoint> caloriesBatch = new GFDataPointsBatch<>(Arrays.asList(
+                new GFCalorieDataPoint(5.2751f, Date.from(Instant.parse("2020-09-10T10:05:00Z")), CALORIES_DATA_SOURCE)),
+                Date.from(Instant.parse("2020-09-10T10:00:00Z")),
+                Date.from(Instant.parse("2020-09-10T10:30:00Z")));
+            assertFalse("should not require the sync of the migrated batch",
+                gfSyncMetadataStore.isNeededToSyncCaloriesBatch(caloriesBatch));
+        }
+
+        @Test
+        public void migrateLegacyLookupKeysIfNeeded_whenLegacySessionListKey_movesMetadataToEpochDayKey() {
+            final String listMetadataJson =
+                "{\"date\":\"2020-10-16\",\"editedAt\":\"2020-10-16T21:30:00.000Z\",\"identifiers\":[\"session_id\"],\"schemaVersion\":1}";
+            storage.set("gf-sync-metadata.sessions.D16", listMetadataJson);
+
+            gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
+
+            assertNull("should remove the legacy key", storage.get("gf-sync-metadata.sessions.D16"));
+            assertEquals(listMetadataJson, storage.get("gf-sync-metadata.sessions.18551"));
+        }
+
+        @Test
+        public void migrateLegacyLookupKeysIfNeeded_whenMetadataByNewKeyExists_keepsNewMetadata() {
+            storage.set("gf-sync-metadata.steps.26662200-26662560", "~AgEAAAF0k6ynwAAASFMAAAADAAAnUA");
+            storage.set("gf-sync-metadata.steps.D10T10:00-D10T16:00",
+                "{\"count\":1,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-11T21:30:00.000Z\",\"schemaVersion\":1,\"totalSteps\":100}");
+
+            gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
+
+            assertEquals("~AgEAAAF0k6ynwAAASFMAAAADAAAnUA", storage.get("gf-sync-metadata.steps.26662200-26662560"));
+            assertNull("should remove the legacy key", storage.get("gf-sync-metadata.steps.D10T10:00-D10T16:00"));
+        }
+
+        @Test
+        public void migrateLegacyLookupKeysIfNeeded_whenAlreadyMigrated_doesNotTouchLegacyKeys() {
+            gfSyncMetadataStore.migrateLegacyLookupKeysIfNeeded();
+            final String legacyValue =
+                "{\"count\":1,\"date\":\"2020-09-10\",\"editedAt\":\"2020-09-15T21:30:00.000Z\",\"schemaVersion\":1,\"totalKcals\":5.2751}";
+            storage.set("gf-sync-metadata.calories.D10T10:00-D10T10:30", legacyValue);
+
+            new GFSyncMetadataStore(storage, fixedClock).migrateLegacyLookupKeysIfNeeded();
+
+            assertEquals(legacyValue, storage.get("gf-sync-metadata.calories.D10T10:00-D10T10:30"));
+            assertNull(storage.get("gf-sync-metadata.calories.26662200-26662230"));
+        }
+    }
+
+    public static class RemoveSyncMetadataOlderThanTest extends GivenRobolectricContext {
+        static final String FRESH_SESSION_JSON =
+            "{\"activitySegmentsCount\":2,\"applicationIdentifier\":null,\"caloriesCount\":3,\"editedAt\":\"2020-10-16T21:40:00.000Z\",\"heartRateCount\":3,\"id\":\"fresh_session_id\",\"name\":\"walk\",\"powerCount\":1,\"schemaVersion\":1,\"speedCount\":2,\"stepsCount\":3,\"timeEnd\":\"2020-10-16T13:00:00.000Z\",\"timeStart\":\"2020-10-16T11:20:00.000Z\",\"type\":7}";
+        static final String STALE_SESSION_JSON =
+            "{\"activitySegmentsCount\":2,\"applicationIdentifier\":null,\"caloriesCount\":3,\"editedAt\":\"2020-09-01T21:40:00.000Z\",\"heartRateCount\":3,\"id\":\"stale_session_id\",\"name\":\"walk\",\"powerCount\":1,\"schemaVersion\":1,\"speedCount\":2,\"stepsCount\":3,\"timeEnd\":\"2020-09-01T13:00:00.000Z\",\"timeStart\":\"2020-09-01T11:20:00.000Z\",\"type\":7}";
+
+        Clock fixedClock;
+        GFSyncMetadataStore gfSyncMetadataStore;
+        InMemoryStorage storage;
+
+        @Before
+        public void beforeTests() {
+            String instantExpected = "2020-10-16T21:30:00Z";
+            fixedClock = Clock.fixed(Instant.parse(instantExpected), ZoneId.of("UTC"));
+            storage = new InMemoryStorage();
+            gfSyncMetadataStore = new GFSyncMetadataStore(storage, fixedClock);
+        }
+
+        @Test
+        public void removeSyncMetadataOlderThan_removesOnlyStaleEntries() {
+            storage.set("gf-sync-metadata.calories.26662200-26662230", "~stale");
+            storage.set("gf-sync-metadata.steps.26700000-26700360", "~fresh");
+            storage.set("gf-sync-metadata.sessions.18515", "stale");
+            storage.set("gf-sync-metadata.sessions.18551", "fresh");
+            storage.set("gf-sync-metadata.session.stale_session_id", STALE_SESSION_JSON);
+            storage.set("gf-sync-metadata.session.fresh_session_id", FRESH_SESSION_JSON);
+            storage.set("gf-sync-metadata.weight", "weight");
+            final Date threshold = Date.from(Instant.parse("2020-09-15T00:00:00Z"));
+
+            final int removedCount = gfSyncMetadataStore.removeSyncMetadataOlderThan(threshold);
+
+            assertEquals(3, removedCount);
+            assertNull(storage.get("gf-sync-metadata.calories.26662200-26662230"));
+            assertNull(storage.get("gf-sync-metadata.sessions.18515"));
+            assertNull(storage.get("gf-sync-metadata.session.stale_session_id"));
+            assertEquals("~fresh", storage.get("gf-sync-metadata.steps.26700000-26700360"));
+            assertEquals("fresh", storage.get("gf-sync-metadata.sessions.18551"));
+            assertEquals(FRESH_SESSION_JSON, storage.get("gf-sync-metadata.session.fresh_session_id"));
+            assertEquals("should keep the profile metadata", "weight", storage.get("gf-sync-metadata.weight"));
+            assertEquals("should keep the version of keys", "2", storage.get("gf-sync-metadata.lookup-keys-version"));
+        }
+
+        @Test
+        public void removeSyncMetadataOlderThan_whenNothingIsStale_returnsZero() {
+            storage.set("gf-sync-metadata.steps.26700000-26700360", "~fresh");
+            final Date threshold = Date.from(Instant.parse("2020-09-15T00:00:00Z"));
+
+            assertEquals(0, gfSyncMetadataStore.removeSyncMetadataOlderThan(threshold));
+            assertEquals("~fresh", storage.get("gf-sync-metadata.steps.26700000-26700360"));
+        }
+    }
 }
 
 
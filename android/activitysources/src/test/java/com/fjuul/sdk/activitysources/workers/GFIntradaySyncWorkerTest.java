@@ -16,6 +16,7 @@ import static org.mockito.Mockito.when;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -41,6 +42,7 @@ import com.fjuul.sdk.activitysources.entities.FitnessMetricsType;
 import com.fjuul.sdk.activitysources.entities.GoogleFitActivitySource;
 import com.fjuul.sdk.activitysources.entities.GoogleFitIntradaySyncOptions;
 import com.fjuul.sdk.activitysources.exceptions.GoogleFitActivitySourceExceptions.CommonException;
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsPrefetchWorkScheduler;
 import com.fjuul.sdk.core.ApiClient;
 import com.fjuul.sdk.core.entities.Callback;
 
@@ -49,7 +51,10 @@ import android.os.Build;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.work.Data;
 import androidx.work.ListenableWorker.Result;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 import androidx.work.testing.TestWorkerBuilder;
+import androidx.work.testing.WorkManagerTestInitHelper;
 
 @RunWith(Enclosed.class)
 public class GFIntradaySyncWorkerTest {
@@ -246,5 +251,45 @@ public class GFIntradaySyncWorkerTest {
                     .collect(Collectors.toSet()),
                 syncOptions.getMetrics());
         }
+
+        @Test
+        public void doWork_whenTheSyncSucceedsWithDailyStatsPrefetch_schedulesPrefetchWork()
+            throws ExecutionException, InterruptedException {
+            final Context context = ApplicationProvider.getApplicationContext();
+            WorkManagerTestInitHelper.initializeTestWorkManager(context);
+            final ActivitySourcesManager mockedSourcesManager = mock(ActivitySourcesManager.class);
+            final ActivitySourceConnection mockedGfSourceConnection = mock(ActivitySourceConnection.class);
+            final GoogleFitActivitySource mockedGoogleFit = mock(GoogleFitActivitySource.class);
+            doAnswer((invocation -> {
+                Callback<Void> callback = invocation.getArgument(1, Callback.class);
+                callback.onResult(com.fjuul.sdk.core.entities.Result.value(null));
+                return null;
+            })).when(mockedGoogleFit).syncIntradayMetrics(any(), any());
+            when(mockedGfSourceConnection.getActivitySource()).thenReturn(mockedGoogleFit);
+            when(mockedSourcesManager.getCurrent()).thenReturn(Arrays.asList(mockedGfSourceConnection));
+
+            final Data inputData = new Data.Builder().putString("USER_TOKEN", "USER1")
+                .putString("USER_SECRET", "TOP_SECRET")
+                .putString("API_KEY", "FJUUL_API_KEY")
+                .putString("BASE_URL", "https://fjuul.com")
+                .putStringArray("INTRADAY_METRICS", new String[] {"INTRADAY_STEPS"})
+                .putInt("DAILY_STATS_PREFETCH_DAYS", 7)
+                .build();
+            spySubject = spy((GFIntradaySyncWorker) workerBuilder.setInputData(inputData).build());
+            doReturn(mockedSourcesManager).when(spySubject).getOrInitializeActivitySourcesManager();
+
+            final Future<Result> futureResult = pausedExecutor.submit(spySubject::doWork);
+            pausedExecutor.runAll();
+            final Result result = futureResult.get();
+
+            assertThat("should return the successful result", result, is(Result.success()));
+            final List<WorkInfo> prefetchWorks = WorkManager.getInstance(context)
+                .getWorkInfosForUniqueWork(DailyStatsPrefetchWorkScheduler.DAILY_STATS_PREFETCH_WORK_NAME)
+                .get();
+            assertEquals("should schedule the prefetch of daily stats", 1, prefetchWorks.size());
+            assertEquals("the prefetch should wait for the network",
+                WorkInfo.State.ENQUEUED,
+                prefetchWorks.get(0).getState());
+        }
     }
 }
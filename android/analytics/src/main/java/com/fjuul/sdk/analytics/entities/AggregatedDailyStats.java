@@ -1,5 +1,11 @@
 package com.fjuul.sdk.analytics.entities;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import androidx.annotation.NonNull;
 
 public class AggregatedDailyStats {
@@ -39,4 +45,71 @@ public class AggregatedDailyStats {
     public String[] getContributingSources() {
         return contributingSources;
     }
+
+    /**
+     * Aggregates daily stats of a day interval the same way as the analytics api does: sums of steps and activity
+     * measures, or their averages per day of the interval rounded to the nearest integer. Contributing sources are
+     * united in the order of days.
+     * <p>
+     * The analytics api omits days without data from daily stats, and its average is divided by the number of all
+     * days of the interval. So days missing in the given daily stats count as days without activity.
+     *
+     * @param dailyStats daily stats of days of the interval
+     * @param startDate the start of the interval (inclusive)
+     * @param endDate the end of the interval (inclusive)
+     * @param aggregation aggregation type; sum or average.
+     * @return aggregated daily stats
+     */
+    @NonNull
+    public static AggregatedDailyStats aggregate(@NonNull DailyStats[] dailyStats,
+        @NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @NonNull AggregationType aggregation) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after the end date");
+        }
+        long steps = 0;
+        final long[] lowSums = new long[2];
+        final long[] moderateSums = new long[2];
+        final long[] highSums = new long[2];
+        final Set<String> contributingSources = new LinkedHashSet<>();
+        for (DailyStats stats : dailyStats) {
+            steps += stats.steps;
+            addMeasure(lowSums, stats.low);
+            addMeasure(moderateSums, stats.moderate);
+            addMeasure(highSums, stats.high);
+            if (stats.contributingSources != null) {
+                contributingSources.addAll(Arrays.asList(stats.contributingSources));
+            }
+        }
+        final long divisor =
+            aggregation == AggregationType.average ? ChronoUnit.DAYS.between(startDate, endDate) + 1 : 1;
+        final AggregatedDailyStats aggregated = new AggregatedDailyStats();
+        aggregated.steps = divide(steps, divisor);
+        aggregated.low = toMeasure(lowSums, divisor);
+        aggregated.moderate = toMeasure(moderateSums, divisor);
+        aggregated.high = toMeasure(highSums, divisor);
+        aggregated.contributingSources = contributingSources.toArray(new String[0]);
+        return aggregated;
+    }
+
+    private static void addMeasure(@NonNull long[] sums, ActivityMeasure measure) {
+        if (measure == null) {
+            return;
+        }
+        sums[0] += measure.seconds;
+        sums[1] += measure.metMinutes;
+    }
+
+    @NonNull
+    private static ActivityMeasure toMeasure(@NonNull long[] sums, long divisor) {
+        final ActivityMeasure measure = new ActivityMeasure();
+        measure.seconds = divide(sums[0], divisor);
+        measure.metMinutes = divide(sums[1], divisor);
+        return measure;
+    }
+
+    private static int divide(long sum, long divisor) {
+        return (int) Math.round((double) sum / divisor);
+    }
 }
@@ -0,0 +1,102 @@
+package com.fjuul.sdk.analytics.entities;
+
+import java.time.Duration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Describes how daily stats are cached by the {@code AnalyticsService}. The cache is persisted in the storage of the
+ * user, so it survives restarts of the application and is cleared together with other user data by
+ * {@code ApiClient#clearPersistentStorage}.
+ * <p>
+ * Stats of recent days still change while the user's trackers sync their data, so they are never served from the
+ * cache and are fetched on every request, unless they were fetched recently enough (e.g. by the background prefetch)
+ * according to the max age of recent days. Older days are fetched once and then served from the cache. When the cache
+ * exceeds the max number of entries, the oldest days are evicted first.
+ *
+ * @see DailyStatsCachePolicy.Builder
+ */
+public class DailyStatsCachePolicy {
+    public static final int DEFAULT_MAX_ENTRIES = 366;
+    public static final int DEFAULT_REFETCHED_RECENT_DAYS = 2;
+
+    private final int maxEntries;
+    private final int refetchedRecentDays;
+    @Nullable
+    private final Duration recentDaysMaxAge;
+
+    private DailyStatsCachePolicy(int maxEntries, int refetchedRecentDays, @Nullable Duration recentDaysMaxAge) {
+        this.maxEntries = maxEntries;
+        this.refetchedRecentDays = refetchedRecentDays;
+        this.recentDaysMaxAge = recentDaysMaxAge;
+    }
+
+    /**
+     * @return max number of days kept in the cache
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return number of the most recent days (including today) which are always fetched from the server
+     */
+    public int getRefetchedRecentDays() {
+        return refetchedRecentDays;
+    }
+
+    /**
+     * @return max age of cached recent days to be served from the cache, or null if recent days are never cached
+     */
+    @Nullable
+    public Duration getRecentDaysMaxAge() {
+        return recentDaysMaxAge;
+    }
+
+    public static class Builder {
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private int refetchedRecentDays = DEFAULT_REFETCHED_RECENT_DAYS;
+        @Nullable
+        private Duration recentDaysMaxAge;
+
+        /**
+         * @param maxEntries max number of days kept in the cache. By default, it's 366.
+         */
+        public @NonNull Builder setMaxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("Max entries must be positive");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param refetchedRecentDays number of the most recent days (including today) which are always fetched from
+         *        the server. By default, it's 2, i.e. today and yesterday.
+         */
+        public @NonNull Builder setRefetchedRecentDays(int refetchedRecentDays) {
+            if (refetchedRecentDays < 1) {
+                throw new IllegalArgumentException("Refetched recent days must be positive");
+            }
+            this.refetchedRecentDays = refetchedRecentDays;
+            return this;
+        }
+
+        /**
+         * @param recentDaysMaxAge max age of cached recent days. Recent days which were fetched not earlier than that
+         *        are served from the cache instead of being refetched. By default, recent days are never cached.
+         */
+        public @NonNull Builder setRecentDaysMaxAge(@NonNull Duration recentDaysMaxAge) {
+            if (recentDaysMaxAge.isNegative()) {
+                throw new IllegalArgumentException("Max age of recent days must not be negative");
+            }
+            this.recentDaysMaxAge = recentDaysMaxAge;
+            return this;
+        }
+
+        public @NonNull DailyStatsCachePolicy build() {
+            return new DailyStatsCachePolicy(maxEntries, refetchedRecentDays, recentDaysMaxAge);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.fjuul.sdk.analytics.entities;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Describes the background prefetch of daily stats of recent days into the daily stats cache. The prefetch runs after
+ * every successful background sync of activity sources, so the fresh daily stats can be served from the cache without
+ * requests when the application is opened.
+ * <p>
+ * The cache policy should be the same as the one used by the {@code AnalyticsService} of the application. Recent days
+ * are served from the cache only if the policy has the max age of recent days (see
+ * {@link DailyStatsCachePolicy.Builder#setRecentDaysMaxAge}), so the cache policy of the prefetch must have it.
+ *
+ * @see DailyStatsPrefetchPolicy.Builder
+ */
+public class DailyStatsPrefetchPolicy {
+    public static final int DEFAULT_DAYS = 30;
+    // NOTE: background syncs run every hour, so prefetched recent days stay served until the next prefetch
+    public static final Duration DEFAULT_RECENT_DAYS_MAX_AGE = Duration.ofHours(1);
+
+    private final int days;
+    @NonNull
+    private final DailyStatsCachePolicy cachePolicy;
+
+    private DailyStatsPrefetchPolicy(int days, @NonNull DailyStatsCachePolicy cachePolicy) {
+        this.days = days;
+        this.cachePolicy = cachePolicy;
+    }
+
+    /**
+     * @return number of the most recent days (including today) to prefetch
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * @return policy of the cache which the prefetched days are put to
+     */
+    @NonNull
+    public DailyStatsCachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
+    public static class Builder {
+        private int days = DEFAULT_DAYS;
+        @NonNull
+        private DailyStatsCachePolicy cachePolicy =
+            new DailyStatsCachePolicy.Builder().setRecentDaysMaxAge(DEFAULT_RECENT_DAYS_MAX_AGE).build();
+
+        /**
+         * @param days number of the most recent days (including today) to prefetch. By default, it's 30.
+         */
+        public @NonNull Builder setDays(int days) {
+            if (days < 1) {
+                throw new IllegalArgumentException("Prefetched days must be positive");
+            }
+            this.days = days;
+            return this;
+        }
+
+        /**
+         * @param cachePolicy policy of the cache which the prefetched days are put to. It must have a positive max age
+         *        of recent days. By default, it's the default cache policy with the max age of recent days of 1 hour.
+         */
+        public @NonNull Builder setCachePolicy(@NonNull DailyStatsCachePolicy cachePolicy) {
+            Objects.requireNonNull(cachePolicy, "cache policy must be not null");
+            final Duration recentDaysMaxAge = cachePolicy.getRecentDaysMaxAge();
+            if (recentDaysMaxAge == null || recentDaysMaxAge.isZero()) {
+                throw new IllegalArgumentException("Cache policy of the prefetch must have a positive max age of recent "
+                    + "days");
+            }
+            this.cachePolicy = cachePolicy;
+            return this;
+        }
+
+        public @NonNull DailyStatsPrefetchPolicy build() {
+            return new DailyStatsPrefetchPolicy(days, cachePolicy);
+        }
+    }
+}
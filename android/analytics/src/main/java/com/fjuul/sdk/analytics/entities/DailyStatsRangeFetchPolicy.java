@@ -0,0 +1,69 @@
+package com.fjuul.sdk.analytics.entities;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Describes how a long day interval of daily stats is fetched: the interval is split into windows of days, and the
+ * windows are fetched concurrently by separate requests over the connections of the api-client. Smaller responses
+ * come faster from the server and are parsed one by one, so the first days are available long before the whole
+ * interval.
+ *
+ * @see DailyStatsRangeFetchPolicy.Builder
+ */
+public class DailyStatsRangeFetchPolicy {
+    public static final int DEFAULT_WINDOW_DAYS = 31;
+    public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 4;
+
+    private final int windowDays;
+    private final int maxParallelRequests;
+
+    private DailyStatsRangeFetchPolicy(int windowDays, int maxParallelRequests) {
+        this.windowDays = windowDays;
+        this.maxParallelRequests = maxParallelRequests;
+    }
+
+    /**
+     * @return max number of days fetched by one request
+     */
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * @return max number of windows fetched at the same time
+     */
+    public int getMaxParallelRequests() {
+        return maxParallelRequests;
+    }
+
+    public static class Builder {
+        private int windowDays = DEFAULT_WINDOW_DAYS;
+        private int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
+
+        /**
+         * @param windowDays max number of days fetched by one request. By default, it's 31.
+         */
+        public @NonNull Builder setWindowDays(int windowDays) {
+            if (windowDays < 1) {
+                throw new IllegalArgumentException("Window days must be positive");
+            }
+            this.windowDays = windowDays;
+            return this;
+        }
+
+        /**
+         * @param maxParallelRequests max number of windows fetched at the same time. By default, it's 4.
+         */
+        public @NonNull Builder setMaxParallelRequests(int maxParallelRequests) {
+            if (maxParallelRequests < 1) {
+                throw new IllegalArgumentException("Max parallel requests must be positive");
+            }
+            this.maxParallelRequests = maxParallelRequests;
+            return this;
+        }
+
+        public @NonNull DailyStatsRangeFetchPolicy build() {
+            return new DailyStatsRangeFetchPolicy(windowDays, maxParallelRequests);
+        }
+    }
+}
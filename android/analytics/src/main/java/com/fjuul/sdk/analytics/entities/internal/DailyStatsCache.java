@@ -0,0 +1,317 @@
+package com.fjuul.sdk.analytics.entities.internal;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.fjuul.sdk.analytics.entities.DailyStats;
+import com.fjuul.sdk.analytics.entities.DailyStatsCachePolicy;
+import com.fjuul.sdk.core.entities.IStorage;
+import com.fjuul.sdk.core.entities.StorageClearances;
+import com.fjuul.sdk.core.utils.Logger;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.Moshi;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Persistent cache of daily stats of one user. Every day is stored as a separate entry of the user's storage, so
+ * caching of fetched days doesn't rewrite the whole cache.
+ * <p>
+ * If the policy has the max age of recent days, recent days are stored too, together with the time of their fetch,
+ * and are served until they get older than the max age. They are stored apart from past days and are dropped once they
+ * become past days, because they could be fetched before the day was fully synced.
+ * <p>
+ * Caches of the same user share the past days loaded into memory, so days put by one cache (e.g. by the background
+ * prefetch) are served by others. The loaded days are dropped when the persistent storage of the user is cleared.
+ */
+public class DailyStatsCache {
+    static final String KEY_PREFIX = "analytics-daily-stats.";
+    static final String RECENT_KEY_PREFIX = "analytics-recent-daily-stats.";
+
+    private static final Map<String, LoadedEntries> sharedEntries = new HashMap<>();
+
+    @NonNull
+    private final IStorage storage;
+    @NonNull
+    private final DailyStatsCachePolicy policy;
+    @NonNull
+    private final Clock clock;
+    @NonNull
+    private final JsonAdapter<DailyStats> dailyStatsJsonAdapter;
+    @NonNull
+    private final JsonAdapter<RecentEntry> recentEntryJsonAdapter;
+    // NOTE: the cached days are kept in memory to not touch the storage and parse json on every query. All access to
+    // them is synchronized on this object.
+    @NonNull
+    private final LoadedEntries loadedEntries;
+
+    /**
+     * Creates the cache which shares the loaded days with other caches of the user.
+     *
+     * @param storage storage of the user
+     * @param userToken token of the user
+     * @param policy policy of caching
+     */
+    public DailyStatsCache(@NonNull IStorage storage,
+        @NonNull String userToken,
+        @NonNull DailyStatsCachePolicy policy) {
+        this(storage, userToken, policy, Clock.systemDefaultZone());
+    }
+
+    public DailyStatsCache(@NonNull IStorage storage,
+        @NonNull String userToken,
+        @NonNull DailyStatsCachePolicy policy,
+        @NonNull Clock clock) {
+        this(storage, getSharedEntries(userToken), policy, clock);
+    }
+
+    /**
+     * Creates the cache which doesn't share the loaded days with other caches.
+     */
+    public DailyStatsCache(@NonNull IStorage storage, @NonNull DailyStatsCachePolicy policy, @NonNull Clock clock) {
+        this(storage, new LoadedEntries(null), policy, clock);
+    }
+
+    private DailyStatsCache(@NonNull IStorage storage,
+        @NonNull LoadedEntries loadedEntries,
+        @NonNull DailyStatsCachePolicy policy,
+        @NonNull Clock clock) {
+        this.storage = storage;
+        this.loadedEntries = loadedEntries;
+        this.policy = policy;
+        this.clock = clock;
+        final Moshi moshi = new Moshi.Builder().build();
+        this.dailyStatsJsonAdapter = moshi.adapter(DailyStats.class).nullSafe();
+        this.recentEntryJsonAdapter = moshi.adapter(RecentEntry.class).nullSafe();
+    }
+
+    @NonNull
+    private static LoadedEntries getSharedEntries(@NonNull String userToken) {
+        synchronized (sharedEntries) {
+            LoadedEntries entries = sharedEntries.get(userToken);
+            if (entries == null) {
+                entries = new LoadedEntries(userToken);
+                sharedEntries.put(userToken, entries);
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * @return the first recent day; it and all later days are refetched unless they were cached recently enough
+     */
+    @NonNull
+    public LocalDate getFirstRefetchedDate() {
+        return LocalDate.now(clock).minusDays(policy.getRefetchedRecentDays() - 1);
+    }
+
+    /**
+     * @param startDate the start of the day interval (inclusive)
+     * @param endDate the end of the day interval (inclusive)
+     * @return cached days of the interval sorted by date, except for the recent days which must be refetched or are
+     *         older than the max age
+     */
+    @NonNull
+    public SortedMap<LocalDate, DailyStats> get(@NonNull LocalDate startDate, @NonNull LocalDate endDate) {
+        final TreeMap<LocalDate, DailyStats> days = new TreeMap<>();
+        final LocalDate firstRefetchedDate = getFirstRefetchedDate();
+        final LocalDate lastCachedDate =
+            endDate.isBefore(firstRefetchedDate) ? endDate : firstRefetchedDate.minusDays(1);
+        if (!lastCachedDate.isBefore(startDate)) {
+            synchronized (loadedEntries) {
+                days.putAll(loadEntries().subMap(startDate, true, lastCachedDate, true));
+            }
+        }
+        final Duration recentDaysMaxAge = policy.getRecentDaysMaxAge();
+        final LocalDate firstRecentDate = startDate.isAfter(firstRefetchedDate) ? startDate : firstRefetchedDate;
+        if (recentDaysMaxAge == null || endDate.isBefore(firstRecentDate)) {
+            return days;
+        }
+        final long minFetchedAt = clock.millis() - recentDaysMaxAge.toMillis();
+        for (Map.Entry<LocalDate, RecentEntry> entry : loadRecentEntries().subMap(firstRecentDate, true, endDate, true)
+            .entrySet()) {
+            if (entry.getValue().fetchedAt >= minFetchedAt) {
+                days.put(entry.getKey(), entry.getValue().dailyStats);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Puts fetched days to the cache. Recent days are skipped unless the policy has the max age of recent days. If the
+     * cache grows beyond the max number of entries, the oldest days are evicted.
+     *
+     * @param dailyStats fetched daily stats
+     */
+    public void put(@NonNull Collection<DailyStats> dailyStats) {
+        synchronized (loadedEntries) {
+            putEntries(dailyStats);
+        }
+    }
+
+    private void putEntries(@NonNull Collection<DailyStats> dailyStats) {
+        final TreeMap<LocalDate, DailyStats> entries = loadEntries();
+        final LocalDate firstRefetchedDate = getFirstRefetchedDate();
+        final boolean cachesRecentDays = policy.getRecentDaysMaxAge() != null;
+        final long fetchedAt = clock.millis();
+        final IStorage.Transaction transaction = storage.beginTransaction();
+        boolean modified = false;
+        for (DailyStats stats : dailyStats) {
+            final LocalDate date = parseDate(stats.getDate());
+            if (date == null) {
+                continue;
+            }
+            if (!date.isBefore(firstRefetchedDate)) {
+                if (cachesRecentDays) {
+                    final String json = recentEntryJsonAdapter.toJson(new RecentEntry(fetchedAt, stats));
+                    transaction.put(toRecentKey(date), json);
+                    modified = true;
+                }
+                continue;
+            }
+            entries.put(date, stats);
+            transaction.put(toKey(date), dailyStatsJsonAdapter.toJson(stats));
+            modified = true;
+        }
+        while (entries.size() > policy.getMaxEntries()) {
+            transaction.remove(toKey(entries.pollFirstEntry().getKey()));
+            modified = true;
+        }
+        for (LocalDate date : loadRecentEntries().headMap(firstRefetchedDate).keySet()) {
+            transaction.remove(toRecentKey(date));
+            modified = true;
+        }
+        if (modified && !transaction.commit()) {
+            Logger.get().w("failed to persist the daily stats cache");
+        }
+    }
+
+    /**
+     * @return number of past days in the cache
+     */
+    public int size() {
+        synchronized (loadedEntries) {
+            return loadEntries().size();
+        }
+    }
+
+    @NonNull
+    private TreeMap<LocalDate, DailyStats> loadEntries() {
+        final String userToken = loadedEntries.userToken;
+        final long clearances = userToken != null ? StorageClearances.getCount(userToken) : 0;
+        if (loadedEntries.days != null && loadedEntries.clearances == clearances) {
+            return loadedEntries.days;
+        }
+        final TreeMap<LocalDate, DailyStats> entries = new TreeMap<>();
+        loadedEntries.days = entries;
+        loadedEntries.clearances = clearances;
+        for (Map.Entry<String, String> entry : storage.getAllByPrefix(KEY_PREFIX).entrySet()) {
+            final LocalDate date = parseDate(entry.getKey().substring(KEY_PREFIX.length()));
+            final DailyStats stats = parseDailyStats(entry.getValue());
+            if (date != null && stats != null) {
+                entries.put(date, stats);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * NOTE: recent days aren't kept in memory because they may be refreshed by other instances of the cache, e.g. by
+     * the background prefetch, and there are only a few of them.
+     */
+    @NonNull
+    private TreeMap<LocalDate, RecentEntry> loadRecentEntries() {
+        final TreeMap<LocalDate, RecentEntry> recentEntries = new TreeMap<>();
+        for (Map.Entry<String, String> entry : storage.getAllByPrefix(RECENT_KEY_PREFIX).entrySet()) {
+            final LocalDate date = parseDate(entry.getKey().substring(RECENT_KEY_PREFIX.length()));
+            final RecentEntry recentEntry = parseRecentEntry(entry.getValue());
+            if (date != null && recentEntry != null && recentEntry.dailyStats != null) {
+                recentEntries.put(date, recentEntry);
+            }
+        }
+        return recentEntries;
+    }
+
+    @Nullable
+    private RecentEntry parseRecentEntry(@Nullable String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return recentEntryJsonAdapter.fromJson(json);
+        } catch (IOException | JsonDataException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private DailyStats parseDailyStats(@Nullable String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return dailyStatsJsonAdapter.fromJson(json);
+        } catch (IOException | JsonDataException e) {
+            return null;
+        }
+    }
+
+    @NonNull
+    private static String toKey(@NonNull LocalDate date) {
+        return KEY_PREFIX + date;
+    }
+
+    @NonNull
+    private static String toRecentKey(@NonNull LocalDate date) {
+        return RECENT_KEY_PREFIX + date;
+    }
+
+    @Nullable
+    private static LocalDate parseDate(@Nullable String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Past days loaded from the storage.
+     */
+    private static final class LoadedEntries {
+        // NOTE: null for caches which don't share their days
+        @Nullable
+        final String userToken;
+        // NOTE: null means that the days weren't loaded from the storage yet
+        @Nullable
+        TreeMap<LocalDate, DailyStats> days;
+        long clearances;
+
+        LoadedEntries(@Nullable String userToken) {
+            this.userToken = userToken;
+        }
+    }
+
+    private static final class RecentEntry {
+        long fetchedAt;
+        DailyStats dailyStats;
+
+        RecentEntry(long fetchedAt, @NonNull DailyStats dailyStats) {
+            this.fetchedAt = fetchedAt;
+            this.dailyStats = dailyStats;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.fjuul.sdk.analytics.entities.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fjuul.sdk.analytics.entities.DailyStatsPrefetchPolicy;
+import com.fjuul.sdk.analytics.workers.DailyStatsPrefetchWorker;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+/**
+ * Schedules the background prefetch of daily stats. The prefetch policy is put to the input data of background sync
+ * works, so the prefetch can be enqueued by a sync worker once its data is uploaded.
+ */
+public class DailyStatsPrefetchWorkScheduler {
+    public static final String DAILY_STATS_PREFETCH_WORK_NAME =
+        "com.fjuul.sdk.background_work.analytics_daily_stats_prefetch";
+
+    private DailyStatsPrefetchWorkScheduler() {}
+
+    /**
+     * Puts the prefetch policy to the input data of a background sync work.
+     *
+     * @param inputData input data of the sync work which already has the api client arguments
+     * @param prefetchPolicy policy of the prefetch
+     */
+    public static void putPrefetchPolicy(@NonNull Data.Builder inputData,
+        @NonNull DailyStatsPrefetchPolicy prefetchPolicy) {
+        inputData.putInt(DailyStatsPrefetchWorker.KEY_PREFETCH_DAYS_ARG, prefetchPolicy.getDays())
+            .putInt(DailyStatsPrefetchWorker.KEY_CACHE_MAX_ENTRIES_ARG, prefetchPolicy.getCachePolicy().getMaxEntries())
+            .putInt(DailyStatsPrefetchWorker.KEY_CACHE_REFETCHED_RECENT_DAYS_ARG,
+                prefetchPolicy.getCachePolicy().getRefetchedRecentDays());
+    }
+
+    /**
+     * Enqueues the prefetch if the input data of the finished sync work has the prefetch policy. The pending or
+     * running prefetch is replaced, so the prefetched days include data of the latest sync.
+     *
+     * @param context application context
+     * @param syncInputData input data of the finished sync work
+     */
+    public static void schedulePrefetchWork(@NonNull Context context, @NonNull Data syncInputData) {
+        if (syncInputData.getInt(DailyStatsPrefetchWorker.KEY_PREFETCH_DAYS_ARG, 0) < 1) {
+            return;
+        }
+        final Map<String, Object> syncArgs = syncInputData.getKeyValueMap();
+        final Map<String, Object> prefetchArgs = new HashMap<>();
+        for (String key : DailyStatsPrefetchWorker.INPUT_KEYS) {
+            if (syncArgs.containsKey(key)) {
+                prefetchArgs.put(key, syncArgs.get(key));
+            }
+        }
+        final OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(DailyStatsPrefetchWorker.class)
+            .setConstraints(new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+            .setInputData(new Data.Builder().putAll(prefetchArgs).build())
+            .build();
+        WorkManager.getInstance(context)
+            .enqueueUniqueWork(DAILY_STATS_PREFETCH_WORK_NAME, ExistingWorkPolicy.REPLACE, workRequest);
+    }
+
+    public static void cancelPrefetchWork(@NonNull WorkManager workManager) {
+        workManager.cancelUniqueWork(DAILY_STATS_PREFETCH_WORK_NAME);
+    }
+}
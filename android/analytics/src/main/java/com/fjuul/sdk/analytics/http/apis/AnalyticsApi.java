@@ -5,6 +5,7 @@ import com.fjuul.sdk.analytics.entities.DailyStats;
 import com.fjuul.sdk.core.http.utils.ApiCall;
 
 import androidx.annotation.NonNull;
+import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
@@ -20,10 +21,31 @@ public interface AnalyticsApi {
         @Query("from") @NonNull String startDate,
         @Query("to") @NonNull String endDate);
 
+    /**
+     * The same request as {@link #getDailyStats(String, String, String)} which gives the raw response, e.g. to fetch
+     * parts of a day interval and merge them.
+     */
+    @GET("/sdk/analytics/v1/daily-stats/{userToken}")
+    @NonNull
+    Call<DailyStats[]> getDailyStatsRange(@Path("userToken") @NonNull String userToken,
+        @Query("from") @NonNull String startDate,
+        @Query("to") @NonNull String endDate);
+
     @GET("/sdk/analytics/v1/daily-stats/{userToken}/aggregated")
     @NonNull
     ApiCall<AggregatedDailyStats> getAggregatedDailyStats(@Path("userToken") @NonNull String userToken,
         @Query("from") @NonNull String startDate,
         @Query("to") @NonNull String endDate,
         @Query("aggregation") @NonNull String aggregation);
+
+    /**
+     * The same request as {@link #getAggregatedDailyStats(String, String, String, String)} which gives the raw
+     * response, e.g. to fall back to it from the local aggregation.
+     */
+    @GET("/sdk/analytics/v1/daily-stats/{userToken}/aggregated")
+    @NonNull
+    Call<AggregatedDailyStats> getRawAggregatedDailyStats(@Path("userToken") @NonNull String userToken,
+        @Query("from") @NonNull String startDate,
+        @Query("to") @NonNull String endDate,
+        @Query("aggregation") @NonNull String aggregation);
 }
@@ -0,0 +1,197 @@
+package com.fjuul.sdk.analytics.http.services;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import com.fjuul.sdk.analytics.entities.AggregatedDailyStats;
+import com.fjuul.sdk.analytics.entities.AggregationType;
+import com.fjuul.sdk.analytics.entities.DailyStats;
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Call of aggregated daily stats which aggregates the days locally if {@link DailyStatsCache} has any day of the
+ * interval: only the days missing in the cache are fetched as daily stats. If the cache has no day of the interval,
+ * the aggregation is requested from the server.
+ * <p>
+ * The enqueued call reads the cache on the cache executor, never on the thread which enqueues the call.
+ */
+class AggregatedDailyStatsCall implements Call<AggregatedDailyStats> {
+    @NonNull
+    private final DailyStatsCache cache;
+    @NonNull
+    private final LocalDate startDate;
+    @NonNull
+    private final LocalDate endDate;
+    @NonNull
+    private final AggregationType aggregation;
+    @NonNull
+    private final Supplier<Call<DailyStats[]>> dailyStatsCallFactory;
+    @NonNull
+    private final Call<AggregatedDailyStats> serverCall;
+    @NonNull
+    private final Executor cacheExecutor;
+    @Nullable
+    private Call<DailyStats[]> dailyStatsCall;
+    private boolean executed;
+    private volatile boolean canceled;
+
+    /**
+     * @param dailyStatsCallFactory factory of the call of daily stats of the interval
+     * @param serverCall call of the aggregation by the server
+     * @param cacheExecutor executor of reads of the cache by the enqueued call
+     */
+    AggregatedDailyStatsCall(@NonNull DailyStatsCache cache,
+        @NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @NonNull AggregationType aggregation,
+        @NonNull Supplier<Call<DailyStats[]>> dailyStatsCallFactory,
+        @NonNull Call<AggregatedDailyStats> serverCall,
+        @NonNull Executor cacheExecutor) {
+        this.cache = cache;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.aggregation = aggregation;
+        this.dailyStatsCallFactory = dailyStatsCallFactory;
+        this.serverCall = serverCall;
+        this.cacheExecutor = cacheExecutor;
+    }
+
+    @NonNull
+    @Override
+    public Response<AggregatedDailyStats> execute() throws IOException {
+        markExecuted();
+        final Call<DailyStats[]> localCall = startLocalCall();
+        if (localCall == null) {
+            return serverCall.execute();
+        }
+        return aggregate(localCall.execute());
+    }
+
+    @Override
+    public void enqueue(@NonNull Callback<AggregatedDailyStats> callback) {
+        markExecuted();
+        cacheExecutor.execute(() -> enqueueAfterCacheRead(callback));
+    }
+
+    private void enqueueAfterCacheRead(@NonNull Callback<AggregatedDailyStats> callback) {
+        final Call<DailyStats[]> localCall = startLocalCall();
+        if (localCall == null) {
+            serverCall.enqueue(new Callback<AggregatedDailyStats>() {
+                @Override
+                public void onResponse(@NonNull Call<AggregatedDailyStats> call,
+                    @NonNull Response<AggregatedDailyStats> response) {
+                    callback.onResponse(AggregatedDailyStatsCall.this, response);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<AggregatedDailyStats> call, @NonNull Throwable t) {
+                    callback.onFailure(AggregatedDailyStatsCall.this, t);
+                }
+            });
+            return;
+        }
+        localCall.enqueue(new Callback<DailyStats[]>() {
+            @Override
+            public void onResponse(@NonNull Call<DailyStats[]> call, @NonNull Response<DailyStats[]> response) {
+                callback.onResponse(AggregatedDailyStatsCall.this, aggregate(response));
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<DailyStats[]> call, @NonNull Throwable t) {
+                callback.onFailure(AggregatedDailyStatsCall.this, t);
+            }
+        });
+    }
+
+    @Override
+    public synchronized boolean isExecuted() {
+        return executed;
+    }
+
+    @Override
+    public void cancel() {
+        final Call<DailyStats[]> localCall;
+        synchronized (this) {
+            canceled = true;
+            localCall = dailyStatsCall;
+        }
+        serverCall.cancel();
+        if (localCall != null) {
+            localCall.cancel();
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @NonNull
+    @Override
+    public Call<AggregatedDailyStats> clone() {
+        return new AggregatedDailyStatsCall(cache,
+            startDate,
+            endDate,
+            aggregation,
+            dailyStatsCallFactory,
+            serverCall.clone(),
+            cacheExecutor);
+    }
+
+    @NonNull
+    @Override
+    public Request request() {
+        return serverCall.request();
+    }
+
+    @NonNull
+    @Override
+    public Timeout timeout() {
+        return serverCall.timeout();
+    }
+
+    /**
+     * @return the call of daily stats to aggregate locally, or null if the server call must be used
+     */
+    private synchronized void markExecuted() {
+        if (executed) {
+            throw new IllegalStateException("Already executed.");
+        }
+        executed = true;
+    }
+
+    @Nullable
+    private Call<DailyStats[]> startLocalCall() {
+        if (cache.get(startDate, endDate).isEmpty()) {
+            return null;
+        }
+        final Call<DailyStats[]> localCall = dailyStatsCallFactory.get();
+        synchronized (this) {
+            dailyStatsCall = localCall;
+        }
+        if (canceled) {
+            localCall.cancel();
+        }
+        return localCall;
+    }
+
+    @NonNull
+    private Response<AggregatedDailyStats> aggregate(@NonNull Response<DailyStats[]> response) {
+        if (!response.isSuccessful()) {
+            return Response.error(response.errorBody(), response.raw());
+        }
+        final DailyStats[] dailyStats = response.body() != null ? response.body() : new DailyStats[0];
+        return Response.success(AggregatedDailyStats.aggregate(dailyStats, startDate, endDate, aggregation),
+            response.raw());
+    }
+}
@@ -2,28 +2,46 @@ package com.fjuul.sdk.analytics.http.services;
 
 import java.time.LocalDate;
 import java.util.Date;
+import java.util.concurrent.Executor;
 
 import com.fjuul.sdk.analytics.entities.AggregatedDailyStats;
 import com.fjuul.sdk.analytics.entities.AggregationType;
 import com.fjuul.sdk.analytics.entities.DailyStats;
+import com.fjuul.sdk.analytics.entities.DailyStatsCachePolicy;
+import com.fjuul.sdk.analytics.entities.DailyStatsRangeFetchPolicy;
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsCache;
 import com.fjuul.sdk.analytics.http.apis.AnalyticsApi;
 import com.fjuul.sdk.core.ApiClient;
 import com.fjuul.sdk.core.http.utils.ApiCall;
 import com.fjuul.sdk.core.http.utils.ApiCallAdapterFactory;
+import com.fjuul.sdk.core.http.utils.CallbackExecutors;
+import com.fjuul.sdk.core.http.utils.DefaultApiResponseTransformer;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import okhttp3.OkHttpClient;
+import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.moshi.MoshiConverterFactory;
 
 /**
- * The `AnalyticsService` encapsulates access to a user's fitness and activity data.
+ * The `AnalyticsService` encapsulates access to a user's fitness and activity data.<br>
+ * Identical analytics requests made at the same time (e.g. by several screens) are sent only once, and all callers get
+ * the result of the shared request.
  */
 public class AnalyticsService {
+    // NOTE: in-flight requests are shared by all instances of the service, as requests of different users differ
+    private static final InFlightCalls IN_FLIGHT_CALLS = new InFlightCalls();
+
     private AnalyticsApi analyticsApiClient;
     private ApiClient clientBuilder;
+    @Nullable
+    private DailyStatsCache dailyStatsCache;
+    // NOTE: the cache is read on threads of the http dispatcher, so enqueued calls don't touch the storage on the
+    // thread of the caller
+    private Executor cacheExecutor;
 
     /**
      * Create instance of the analytics api service.
@@ -31,13 +49,36 @@ public class AnalyticsService {
      * @param client configured client with signing ability and user credentials
      */
     public AnalyticsService(@NonNull ApiClient client) {
+        this(client, (DailyStatsCache) null);
+    }
+
+    /**
+     * Create instance of the analytics api service which caches daily stats of past days in the storage of the user.
+     * Requests of daily stats for a day interval are served from the cache and fetch only days which are missing in
+     * it.
+     *
+     * @param client configured client with signing ability and user credentials
+     * @param cachePolicy policy of caching of daily stats
+     */
+    public AnalyticsService(@NonNull ApiClient client, @NonNull DailyStatsCachePolicy cachePolicy) {
+        this(client, new DailyStatsCache(client.getStorage(), client.getUserToken(), cachePolicy));
+    }
+
+    AnalyticsService(@NonNull ApiClient client, @Nullable DailyStatsCache dailyStatsCache) {
         this.clientBuilder = client;
+        this.dailyStatsCache = dailyStatsCache;
         OkHttpClient httpClient = client.buildSigningClient();
+        this.cacheExecutor = httpClient.dispatcher().executorService();
         Moshi moshi = new Moshi.Builder().add(Date.class, new Rfc3339DateJsonAdapter()).build();
         Retrofit retrofit = new Retrofit.Builder().baseUrl(client.getBaseUrl())
             .client(httpClient)
-            .addCallAdapterFactory(ApiCallAdapterFactory.create())
+            .addCallAdapterFactory(new CoalescingCallAdapterFactory(IN_FLIGHT_CALLS))
+            .addCallAdapterFactory(
+                ApiCallAdapterFactory.create(new DefaultApiResponseTransformer(), client.getCallbackExecutor()))
             .addConverterFactory(MoshiConverterFactory.create(moshi))
+            // NOTE: raw calls are only enqueued internally, so their callbacks don't need to be switched to the main
+            // thread
+            .callbackExecutor(CallbackExecutors.direct())
             .build();
         analyticsApiClient = retrofit.create(AnalyticsApi.class);
     }
@@ -53,7 +94,10 @@ public class AnalyticsService {
     }
 
     /**
-     * Builds the call to get the daily activity statistics for a given day interval.
+     * Builds the call to get the daily activity statistics for a given day interval.<br>
+     * If the service was created with a cache policy, past days are served from the cache and only missing days are
+     * fetched, while recent days are fetched every time. Days requested by other in-flight calls are taken from their
+     * results, so overlapping intervals requested at the same time are fetched only once.
      *
      * @param startDate the start of the day interval to request daily stats for (inclusive); this is the date in the
      *        users local timezone.
@@ -62,11 +106,35 @@ public class AnalyticsService {
      * @return ApiCall for the user activity statistics for the given day interval.
      */
     public @NonNull ApiCall<DailyStats[]> getDailyStats(@NonNull LocalDate startDate, @NonNull LocalDate endDate) {
-        return analyticsApiClient.getDailyStats(clientBuilder.getUserToken(), startDate.toString(), endDate.toString());
+        return buildDailyStatsRangeCall(startDate, endDate, null, null);
+    }
+
+    /**
+     * Builds the call to get the daily activity statistics for a long day interval, e.g. a year. The interval is split
+     * into windows of days which are fetched concurrently, and days of each completed window are delivered to the
+     * listener in the order of dates before the whole interval is fetched.<br>
+     * The cache and sharing of in-flight requests apply to every window as described in
+     * {@link #getDailyStats(LocalDate, LocalDate)}.
+     *
+     * @param startDate the start of the day interval to request daily stats for (inclusive); this is the date in the
+     *        users local timezone.
+     * @param endDate the end of the day interval to request daily stats for (inclusive); this is the date in the users
+     *        local timezone.
+     * @param fetchPolicy policy of splitting of the interval into windows
+     * @param progressListener listener of days of fetched windows, or null to get only the whole interval
+     * @return ApiCall for the user activity statistics for the given day interval.
+     */
+    public @NonNull ApiCall<DailyStats[]> getDailyStats(@NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @NonNull DailyStatsRangeFetchPolicy fetchPolicy,
+        @Nullable IDailyStatsProgressListener progressListener) {
+        return buildDailyStatsRangeCall(startDate, endDate, fetchPolicy, progressListener);
     }
 
     /**
-     * Builds a call to get sums or averages of the daily activity statistics within a given date range.
+     * Builds a call to get sums or averages of the daily activity statistics within a given date range.<br>
+     * If the service was created with a cache policy and the cache has days of the interval, the aggregation is
+     * computed locally, and only days missing in the cache are fetched as daily stats.
      *
      * @param startDate the start of the interval to request daily stats aggregate for (inclusive); this is the date in
      *        the users local timezone.
@@ -78,9 +146,51 @@ public class AnalyticsService {
     public @NonNull ApiCall<AggregatedDailyStats> getAggregatedDailyStats(@NonNull LocalDate startDate,
         @NonNull LocalDate endDate,
         @NonNull AggregationType aggregation) {
-        return analyticsApiClient.getAggregatedDailyStats(clientBuilder.getUserToken(),
-            startDate.toString(),
-            endDate.toString(),
-            aggregation.toString());
+        final String userToken = clientBuilder.getUserToken();
+        final String from = startDate.toString();
+        final String to = endDate.toString();
+        if (dailyStatsCache == null || startDate.isAfter(endDate)) {
+            return analyticsApiClient.getAggregatedDailyStats(userToken, from, to, aggregation.toString());
+        }
+        final Call<AggregatedDailyStats> serverCall = new CoalescingCall<>(IN_FLIGHT_CALLS,
+            analyticsApiClient.getRawAggregatedDailyStats(userToken, from, to, aggregation.toString()));
+        final AggregatedDailyStatsCall call = new AggregatedDailyStatsCall(dailyStatsCache,
+            startDate,
+            endDate,
+            aggregation,
+            () -> createDailyStatsRangeCall(startDate, endDate, null, null),
+            serverCall,
+            cacheExecutor);
+        return new ApiCall<>(call, new DefaultApiResponseTransformer<>(), clientBuilder.getCallbackExecutor());
+    }
+
+    @NonNull
+    private ApiCall<DailyStats[]> buildDailyStatsRangeCall(@NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @Nullable DailyStatsRangeFetchPolicy fetchPolicy,
+        @Nullable IDailyStatsProgressListener progressListener) {
+        if (startDate.isAfter(endDate)) {
+            return analyticsApiClient
+                .getDailyStats(clientBuilder.getUserToken(), startDate.toString(), endDate.toString());
+        }
+        final DailyStatsRangeCall call = createDailyStatsRangeCall(startDate, endDate, fetchPolicy, progressListener);
+        return new ApiCall<>(call, new DefaultApiResponseTransformer<>(), clientBuilder.getCallbackExecutor());
+    }
+
+    @NonNull
+    private DailyStatsRangeCall createDailyStatsRangeCall(@NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @Nullable DailyStatsRangeFetchPolicy fetchPolicy,
+        @Nullable IDailyStatsProgressListener progressListener) {
+        final String userToken = clientBuilder.getUserToken();
+        return new DailyStatsRangeCall(dailyStatsCache,
+            IN_FLIGHT_CALLS,
+            startDate,
+            endDate,
+            fetchPolicy,
+            progressListener,
+            clientBuilder.getCallbackExecutor(),
+            cacheExecutor,
+            (from, to) -> analyticsApiClient.getDailyStatsRange(userToken, from.toString(), to.toString()));
     }
 }
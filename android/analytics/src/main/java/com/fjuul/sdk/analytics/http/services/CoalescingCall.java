@@ -0,0 +1,104 @@
+package com.fjuul.sdk.analytics.http.services;
+
+import java.io.IOException;
+
+import androidx.annotation.NonNull;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Call which doesn't send its request if an identical one is in flight, but gets the response of the latter.
+ *
+ * @see InFlightCalls#subscribe(Call)
+ */
+final class CoalescingCall<T> implements Call<T> {
+    @NonNull
+    private final InFlightCalls inFlightCalls;
+    @NonNull
+    private final Call<T> call;
+    private SharedCall.Subscription<T> subscription;
+    private boolean executed;
+    private volatile boolean canceled;
+
+    CoalescingCall(@NonNull InFlightCalls inFlightCalls, @NonNull Call<T> call) {
+        this.inFlightCalls = inFlightCalls;
+        this.call = call;
+    }
+
+    @NonNull
+    @Override
+    public Response<T> execute() throws IOException {
+        return subscribe().await();
+    }
+
+    @Override
+    public void enqueue(@NonNull Callback<T> callback) {
+        subscribe().whenComplete((response, failure) -> {
+            if (failure != null) {
+                callback.onFailure(this, failure);
+            } else {
+                callback.onResponse(this, response);
+            }
+        });
+    }
+
+    @Override
+    public synchronized boolean isExecuted() {
+        return executed;
+    }
+
+    @Override
+    public void cancel() {
+        final SharedCall.Subscription<T> currentSubscription;
+        synchronized (this) {
+            canceled = true;
+            currentSubscription = subscription;
+        }
+        if (currentSubscription != null) {
+            currentSubscription.cancel();
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @NonNull
+    @Override
+    public Call<T> clone() {
+        return new CoalescingCall<>(inFlightCalls, call.clone());
+    }
+
+    @NonNull
+    @Override
+    public Request request() {
+        return call.request();
+    }
+
+    @NonNull
+    @Override
+    public Timeout timeout() {
+        return call.timeout();
+    }
+
+    @NonNull
+    private SharedCall.Subscription<T> subscribe() {
+        final SharedCall.Subscription<T> newSubscription;
+        synchronized (this) {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+            executed = true;
+            newSubscription = inFlightCalls.subscribe(call);
+            subscription = newSubscription;
+        }
+        if (canceled) {
+            newSubscription.cancel();
+        }
+        return newSubscription;
+    }
+}
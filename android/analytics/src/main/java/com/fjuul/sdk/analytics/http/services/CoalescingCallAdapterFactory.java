@@ -0,0 +1,57 @@
+package com.fjuul.sdk.analytics.http.services;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import com.fjuul.sdk.core.http.utils.ApiCall;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+/**
+ * Factory of api calls whose GET requests are coalesced with identical in-flight ones. It wraps calls of the next
+ * factory of api calls, so it must be added to retrofit before the latter.
+ */
+final class CoalescingCallAdapterFactory extends CallAdapter.Factory {
+    @NonNull
+    private final InFlightCalls inFlightCalls;
+
+    CoalescingCallAdapterFactory(@NonNull InFlightCalls inFlightCalls) {
+        this.inFlightCalls = inFlightCalls;
+    }
+
+    @SuppressLint("UnknownNullness")
+    @SuppressWarnings("unchecked")
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != ApiCall.class || !isGetRequest(annotations)) {
+            return null;
+        }
+        final CallAdapter<Object, ?> delegate =
+            (CallAdapter<Object, ?>) retrofit.nextCallAdapter(this, returnType, annotations);
+        return new CallAdapter<Object, Object>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Object adapt(Call<Object> call) {
+                return delegate.adapt(new CoalescingCall<>(inFlightCalls, call));
+            }
+        };
+    }
+
+    private static boolean isGetRequest(@NonNull Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
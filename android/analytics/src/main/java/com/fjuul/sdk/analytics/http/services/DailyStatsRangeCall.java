@@ -0,0 +1,419 @@
+package com.fjuul.sdk.analytics.http.services;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fjuul.sdk.analytics.entities.DailyStats;
+import com.fjuul.sdk.analytics.entities.DailyStatsRangeFetchPolicy;
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Call of daily stats of a day interval which serves cached days from {@link DailyStatsCache} (if any), shares
+ * in-flight requests of overlapping intervals and fetches only the remaining sub-intervals, then merges all days in the
+ * order of dates. If fetching of any sub-interval fails, the call results with that failure or error response as is.
+ * <p>
+ * With a fetch policy, the interval is processed by windows of days: a limited number of windows is fetched at the
+ * same time, and days of completed windows are delivered to the progress listener in the order of dates.
+ * <p>
+ * The cache is read and written on the cache executor or on threads of completed requests, never on the thread which
+ * enqueues the call.
+ */
+class DailyStatsRangeCall implements Call<DailyStats[]> {
+    interface RangeCallFactory {
+        @NonNull
+        Call<DailyStats[]> create(@NonNull LocalDate startDate, @NonNull LocalDate endDate);
+    }
+
+    @Nullable
+    private final DailyStatsCache cache;
+    @NonNull
+    private final InFlightCalls inFlightCalls;
+    @NonNull
+    private final LocalDate startDate;
+    @NonNull
+    private final LocalDate endDate;
+    @Nullable
+    private final DailyStatsRangeFetchPolicy fetchPolicy;
+    @Nullable
+    private final IDailyStatsProgressListener progressListener;
+    @NonNull
+    private final Executor progressExecutor;
+    @NonNull
+    private final Executor cacheExecutor;
+    @NonNull
+    private final RangeCallFactory rangeCallFactory;
+    // NOTE: the call of the whole interval is never executed, it only describes the request of this call
+    @NonNull
+    private final Call<DailyStats[]> wholeRangeCall;
+    // NOTE: in-flight requests are shared by the user, so the key doesn't include the requested interval
+    @NonNull
+    private final String userKey;
+    private final List<SharedCall.Subscription<DailyStats[]>> subscriptions = new ArrayList<>();
+    private boolean executed;
+    private volatile boolean canceled;
+
+    /**
+     * @param fetchPolicy policy of splitting of the interval into windows, or null to process it as one window
+     * @param progressListener listener of days of completed windows
+     * @param progressExecutor executor of the progress listener
+     * @param cacheExecutor executor of reads of the cache, it must not be the thread of the caller
+     */
+    DailyStatsRangeCall(@Nullable DailyStatsCache cache,
+        @NonNull InFlightCalls inFlightCalls,
+        @NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @Nullable DailyStatsRangeFetchPolicy fetchPolicy,
+        @Nullable IDailyStatsProgressListener progressListener,
+        @NonNull Executor progressExecutor,
+        @NonNull Executor cacheExecutor,
+        @NonNull RangeCallFactory rangeCallFactory) {
+        this.cache = cache;
+        this.inFlightCalls = inFlightCalls;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.fetchPolicy = fetchPolicy;
+        this.progressListener = progressListener;
+        this.progressExecutor = progressExecutor;
+        this.cacheExecutor = cacheExecutor;
+        this.rangeCallFactory = rangeCallFactory;
+        this.wholeRangeCall = rangeCallFactory.create(startDate, endDate);
+        this.userKey = wholeRangeCall.request().url().newBuilder().query(null).build().toString();
+    }
+
+    @NonNull
+    @Override
+    public Response<DailyStats[]> execute() throws IOException {
+        final CompletableFuture<Response<DailyStats[]>> response = new CompletableFuture<>();
+        enqueue(new Callback<DailyStats[]>() {
+            @Override
+            public void onResponse(@NonNull Call<DailyStats[]> call, @NonNull Response<DailyStats[]> value) {
+                response.complete(value);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<DailyStats[]> call, @NonNull Throwable t) {
+                response.completeExceptionally(t);
+            }
+        });
+        return SharedCall.await(response, this::cancel);
+    }
+
+    @Override
+    public void enqueue(@NonNull Callback<DailyStats[]> callback) {
+        synchronized (this) {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+            executed = true;
+        }
+        final Execution execution = new Execution(callback, splitIntoWindows());
+        if (cache == null) {
+            execution.startNextWindows();
+            return;
+        }
+        // NOTE: the cache is backed by the storage, so it isn't read on the thread of the caller (usually the main one)
+        cacheExecutor.execute(execution::startNextWindows);
+    }
+
+    @Override
+    public synchronized boolean isExecuted() {
+        return executed;
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        cancelSubscriptions();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @NonNull
+    @Override
+    public Call<DailyStats[]> clone() {
+        return new DailyStatsRangeCall(cache,
+            inFlightCalls,
+            startDate,
+            endDate,
+            fetchPolicy,
+            progressListener,
+            progressExecutor,
+            cacheExecutor,
+            rangeCallFactory);
+    }
+
+    @NonNull
+    @Override
+    public Request request() {
+        return wholeRangeCall.request();
+    }
+
+    @NonNull
+    @Override
+    public Timeout timeout() {
+        return wholeRangeCall.timeout();
+    }
+
+    @NonNull
+    private List<Window> splitIntoWindows() {
+        final List<Window> windows = new ArrayList<>();
+        final long windowDays =
+            fetchPolicy != null ? fetchPolicy.getWindowDays() : ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(windowDays)) {
+            final LocalDate windowEndDate = date.plusDays(windowDays - 1);
+            windows.add(new Window(date, windowEndDate.isAfter(endDate) ? endDate : windowEndDate));
+        }
+        return windows;
+    }
+
+    @NonNull
+    private List<SharedCall.Subscription<DailyStats[]>> subscribe(@NonNull Window window,
+        @NonNull SortedMap<LocalDate, DailyStats> cachedDays) {
+        final List<SharedCall.Subscription<DailyStats[]>> newSubscriptions = new ArrayList<>();
+        LocalDate gapStartDate = null;
+        for (LocalDate date = window.startDate; !date.isAfter(window.endDate); date = date.plusDays(1)) {
+            if (!cachedDays.containsKey(date)) {
+                if (gapStartDate == null) {
+                    gapStartDate = date;
+                }
+            } else if (gapStartDate != null) {
+                newSubscriptions.addAll(
+                    inFlightCalls.subscribeDailyStats(userKey, gapStartDate, date.minusDays(1), rangeCallFactory));
+                gapStartDate = null;
+            }
+        }
+        if (gapStartDate != null) {
+            newSubscriptions
+                .addAll(inFlightCalls.subscribeDailyStats(userKey, gapStartDate, window.endDate, rangeCallFactory));
+        }
+        synchronized (this) {
+            subscriptions.addAll(newSubscriptions);
+        }
+        if (canceled) {
+            cancelSubscriptions();
+        }
+        return newSubscriptions;
+    }
+
+    private void cancelSubscriptions() {
+        final List<SharedCall.Subscription<DailyStats[]>> currentSubscriptions;
+        synchronized (this) {
+            currentSubscriptions = new ArrayList<>(subscriptions);
+        }
+        currentSubscriptions.forEach(SharedCall.Subscription::cancel);
+    }
+
+    @NonNull
+    private WindowResult merge(@NonNull Window window,
+        @NonNull SortedMap<LocalDate, DailyStats> cachedDays,
+        @NonNull List<Response<DailyStats[]>> responses) {
+        final TreeMap<LocalDate, DailyStats> days = new TreeMap<>(cachedDays);
+        final List<DailyStats> fetchedDays = new ArrayList<>();
+        okhttp3.Response lastRawResponse = null;
+        synchronized (responses) {
+            for (Response<DailyStats[]> response : responses) {
+                lastRawResponse = response.raw();
+                if (response.body() == null) {
+                    continue;
+                }
+                for (DailyStats stats : response.body()) {
+                    final LocalDate date = LocalDate.parse(stats.getDate());
+                    // NOTE: a shared response of an overlapping interval may contain days outside of this window
+                    if (date.isBefore(window.startDate) || date.isAfter(window.endDate)) {
+                        continue;
+                    }
+                    days.put(date, stats);
+                    fetchedDays.add(stats);
+                }
+            }
+        }
+        if (cache != null) {
+            cache.put(fetchedDays);
+        }
+        return new WindowResult(new ArrayList<>(days.values()), lastRawResponse);
+    }
+
+    /**
+     * State of one execution of the call.
+     */
+    private final class Execution {
+        @NonNull
+        private final Callback<DailyStats[]> callback;
+        @NonNull
+        private final List<Window> windows;
+        @NonNull
+        private final List<WindowResult> windowResults;
+        private int nextWindow;
+        private int runningWindows;
+        private int nextDeliveredWindow;
+        private boolean startingWindows;
+        private boolean completed;
+
+        Execution(@NonNull Callback<DailyStats[]> callback, @NonNull List<Window> windows) {
+            this.callback = callback;
+            this.windows = windows;
+            this.windowResults = new ArrayList<>(windows.size());
+            for (int i = 0; i < windows.size(); i++) {
+                windowResults.add(null);
+            }
+        }
+
+        void startNextWindows() {
+            synchronized (this) {
+                // NOTE: windows served from the cache complete right away, so they start next windows from this loop
+                // instead of the recursion
+                if (startingWindows) {
+                    return;
+                }
+                startingWindows = true;
+            }
+            final int maxRunningWindows = fetchPolicy != null ? fetchPolicy.getMaxParallelRequests() : 1;
+            while (true) {
+                final int window;
+                synchronized (this) {
+                    if (completed || runningWindows >= maxRunningWindows || nextWindow >= windows.size()) {
+                        startingWindows = false;
+                        return;
+                    }
+                    window = nextWindow++;
+                    runningWindows++;
+                }
+                startWindow(window);
+            }
+        }
+
+        private void startWindow(int index) {
+            final Window window = windows.get(index);
+            final SortedMap<LocalDate, DailyStats> cachedDays =
+                cache != null ? cache.get(window.startDate, window.endDate) : new TreeMap<>();
+            final List<SharedCall.Subscription<DailyStats[]>> windowSubscriptions = subscribe(window, cachedDays);
+            if (windowSubscriptions.isEmpty()) {
+                completeWindow(index, merge(window, cachedDays, new ArrayList<>()));
+                return;
+            }
+            final List<Response<DailyStats[]>> responses = new ArrayList<>();
+            final AtomicInteger remainingSubscriptions = new AtomicInteger(windowSubscriptions.size());
+            for (SharedCall.Subscription<DailyStats[]> subscription : windowSubscriptions) {
+                subscription.whenComplete((response, failure) -> {
+                    if (failure != null || !response.isSuccessful()) {
+                        fail(response, failure);
+                        return;
+                    }
+                    synchronized (responses) {
+                        responses.add(response);
+                    }
+                    if (remainingSubscriptions.decrementAndGet() == 0) {
+                        completeWindow(index, merge(window, cachedDays, responses));
+                    }
+                });
+            }
+        }
+
+        private void completeWindow(int index, @NonNull WindowResult result) {
+            final Response<DailyStats[]> response;
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                windowResults.set(index, result);
+                runningWindows--;
+                while (nextDeliveredWindow < windows.size() && windowResults.get(nextDeliveredWindow) != null) {
+                    deliverProgress(windowResults.get(nextDeliveredWindow).days);
+                    nextDeliveredWindow++;
+                }
+                if (nextDeliveredWindow < windows.size()) {
+                    response = null;
+                } else {
+                    completed = true;
+                    response = buildResponse();
+                }
+            }
+            if (response != null) {
+                callback.onResponse(DailyStatsRangeCall.this, response);
+            } else {
+                startNextWindows();
+            }
+        }
+
+        private void fail(@Nullable Response<DailyStats[]> response, @Nullable Throwable failure) {
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+            }
+            cancelSubscriptions();
+            if (failure != null) {
+                callback.onFailure(DailyStatsRangeCall.this, failure);
+            } else {
+                callback.onResponse(DailyStatsRangeCall.this, response);
+            }
+        }
+
+        private void deliverProgress(@NonNull List<DailyStats> days) {
+            if (progressListener == null || days.isEmpty() || canceled) {
+                return;
+            }
+            final DailyStats[] chunk = days.toArray(new DailyStats[0]);
+            // NOTE: chunks are passed to the executor under the lock to keep them in the order of dates
+            progressExecutor.execute(() -> progressListener.onDailyStats(chunk));
+        }
+
+        @NonNull
+        private Response<DailyStats[]> buildResponse() {
+            final List<DailyStats> days = new ArrayList<>();
+            okhttp3.Response lastRawResponse = null;
+            for (WindowResult result : windowResults) {
+                days.addAll(result.days);
+                if (result.rawResponse != null) {
+                    lastRawResponse = result.rawResponse;
+                }
+            }
+            final DailyStats[] body = days.toArray(new DailyStats[0]);
+            return lastRawResponse == null ? Response.success(body) : Response.success(body, lastRawResponse);
+        }
+    }
+
+    private static final class Window {
+        @NonNull
+        final LocalDate startDate;
+        @NonNull
+        final LocalDate endDate;
+
+        Window(@NonNull LocalDate startDate, @NonNull LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+    }
+
+    private static final class WindowResult {
+        @NonNull
+        final List<DailyStats> days;
+        @Nullable
+        final okhttp3.Response rawResponse;
+
+        WindowResult(@NonNull List<DailyStats> days, @Nullable okhttp3.Response rawResponse) {
+            this.days = days;
+            this.rawResponse = rawResponse;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.fjuul.sdk.analytics.http.services;
+
+import com.fjuul.sdk.analytics.entities.DailyStats;
+
+import androidx.annotation.NonNull;
+
+/**
+ * An interface for receiving daily stats of a long day interval progressively, while the rest of the interval is still
+ * being fetched.<br>
+ * Days are delivered in the order of dates, and all delivered days together are equal to the final result of the
+ * call. The listener is notified by the callback executor of the api-client.
+ *
+ * @see AnalyticsService#getDailyStats(java.time.LocalDate, java.time.LocalDate,
+ *      com.fjuul.sdk.analytics.entities.DailyStatsRangeFetchPolicy, IDailyStatsProgressListener)
+ */
+public interface IDailyStatsProgressListener {
+    /**
+     * @param dailyStats the next days of the interval which follow all previously delivered ones
+     */
+    public void onDailyStats(@NonNull DailyStats[] dailyStats);
+}
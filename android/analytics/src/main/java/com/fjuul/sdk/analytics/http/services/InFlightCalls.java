@@ -0,0 +1,148 @@
+package com.fjuul.sdk.analytics.http.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fjuul.sdk.analytics.entities.DailyStats;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import retrofit2.Call;
+
+/**
+ * Registry of in-flight analytics requests. A call of the same request as an in-flight one subscribes to the response
+ * of the latter instead of sending another request. Requests of daily stats for day intervals are shared by the days
+ * they cover, so a call of an interval which overlaps in-flight ones fetches only the days not covered by them.
+ */
+final class InFlightCalls {
+    private final Map<String, SharedCall<?>> calls = new HashMap<>();
+    private final Map<String, List<DailyStatsRangeFetch>> dailyStatsRangeFetches = new HashMap<>();
+
+    /**
+     * @param call the call to send if there is no identical in-flight request; its url identifies the request
+     * @return subscription to the response of the request
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    synchronized <T> SharedCall.Subscription<T> subscribe(@NonNull Call<T> call) {
+        final String key = call.request().url().toString();
+        final SharedCall<T> inFlightCall = (SharedCall<T>) calls.get(key);
+        final SharedCall.Subscription<T> subscription = inFlightCall != null ? inFlightCall.subscribe() : null;
+        if (subscription != null) {
+            return subscription;
+        }
+        final SharedCall<T> sharedCall = new SharedCall<>(call, finishedCall -> removeCall(key, finishedCall));
+        calls.put(key, sharedCall);
+        return start(sharedCall);
+    }
+
+    /**
+     * Subscribes to responses which cover all days of the interval: in-flight requests of overlapping intervals are
+     * shared, and the remaining days are fetched by new requests.
+     *
+     * @param userKey identifier of the user whose daily stats are requested
+     * @param startDate the start of the day interval (inclusive)
+     * @param endDate the end of the day interval (inclusive)
+     * @param rangeCallFactory factory of calls to fetch days which aren't covered by in-flight requests
+     * @return subscriptions to responses which may contain days outside of the requested interval
+     */
+    @NonNull
+    synchronized List<SharedCall.Subscription<DailyStats[]>> subscribeDailyStats(@NonNull String userKey,
+        @NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @NonNull DailyStatsRangeCall.RangeCallFactory rangeCallFactory) {
+        final List<DailyStatsRangeFetch> fetches =
+            new ArrayList<>(dailyStatsRangeFetches.getOrDefault(userKey, Collections.emptyList()));
+        final List<SharedCall.Subscription<DailyStats[]>> subscriptions = new ArrayList<>();
+        LocalDate gapStartDate = null;
+        LocalDate date = startDate;
+        while (!date.isAfter(endDate)) {
+            final DailyStatsRangeFetch coveringFetch = findCoveringFetch(fetches, date);
+            final SharedCall.Subscription<DailyStats[]> subscription =
+                coveringFetch != null ? coveringFetch.sharedCall.subscribe() : null;
+            if (subscription == null) {
+                if (gapStartDate == null) {
+                    gapStartDate = date;
+                }
+                date = date.plusDays(1);
+                continue;
+            }
+            if (gapStartDate != null) {
+                subscriptions.add(startDailyStatsFetch(userKey, gapStartDate, date.minusDays(1), rangeCallFactory));
+                gapStartDate = null;
+            }
+            subscriptions.add(subscription);
+            date = coveringFetch.endDate.plusDays(1);
+        }
+        if (gapStartDate != null) {
+            subscriptions.add(startDailyStatsFetch(userKey, gapStartDate, endDate, rangeCallFactory));
+        }
+        return subscriptions;
+    }
+
+    @NonNull
+    private SharedCall.Subscription<DailyStats[]> startDailyStatsFetch(@NonNull String userKey,
+        @NonNull LocalDate startDate,
+        @NonNull LocalDate endDate,
+        @NonNull DailyStatsRangeCall.RangeCallFactory rangeCallFactory) {
+        final SharedCall<DailyStats[]> sharedCall = new SharedCall<>(rangeCallFactory.create(startDate, endDate),
+            finishedCall -> removeDailyStatsFetch(userKey, finishedCall));
+        dailyStatsRangeFetches.computeIfAbsent(userKey, key -> new ArrayList<>())
+            .add(new DailyStatsRangeFetch(startDate, endDate, sharedCall));
+        return start(sharedCall);
+    }
+
+    @NonNull
+    private static <T> SharedCall.Subscription<T> start(@NonNull SharedCall<T> sharedCall) {
+        final SharedCall.Subscription<T> subscription = sharedCall.subscribe();
+        sharedCall.start();
+        return subscription;
+    }
+
+    private synchronized void removeCall(@NonNull String key, @NonNull SharedCall<?> finishedCall) {
+        calls.remove(key, finishedCall);
+    }
+
+    private synchronized void removeDailyStatsFetch(@NonNull String userKey, @NonNull SharedCall<?> finishedCall) {
+        final List<DailyStatsRangeFetch> fetches = dailyStatsRangeFetches.get(userKey);
+        if (fetches == null) {
+            return;
+        }
+        fetches.removeIf(fetch -> fetch.sharedCall == finishedCall);
+        if (fetches.isEmpty()) {
+            dailyStatsRangeFetches.remove(userKey);
+        }
+    }
+
+    @Nullable
+    private static DailyStatsRangeFetch findCoveringFetch(@NonNull List<DailyStatsRangeFetch> fetches,
+        @NonNull LocalDate date) {
+        for (DailyStatsRangeFetch fetch : fetches) {
+            if (!date.isBefore(fetch.startDate) && !date.isAfter(fetch.endDate)) {
+                return fetch;
+            }
+        }
+        return null;
+    }
+
+    private static final class DailyStatsRangeFetch {
+        @NonNull
+        final LocalDate startDate;
+        @NonNull
+        final LocalDate endDate;
+        @NonNull
+        final SharedCall<DailyStats[]> sharedCall;
+
+        DailyStatsRangeFetch(@NonNull LocalDate startDate,
+            @NonNull LocalDate endDate,
+            @NonNull SharedCall<DailyStats[]> sharedCall) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.sharedCall = sharedCall;
+        }
+    }
+}
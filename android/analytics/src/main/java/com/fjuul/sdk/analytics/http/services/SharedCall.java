@@ -0,0 +1,187 @@
+package com.fjuul.sdk.analytics.http.services;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * One in-flight request whose response is shared by all its subscribers. The request is canceled only when all
+ * subscribers have canceled their subscriptions.
+ */
+final class SharedCall<T> {
+    interface OnFinishListener {
+        void onFinish(@NonNull SharedCall<?> sharedCall);
+    }
+
+    @NonNull
+    private final Call<T> call;
+    @NonNull
+    private final OnFinishListener onFinishListener;
+    private final CompletableFuture<SharedResponse<T>> result = new CompletableFuture<>();
+    private int subscribers;
+    private boolean canceled;
+
+    SharedCall(@NonNull Call<T> call, @NonNull OnFinishListener onFinishListener) {
+        this.call = call;
+        this.onFinishListener = onFinishListener;
+    }
+
+    void start() {
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                final SharedResponse<T> sharedResponse;
+                try {
+                    sharedResponse = new SharedResponse<>(response);
+                } catch (IOException exception) {
+                    onFailure(call, exception);
+                    return;
+                }
+                onFinishListener.onFinish(SharedCall.this);
+                result.complete(sharedResponse);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                onFinishListener.onFinish(SharedCall.this);
+                result.completeExceptionally(t);
+            }
+        });
+    }
+
+    /**
+     * @return new subscription to the response, or null if the request was already canceled
+     */
+    @Nullable
+    synchronized Subscription<T> subscribe() {
+        if (canceled) {
+            return null;
+        }
+        subscribers++;
+        return new Subscription<>(this);
+    }
+
+    /**
+     * Waits for the response of the future, and unwraps its failure to be thrown as by {@link Call#execute()}.
+     *
+     * @param onInterrupt action to run if the waiting thread is interrupted, e.g. to cancel the request
+     */
+    @NonNull
+    static <T> Response<T> await(@NonNull CompletableFuture<Response<T>> response, @NonNull Runnable onInterrupt)
+        throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException exception) {
+            onInterrupt.run();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (ExecutionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void unsubscribe() {
+        synchronized (this) {
+            subscribers--;
+            if (subscribers > 0 || result.isDone()) {
+                return;
+            }
+            canceled = true;
+        }
+        // NOTE: the listener is notified outside of the lock to not hold it together with the lock of the registry
+        onFinishListener.onFinish(this);
+        call.cancel();
+    }
+
+    /**
+     * Subscription of one caller to the shared response. Every subscriber gets its own copy of the error body, so the
+     * body can be read by each of them.
+     */
+    static final class Subscription<T> {
+        @NonNull
+        private final SharedCall<T> sharedCall;
+        @NonNull
+        private final CompletableFuture<Response<T>> response;
+        private final AtomicBoolean canceled = new AtomicBoolean(false);
+
+        private Subscription(@NonNull SharedCall<T> sharedCall) {
+            this.sharedCall = sharedCall;
+            this.response = sharedCall.result.thenApply(SharedResponse::newResponse);
+        }
+
+        @NonNull
+        Response<T> await() throws IOException {
+            return SharedCall.await(response, this::cancel);
+        }
+
+        /**
+         * @param action action to run with either the response or the failure once the subscription completes
+         */
+        void whenComplete(@NonNull BiConsumer<Response<T>, Throwable> action) {
+            response.whenComplete((value, failure) -> {
+                if (failure instanceof CompletionException && failure.getCause() != null) {
+                    action.accept(null, failure.getCause());
+                } else {
+                    action.accept(value, failure);
+                }
+            });
+        }
+
+        void cancel() {
+            if (canceled.compareAndSet(false, true)) {
+                response.completeExceptionally(new IOException("Canceled"));
+                sharedCall.unsubscribe();
+            }
+        }
+    }
+
+    private static final class SharedResponse<T> {
+        @NonNull
+        private final Response<T> response;
+        @Nullable
+        private final byte[] errorBody;
+        @Nullable
+        private final MediaType errorBodyContentType;
+
+        SharedResponse(@NonNull Response<T> response) throws IOException {
+            this.response = response;
+            final ResponseBody body = response.errorBody();
+            if (body == null) {
+                this.errorBody = null;
+                this.errorBodyContentType = null;
+                return;
+            }
+            try (ResponseBody errorBody = body) {
+                this.errorBody = errorBody.bytes();
+                this.errorBodyContentType = errorBody.contentType();
+            }
+        }
+
+        @NonNull
+        Response<T> newResponse() {
+            if (errorBody == null) {
+                return response;
+            }
+            return Response.error(ResponseBody.create(errorBody, errorBodyContentType), response.raw());
+        }
+    }
+}
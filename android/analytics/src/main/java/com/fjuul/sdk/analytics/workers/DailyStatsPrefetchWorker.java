@@ -0,0 +1,105 @@
+package com.fjuul.sdk.analytics.workers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import com.fjuul.sdk.analytics.entities.DailyStats;
+import com.fjuul.sdk.analytics.entities.DailyStatsCachePolicy;
+import com.fjuul.sdk.analytics.http.services.AnalyticsService;
+import com.fjuul.sdk.core.ApiClient;
+import com.fjuul.sdk.core.entities.UserCredentials;
+import com.fjuul.sdk.core.exceptions.ApiExceptions;
+import com.fjuul.sdk.core.http.utils.ApiCallResult;
+import com.fjuul.sdk.core.http.utils.RetryPolicy;
+import com.fjuul.sdk.core.http.utils.RetryPolicyArgs;
+import com.fjuul.sdk.core.utils.Logger;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Fetches daily stats of the most recent days into the daily stats cache of the user.
+ */
+public class DailyStatsPrefetchWorker extends Worker {
+    // NOTE: keys of the api client are the same as in the input data of background sync works, so they are passed
+    // through as is
+    public static final String KEY_USER_TOKEN_ARG = "USER_TOKEN";
+    public static final String KEY_USER_SECRET_ARG = "USER_SECRET";
+    public static final String KEY_API_KEY_ARG = "API_KEY";
+    public static final String KEY_BASE_URL_ARG = "BASE_URL";
+    public static final String KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG = "REQUEST_COMPRESSION_MIN_BYTES";
+    public static final String KEY_PREFETCH_DAYS_ARG = "DAILY_STATS_PREFETCH_DAYS";
+    public static final String KEY_CACHE_MAX_ENTRIES_ARG = "DAILY_STATS_CACHE_MAX_ENTRIES";
+    public static final String KEY_CACHE_REFETCHED_RECENT_DAYS_ARG = "DAILY_STATS_CACHE_REFETCHED_RECENT_DAYS";
+
+    public static final String[] INPUT_KEYS = Stream
+        .concat(Stream.of(KEY_USER_TOKEN_ARG,
+            KEY_USER_SECRET_ARG,
+            KEY_API_KEY_ARG,
+            KEY_BASE_URL_ARG,
+            KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG,
+            KEY_PREFETCH_DAYS_ARG,
+            KEY_CACHE_MAX_ENTRIES_ARG,
+            KEY_CACHE_REFETCHED_RECENT_DAYS_ARG), Arrays.stream(RetryPolicyArgs.KEYS))
+        .toArray(String[]::new);
+
+    public DailyStatsPrefetchWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        final int days = getInputData().getInt(KEY_PREFETCH_DAYS_ARG, 0);
+        if (days < 1) {
+            return Result.success();
+        }
+        final AnalyticsService analyticsService = new AnalyticsService(buildApiClient(), buildCachePolicy());
+        final LocalDate today = LocalDate.now();
+        final ApiCallResult<DailyStats[]> result =
+            analyticsService.getDailyStats(today.minusDays(days - 1), today).execute();
+        if (result.isError()) {
+            Logger.get().w(result.getError(), "failed to prefetch daily stats");
+            // NOTE: network failures are retried by the work manager, while error responses would fail again
+            return result.getError() instanceof ApiExceptions.InternalClientException ? Result.retry()
+                : Result.failure();
+        }
+        return Result.success();
+    }
+
+    @NonNull
+    private ApiClient buildApiClient() {
+        final String userToken = getInputData().getString(KEY_USER_TOKEN_ARG);
+        final String userSecret = getInputData().getString(KEY_USER_SECRET_ARG);
+        final String apiKey = getInputData().getString(KEY_API_KEY_ARG);
+        final String baseUrl = getInputData().getString(KEY_BASE_URL_ARG);
+        final ApiClient.Builder clientBuilder = new ApiClient.Builder(getApplicationContext(), baseUrl, apiKey)
+            .setUserCredentials(new UserCredentials(userToken, userSecret));
+        final long requestCompressionMinBytes = getInputData().getLong(KEY_REQUEST_COMPRESSION_MIN_BYTES_ARG, -1);
+        if (requestCompressionMinBytes >= 0) {
+            clientBuilder.setRequestCompression(requestCompressionMinBytes);
+        }
+        final RetryPolicy retryPolicy = RetryPolicyArgs.fromArgs(getInputData().getKeyValueMap());
+        if (retryPolicy != null) {
+            clientBuilder.setRetryPolicy(retryPolicy);
+        }
+        return clientBuilder.build();
+    }
+
+    @NonNull
+    private DailyStatsCachePolicy buildCachePolicy() {
+        // NOTE: the zero max age makes the prefetch refetch recent days which were cached before the last sync, and
+        // still puts them to the cache
+        return new DailyStatsCachePolicy.Builder()
+            .setMaxEntries(
+                getInputData().getInt(KEY_CACHE_MAX_ENTRIES_ARG, DailyStatsCachePolicy.DEFAULT_MAX_ENTRIES))
+            .setRefetchedRecentDays(getInputData().getInt(KEY_CACHE_REFETCHED_RECENT_DAYS_ARG,
+                DailyStatsCachePolicy.DEFAULT_REFETCHED_RECENT_DAYS))
+            .setRecentDaysMaxAge(Duration.ZERO)
+            .build();
+    }
+}
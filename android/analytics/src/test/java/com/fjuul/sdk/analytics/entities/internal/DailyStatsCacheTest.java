@@ -0,0 +1,58 @@
+package com.fjuul.sdk.analytics.entities.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.fjuul.sdk.analytics.entities.DailyStats;
+import com.fjuul.sdk.analytics.entities.DailyStatsCachePolicy;
+import com.fjuul.sdk.core.entities.InMemoryStorage;
+import com.fjuul.sdk.core.entities.StorageClearances;
+import com.squareup.moshi.Moshi;
+
+public class DailyStatsCacheTest {
+    static final Clock CLOCK = Clock.fixed(Instant.parse("2020-03-20T12:00:00Z"), ZoneOffset.UTC);
+    static final LocalDate START_DATE = LocalDate.parse("2020-03-01");
+    static final LocalDate END_DATE = LocalDate.parse("2020-03-15");
+
+    static DailyStats dailyStats(String date) throws IOException {
+        return new Moshi.Builder().build()
+            .adapter(DailyStats.class)
+            .fromJson("{ \"date\": \"" + date + "\", \"steps\": 1000 }");
+    }
+
+    @Test
+    public void get_dayPutByAnotherCacheOfUser_returnsDay() throws IOException {
+        final InMemoryStorage storage = new InMemoryStorage();
+        final DailyStatsCachePolicy policy = new DailyStatsCachePolicy.Builder().build();
+        final DailyStatsCache cache = new DailyStatsCache(storage, "USER_WITH_TWO_CACHES", policy, CLOCK);
+        assertTrue("loads the empty cache", cache.get(START_DATE, END_DATE).isEmpty());
+
+        new DailyStatsCache(storage, "USER_WITH_TWO_CACHES", policy, CLOCK)
+            .put(Collections.singletonList(dailyStats("2020-03-10")));
+
+        assertEquals(Collections.singleton(LocalDate.parse("2020-03-10")), cache.get(START_DATE, END_DATE).keySet());
+    }
+
+    @Test
+    public void get_afterClearanceOfStorage_doesNotReturnLoadedDays() throws IOException {
+        final InMemoryStorage storage = new InMemoryStorage();
+        final DailyStatsCache cache =
+            new DailyStatsCache(storage, "CLEARED_USER", new DailyStatsCachePolicy.Builder().build(), CLOCK);
+        cache.put(Collections.singletonList(dailyStats("2020-03-10")));
+        assertEquals(1, cache.get(START_DATE, END_DATE).size());
+
+        storage.remove();
+        StorageClearances.onCleared("CLEARED_USER");
+
+        assertTrue("drops the loaded days", cache.get(START_DATE, END_DATE).isEmpty());
+    }
+}
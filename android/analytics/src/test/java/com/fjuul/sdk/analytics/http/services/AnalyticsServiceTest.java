@@ -6,8 +6,20 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hamcrest.core.IsInstanceOf;
 import org.junit.After;
@@ -20,6 +32,9 @@ import org.robolectric.annotation.Config;
 import com.fjuul.sdk.analytics.entities.AggregatedDailyStats;
 import com.fjuul.sdk.analytics.entities.AggregationType;
 import com.fjuul.sdk.analytics.entities.DailyStats;
+import com.fjuul.sdk.analytics.entities.DailyStatsCachePolicy;
+import com.fjuul.sdk.analytics.entities.DailyStatsRangeFetchPolicy;
+import com.fjuul.sdk.analytics.entities.internal.DailyStatsCache;
 import com.fjuul.sdk.core.entities.InMemoryStorage;
 import com.fjuul.sdk.core.entities.Keystore;
 import com.fjuul.sdk.core.entities.SigningKey;
@@ -27,10 +42,14 @@ import com.fjuul.sdk.core.entities.UserCredentials;
 import com.fjuul.sdk.core.exceptions.ApiExceptions;
 import com.fjuul.sdk.core.http.services.ISigningService;
 import com.fjuul.sdk.core.http.services.UserSigningService;
+import com.fjuul.sdk.core.http.utils.ApiCall;
 import com.fjuul.sdk.core.http.utils.ApiCallResult;
+import com.fjuul.sdk.core.http.utils.CallbackExecutors;
 import com.fjuul.sdk.test.http.TestApiClient;
 
 import android.os.Build;
+import androidx.annotation.NonNull;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -42,6 +61,7 @@ public class AnalyticsServiceTest {
     static final String KEY_ID = "signing-key-id-1234";
     static final String USER_TOKEN = "USER_TOKEN";
     static final String USER_SECRET = "USER_TOKEN";
+    static final Clock CLOCK = Clock.fixed(Instant.parse("2020-03-20T12:00:00Z"), ZoneOffset.UTC);
 
     AnalyticsService analyticsService;
     MockWebServer mockWebServer;
@@ -308,4 +328,559 @@ public class AnalyticsServiceTest {
             "Unauthorized: clock skew of 301s was greater than 300s",
             authException.getMessage());
     }
+
+    static MockResponse dailyStatsResponse(String... dates) {
+        final String body = Arrays.stream(dates)
+            .map(date -> "{ \"date\": \"" + date + "\", \"steps\": 1000"
+                + ", \"low\": { \"seconds\": 1800, \"metMinutes\": 20 }"
+                + ", \"moderate\": { \"seconds\": 1200, \"metMinutes\": 10 }"
+                + ", \"high\": { \"seconds\": 180, \"metMinutes\": 15 }, \"contributingSources\": [\"polar\"] }")
+            .reduce((left, right) -> left + "," + right)
+            .map(days -> "[" + days + "]")
+            .orElse("[]");
+        return new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+            .setHeader("Content-Type", "application/json")
+            .setBody(body);
+    }
+
+    /**
+     * @return dispatcher which responds to requests of daily stats for day intervals with all days of the interval
+     */
+    static Dispatcher createDailyStatsRangeDispatcher() {
+        return new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                final LocalDate startDate = LocalDate.parse(request.getRequestUrl().queryParameter("from"));
+                final LocalDate endDate = LocalDate.parse(request.getRequestUrl().queryParameter("to"));
+                return dailyStatsResponse(startDate.datesUntil(endDate.plusDays(1))
+                    .map(LocalDate::toString)
+                    .toArray(String[]::new));
+            }
+        };
+    }
+
+    static String[] toDates(DailyStats[] dailyStats) {
+        return Arrays.stream(dailyStats).map(DailyStats::getDate).toArray(String[]::new);
+    }
+
+    DailyStatsCache createCachedService(DailyStatsCachePolicy policy) {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        final DailyStatsCache cache = new DailyStatsCache(new InMemoryStorage(), policy, CLOCK);
+        analyticsService = new AnalyticsService(clientBuilder.build(), cache);
+        return cache;
+    }
+
+    @Test
+    public void getDailyStatsRange_WithCache_FetchesOnlyMissingDays() throws InterruptedException {
+        createCachedService(new DailyStatsCachePolicy.Builder().build());
+        mockWebServer.setDispatcher(createDailyStatsRangeDispatcher());
+
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-11")).execute();
+        ApiCallResult<DailyStats[]> result =
+            analyticsService.getDailyStats(LocalDate.parse("2020-03-09"), LocalDate.parse("2020-03-12")).execute();
+
+        assertFalse("success result", result.isError());
+        assertArrayEquals("merges days in order",
+            new String[] { "2020-03-09", "2020-03-10", "2020-03-11", "2020-03-12" },
+            toDates(result.getValue()));
+        assertThat(mockWebServer.takeRequest().getPath(), containsString("?from=2020-03-10&to=2020-03-11"));
+        final Set<String> gapQueries = Set.of(mockWebServer.takeRequest().getRequestUrl().query(),
+            mockWebServer.takeRequest().getRequestUrl().query());
+        assertEquals(Set.of("from=2020-03-09&to=2020-03-09", "from=2020-03-12&to=2020-03-12"), gapQueries);
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getDailyStatsRange_CachedDays_ReturnsResultWithoutRequest() throws Exception {
+        createCachedService(new DailyStatsCachePolicy.Builder().build());
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-10", "2020-03-11", "2020-03-12"));
+
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-12")).execute();
+        DailyStats[] dailyStats = analyticsService
+            .getDailyStats(LocalDate.parse("2020-03-11"), LocalDate.parse("2020-03-12"))
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(new String[] { "2020-03-11", "2020-03-12" }, toDates(dailyStats));
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getDailyStatsRange_EnqueuedCalls_ReadCacheOffCallerThread() throws Exception {
+        final Set<Thread> readingThreads = ConcurrentHashMap.newKeySet();
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        final InMemoryStorage storage = new InMemoryStorage() {
+            @Override
+            public String get(@NonNull String key) {
+                readingThreads.add(Thread.currentThread());
+                return super.get(key);
+            }
+        };
+        analyticsService = new AnalyticsService(clientBuilder.build(),
+            new DailyStatsCache(storage, new DailyStatsCachePolicy.Builder().build(), CLOCK));
+        mockWebServer.setDispatcher(createDailyStatsRangeDispatcher());
+
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-12"))
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+        analyticsService.getAggregatedDailyStats(LocalDate.parse("2020-03-09"),
+            LocalDate.parse("2020-03-12"),
+            AggregationType.sum).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertFalse("reads the cache", readingThreads.isEmpty());
+        assertFalse("doesn't read the cache on the caller thread", readingThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void getDailyStatsRange_RecentDays_RefetchesThem() throws Exception {
+        final DailyStatsCache cache = createCachedService(new DailyStatsCachePolicy.Builder().build());
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-18", "2020-03-19", "2020-03-20"));
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-19", "2020-03-20"));
+
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-18"), LocalDate.parse("2020-03-20")).execute();
+        DailyStats[] dailyStats = analyticsService
+            .getDailyStats(LocalDate.parse("2020-03-18"), LocalDate.parse("2020-03-20"))
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(new String[] { "2020-03-18", "2020-03-19", "2020-03-20" }, toDates(dailyStats));
+        mockWebServer.takeRequest();
+        assertThat("refetches today and yesterday",
+            mockWebServer.takeRequest().getPath(),
+            containsString("?from=2020-03-19&to=2020-03-20"));
+        assertEquals("caches only the day before yesterday", 1, cache.size());
+    }
+
+    @Test
+    public void getDailyStatsRange_ErrorOfMissingDays_ReturnsErrorResult() {
+        final DailyStatsCache cache = createCachedService(new DailyStatsCachePolicy.Builder().build());
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-10"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_BAD_REQUEST)
+            .setHeader("Content-Type", "application/json")
+            .setBody("{ \"message\": \"Bad request\" }"));
+
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-10")).execute();
+        ApiCallResult<DailyStats[]> result =
+            analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-11")).execute();
+
+        assertTrue("error result", result.isError());
+        assertThat(result.getError(), IsInstanceOf.instanceOf(ApiExceptions.BadRequestException.class));
+        assertEquals("keeps the cached day", 1, cache.size());
+    }
+
+    @Test
+    public void getDailyStatsRange_CacheOverflow_EvictsOldestDays() throws InterruptedException {
+        final DailyStatsCache cache = createCachedService(new DailyStatsCachePolicy.Builder().setMaxEntries(2).build());
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-10", "2020-03-11", "2020-03-12"));
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-10"));
+
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-12")).execute();
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-12")).execute();
+
+        assertEquals(2, cache.size());
+        mockWebServer.takeRequest();
+        assertThat("refetches the evicted day",
+            mockWebServer.takeRequest().getPath(),
+            containsString("?from=2020-03-10&to=2020-03-10"));
+    }
+
+    @Test
+    public void getDailyStats_IdenticalConcurrentCalls_SendsOneRequest() throws Exception {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        analyticsService = new AnalyticsService(clientBuilder.build());
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+            .setHeader("Content-Type", "application/json")
+            .setHeadersDelay(500, TimeUnit.MILLISECONDS)
+            .setBody("""
+                {
+                "date": "2020-03-10",
+                "steps": 8522,
+                "low": { "seconds": 1800, "metMinutes": 20 },
+                "moderate": { "seconds": 1200, "metMinutes": 10 },
+                "high": { "seconds": 180, "metMinutes": 15 },
+                "contributingSources": ["fitbit"]
+                }"""));
+
+        CompletableFuture<DailyStats> first =
+            analyticsService.getDailyStats(LocalDate.parse("2020-03-10")).toCompletableFuture();
+        CompletableFuture<DailyStats> second =
+            analyticsService.getDailyStats(LocalDate.parse("2020-03-10")).toCompletableFuture();
+
+        assertEquals(8522, first.get(5, TimeUnit.SECONDS).getSteps());
+        assertEquals(8522, second.get(5, TimeUnit.SECONDS).getSteps());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getAggregatedDailyStats_SharedErrorResponse_ReturnsErrorToEveryCaller() throws Exception {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        analyticsService = new AnalyticsService(clientBuilder.build());
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_BAD_REQUEST)
+            .setHeader("Content-Type", "application/json")
+            .setHeadersDelay(500, TimeUnit.MILLISECONDS)
+            .setBody("{ \"message\": \"Invalid aggregation\" }"));
+        final LocalDate startDate = LocalDate.parse("2020-03-10");
+        final LocalDate endDate = LocalDate.parse("2020-03-11");
+
+        CompletableFuture<ApiCallResult<AggregatedDailyStats>> first = new CompletableFuture<>();
+        CompletableFuture<ApiCallResult<AggregatedDailyStats>> second = new CompletableFuture<>();
+        analyticsService.getAggregatedDailyStats(startDate, endDate, AggregationType.sum)
+            .enqueue(CallbackExecutors.direct(), (call, result) -> first.complete(result));
+        analyticsService.getAggregatedDailyStats(startDate, endDate, AggregationType.sum)
+            .enqueue(CallbackExecutors.direct(), (call, result) -> second.complete(result));
+
+        for (ApiCallResult<AggregatedDailyStats> result : List.of(first.get(5, TimeUnit.SECONDS),
+            second.get(5, TimeUnit.SECONDS))) {
+            assertTrue("error result", result.isError());
+            assertThat(result.getError(), IsInstanceOf.instanceOf(ApiExceptions.BadRequestException.class));
+            assertEquals("reads the error body", "Invalid aggregation", result.getError().getMessage());
+        }
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getDailyStats_CanceledOneOfIdenticalCalls_CompletesAnother() throws Exception {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        analyticsService = new AnalyticsService(clientBuilder.build());
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-10").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        final LocalDate date = LocalDate.parse("2020-03-10");
+
+        ApiCall<DailyStats[]> canceledCall = analyticsService.getDailyStats(date, date);
+        CompletableFuture<DailyStats[]> canceled = canceledCall.toCompletableFuture();
+        CompletableFuture<DailyStats[]> completed = analyticsService.getDailyStats(date, date).toCompletableFuture();
+        canceledCall.cancel();
+
+        assertArrayEquals(new String[] { "2020-03-10" }, toDates(completed.get(5, TimeUnit.SECONDS)));
+        assertTrue(canceled.isCompletedExceptionally());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getDailyStatsRange_OverlappingConcurrentCalls_ShareCommonDays() throws Exception {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        analyticsService = new AnalyticsService(clientBuilder.build());
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                if (request.getPath().contains("from=2020-03-10&to=2020-03-12")) {
+                    return dailyStatsResponse("2020-03-10", "2020-03-11", "2020-03-12")
+                        .setHeadersDelay(500, TimeUnit.MILLISECONDS);
+                }
+                if (request.getPath().contains("from=2020-03-13&to=2020-03-14")) {
+                    return dailyStatsResponse("2020-03-13", "2020-03-14");
+                }
+                return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND);
+            }
+        });
+
+        CompletableFuture<DailyStats[]> first = analyticsService
+            .getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-12"))
+            .toCompletableFuture();
+        CompletableFuture<DailyStats[]> second = analyticsService
+            .getDailyStats(LocalDate.parse("2020-03-11"), LocalDate.parse("2020-03-14"))
+            .toCompletableFuture();
+
+        assertArrayEquals(new String[] { "2020-03-10", "2020-03-11", "2020-03-12" },
+            toDates(first.get(5, TimeUnit.SECONDS)));
+        assertArrayEquals("takes only requested days of the shared response",
+            new String[] { "2020-03-11", "2020-03-12", "2020-03-13", "2020-03-14" },
+            toDates(second.get(5, TimeUnit.SECONDS)));
+        assertEquals("fetches only days which aren't in flight", 2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getDailyStatsRange_WithFetchPolicy_DeliversWindowsInOrder() throws Exception {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        clientBuilder.setCallbackExecutor(CallbackExecutors.direct());
+        analyticsService = new AnalyticsService(clientBuilder.build());
+        mockWebServer.setDispatcher(createDailyStatsRangeDispatcher());
+        final List<DailyStats[]> chunks = new ArrayList<>();
+        final DailyStatsRangeFetchPolicy fetchPolicy =
+            new DailyStatsRangeFetchPolicy.Builder().setWindowDays(31).build();
+
+        ApiCallResult<DailyStats[]> result = analyticsService
+            .getDailyStats(LocalDate.parse("2020-01-01"), LocalDate.parse("2020-03-31"), fetchPolicy, chunks::add)
+            .execute();
+
+        assertFalse("success result", result.isError());
+        final String[] expectedDates = LocalDate.parse("2020-01-01")
+            .datesUntil(LocalDate.parse("2020-04-01"))
+            .map(LocalDate::toString)
+            .toArray(String[]::new);
+        assertArrayEquals(expectedDates, toDates(result.getValue()));
+        assertEquals(3, chunks.size());
+        assertArrayEquals("delivers all days in order of dates",
+            expectedDates,
+            chunks.stream().flatMap(Arrays::stream).map(DailyStats::getDate).toArray(String[]::new));
+        assertEquals("2020-02-01", chunks.get(1)[0].getDate());
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getDailyStatsRange_WithFetchPolicy_LimitsParallelRequests() throws Exception {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        analyticsService = new AnalyticsService(clientBuilder.build());
+        final Dispatcher rangeDispatcher = createDailyStatsRangeDispatcher();
+        final AtomicInteger runningRequests = new AtomicInteger();
+        final AtomicInteger maxRunningRequests = new AtomicInteger();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) throws InterruptedException {
+                maxRunningRequests.accumulateAndGet(runningRequests.incrementAndGet(), Math::max);
+                Thread.sleep(100);
+                runningRequests.decrementAndGet();
+                return rangeDispatcher.dispatch(request);
+            }
+        });
+        final DailyStatsRangeFetchPolicy fetchPolicy =
+            new DailyStatsRangeFetchPolicy.Builder().setWindowDays(1).setMaxParallelRequests(2).build();
+
+        DailyStats[] dailyStats = analyticsService
+            .getDailyStats(LocalDate.parse("2020-03-01"), LocalDate.parse("2020-03-06"), fetchPolicy, null)
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals(6, dailyStats.length);
+        assertEquals(6, mockWebServer.getRequestCount());
+        assertTrue("fetches at most 2 windows at once", maxRunningRequests.get() <= 2);
+    }
+
+    @Test
+    public void getDailyStatsRange_FailedWindow_ReturnsErrorResult() {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        analyticsService = new AnalyticsService(clientBuilder.build());
+        final Dispatcher rangeDispatcher = createDailyStatsRangeDispatcher();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) throws InterruptedException {
+                if ("2020-03-03".equals(request.getRequestUrl().queryParameter("from"))) {
+                    return new MockResponse().setResponseCode(HttpURLConnection.HTTP_INTERNAL_ERROR);
+                }
+                return rangeDispatcher.dispatch(request);
+            }
+        });
+        final DailyStatsRangeFetchPolicy fetchPolicy =
+            new DailyStatsRangeFetchPolicy.Builder().setWindowDays(2).build();
+
+        ApiCallResult<DailyStats[]> result = analyticsService
+            .getDailyStats(LocalDate.parse("2020-03-01"), LocalDate.parse("2020-03-06"), fetchPolicy, null)
+            .execute();
+
+        assertTrue("error result", result.isError());
+        assertThat(result.getError(), IsInstanceOf.instanceOf(ApiExceptions.CommonException.class));
+    }
+
+    static final String TWO_DAYS_DAILY_STATS_JSON = """
+        [
+        {
+        "date": "2020-03-10",
+        "steps": 8900,
+        "low": { "seconds": 1800, "metMinutes": 20 },
+        "moderate": { "seconds": 1200, "metMinutes": 10 },
+        "high": { "seconds": 180, "metMinutes": 15 },
+        "contributingSources": ["polar"]
+        },
+        {
+        "date": "2020-03-11",
+        "steps": 9011,
+        "low": { "seconds": 100, "metMinutes": 2 },
+        "moderate": { "seconds": 121, "metMinutes": 2 },
+        "high": { "seconds": 30, "metMinutes": 3 },
+        "contributingSources": ["healthconnect", "polar"]
+        }
+        ]""";
+
+    static void assertAggregatedStatsEquals(AggregatedDailyStats expected, AggregatedDailyStats actual) {
+        assertEquals(expected.getSteps(), actual.getSteps());
+        assertEquals(expected.getLow().getSeconds(), actual.getLow().getSeconds());
+        assertEquals(expected.getLow().getMetMinutes(), actual.getLow().getMetMinutes());
+        assertEquals(expected.getModerate().getSeconds(), actual.getModerate().getSeconds());
+        assertEquals(expected.getModerate().getMetMinutes(), actual.getModerate().getMetMinutes());
+        assertEquals(expected.getHigh().getSeconds(), actual.getHigh().getSeconds());
+        assertEquals(expected.getHigh().getMetMinutes(), actual.getHigh().getMetMinutes());
+        assertEquals(Set.of(expected.getContributingSources()), Set.of(actual.getContributingSources()));
+    }
+
+    AggregatedDailyStats getAggregatedStatsFromServer(AggregationType aggregation, String responseBody) {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+            .setHeader("Content-Type", "application/json")
+            .setBody(responseBody));
+        final ApiCallResult<AggregatedDailyStats> result = new AnalyticsService(clientBuilder.build())
+            .getAggregatedDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-11"), aggregation)
+            .execute();
+        assertFalse("success result", result.isError());
+        return result.getValue();
+    }
+
+    @Test
+    public void getAggregatedDailyStats_CachedDays_MatchesServerAggregation() throws InterruptedException {
+        createCachedService(new DailyStatsCachePolicy.Builder().build());
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+            .setHeader("Content-Type", "application/json")
+            .setBody(TWO_DAYS_DAILY_STATS_JSON));
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-11")).execute();
+        mockWebServer.takeRequest();
+
+        final AggregatedDailyStats localSum = analyticsService
+            .getAggregatedDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-11"), AggregationType.sum)
+            .execute()
+            .getValue();
+        final AggregatedDailyStats localAverage = analyticsService
+            .getAggregatedDailyStats(LocalDate.parse("2020-03-10"),
+                LocalDate.parse("2020-03-11"),
+                AggregationType.average)
+            .execute()
+            .getValue();
+        assertEquals("aggregates the cached days locally", 1, mockWebServer.getRequestCount());
+
+        // NOTE: responses of the server aggregation are fixtures written by the semantics of the analytics api (see
+        // AggregatedDailyStats.aggregate), they are not computed by the local aggregation
+        assertAggregatedStatsEquals(getAggregatedStatsFromServer(AggregationType.sum, """
+            {
+            "steps": 17911,
+            "low": { "seconds": 1900, "metMinutes": 22 },
+            "moderate": { "seconds": 1321, "metMinutes": 12 },
+            "high": { "seconds": 210, "metMinutes": 18 },
+            "contributingSources": ["polar", "healthconnect"]
+            }"""), localSum);
+        assertAggregatedStatsEquals(getAggregatedStatsFromServer(AggregationType.average, """
+            {
+            "steps": 8956,
+            "low": { "seconds": 950, "metMinutes": 11 },
+            "moderate": { "seconds": 661, "metMinutes": 6 },
+            "high": { "seconds": 105, "metMinutes": 9 },
+            "contributingSources": ["polar", "healthconnect"]
+            }"""), localAverage);
+    }
+
+    @Test
+    public void getAggregatedDailyStats_DaysMissingOnServer_CountsThemAsDaysWithoutActivity() throws Exception {
+        createCachedService(new DailyStatsCachePolicy.Builder().build());
+        // NOTE: the server omits 2020-03-11 which has no data
+        mockWebServer.enqueue(dailyStatsResponse("2020-03-10", "2020-03-12"));
+        mockWebServer.enqueue(dailyStatsResponse());
+        mockWebServer.enqueue(dailyStatsResponse());
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-12")).execute();
+
+        final AggregatedDailyStats sum = analyticsService
+            .getAggregatedDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-12"), AggregationType.sum)
+            .execute()
+            .getValue();
+        final AggregatedDailyStats average = analyticsService
+            .getAggregatedDailyStats(LocalDate.parse("2020-03-10"),
+                LocalDate.parse("2020-03-12"),
+                AggregationType.average)
+            .execute()
+            .getValue();
+
+        assertEquals(2000, sum.getSteps());
+        assertEquals(30, sum.getHigh().getMetMinutes());
+        assertEquals("divides by all days of the interval", 667, average.getSteps());
+        assertEquals(1200, average.getLow().getSeconds());
+        assertEquals(13, average.getLow().getMetMinutes());
+        assertEquals(800, average.getModerate().getSeconds());
+        assertEquals(7, average.getModerate().getMetMinutes());
+        assertEquals(120, average.getHigh().getSeconds());
+        assertEquals(10, average.getHigh().getMetMinutes());
+        mockWebServer.takeRequest();
+        assertThat("fetches the missing day as daily stats",
+            mockWebServer.takeRequest().getPath(),
+            containsString("daily-stats/USER_TOKEN?from=2020-03-11&to=2020-03-11"));
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getAggregatedDailyStats_PartiallyCachedInterval_FetchesOnlyMissingDays() throws InterruptedException {
+        createCachedService(new DailyStatsCachePolicy.Builder().build());
+        mockWebServer.setDispatcher(createDailyStatsRangeDispatcher());
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-11")).execute();
+
+        final ApiCallResult<AggregatedDailyStats> result = analyticsService
+            .getAggregatedDailyStats(LocalDate.parse("2020-03-09"), LocalDate.parse("2020-03-11"), AggregationType.sum)
+            .execute();
+
+        assertFalse("success result", result.isError());
+        assertEquals(3000, result.getValue().getSteps());
+        assertEquals(45, result.getValue().getHigh().getMetMinutes());
+        assertArrayEquals(new String[] { "polar" }, result.getValue().getContributingSources());
+        mockWebServer.takeRequest();
+        assertThat("fetches only the missing day as daily stats",
+            mockWebServer.takeRequest().getPath(),
+            containsString("daily-stats/USER_TOKEN?from=2020-03-09&to=2020-03-09"));
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getAggregatedDailyStats_NoCachedDays_RequestsServerAggregation() throws InterruptedException {
+        createCachedService(new DailyStatsCachePolicy.Builder().build());
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_OK)
+            .setHeader("Content-Type", "application/json")
+            .setBody("""
+                {
+                "steps": 10103,
+                "low": { "seconds": 2222, "metMinutes": 32 },
+                "moderate": { "seconds": 1980, "metMinutes": 44 },
+                "high": { "seconds": 600, "metMinutes": 9 },
+                "contributingSources": ["suunto"]
+                }"""));
+
+        final ApiCallResult<AggregatedDailyStats> result = analyticsService
+            .getAggregatedDailyStats(LocalDate.parse("2020-03-10"), LocalDate.parse("2020-03-11"), AggregationType.sum)
+            .execute();
+
+        assertEquals(10103, result.getValue().getSteps());
+        assertThat(mockWebServer.takeRequest().getPath(),
+            containsString("daily-stats/USER_TOKEN/aggregated?from=2020-03-10&to=2020-03-11&aggregation=sum"));
+    }
+
+    @Test
+    public void getDailyStatsRange_WithRecentDaysMaxAge_ServesFreshRecentDaysFromCache() throws InterruptedException {
+        createCachedService(new DailyStatsCachePolicy.Builder().setRecentDaysMaxAge(Duration.ofHours(1)).build());
+        mockWebServer.setDispatcher(createDailyStatsRangeDispatcher());
+        analyticsService.getDailyStats(LocalDate.parse("2020-03-18"), LocalDate.parse("2020-03-20")).execute();
+
+        final ApiCallResult<DailyStats[]> result =
+            analyticsService.getDailyStats(LocalDate.parse("2020-03-18"), LocalDate.parse("2020-03-20")).execute();
+
+        assertFalse("success result", result.isError());
+        assertArrayEquals(new String[] {"2020-03-18", "2020-03-19", "2020-03-20"}, toDates(result.getValue()));
+        assertEquals("serves recent days from the cache", 1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getDailyStatsRange_WithRecentDaysMaxAge_RefetchesStaleRecentDays() throws InterruptedException {
+        testKeystore.setKey(validSigningKey);
+        clientBuilder.setKeystore(testKeystore);
+        mockWebServer.setDispatcher(createDailyStatsRangeDispatcher());
+        final InMemoryStorage storage = new InMemoryStorage();
+        final DailyStatsCachePolicy policy =
+            new DailyStatsCachePolicy.Builder().setRecentDaysMaxAge(Duration.ofHours(1)).build();
+        final Clock twoHoursAgo = Clock.offset(CLOCK, Duration.ofHours(-2));
+        new AnalyticsService(clientBuilder.build(), new DailyStatsCache(storage, policy, twoHoursAgo))
+            .getDailyStats(LocalDate.parse("2020-03-19"), LocalDate.parse("2020-03-20"))
+            .execute();
+        mockWebServer.takeRequest();
+
+        analyticsService = new AnalyticsService(clientBuilder.build(), new DailyStatsCache(storage, policy, CLOCK));
+        final ApiCallResult<DailyStats[]> result =
+            analyticsService.getDailyStats(LocalDate.parse("2020-03-19"), LocalDate.parse("2020-03-20")).execute();
+
+        assertFalse("success result", result.isError());
+        assertThat("refetches recent days older than the max age",
+            mockWebServer.takeRequest().getPath(),
+            containsString("daily-stats/USER_TOKEN?from=2020-03-19&to=2020-03-20"));
+    }
 }
@@ -0,0 +1,115 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.entities.IStorage;
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.PersistentStorage;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.http.services.UserSigningService;
+import com.fjuul.sdk.core.http.utils.RequestSigner;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+
+import android.os.Build;
+import androidx.test.core.app.ApplicationProvider;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Measures the per-request overhead of {@link SigningAuthInterceptor} with the in-memory cache of the signing key and
+ * with the key read from the storage on every request (the behavior before the cache). The measured numbers are
+ * printed to the standard output. Run it with {@code ./gradlew :core:testDebugUnitTest -Pbenchmarks}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class SigningAuthInterceptorBenchmarkTest {
+    private static final int WARMUP_ITERATIONS = 5_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    /**
+     * Reproduces the keystore without the cache: the key is read and decoded on every call.
+     */
+    static class ReadThroughKeystore extends Keystore {
+        private final IStorage storage;
+        private final JsonAdapter<SigningKey> adapter =
+            new Moshi.Builder().add(Date.class, new Rfc3339DateJsonAdapter()).build().adapter(SigningKey.class);
+
+        ReadThroughKeystore(IStorage storage) {
+            super(storage);
+            this.storage = storage;
+        }
+
+        @Override
+        public Optional<SigningKey> getValidKey() {
+            try {
+                final SigningKey key = adapter.fromJson(storage.get("signing-key"));
+                return key == null || key.isExpired() ? Optional.empty() : Optional.of(key);
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    @Test
+    public void intercept_perRequestOverhead() throws IOException {
+        final IStorage storage = new PersistentStorage(ApplicationProvider.getApplicationContext(), "USER_TOKEN");
+        final Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.HOUR, 1);
+        final SigningKey key = new SigningKey("key-id", "REAL_SECRET", calendar.getTime());
+        final Keystore cachedKeystore = new Keystore(storage);
+        cachedKeystore.setKey(key);
+        final Keystore readThroughKeystore = new ReadThroughKeystore(storage);
+        assertEquals(key.getId(), readThroughKeystore.getValidKey().get().getId());
+
+        final Request request = new Request.Builder().url("https://apibase/sdk/v1/analytics").build();
+        final Response response =
+            new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(200).message("OK").build();
+        final Interceptor.Chain chain = mock(Interceptor.Chain.class, withSettings().stubOnly());
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(any())).thenReturn(response);
+        final UserSigningService signingService = mock(UserSigningService.class);
+        final SigningAuthInterceptor cachedInterceptor =
+            new SigningAuthInterceptor(cachedKeystore, new RequestSigner(), signingService);
+        final SigningAuthInterceptor readThroughInterceptor =
+            new SigningAuthInterceptor(readThroughKeystore, new RequestSigner(), signingService);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            cachedInterceptor.intercept(chain);
+            readThroughInterceptor.intercept(chain);
+        }
+        final long readThroughNanos = measure(readThroughInterceptor, chain);
+        final long cachedNanos = measure(cachedInterceptor, chain);
+
+        System.out.println(String.format(Locale.US,
+            "signing interceptor: key read from storage %.0f ns/op, cached key %.0f ns/op",
+            (double) readThroughNanos / MEASURED_ITERATIONS,
+            (double) cachedNanos / MEASURED_ITERATIONS));
+    }
+
+    private static long measure(SigningAuthInterceptor interceptor, Interceptor.Chain chain) throws IOException {
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            interceptor.intercept(chain);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,166 @@
+package com.fjuul.sdk.core.http.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.entities.SigningKey;
+
+import android.os.Build;
+import android.util.Base64;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+/**
+ * Compares {@link RequestSigner} with the previous implementation: the digest of large request bodies and the
+ * throughput of signing requests. The measured numbers are printed to the standard output. Run it with
+ * {@code ./gradlew :core:testDebugUnitTest -Pbenchmarks}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class RequestSignerBenchmarkTest {
+    private static final int[] BODY_SIZES_MB = {1, 10, 50};
+    private static final int MEASURED_ITERATIONS = 3;
+    private static final int SIGNING_WARMUP_ITERATIONS = 10_000;
+    private static final int SIGNING_MEASURED_ITERATIONS = 100_000;
+
+    @Test
+    public void signRequestByKey_withLargeBodies() throws IOException {
+        final RequestSigner subject = new RequestSigner();
+        final SigningKey key = new SigningKey("signing-key-id-1234", "REAL_SECRET_KEY", new Date());
+        for (int sizeMb : BODY_SIZES_MB) {
+            final RequestBody body = RequestBody.create(createJsonBody(sizeMb), MediaType.get("application/json"));
+            final Request request =
+                new Request.Builder().url("https://fjuul.dev.api/sdk/activity-sources/v1/userToken/googlefit")
+                    .post(body)
+                    .build();
+            final String digestHeader = subject.signRequestByKey(request, key).header("Digest");
+            assertEquals("SHA-256=" + legacyDigestOfBody(body), digestHeader);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                legacyDigestOfBody(body);
+            }
+            final long legacyNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                subject.signRequestByKey(request, key);
+            }
+            final long streamingNanos = System.nanoTime() - start;
+
+            System.out.println(String.format(Locale.US,
+                "request signer with %d MB body: string-based digest %.1f ms/op, streaming digest %.1f ms/op",
+                sizeMb,
+                legacyNanos / 1e6 / MEASURED_ITERATIONS,
+                streamingNanos / 1e6 / MEASURED_ITERATIONS));
+        }
+    }
+
+    @Test
+    public void signRequestByKey_requestsPerSecond() throws Exception {
+        final RequestSigner subject = new RequestSigner();
+        final SigningKey key = new SigningKey("signing-key-id-1234", "REAL_SECRET_KEY", new Date());
+        final Request request =
+            new Request.Builder().url("https://fjuul.dev.api/analytics/v1/dailyStats/userToken/2020-01-01/2020-01-31")
+                .get()
+                .build();
+        for (int i = 0; i < SIGNING_WARMUP_ITERATIONS; i++) {
+            subject.signRequestByKey(request, key);
+            legacySignature(request, key);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SIGNING_MEASURED_ITERATIONS; i++) {
+            legacySignature(request, key);
+        }
+        final long legacyNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < SIGNING_MEASURED_ITERATIONS; i++) {
+            subject.signRequestByKey(request, key);
+        }
+        final long currentNanos = System.nanoTime() - start;
+
+        System.out.println(String.format(Locale.US,
+            "request signer without body: per-request mac and formatting %.0f requests/s, reused mac %.0f requests/s",
+            SIGNING_MEASURED_ITERATIONS * 1e9 / legacyNanos,
+            SIGNING_MEASURED_ITERATIONS * 1e9 / currentNanos));
+    }
+
+    /**
+     * Reproduces the previous signing of a request without body: a new mac per request and format strings for the
+     * signing string.
+     */
+    private static String legacySignature(Request request, SigningKey key) throws Exception {
+        final String requestTarget = String.format("%s %s?%s",
+            request.method().toLowerCase(Locale.ROOT),
+            request.url().encodedPath(),
+            request.url().encodedQuery());
+        final String formattedDate =
+            Instant.now().atOffset(ZoneOffset.UTC).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        final String signingString =
+            String.format("%s\n%s", String.format("(request-target): %s", requestTarget), "date: " + formattedDate);
+        final Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key.getSecret().getBytes("UTF-8"), "HmacSHA256"));
+        final String signature =
+            new String(Base64.encode(mac.doFinal(signingString.getBytes(StandardCharsets.UTF_8)), Base64.NO_WRAP),
+                "UTF-8");
+        return String.format("keyId=\"%s\",algorithm=\"hmac-sha256\",headers=\"%s\",signature=\"%s\"",
+            key.getId(),
+            "(request-target) date",
+            signature);
+    }
+
+    private static byte[] createJsonBody(int sizeMb) {
+        final String entry = "{\"start\":\"2020-10-16T21:30:00Z\",\"value\":123.4567,\"dataSource\":\"derived\"},";
+        final int targetSize = sizeMb * 1024 * 1024;
+        final StringBuilder builder = new StringBuilder(targetSize + entry.length());
+        builder.append('[');
+        while (builder.length() < targetSize) {
+            builder.append(entry);
+        }
+        builder.setCharAt(builder.length() - 1, ']');
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reproduces the previous implementation: the body is read to a string for the emptiness check and once again to
+     * compute the digest of its bytes.
+     */
+    private static String legacyDigestOfBody(RequestBody body) throws IOException {
+        if (requestBodyToString(body).isEmpty()) {
+            return "";
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] hashedBodyBytes =
+                digest.digest(requestBodyToString(body).getBytes(StandardCharsets.UTF_8));
+            return Base64.encodeToString(hashedBodyBytes, Base64.NO_WRAP);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String requestBodyToString(RequestBody body) throws IOException {
+        final Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readUtf8();
+    }
+}
@@ -1,21 +1,46 @@
 package com.fjuul.sdk.core;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 import com.fjuul.sdk.core.entities.IStorage;
 import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.LogStructuredStorage;
 import com.fjuul.sdk.core.entities.PersistentStorage;
+import com.fjuul.sdk.core.entities.StorageClearances;
+import com.fjuul.sdk.core.entities.StorageEngine;
 import com.fjuul.sdk.core.entities.UserCredentials;
 import com.fjuul.sdk.core.http.interceptors.ApiKeyAttachingInterceptor;
 import com.fjuul.sdk.core.http.interceptors.BearerAuthInterceptor;
+import com.fjuul.sdk.core.http.interceptors.GzipRequestInterceptor;
+import com.fjuul.sdk.core.http.interceptors.RetryInterceptor;
+import com.fjuul.sdk.core.http.interceptors.SDKHttpLoggingInterceptor;
 import com.fjuul.sdk.core.http.interceptors.SDKUserAgentInterceptor;
 import com.fjuul.sdk.core.http.interceptors.SigningAuthInterceptor;
 import com.fjuul.sdk.core.http.services.ISigningService;
 import com.fjuul.sdk.core.http.services.UserSigningService;
+import com.fjuul.sdk.core.http.utils.CallbackExecutors;
+import com.fjuul.sdk.core.http.utils.HttpMetricsEventListener;
+import com.fjuul.sdk.core.http.utils.IHttpMetricsListener;
 import com.fjuul.sdk.core.http.utils.RequestSigner;
+import com.fjuul.sdk.core.http.utils.RetryPolicy;
+import com.fjuul.sdk.core.http.utils.SigningKeyRefreshScheduler;
+import com.fjuul.sdk.core.utils.Logger;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
 
 /**
  * Main entry point to communicate with Fjuul API from a user identity.
@@ -28,6 +53,13 @@ import okhttp3.OkHttpClient;
  * @see ApiClient.Builder
  */
 public class ApiClient {
+    static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    static final long DEFAULT_KEEP_ALIVE_DURATION_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static volatile @Nullable IHttpMetricsListener defaultHttpMetricsListener;
+    // NOTE: only one api-client per user renews the signing key in the background, the last one which started it
+    private static final Map<String, SigningKeyRefreshScheduler> signingKeyRefreshSchedulers = new HashMap<>();
+
     private @NonNull String baseUrl;
     private @NonNull String apiKey;
     private @NonNull Context appContext;
@@ -35,19 +67,46 @@ public class ApiClient {
     private @NonNull Keystore userKeystore;
     private @Nullable UserCredentials userCredentials;
     private @Nullable SigningAuthInterceptor signingAuthInterceptor;
+    private @Nullable Float signingKeyRefreshFraction;
+    private @Nullable SigningKeyRefreshScheduler signingKeyRefreshScheduler;
+    private final int maxIdleConnections;
+    private final long keepAliveDurationMillis;
+    private @Nullable SDKHttpLoggingInterceptor httpLoggingInterceptor;
+    private @Nullable Long requestCompressionMinBodyBytes;
+    private @Nullable RetryPolicy retryPolicy;
+    private @Nullable IHttpMetricsListener httpMetricsListener;
+    private @NonNull Executor callbackExecutor;
+    private @Nullable OkHttpClient rootHttpClient;
+    private @Nullable CompletableFuture<Void> prewarming;
 
     private ApiClient(String baseUrl,
         String apiKey,
         Context appContext,
         IStorage storage,
         Keystore userKeystore,
-        UserCredentials credentials) {
+        UserCredentials credentials,
+        Float signingKeyRefreshFraction,
+        int maxIdleConnections,
+        long keepAliveDurationMillis,
+        SDKHttpLoggingInterceptor httpLoggingInterceptor,
+        Long requestCompressionMinBodyBytes,
+        RetryPolicy retryPolicy,
+        IHttpMetricsListener httpMetricsListener,
+        Executor callbackExecutor) {
         this.baseUrl = baseUrl;
         this.apiKey = apiKey;
         this.appContext = appContext;
         this.storage = storage;
         this.userKeystore = userKeystore;
         this.userCredentials = credentials;
+        this.signingKeyRefreshFraction = signingKeyRefreshFraction;
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveDurationMillis = keepAliveDurationMillis;
+        this.httpLoggingInterceptor = httpLoggingInterceptor;
+        this.requestCompressionMinBodyBytes = requestCompressionMinBodyBytes;
+        this.retryPolicy = retryPolicy;
+        this.httpMetricsListener = httpMetricsListener;
+        this.callbackExecutor = callbackExecutor;
     }
 
     /**
@@ -60,6 +119,18 @@ public class ApiClient {
         protected @Nullable IStorage storage;
         protected @Nullable Keystore keystore;
         protected @Nullable UserCredentials userCredentials;
+        protected @NonNull StorageEngine storageEngine = StorageEngine.SHARED_PREFERENCES;
+        protected @Nullable Float signingKeyRefreshFraction;
+        protected int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+        protected long keepAliveDurationMillis = DEFAULT_KEEP_ALIVE_DURATION_MILLIS;
+        protected @NonNull HttpLoggingInterceptor.Level httpLogLevel =
+            BuildConfig.DEBUG ? HttpLoggingInterceptor.Level.BODY : HttpLoggingInterceptor.Level.NONE;
+        protected long httpLogMaxBodyBytes = SDKHttpLoggingInterceptor.DEFAULT_MAX_BODY_BYTES;
+        protected float httpLogBodySampleRate = 1f;
+        protected @Nullable Long requestCompressionMinBodyBytes;
+        protected @Nullable RetryPolicy retryPolicy;
+        protected @Nullable IHttpMetricsListener httpMetricsListener;
+        protected @NonNull Executor callbackExecutor = CallbackExecutors.mainThread();
 
         /**
          * @param baseUrl the API base URL to connect to, e.g. `https://api.fjuul.com`.
@@ -83,25 +154,188 @@ public class ApiClient {
             return this;
         }
 
+        /**
+         * Sets the engine to persist the user state. By default, it's {@link StorageEngine#SHARED_PREFERENCES}.<br>
+         * Once the state of a user was moved to {@link StorageEngine#APPEND_ONLY_LOG}, it is used for the user
+         * regardless of this option (e.g. by background workers which build their own api-clients). Use
+         * {@link ApiClient#clearPersistentStorage()} to start over.
+         *
+         * @param storageEngine engine of the persistent storage
+         */
+        public @NonNull Builder setStorageEngine(@NonNull StorageEngine storageEngine) {
+            this.storageEngine = storageEngine;
+            return this;
+        }
+
+        /**
+         * Enables the renewal of the signing key in the background once the given fraction of its lifetime has
+         * passed, so signed requests don't wait for issuing a new key when the current one expires. By default, a new
+         * key is issued only when a signed request finds the current key expired.<br>
+         * Only one api-client per user renews the key: the last one which built a signing client. The renewal stops
+         * on {@link ApiClient#stopSigningKeyRefresh()} and {@link ApiClient#clearPersistentStorage()}.
+         *
+         * @param lifetimeFraction fraction of the key lifetime in the range (0, 1), e.g. 0.8
+         */
+        public @NonNull Builder setSigningKeyRefreshFraction(float lifetimeFraction) {
+            if (!(lifetimeFraction > 0 && lifetimeFraction < 1)) {
+                throw new IllegalArgumentException("The lifetime fraction must be in the range (0, 1)");
+            }
+            this.signingKeyRefreshFraction = lifetimeFraction;
+            return this;
+        }
+
+        /**
+         * Configures the connection pool shared by all http clients of the api-client. By default, up to 5 idle
+         * connections are kept alive for 5 minutes.
+         *
+         * @param maxIdleConnections max number of idle connections to keep in the pool
+         * @param keepAliveDuration time to keep an idle connection alive
+         * @param timeUnit unit of the keep-alive duration
+         */
+        public @NonNull Builder setConnectionPool(int maxIdleConnections,
+            long keepAliveDuration,
+            @NonNull TimeUnit timeUnit) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("Max idle connections must not be negative");
+            }
+            if (keepAliveDuration <= 0) {
+                throw new IllegalArgumentException("Keep-alive duration must be positive");
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveDurationMillis = timeUnit.toMillis(keepAliveDuration);
+            return this;
+        }
+
+        /**
+         * Sets the level of logging of http requests made by the SDK. Logs are published through Timber with the
+         * {@link com.fjuul.sdk.core.utils.Logger#TAG} tag. By default, it's {@code BODY} in debug builds of the SDK and
+         * {@code NONE} in release builds. Credentials and bodies of responses with secrets are never logged.
+         *
+         * @param level level of details to log
+         */
+        public @NonNull Builder setHttpLogLevel(@NonNull HttpLoggingInterceptor.Level level) {
+            this.httpLogLevel = level;
+            return this;
+        }
+
+        /**
+         * Limits the logging of bodies with the {@code BODY} level of http logs. By default, up to 16 KB of every body
+         * are logged.
+         *
+         * @param maxBodyBytes max number of bytes of a body to log
+         * @param sampleRate share of requests in the range [0, 1] whose bodies are logged
+         */
+        public @NonNull Builder setHttpBodyLogging(long maxBodyBytes, float sampleRate) {
+            if (maxBodyBytes < 0) {
+                throw new IllegalArgumentException("Max body bytes must not be negative");
+            }
+            if (sampleRate < 0 || sampleRate > 1) {
+                throw new IllegalArgumentException("Sample rate must be in the range [0, 1]");
+            }
+            this.httpLogMaxBodyBytes = maxBodyBytes;
+            this.httpLogBodySampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Enables the gzip compression of request bodies (e.g. uploads of fitness data) which reach the given size.
+         * Compressed requests are sent with the {@code Content-Encoding: gzip} header, and the digest of a signed
+         * request is computed over the compressed bytes. By default, request bodies aren't compressed.
+         *
+         * @param minBodyBytes min size of a request body to compress, e.g.
+         *        {@link GzipRequestInterceptor#DEFAULT_MIN_BODY_BYTES}
+         */
+        public @NonNull Builder setRequestCompression(long minBodyBytes) {
+            if (minBodyBytes < 0) {
+                throw new IllegalArgumentException("Min body bytes must not be negative");
+            }
+            this.requestCompressionMinBodyBytes = minBodyBytes;
+            return this;
+        }
+
+        /**
+         * Enables retries of requests failed with a transient error (e.g. a socket timeout or 503 status). Retried
+         * requests are signed anew. By default, failed requests aren't retried.
+         *
+         * @param retryPolicy policy of retries, e.g. {@code new RetryPolicy.Builder().build()} for the default one
+         * @see RetryPolicy
+         */
+        public @NonNull Builder setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the listener of timings of http calls (DNS, connecting, writing the request, waiting for the server,
+         * reading the response) made with this api-client. By default, the listener set by
+         * {@link ApiClient#setDefaultHttpMetricsListener(IHttpMetricsListener)} is used, if any.
+         *
+         * @param httpMetricsListener listener of call metrics
+         */
+        public @NonNull Builder setHttpMetricsListener(@NonNull IHttpMetricsListener httpMetricsListener) {
+            this.httpMetricsListener = httpMetricsListener;
+            return this;
+        }
+
+        /**
+         * Sets the executor of callbacks passed to {@code ApiCall#enqueue(ApiCallCallback)} of api calls built by SDK
+         * services with this api-client. By default, callbacks are executed on the main thread.
+         *
+         * @param callbackExecutor executor of callbacks, e.g. {@link CallbackExecutors#direct()}
+         */
+        public @NonNull Builder setCallbackExecutor(@NonNull Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
         protected void setupDefaultStorage() {
             if (appContext == null) {
                 throw new IllegalArgumentException("Application context must not be null");
             }
             if (userCredentials != null) {
-                this.storage = new PersistentStorage(appContext, userCredentials.getToken());
+                final String userToken = userCredentials.getToken();
+                if (storageEngine == StorageEngine.APPEND_ONLY_LOG
+                    || LogStructuredStorage.exists(appContext, userToken)) {
+                    this.storage = LogStructuredStorage.getInstance(appContext, userToken);
+                } else {
+                    this.storage = new PersistentStorage(appContext, userToken);
+                }
                 this.keystore = new Keystore(storage);
             }
         }
 
         public @NonNull ApiClient build() {
             setupDefaultStorage();
-            return new ApiClient(baseUrl, apiKey, appContext, storage, keystore, userCredentials);
+            return new ApiClient(baseUrl,
+                apiKey,
+                appContext,
+                storage,
+                keystore,
+                userCredentials,
+                signingKeyRefreshFraction,
+                maxIdleConnections,
+                keepAliveDurationMillis,
+                buildHttpLoggingInterceptor(),
+                requestCompressionMinBodyBytes,
+                retryPolicy,
+                httpMetricsListener != null ? httpMetricsListener : defaultHttpMetricsListener,
+                callbackExecutor);
+        }
+
+        private @Nullable SDKHttpLoggingInterceptor buildHttpLoggingInterceptor() {
+            if (httpLogLevel == HttpLoggingInterceptor.Level.NONE) {
+                return null;
+            }
+            return new SDKHttpLoggingInterceptor(httpLogLevel,
+                httpLogMaxBodyBytes,
+                httpLogBodySampleRate,
+                message -> Logger.get().d("HTTP LOGS: %s", message));
         }
     }
 
     /**
-     * Deletes the stored user file of the shared preferences created internally for persisting the state of Fjuul SDK.
-     * <br>
+     * Deletes the stored user file of the shared preferences (or the append-only log) created internally for persisting
+     * the state of Fjuul SDK.<br>
      * Ideally, you should not use this method until you actually decide to clear all user data, as the repeated storage
      * clearance will lead to data being unnecessarily uploaded/downloaded multiple times.<br>
      * Keep in mind that if you want to fully reset SDK to the default state (like it was not touched at all), then you
@@ -113,7 +347,35 @@ public class ApiClient {
      * @return boolean which indicates the success of the operation
      */
     public static boolean clearPersistentStorage(@NonNull Context context, @NonNull String userToken) {
-        return new PersistentStorage(context, userToken).remove();
+        // NOTE: otherwise the background renewal would put a new signing key to the cleared storage
+        stopSigningKeyRefreshOf(userToken);
+        final boolean logResult = LogStructuredStorage.delete(context, userToken);
+        final boolean result = new PersistentStorage(context, userToken).remove() && logResult;
+        Keystore.invalidateCachedKeys();
+        StorageClearances.onCleared(userToken);
+        return result;
+    }
+
+    /**
+     * Sets the listener of timings of http calls made by api-clients which don't have their own one, including
+     * api-clients which background workers of the SDK build for themselves. Set it up before initializing SDK
+     * modules, e.g. in {@code Application#onCreate}.
+     *
+     * @param httpMetricsListener listener of call metrics, or null to stop reporting them
+     * @see Builder#setHttpMetricsListener(IHttpMetricsListener)
+     */
+    public static void setDefaultHttpMetricsListener(@Nullable IHttpMetricsListener httpMetricsListener) {
+        defaultHttpMetricsListener = httpMetricsListener;
+    }
+
+    private static void stopSigningKeyRefreshOf(@Nullable String userToken) {
+        final SigningKeyRefreshScheduler scheduler;
+        synchronized (signingKeyRefreshSchedulers) {
+            scheduler = signingKeyRefreshSchedulers.remove(userToken);
+        }
+        if (scheduler != null) {
+            scheduler.stop();
+        }
     }
 
     public @NonNull String getBaseUrl() {
@@ -154,6 +416,31 @@ public class ApiClient {
         return clearPersistentStorage(appContext, getUserToken());
     }
 
+    /**
+     * Stops the background renewal of the signing key if this api-client started it (see
+     * {@link Builder#setSigningKeyRefreshFraction(float)}). Call it when the api-client is not needed anymore, e.g. on
+     * logout. Http clients built by the api-client keep working, and the next signed request issues a new key when the
+     * current one expires.
+     */
+    public synchronized void stopSigningKeyRefresh() {
+        if (signingKeyRefreshScheduler == null) {
+            return;
+        }
+        synchronized (signingKeyRefreshSchedulers) {
+            signingKeyRefreshSchedulers.remove(getRefreshSchedulerKey(), signingKeyRefreshScheduler);
+        }
+        signingKeyRefreshScheduler.stop();
+        signingKeyRefreshScheduler = null;
+    }
+
+    @VisibleForTesting
+    synchronized boolean isRenewingSigningKey() {
+        synchronized (signingKeyRefreshSchedulers) {
+            return signingKeyRefreshScheduler != null
+                && signingKeyRefreshSchedulers.get(getRefreshSchedulerKey()) == signingKeyRefreshScheduler;
+        }
+    }
+
     public @NonNull IStorage getStorage() {
         return storage;
     }
@@ -162,6 +449,30 @@ public class ApiClient {
         return appContext;
     }
 
+    /**
+     * @return min size of a request body to compress, or null if the request compression is disabled
+     * @see Builder#setRequestCompression(long)
+     */
+    public @Nullable Long getRequestCompressionMinBodyBytes() {
+        return requestCompressionMinBodyBytes;
+    }
+
+    /**
+     * @return policy of retries of failed requests, or null if failed requests aren't retried
+     * @see Builder#setRetryPolicy(RetryPolicy)
+     */
+    public @Nullable RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @return default executor of callbacks of api calls
+     * @see Builder#setCallbackExecutor(Executor)
+     */
+    public @NonNull Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
     public @NonNull OkHttpClient buildSigningClient(@NonNull ISigningService signingService) {
         OkHttpClient client =
             createCommonClientBuilder().addInterceptor(getOrCreateSigningAuthInterceptor(signingService))
@@ -190,17 +501,107 @@ public class ApiClient {
         return createCommonClientBuilder().build();
     }
 
+    /**
+     * Warms up the http stack in the background, so the first real request doesn't wait for the setup: resolves the
+     * host of the base url and opens a pooled connection to it (HTTP/2 if the server supports it). If the api-client
+     * has user credentials, it also makes sure that a valid signing key exists.<br>
+     * Call it right after building the api-client, e.g. before showing a screen with analytics. Repeated calls return
+     * the same operation unless it failed.
+     *
+     * @return future which completes once the prewarming is done, or completes exceptionally if it failed
+     */
+    @SuppressLint("NewApi")
+    public synchronized @NonNull CompletableFuture<Void> prewarm() {
+        if (prewarming != null && !prewarming.isCompletedExceptionally()) {
+            return prewarming;
+        }
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        prewarming = future;
+        // NOTE: the dispatcher's pool is shared with async calls and creates threads on demand
+        getOrCreateRootHttpClient().dispatcher().executorService().execute(() -> {
+            try {
+                runPrewarming();
+                future.complete(null);
+            } catch (IOException | RuntimeException exception) {
+                Logger.get().d("failed to prewarm the api-client: %s", exception.getMessage());
+                future.completeExceptionally(exception);
+            }
+        });
+        return future;
+    }
+
+    @SuppressLint("NewApi")
+    private void runPrewarming() throws IOException {
+        if (userCredentials != null && !userKeystore.getValidKey().isPresent()) {
+            // NOTE: the issue request opens the connection by itself, so there is no need for a separate request
+            if (!getOrCreateSigningAuthInterceptor(new UserSigningService(this)).ensureValidKey()) {
+                throw new IOException("Failed to issue a signing key");
+            }
+            return;
+        }
+        final Request request = new Request.Builder().url(baseUrl).head().build();
+        try (Response response = buildClient().newCall(request).execute()) {
+            Logger.get().d("prewarmed the connection to %s", request.url().host());
+        }
+    }
+
     // TODO: consider moving this code to the builder class (share the same instance of the interceptor/authenticator)
-    protected @NonNull SigningAuthInterceptor getOrCreateSigningAuthInterceptor(
+    protected synchronized @NonNull SigningAuthInterceptor getOrCreateSigningAuthInterceptor(
         @NonNull ISigningService signingService) {
         if (signingAuthInterceptor == null) {
             signingAuthInterceptor = new SigningAuthInterceptor(userKeystore, new RequestSigner(), signingService);
+            if (signingKeyRefreshFraction != null) {
+                signingKeyRefreshScheduler =
+                    new SigningKeyRefreshScheduler(userKeystore, signingAuthInterceptor, signingKeyRefreshFraction);
+                final SigningKeyRefreshScheduler replacedScheduler;
+                synchronized (signingKeyRefreshSchedulers) {
+                    replacedScheduler = signingKeyRefreshSchedulers.put(getRefreshSchedulerKey(),
+                        signingKeyRefreshScheduler);
+                }
+                if (replacedScheduler != null) {
+                    replacedScheduler.stop();
+                }
+                signingKeyRefreshScheduler.start();
+            }
         }
         return signingAuthInterceptor;
     }
 
+    private @Nullable String getRefreshSchedulerKey() {
+        return userCredentials != null ? userCredentials.getToken() : null;
+    }
+
+    /**
+     * Every http client of the api-client is derived from the same root client, so they share the connection pool,
+     * the dispatcher and the common interceptors.
+     */
     private OkHttpClient.Builder createCommonClientBuilder() {
-        return new OkHttpClient.Builder().addInterceptor(new SDKUserAgentInterceptor(BuildConfig.VERSION_NAME))
-            .addInterceptor(new ApiKeyAttachingInterceptor(apiKey));
+        return getOrCreateRootHttpClient().newBuilder();
+    }
+
+    private synchronized @NonNull OkHttpClient getOrCreateRootHttpClient() {
+        if (rootHttpClient == null) {
+            final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDurationMillis, TimeUnit.MILLISECONDS))
+                .addInterceptor(new SDKUserAgentInterceptor(BuildConfig.VERSION_NAME))
+                .addInterceptor(new ApiKeyAttachingInterceptor(apiKey));
+            if (requestCompressionMinBodyBytes != null) {
+                // NOTE: interceptors of the root client run before the signing interceptor added by derived clients
+                builder.addInterceptor(new GzipRequestInterceptor(requestCompressionMinBodyBytes));
+            }
+            if (retryPolicy != null) {
+                // NOTE: the retry interceptor goes after the compression, so a retried request is only signed anew
+                builder.addInterceptor(new RetryInterceptor(retryPolicy));
+            }
+            if (httpMetricsListener != null) {
+                builder.eventListenerFactory(HttpMetricsEventListener.factory(httpMetricsListener));
+            }
+            if (httpLoggingInterceptor != null) {
+                // NOTE: the network interceptor sees requests with all headers added by the signing interceptor
+                builder.addNetworkInterceptor(httpLoggingInterceptor);
+            }
+            rootHttpClient = builder.build();
+        }
+        return rootHttpClient;
     }
 }
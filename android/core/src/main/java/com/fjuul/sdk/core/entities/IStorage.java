@@ -1,5 +1,7 @@
 package com.fjuul.sdk.core.entities;
 
+import java.util.Map;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -10,4 +12,51 @@ public interface IStorage {
     String get(@NonNull String key);
 
     boolean remove();
+
+    /**
+     * Returns all entries which keys start with the given prefix. The result is a snapshot and isn't affected by
+     * later modifications of the storage.
+     *
+     * @param keyPrefix prefix of keys, the empty string matches all entries
+     * @return map of matched keys and their values
+     */
+    @NonNull
+    Map<String, String> getAllByPrefix(@NonNull String keyPrefix);
+
+    /**
+     * @return current size and number of entries of the storage
+     */
+    @NonNull
+    StorageStats getStats();
+
+    /**
+     * Starts a batch of modifications which will be persisted with a single durable write on
+     * {@link Transaction#commit()}. Nothing is written to the storage until the transaction is committed.
+     *
+     * @return new transaction
+     */
+    @NonNull
+    Transaction beginTransaction();
+
+    /**
+     * A set of pending modifications of the storage. An instance is not thread-safe and must not be reused after
+     * {@link #commit()}.
+     */
+    interface Transaction {
+        /**
+         * Schedules the value to be stored by the key. Null value is equal to {@link #remove(String)}.
+         */
+        @NonNull
+        Transaction put(@NonNull String key, @Nullable String value);
+
+        @NonNull
+        Transaction remove(@NonNull String key);
+
+        /**
+         * Applies all scheduled modifications at once.
+         *
+         * @return boolean which indicates the success of the operation
+         */
+        boolean commit();
+    }
 }
@@ -1,6 +1,8 @@
 package com.fjuul.sdk.core.entities;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import androidx.annotation.NonNull;
@@ -39,4 +41,71 @@ public class InMemoryStorage implements IStorage {
         store = null;
         return true;
     }
+
+    @Override
+    @NonNull
+    public synchronized Map<String, String> getAllByPrefix(@NonNull String keyPrefix) {
+        final Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, String> entry : getStore().entrySet()) {
+            if (entry.getKey().startsWith(keyPrefix) && entry.getValue() != null) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @NonNull
+    public synchronized StorageStats getStats() {
+        long size = 0;
+        int count = 0;
+        for (Map.Entry<String, String> entry : getStore().entrySet()) {
+            if (entry.getValue() != null) {
+                size += entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+                size += entry.getValue().getBytes(StandardCharsets.UTF_8).length;
+                count++;
+            }
+        }
+        return new StorageStats(size, count);
+    }
+
+    @Override
+    @NonNull
+    public Transaction beginTransaction() {
+        return new InMemoryTransaction();
+    }
+
+    private class InMemoryTransaction implements Transaction {
+        private final Map<String, String> changes = new LinkedHashMap<>();
+
+        @Override
+        @NonNull
+        public Transaction put(@NonNull String key, @Nullable String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        @NonNull
+        public Transaction remove(@NonNull String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            synchronized (InMemoryStorage.this) {
+                final Map<String, String> store = getStore();
+                for (Map.Entry<String, String> change : changes.entrySet()) {
+                    if (change.getValue() == null) {
+                        store.remove(change.getKey());
+                    } else {
+                        store.put(change.getKey(), change.getValue());
+                    }
+                }
+            }
+            changes.clear();
+            return true;
+        }
+    }
 }
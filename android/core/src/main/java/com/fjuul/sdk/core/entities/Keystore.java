@@ -3,6 +3,7 @@ package com.fjuul.sdk.core.entities;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
@@ -10,11 +11,20 @@ import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
 
 import android.annotation.SuppressLint;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 public class Keystore {
+    // NOTE: bumped when persistent storages are cleared, so keystores over them don't serve the removed key
+    private static final AtomicLong storageGeneration = new AtomicLong();
+
     IStorage storage;
     String lookupKey;
     JsonAdapter<SigningKey> keyJsonAdapter;
+    // NOTE: the decoded key is kept in memory to not touch the storage and parse json on every signed request.
+    // Null means that the key must be loaded from the storage: other keystores over the same storage may have put a
+    // new key after the cached one expired.
+    private volatile CachedKey cachedKey;
+    private volatile OnKeyChangeListener onKeyChangeListener;
 
     public Keystore(@NonNull IStorage storage) {
         this.storage = storage;
@@ -25,30 +35,113 @@ public class Keystore {
             .nullSafe();
     }
 
+    /**
+     * Listener of changes of the stored signing key.
+     */
+    public interface OnKeyChangeListener {
+        void onKeyChanged(@Nullable SigningKey key);
+    }
+
     public void setKey(@NonNull SigningKey key) {
+        storeKey(key);
+        // NOTE: the listener is notified outside of the lock to not block readers of the key
+        final OnKeyChangeListener listener = onKeyChangeListener;
+        if (listener != null) {
+            listener.onKeyChanged(key);
+        }
+    }
+
+    public void setOnKeyChangeListener(@Nullable OnKeyChangeListener listener) {
+        this.onKeyChangeListener = listener;
+    }
+
+    /**
+     * Drops signing keys cached by all keystores, so they load keys from their storages on the next read. Call it
+     * when persistent storages are cleared.
+     */
+    public static void invalidateCachedKeys() {
+        storageGeneration.incrementAndGet();
+    }
+
+    @SuppressLint("NewApi")
+    @NonNull
+    public Optional<SigningKey> getValidKey() {
+        CachedKey cached = cachedKey;
+        if (cached == null || cached.generation != storageGeneration.get()) {
+            cached = loadKey();
+        }
+        if (!cached.validKey.isPresent()) {
+            return cached.validKey;
+        }
+        if (cached.expiresAtMillis < System.currentTimeMillis()) {
+            invalidateExpiredKey(cached);
+            return Optional.empty();
+        }
+        return cached.validKey;
+    }
+
+    private synchronized void storeKey(@Nullable SigningKey key) {
         // TODO: check if the key is valid
         if (key == null) {
             storage.set(lookupKey, null);
+            cachedKey = CachedKey.empty(storageGeneration.get());
             return;
         }
         storage.set(lookupKey, keyJsonAdapter.toJson(key));
+        cachedKey = new CachedKey(key, storageGeneration.get());
     }
 
-    @SuppressLint("NewApi")
     @NonNull
-    public Optional<SigningKey> getValidKey() {
+    private synchronized CachedKey loadKey() {
+        final long generation = storageGeneration.get();
+        if (cachedKey == null || cachedKey.generation != generation) {
+            final SigningKey key = readKey();
+            cachedKey = key == null ? CachedKey.empty(generation) : new CachedKey(key, generation);
+        }
+        return cachedKey;
+    }
+
+    private synchronized void invalidateExpiredKey(@NonNull CachedKey expiredKey) {
+        // NOTE: the key could be replaced by a new one in the meantime
+        if (cachedKey == expiredKey) {
+            cachedKey = null;
+        }
+    }
+
+    @Nullable
+    private SigningKey readKey() {
         String rawKeyPresentation = storage.get(lookupKey);
         if (rawKeyPresentation == null) {
-            return Optional.empty();
+            return null;
         }
         try {
-            SigningKey key = keyJsonAdapter.fromJson(rawKeyPresentation);
-            if (key != null && key.isExpired()) {
-                return Optional.empty();
-            }
-            return Optional.ofNullable(key);
+            return keyJsonAdapter.fromJson(rawKeyPresentation);
         } catch (IOException e) {
-            return Optional.empty();
+            return null;
+        }
+    }
+
+    private static final class CachedKey {
+        @NonNull
+        final Optional<SigningKey> validKey;
+        final long expiresAtMillis;
+        final long generation;
+
+        @SuppressLint("NewApi")
+        CachedKey(@NonNull SigningKey key, long generation) {
+            this(Optional.of(key), key.getExpiresAt().getTime(), generation);
+        }
+
+        private CachedKey(@NonNull Optional<SigningKey> validKey, long expiresAtMillis, long generation) {
+            this.validKey = validKey;
+            this.expiresAtMillis = expiresAtMillis;
+            this.generation = generation;
+        }
+
+        @SuppressLint("NewApi")
+        @NonNull
+        static CachedKey empty(long generation) {
+            return new CachedKey(Optional.empty(), Long.MIN_VALUE, generation);
         }
     }
 }
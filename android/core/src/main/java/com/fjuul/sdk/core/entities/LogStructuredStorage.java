@@ -0,0 +1,510 @@
+package com.fjuul.sdk.core.entities;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.fjuul.sdk.core.utils.Logger;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * An implementation of the storage backed by an append-only log file and an in-memory index of all live entries.
+ * <br>
+ * Every write appends one checksummed batch to the end of the log and syncs it to the disk, so the cost of a write
+ * doesn't depend on the size of the stored state. When the log grows much bigger than the live data, it's rewritten
+ * (compacted) into a new file which atomically replaces the old one. On opening, the log is replayed and a torn or
+ * corrupted tail (e.g. after a crash in the middle of a write) is truncated.
+ * <br>
+ * When opened for the first time, the storage imports the shared preferences file of {@link PersistentStorage} for
+ * the same user and deletes it.
+ * <p>
+ * Use {@link #getInstance(Context, String)} to get the instance shared by all api-clients of the process. Instances of
+ * {@link PersistentStorage} created before the migration forward all operations to the shared instance once the log
+ * exists, so their writes are not lost in the deleted shared preferences.
+ */
+public class LogStructuredStorage implements IStorage {
+    static final String LOG_FILE_EXTENSION = ".log";
+    static final String COMPACTION_FILE_EXTENSION = ".compaction";
+    @VisibleForTesting
+    static final long MIN_COMPACTION_LOG_SIZE = 64 * 1024;
+    private static final int BATCH_HEADER_SIZE = 8;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private static final Map<String, LogStructuredStorage> instances = new HashMap<>();
+    // NOTE: the log file of a user is looked up on the disk once per process, then instances keep the flag up to date.
+    // So storages of users who never moved to the log don't touch the disk on every access.
+    private static final Map<String, Boolean> logExistence = new HashMap<>();
+
+    @NonNull
+    private final String userToken;
+    @NonNull
+    private final File logFile;
+    @NonNull
+    private final File compactionFile;
+    @Nullable
+    private Map<String, String> index;
+    @Nullable
+    private FileOutputStream logOutput;
+    private long logSize;
+    private long liveDataSize;
+
+    /**
+     * Returns the process-wide instance of the storage for the user.
+     *
+     * @param context application context
+     * @param userToken token of the user
+     * @return storage
+     */
+    @NonNull
+    public static LogStructuredStorage getInstance(@NonNull Context context, @NonNull String userToken) {
+        final File logFile = getLogFile(context, userToken);
+        synchronized (instances) {
+            LogStructuredStorage instance = instances.get(logFile.getAbsolutePath());
+            if (instance == null) {
+                instance = new LogStructuredStorage(context, userToken);
+                instances.put(logFile.getAbsolutePath(), instance);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Checks if the user's state was already moved to the log storage. Only the first check of the user in the process
+     * reads the file system.
+     *
+     * @param context application context
+     * @param userToken token of the user
+     * @return true if the log file exists
+     */
+    public static boolean exists(@NonNull Context context, @NonNull String userToken) {
+        synchronized (logExistence) {
+            Boolean exists = logExistence.get(userToken);
+            if (exists == null) {
+                exists = getLogFile(context, userToken).exists();
+                logExistence.put(userToken, exists);
+            }
+            return exists;
+        }
+    }
+
+    private static void setLogExists(@NonNull String userToken, boolean exists) {
+        synchronized (logExistence) {
+            logExistence.put(userToken, exists);
+        }
+    }
+
+    /**
+     * Deletes the log of the user (if any). The opened instance of the storage stays usable but becomes empty, the log
+     * file will be re-created on the next write.
+     *
+     * @param context application context
+     * @param userToken token of the user
+     * @return boolean which indicates the success of the operation
+     */
+    public static boolean delete(@NonNull Context context, @NonNull String userToken) {
+        final File logFile = getLogFile(context, userToken);
+        synchronized (instances) {
+            final LogStructuredStorage instance = instances.get(logFile.getAbsolutePath());
+            if (instance != null) {
+                return instance.clear();
+            }
+        }
+        new File(logFile.getPath() + COMPACTION_FILE_EXTENSION).delete();
+        final boolean result = !logFile.exists() || logFile.delete();
+        setLogExists(userToken, !result);
+        return result;
+    }
+
+    @VisibleForTesting
+    LogStructuredStorage(@NonNull Context context, @NonNull String userToken) {
+        this.userToken = userToken;
+        this.logFile = getLogFile(context, userToken);
+        this.compactionFile = new File(logFile.getPath() + COMPACTION_FILE_EXTENSION);
+        try {
+            open(context, userToken);
+        } catch (IOException exc) {
+            throw new IllegalStateException("Failed to open the storage", exc);
+        }
+    }
+
+    @Override
+    public void set(@NonNull String key, @Nullable String value) {
+        applyChanges(Collections.singletonMap(key, value));
+    }
+
+    @Override
+    @Nullable
+    public synchronized String get(@NonNull String key) {
+        return getIndex().get(key);
+    }
+
+    /**
+     * Deletes all entries and the log file. As the instance is shared by all api-clients of the process, it stays
+     * usable afterwards: the log file will be re-created on the next write.
+     */
+    @Override
+    public boolean remove() {
+        return clear();
+    }
+
+    @Override
+    @NonNull
+    public synchronized Map<String, String> getAllByPrefix(@NonNull String keyPrefix) {
+        final Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, String> entry : getIndex().entrySet()) {
+            if (entry.getKey().startsWith(keyPrefix)) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @NonNull
+    public synchronized StorageStats getStats() {
+        return new StorageStats(logSize, getIndex().size());
+    }
+
+    @Override
+    @NonNull
+    public Transaction beginTransaction() {
+        return new LogTransaction();
+    }
+
+    private synchronized boolean clear() {
+        getIndex().clear();
+        closeLogOutput();
+        logSize = 0;
+        liveDataSize = 0;
+        compactionFile.delete();
+        final boolean result = !logFile.exists() || logFile.delete();
+        setLogExists(userToken, !result);
+        return result;
+    }
+
+    @VisibleForTesting
+    synchronized long getLogSize() {
+        return logSize;
+    }
+
+    @NonNull
+    private Map<String, String> getIndex() {
+        if (index == null) {
+            throw new IllegalStateException("The storage was removed");
+        }
+        return index;
+    }
+
+    private synchronized boolean applyChanges(@NonNull Map<String, String> changes) {
+        getIndex();
+        if (changes.isEmpty()) {
+            return true;
+        }
+        try {
+            final byte[] batch = encodeBatch(changes);
+            if (logOutput == null) {
+                reopenLogOutput();
+            }
+            logOutput.write(batch);
+            logOutput.flush();
+            logOutput.getFD().sync();
+            logSize += batch.length;
+        } catch (IOException exc) {
+            Logger.get().w(exc, "failed to write to the storage log");
+            // NOTE: a partially written batch must not stay in front of the next ones, otherwise the replay would stop
+            // at it and drop them. The log is truncated before the next write.
+            closeLogOutput();
+            return false;
+        }
+        applyToIndex(changes);
+        if (logSize > MIN_COMPACTION_LOG_SIZE && logSize > liveDataSize * 2) {
+            try {
+                compact();
+            } catch (IOException exc) {
+                // NOTE: the current log is still consistent, the compaction will be retried on the next write
+                Logger.get().w(exc, "failed to compact the storage log");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens the log for appending after truncating bytes which follow the last written batch (if any).
+     */
+    private void reopenLogOutput() throws IOException {
+        if (logFile.length() > logSize) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+                file.setLength(logSize);
+                file.getFD().sync();
+            }
+        }
+        logOutput = openLogOutput(logFile);
+        setLogExists(userToken, true);
+    }
+
+    @VisibleForTesting
+    @NonNull
+    FileOutputStream openLogOutput(@NonNull File file) throws IOException {
+        return new FileOutputStream(file, true);
+    }
+
+    private void open(@NonNull Context context, @NonNull String userToken) throws IOException {
+        // an unfinished compaction never replaces the log, so its leftover is just dropped
+        compactionFile.delete();
+        if (!logFile.exists()) {
+            migrateFromSharedPreferences(context, userToken);
+        }
+        index = new HashMap<>();
+        liveDataSize = 0;
+        logSize = replayLog();
+        logOutput = openLogOutput(logFile);
+        setLogExists(userToken, true);
+    }
+
+    @SuppressLint("NewApi")
+    private void migrateFromSharedPreferences(@NonNull Context context, @NonNull String userToken) throws IOException {
+        final String preferencesName = String.join(".", PersistentStorage.BASE_PREFERENCES_NAME, userToken);
+        final SharedPreferences preferences = context.getSharedPreferences(preferencesName, Context.MODE_PRIVATE);
+        final Map<String, String> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            if (entry.getValue() instanceof String) {
+                entries.put(entry.getKey(), (String) entry.getValue());
+            }
+        }
+        writeSnapshot(entries);
+        if (!entries.isEmpty()) {
+            Logger.get().d("migrated %d entries from the shared preferences to the storage log", entries.size());
+            preferences.edit().clear().commit();
+            context.deleteSharedPreferences(preferencesName);
+        }
+    }
+
+    /**
+     * Reads all valid batches of the log into the index and truncates the log after the last valid batch.
+     *
+     * @return size of the valid part of the log
+     */
+    private long replayLog() throws IOException {
+        final long fileLength = logFile.length();
+        long validLength = 0;
+        try (DataInputStream input =
+            new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+            while (fileLength - validLength >= BATCH_HEADER_SIZE) {
+                final int payloadLength = input.readInt();
+                final int checksum = input.readInt();
+                if (payloadLength <= 0 || payloadLength > fileLength - validLength - BATCH_HEADER_SIZE) {
+                    break;
+                }
+                final byte[] payload = new byte[payloadLength];
+                input.readFully(payload);
+                final CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                final Map<String, String> changes = decodePayload(payload);
+                if (changes == null) {
+                    // NOTE: e.g. a batch written by a newer version of the SDK, it's dropped like a corrupted one
+                    break;
+                }
+                applyToIndex(changes);
+                validLength += BATCH_HEADER_SIZE + payloadLength;
+            }
+        } catch (EOFException exc) {
+            // torn batch at the end of the log
+        }
+        if (validLength < fileLength) {
+            Logger.get().w("truncating the corrupted tail of the storage log (%d bytes)", fileLength - validLength);
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+                file.setLength(validLength);
+                file.getFD().sync();
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * @return changes of the batch where null values are removals, or null if the batch can't be decoded
+     */
+    @Nullable
+    private static Map<String, String> decodePayload(@NonNull byte[] payload) {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        final Map<String, String> changes = new LinkedHashMap<>();
+        try {
+            final int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                final byte operation = input.readByte();
+                final String key = readString(input);
+                if (operation == OP_PUT) {
+                    changes.put(key, readString(input));
+                } else if (operation == OP_REMOVE) {
+                    changes.put(key, null);
+                } else {
+                    Logger.get().w("unknown operation of the storage log: %d", operation);
+                    return null;
+                }
+            }
+        } catch (IOException exc) {
+            Logger.get().w(exc, "failed to decode a batch of the storage log");
+            return null;
+        }
+        return changes;
+    }
+
+    private void applyToIndex(@NonNull Map<String, String> changes) {
+        final Map<String, String> index = getIndex();
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            final String previousValue = change.getValue() == null ? index.remove(change.getKey())
+                : index.put(change.getKey(), change.getValue());
+            if (previousValue != null) {
+                liveDataSize -= estimateEntrySize(change.getKey(), previousValue);
+            }
+            if (change.getValue() != null) {
+                liveDataSize += estimateEntrySize(change.getKey(), change.getValue());
+            }
+        }
+    }
+
+    private void compact() throws IOException {
+        closeLogOutput();
+        try {
+            writeSnapshot(index);
+        } finally {
+            logSize = logFile.length();
+            logOutput = openLogOutput(logFile);
+        }
+    }
+
+    /**
+     * Writes entries as a single batch into the compaction file and then atomically replaces the log by it.
+     */
+    private void writeSnapshot(@NonNull Map<String, String> entries) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(compactionFile, false)) {
+            if (!entries.isEmpty()) {
+                output.write(encodeBatch(entries));
+            }
+            output.flush();
+            output.getFD().sync();
+        }
+        if (!compactionFile.renameTo(logFile)) {
+            compactionFile.delete();
+            throw new IOException("Failed to replace the storage log");
+        }
+    }
+
+    private void closeLogOutput() {
+        if (logOutput == null) {
+            return;
+        }
+        try {
+            logOutput.close();
+        } catch (IOException exc) {
+            Logger.get().w(exc, "failed to close the storage log");
+        }
+        logOutput = null;
+    }
+
+    @NonNull
+    private static byte[] encodeBatch(@NonNull Map<String, String> changes) throws IOException {
+        final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        final DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(changes.size());
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                payload.writeByte(OP_REMOVE);
+                writeString(payload, change.getKey());
+            } else {
+                payload.writeByte(OP_PUT);
+                writeString(payload, change.getKey());
+                writeString(payload, change.getValue());
+            }
+        }
+        payload.flush();
+        final byte[] payloadArray = payloadBytes.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(payloadArray);
+
+        final ByteArrayOutputStream batchBytes = new ByteArrayOutputStream(BATCH_HEADER_SIZE + payloadArray.length);
+        final DataOutputStream batch = new DataOutputStream(batchBytes);
+        batch.writeInt(payloadArray.length);
+        batch.writeInt((int) crc.getValue());
+        batch.write(payloadArray);
+        batch.flush();
+        return batchBytes.toByteArray();
+    }
+
+    private static void writeString(@NonNull DataOutputStream output, @NonNull String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @NonNull
+    private static String readString(@NonNull DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0 || length > input.available()) {
+            throw new IOException("Invalid string length in the storage log");
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long estimateEntrySize(@NonNull String key, @NonNull String value) {
+        // NOTE: approximation of the encoded entry size, it's used only to decide when to compact the log
+        return 9 + key.length() + value.length();
+    }
+
+    @SuppressLint("NewApi")
+    @NonNull
+    private static File getLogFile(@NonNull Context context, @NonNull String userToken) {
+        final String fileName = String.join(".", PersistentStorage.BASE_PREFERENCES_NAME, userToken);
+        return new File(context.getFilesDir(), fileName + LOG_FILE_EXTENSION);
+    }
+
+    private class LogTransaction implements Transaction {
+        private final Map<String, String> changes = new LinkedHashMap<>();
+
+        @Override
+        @NonNull
+        public Transaction put(@NonNull String key, @Nullable String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        @NonNull
+        public Transaction remove(@NonNull String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            final boolean result = applyChanges(changes);
+            changes.clear();
+            return result;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.fjuul.sdk.core.entities;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.SharedPreferences;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+/**
+ * An implementation of the storage backed by the shared preferences file of the user.
+ * <br>
+ * If the state of the user is moved to {@link LogStructuredStorage} while the instance is in use (e.g. by an api-client
+ * built before the migration), all further operations are forwarded to the log storage.
+ */
 public class PersistentStorage implements IStorage {
     static final String BASE_PREFERENCES_NAME = "com.fjuul.sdk.persistence";
 
@@ -15,6 +25,8 @@ public class PersistentStorage implements IStorage {
     private final Context context;
     @NonNull
     private final String userToken;
+    @Nullable
+    private volatile IStorage migratedStorage;
 
     public PersistentStorage(@NonNull Context context, @NonNull String userToken) {
         this.context = context;
@@ -30,8 +42,25 @@ public class PersistentStorage implements IStorage {
         return preferences;
     }
 
+    /**
+     * @return the log storage if the state of the user was moved to it, otherwise null
+     */
+    @Nullable
+    private IStorage getMigratedStorage() {
+        // NOTE: the check reads the disk only once per user, then the existence of the log is tracked in memory
+        if (migratedStorage == null && LogStructuredStorage.exists(context, userToken)) {
+            migratedStorage = LogStructuredStorage.getInstance(context, userToken);
+        }
+        return migratedStorage;
+    }
+
     @Override
     public void set(@NonNull String key, @Nullable String value) {
+        final IStorage migratedStorage = getMigratedStorage();
+        if (migratedStorage != null) {
+            migratedStorage.set(key, value);
+            return;
+        }
         if (value == null) {
             getPreferences().edit().remove(key).commit();
         } else {
@@ -42,19 +71,100 @@ public class PersistentStorage implements IStorage {
     @Override
     @Nullable
     public String get(@NonNull String key) {
+        final IStorage migratedStorage = getMigratedStorage();
+        if (migratedStorage != null) {
+            return migratedStorage.get(key);
+        }
         return getPreferences().getString(key, null);
     }
 
     @Override
     public synchronized boolean remove() {
+        final IStorage migratedStorage = getMigratedStorage();
+        if (migratedStorage != null) {
+            return migratedStorage.remove();
+        }
         final boolean editorResult = getPreferences().edit().clear().commit();
         boolean deleteFileResult = context.deleteSharedPreferences(getSharedPrefsName());
         preferences = null;
         return editorResult && deleteFileResult;
     }
 
+    @Override
+    @NonNull
+    public Map<String, String> getAllByPrefix(@NonNull String keyPrefix) {
+        final IStorage migratedStorage = getMigratedStorage();
+        if (migratedStorage != null) {
+            return migratedStorage.getAllByPrefix(keyPrefix);
+        }
+        final Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, ?> entry : getPreferences().getAll().entrySet()) {
+            if (entry.getKey().startsWith(keyPrefix) && entry.getValue() instanceof String) {
+                result.put(entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @NonNull
+    public StorageStats getStats() {
+        final IStorage migratedStorage = getMigratedStorage();
+        if (migratedStorage != null) {
+            return migratedStorage.getStats();
+        }
+        final int entriesCount = getPreferences().getAll().size();
+        // NOTE: shared preferences are kept as an xml file in the 'shared_prefs' directory of the app data
+        final File preferencesDirectory = new File(context.getDataDir(), "shared_prefs");
+        final File preferencesFile = new File(preferencesDirectory, getSharedPrefsName() + ".xml");
+        return new StorageStats(preferencesFile.length(), entriesCount);
+    }
+
+    @Override
+    @NonNull
+    public Transaction beginTransaction() {
+        final IStorage migratedStorage = getMigratedStorage();
+        if (migratedStorage != null) {
+            return migratedStorage.beginTransaction();
+        }
+        return new PreferencesTransaction(getPreferences().edit());
+    }
+
     @SuppressLint("NewApi")
     private String getSharedPrefsName() {
         return String.join(".", BASE_PREFERENCES_NAME, userToken);
     }
+
+    private static class PreferencesTransaction implements Transaction {
+        @NonNull
+        private final SharedPreferences.Editor editor;
+
+        PreferencesTransaction(@NonNull SharedPreferences.Editor editor) {
+            this.editor = editor;
+        }
+
+        @Override
+        @NonNull
+        public Transaction put(@NonNull String key, @Nullable String value) {
+            if (value == null) {
+                editor.remove(key);
+            } else {
+                editor.putString(key, value);
+            }
+            return this;
+        }
+
+        @Override
+        @NonNull
+        public Transaction remove(@NonNull String key) {
+            editor.remove(key);
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            // NOTE: the editor writes all pending changes to the disk by one commit
+            return editor.commit();
+        }
+    }
 }
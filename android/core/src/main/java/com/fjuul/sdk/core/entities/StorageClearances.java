@@ -0,0 +1,36 @@
+package com.fjuul.sdk.core.entities;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Counts clearances of the persistent storage of every user in the process. Components which keep stored data in
+ * memory remember the count when they load the data, and drop the data once the count changes.
+ */
+public final class StorageClearances {
+    private static final Map<String, Long> counts = new HashMap<>();
+
+    private StorageClearances() {}
+
+    /**
+     * @param userToken token of the user
+     * @return number of clearances of the user's storage in the process
+     */
+    public static long getCount(@NonNull String userToken) {
+        synchronized (counts) {
+            final Long count = counts.get(userToken);
+            return count == null ? 0 : count;
+        }
+    }
+
+    /**
+     * @param userToken token of the user whose storage was cleared
+     */
+    public static void onCleared(@NonNull String userToken) {
+        synchronized (counts) {
+            counts.put(userToken, getCount(userToken) + 1);
+        }
+    }
+}
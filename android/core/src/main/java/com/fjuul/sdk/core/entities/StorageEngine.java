@@ -0,0 +1,22 @@
+package com.fjuul.sdk.core.entities;
+
+/**
+ * Defines how Fjuul SDK persists the state of a user.
+ *
+ * @see com.fjuul.sdk.core.ApiClient.Builder#setStorageEngine(StorageEngine)
+ */
+public enum StorageEngine {
+    /**
+     * The state is kept in the shared preferences file.
+     *
+     * @see PersistentStorage
+     */
+    SHARED_PREFERENCES,
+    /**
+     * The state is kept in the append-only log file. The existing shared preferences file of the user is migrated on
+     * the first use.
+     *
+     * @see LogStructuredStorage
+     */
+    APPEND_ONLY_LOG
+}
@@ -0,0 +1,38 @@
+package com.fjuul.sdk.core.entities;
+
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Snapshot of the storage footprint which can be used for monitoring of the persisted SDK state.
+ */
+public final class StorageStats {
+    private final long sizeInBytes;
+    private final int entriesCount;
+
+    public StorageStats(long sizeInBytes, int entriesCount) {
+        this.sizeInBytes = sizeInBytes;
+        this.entriesCount = entriesCount;
+    }
+
+    /**
+     * @return size of the storage on the disk (or an estimated size of the stored data for the in-memory storage)
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * @return number of stored entries
+     */
+    public int getEntriesCount() {
+        return entriesCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "StorageStats{sizeInBytes=%d, entriesCount=%d}", sizeInBytes, entriesCount);
+    }
+}
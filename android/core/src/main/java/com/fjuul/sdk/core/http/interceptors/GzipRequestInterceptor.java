@@ -0,0 +1,77 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import java.io.IOException;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Compresses bodies of outgoing requests with gzip and marks them with the {@code Content-Encoding: gzip} header once
+ * they reach the size threshold. Bodies which don't get smaller after the compression are sent as is.<br>
+ * The interceptor must run before {@link SigningAuthInterceptor}, so the digest of a signed request covers the
+ * compressed bytes which are actually sent.
+ */
+public class GzipRequestInterceptor implements Interceptor {
+    public static final long DEFAULT_MIN_BODY_BYTES = 1024;
+
+    private final long minBodyBytes;
+
+    /**
+     * @param minBodyBytes min size of a body to compress
+     */
+    public GzipRequestInterceptor(long minBodyBytes) {
+        if (minBodyBytes < 0) {
+            throw new IllegalArgumentException("Min body bytes must not be negative");
+        }
+        this.minBodyBytes = minBodyBytes;
+    }
+
+    public long getMinBodyBytes() {
+        return minBodyBytes;
+    }
+
+    @SuppressLint({"UnknownNullness"})
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RequestBody body = request.body();
+        if (body == null || body.isOneShot() || body.isDuplex() || request.header("Content-Encoding") != null) {
+            return chain.proceed(request);
+        }
+        final long contentLength = body.contentLength();
+        if (contentLength != -1 && contentLength < minBodyBytes) {
+            return chain.proceed(request);
+        }
+        final Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        final ByteString original = buffer.readByteString();
+        final ByteString compressed = original.size() < minBodyBytes ? null : gzip(original);
+        final Request.Builder requestBuilder = request.newBuilder();
+        if (compressed == null || compressed.size() >= original.size()) {
+            // NOTE: send the buffered bytes to not write the original body once again
+            requestBuilder.method(request.method(), RequestBody.create(original, body.contentType()));
+        } else {
+            requestBuilder.header("Content-Encoding", "gzip")
+                .method(request.method(), RequestBody.create(compressed, body.contentType()));
+        }
+        return chain.proceed(requestBuilder.build());
+    }
+
+    @NonNull
+    private static ByteString gzip(@NonNull ByteString bytes) throws IOException {
+        final Buffer compressed = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(compressed))) {
+            sink.write(bytes);
+        }
+        return compressed.readByteString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fjuul.sdk.core.http.utils.RetryPolicy;
+import com.fjuul.sdk.core.http.utils.Retryable;
+import com.fjuul.sdk.core.utils.Logger;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * Retries requests failed with a transient error according to the {@link RetryPolicy}.<br>
+ * The interceptor must run before {@link SigningAuthInterceptor}, so every attempt is signed anew with the fresh
+ * {@code Date} header.
+ */
+public class RetryInterceptor implements Interceptor {
+    private static final Set<String> IDEMPOTENT_METHODS =
+        new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS", "PUT", "DELETE"));
+    private static final Set<Integer> RETRYABLE_STATUS_CODES =
+        new HashSet<>(Arrays.asList(408, 429, 500, 502, 503, 504));
+    // NOTE: the call can't notify about its cancellation, so the backoff is split into slices to check it
+    private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 50;
+
+    private final RetryPolicy policy;
+    private final Random random;
+    private final AtomicInteger remainingBudget;
+
+    public RetryInterceptor(@NonNull RetryPolicy policy) {
+        this(policy, new Random());
+    }
+
+    RetryInterceptor(@NonNull RetryPolicy policy, @NonNull Random random) {
+        this.policy = policy;
+        this.random = random;
+        this.remainingBudget = new AtomicInteger(policy.getRetryBudget());
+    }
+
+    @NonNull
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return number of retries left in the budget shared by all requests
+     */
+    public int getRemainingBudget() {
+        return remainingBudget.get();
+    }
+
+    @SuppressLint({"UnknownNullness"})
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        if (!isRetryable(request)) {
+            return chain.proceed(request);
+        }
+        for (int attempt = 1;; attempt++) {
+            Response response = null;
+            IOException failure = null;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException exception) {
+                failure = exception;
+            }
+            if (response != null && !RETRYABLE_STATUS_CODES.contains(response.code())) {
+                if (response.isSuccessful()) {
+                    remainingBudget.updateAndGet(budget -> Math.min(policy.getRetryBudget(), budget + 1));
+                }
+                return response;
+            }
+            final long delayMillis = attempt < policy.getMaxAttempts() && !chain.call().isCanceled()
+                ? computeDelayMillis(attempt, response)
+                : -1;
+            if (delayMillis < 0 || !tryTakeFromBudget()) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return response;
+            }
+            Logger.get()
+                .d("retrying %s %s in %d ms after %s",
+                    request.method(),
+                    request.url().encodedPath(),
+                    delayMillis,
+                    failure != null ? failure.toString() : "status " + response.code());
+            if (response != null) {
+                response.close();
+            }
+            waitForRetry(chain, delayMillis);
+        }
+    }
+
+    private boolean isRetryable(@NonNull Request request) {
+        if (request.body() != null && (request.body().isOneShot() || request.body().isDuplex())) {
+            return false;
+        }
+        if (IDEMPOTENT_METHODS.contains(request.method())) {
+            return true;
+        }
+        final Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Retryable.class);
+    }
+
+    private boolean tryTakeFromBudget() {
+        while (true) {
+            final int budget = remainingBudget.get();
+            if (budget <= 0) {
+                return false;
+            }
+            if (remainingBudget.compareAndSet(budget, budget - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return delay before the next attempt, or -1 if the server asks to wait longer than the max backoff
+     */
+    private long computeDelayMillis(int attempt, @Nullable Response response) {
+        final Long retryAfterMillis = response == null ? null : parseRetryAfterMillis(response);
+        if (retryAfterMillis != null) {
+            return retryAfterMillis > policy.getMaxBackoffMillis() ? -1 : retryAfterMillis;
+        }
+        long backoffMillis = policy.getInitialBackoffMillis();
+        for (int i = 1; i < attempt && backoffMillis < policy.getMaxBackoffMillis(); i++) {
+            backoffMillis = Math.min(policy.getMaxBackoffMillis(), backoffMillis * 2);
+        }
+        // NOTE: full jitter spreads retries of concurrent requests failed at the same moment
+        return (long) (random.nextDouble() * backoffMillis);
+    }
+
+    @Nullable
+    private static Long parseRetryAfterMillis(@NonNull Response response) {
+        final String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException exception) {
+            final Date date = response.headers().getDate("Retry-After");
+            return date == null ? null : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Waits before the next attempt, but gives up as soon as the call is canceled, so the canceled call doesn't hold
+     * the thread of the dispatcher for the rest of the backoff.
+     */
+    private static void waitForRetry(@NonNull Chain chain, long delayMillis) throws IOException {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        final long checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(CANCELLATION_CHECK_INTERVAL_MILLIS);
+        try {
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            while (remainingNanos > 0) {
+                if (chain.call().isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, checkIntervalNanos));
+                remainingNanos = deadlineNanos - System.nanoTime();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the retry");
+        }
+        if (chain.call().isCanceled()) {
+            throw new IOException("Canceled");
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+import okhttp3.logging.HttpLoggingInterceptor.Level;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+
+/**
+ * Logs http requests and responses like {@link HttpLoggingInterceptor} but never copies the whole body: only the first
+ * {@code maxBodyBytes} of a body are logged, and bodies are logged only for the sampled share of requests. Request
+ * and status lines with headers are logged for every request.<br>
+ * Credentials are never logged: the values of the Authorization and x-api-key headers are redacted, and responses
+ * which carry secrets (issued signing keys and created users) are logged without the body.
+ */
+public class SDKHttpLoggingInterceptor implements Interceptor {
+    public static final long DEFAULT_MAX_BODY_BYTES = 16 * 1024;
+    private static final String SIGNING_PATH_PREFIX = "/sdk/signing/";
+    private static final String USER_CREATION_PATH = "/sdk/users/v1";
+
+    @NonNull
+    private final Level level;
+    private final long maxBodyBytes;
+    private final float bodySampleRate;
+    @NonNull
+    private final HttpLoggingInterceptor.Logger logger;
+
+    /**
+     * @param level level of details to log
+     * @param maxBodyBytes max number of bytes of a body to log
+     * @param bodySampleRate share of requests in the range [0, 1] whose bodies are logged with the BODY level
+     * @param logger destination of log lines
+     */
+    public SDKHttpLoggingInterceptor(@NonNull Level level,
+        long maxBodyBytes,
+        float bodySampleRate,
+        @NonNull HttpLoggingInterceptor.Logger logger) {
+        if (maxBodyBytes < 0) {
+            throw new IllegalArgumentException("Max body bytes must not be negative");
+        }
+        if (bodySampleRate < 0 || bodySampleRate > 1) {
+            throw new IllegalArgumentException("Body sample rate must be in the range [0, 1]");
+        }
+        this.level = level;
+        this.maxBodyBytes = maxBodyBytes;
+        this.bodySampleRate = bodySampleRate;
+        this.logger = logger;
+    }
+
+    @NonNull
+    public Level getLevel() {
+        return level;
+    }
+
+    @SuppressLint("UnknownNullness")
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        if (level == Level.NONE) {
+            return chain.proceed(request);
+        }
+        final boolean logHeaders = level == Level.HEADERS || level == Level.BODY;
+        final boolean logBody = level == Level.BODY && isBodySampled();
+        final RequestBody requestBody = request.body();
+
+        String requestStartMessage = "--> " + request.method() + " " + request.url();
+        if (!logHeaders && requestBody != null) {
+            requestStartMessage += " (" + requestBody.contentLength() + "-byte body)";
+        }
+        logger.log(requestStartMessage);
+        if (logHeaders) {
+            logHeaders(request.headers());
+            if (logBody && requestBody != null) {
+                logRequestBody(request, requestBody);
+            }
+            logger.log("--> END " + request.method());
+        }
+
+        final long startNs = System.nanoTime();
+        final Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            logger.log("<-- HTTP FAILED: " + e);
+            throw e;
+        }
+        final long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+        final String message = response.message().isEmpty() ? "" : " " + response.message();
+        logger.log("<-- " + response.code() + message + " " + response.request().url() + " (" + tookMs + "ms)");
+        if (logHeaders) {
+            logHeaders(response.headers());
+            if (logBody && hasSecretResponseBody(request)) {
+                logger.log("(body with secrets omitted)");
+            } else if (logBody) {
+                logResponseBody(response);
+            }
+            logger.log("<-- END HTTP");
+        }
+        return response;
+    }
+
+    private boolean isBodySampled() {
+        return bodySampleRate >= 1 || (bodySampleRate > 0 && ThreadLocalRandom.current().nextFloat() < bodySampleRate);
+    }
+
+    private void logHeaders(@NonNull Headers headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            final String name = headers.name(i);
+            final boolean redacted = "Authorization".equalsIgnoreCase(name) || "x-api-key".equalsIgnoreCase(name);
+            final String value = redacted ? "██" : headers.value(i);
+            logger.log(name + ": " + value);
+        }
+    }
+
+    private void logRequestBody(@NonNull Request request, @NonNull RequestBody body) throws IOException {
+        if (isEncoded(request.headers())) {
+            logger.log("(encoded body omitted)");
+            return;
+        }
+        if (body.isDuplex() || body.isOneShot()) {
+            logger.log("(one-shot body omitted)");
+            return;
+        }
+        final CappedSink cappedSink = new CappedSink(maxBodyBytes);
+        try (BufferedSink sink = Okio.buffer(cappedSink)) {
+            body.writeTo(sink);
+        }
+        logBody(cappedSink.head, cappedSink.totalBytes, cappedSink.totalBytes > cappedSink.head.size());
+    }
+
+    private void logResponseBody(@NonNull Response response) throws IOException {
+        if (isEncoded(response.headers())) {
+            logger.log("(encoded body omitted)");
+            return;
+        }
+        // NOTE: peeking doesn't consume the body and reads no more than the cap (plus one byte) from the network
+        final byte[] peekedBytes = response.peekBody(maxBodyBytes + 1).bytes();
+        final boolean truncated = peekedBytes.length > maxBodyBytes;
+        final Buffer head = new Buffer().write(peekedBytes, 0, (int) Math.min(peekedBytes.length, maxBodyBytes));
+        logBody(head, truncated ? response.body().contentLength() : peekedBytes.length, truncated);
+    }
+
+    /**
+     * @param totalBytes size of the whole body or -1 if it's unknown
+     */
+    private void logBody(@NonNull Buffer head, long totalBytes, boolean truncated) {
+        final long loggedBytes = head.size();
+        if (loggedBytes > 0) {
+            logger.log(head.readUtf8());
+        }
+        if (!truncated) {
+            logger.log("(" + loggedBytes + "-byte body)");
+        } else if (totalBytes >= 0) {
+            logger.log("(" + totalBytes + "-byte body, truncated to " + loggedBytes + " bytes)");
+        } else {
+            logger.log("(body truncated to " + loggedBytes + " bytes)");
+        }
+    }
+
+    private static boolean hasSecretResponseBody(@NonNull Request request) {
+        final String path = request.url().encodedPath();
+        return path.startsWith(SIGNING_PATH_PREFIX)
+            || ("POST".equals(request.method()) && path.equals(USER_CREATION_PATH));
+    }
+
+    private static boolean isEncoded(@NonNull Headers headers) {
+        final String contentEncoding = headers.get("Content-Encoding");
+        return contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding);
+    }
+
+    /**
+     * Keeps the first bytes written to it and counts (but drops) the rest.
+     */
+    private static final class CappedSink implements Sink {
+        final Buffer head = new Buffer();
+        final long maxBytes;
+        long totalBytes = 0;
+
+        CappedSink(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(@NonNull Buffer source, long byteCount) throws IOException {
+            final long bytesToKeep = Math.min(byteCount, maxBytes - head.size());
+            if (bytesToKeep > 0) {
+                head.write(source, bytesToKeep);
+            }
+            source.skip(byteCount - Math.max(bytesToKeep, 0));
+            totalBytes += byteCount;
+        }
+
+        @Override
+        public void flush() {}
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
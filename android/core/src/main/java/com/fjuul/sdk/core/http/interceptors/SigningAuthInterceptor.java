@@ -1,8 +1,14 @@
 package com.fjuul.sdk.core.http.interceptors;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -14,17 +20,22 @@ import com.fjuul.sdk.core.utils.Logger;
 
 import android.annotation.SuppressLint;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import okhttp3.Authenticator;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import okhttp3.Route;
 
 public class SigningAuthInterceptor implements Interceptor, Authenticator {
+    static final long KEY_ISSUANCE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
     private final Keystore keystore;
     private final RequestSigner requestSigner;
     private final ISigningService signingService;
     private final Pattern signatureHeaderKeyIdPattern = Pattern.compile("keyId=\"(.+?)\"");
+    private final AtomicReference<CompletableFuture<KeyIssuance>> inFlightIssuance = new AtomicReference<>();
 
     public SigningAuthInterceptor(@NonNull Keystore keystore,
         @NonNull RequestSigner requestSigner,
@@ -37,32 +48,18 @@ public class SigningAuthInterceptor implements Interceptor, Authenticator {
     @SuppressLint({"NewApi", "UnknownNullness"})
     @Override
     public Response intercept(Chain chain) throws IOException {
-        Optional<SigningKey> keyOptional = this.keystore.getValidKey();
-        SigningKey signingKey;
-        if (!keyOptional.isPresent()) {
-            // need to request a new signing key
-            synchronized (this) {
-                // double check if we have now new signing key
-                keyOptional = this.keystore.getValidKey();
-                // if still no valid key => request new one
-                if (!keyOptional.isPresent()) {
-                    Logger.get().d("retrieving a new signing key");
-                    final retrofit2.Response<SigningKey> newKeyResponse = issueNewKey();
-                    if (newKeyResponse.isSuccessful()) {
-                        final SigningKey newKey = newKeyResponse.body();
-                        keystore.setKey(newKey);
-                        signingKey = newKey;
-                    } else {
-                        Logger.get().d("failed to retrieve the signing key");
-                        // return response of a request of the signing key to infer http error
-                        return extractOriginalRawResponse(newKeyResponse);
-                    }
-                } else {
-                    signingKey = keyOptional.get();
-                }
-            }
-        } else {
+        final Optional<SigningKey> keyOptional = this.keystore.getValidKey();
+        final SigningKey signingKey;
+        if (keyOptional.isPresent()) {
             signingKey = keyOptional.get();
+        } else {
+            // need to request a new signing key (or wait for the one issued for a concurrent request)
+            final KeyIssuance issuance = awaitKeyIssuance(null);
+            if (issuance.key == null) {
+                // return response of a request of the signing key to infer http error
+                return issuance.failedResponse;
+            }
+            signingKey = issuance.key;
         }
         final Request signedRequest = requestSigner.signRequestByKey(chain.request(), signingKey);
         return chain.proceed(signedRequest);
@@ -87,28 +84,138 @@ public class SigningAuthInterceptor implements Interceptor, Authenticator {
             return null;
         }
 
-        synchronized (this) {
-            // NOTE: double check if we have now new signing key
-            // (it could be possible since this code block is synchronized)
-            final Optional<SigningKey> keyOptional = this.keystore.getValidKey();
-            final Matcher matcher = signatureHeaderKeyIdPattern.matcher(request.header("Signature"));
-            matcher.find();
-            final String keyIdMatch = matcher.group(1);
-            if (keyOptional.isPresent() && !keyOptional.get().getId().equals(keyIdMatch)) {
-                final SigningKey key = keyOptional.get();
-                return requestSigner.signRequestByKey(response.request(), key);
+        final Matcher matcher = signatureHeaderKeyIdPattern.matcher(request.header("Signature"));
+        matcher.find();
+        final String keyIdMatch = matcher.group(1);
+        // NOTE: check if the key was already replaced for a concurrent request
+        final Optional<SigningKey> keyOptional = this.keystore.getValidKey();
+        if (keyOptional.isPresent() && !keyOptional.get().getId().equals(keyIdMatch)) {
+            return requestSigner.signRequestByKey(response.request(), keyOptional.get());
+        }
+        final KeyIssuance issuance = awaitKeyIssuance(keyIdMatch);
+        if (issuance.key == null) {
+            return null;
+        }
+        return requestSigner.signRequestByKey(response.request(), issuance.key);
+    }
+
+    /**
+     * Issues a new signing key in advance if the given key is still the current one.
+     *
+     * @param staleKey the key which should be replaced
+     * @return true if the key was replaced (maybe by a concurrent request), false if the issue request failed
+     * @throws IOException if the issue request couldn't be executed
+     */
+    @SuppressLint("NewApi")
+    public boolean refreshKey(@NonNull SigningKey staleKey) throws IOException {
+        final Optional<SigningKey> keyOptional = this.keystore.getValidKey();
+        if (keyOptional.isPresent() && !keyOptional.get().getId().equals(staleKey.getId())) {
+            return true;
+        }
+        return awaitKeyIssuance(staleKey.getId()).key != null;
+    }
+
+    /**
+     * Issues a new signing key unless there is a valid one already.
+     *
+     * @return true if a valid key exists, false if the issue request failed
+     * @throws IOException if the issue request couldn't be executed
+     */
+    @SuppressLint("NewApi")
+    public boolean ensureValidKey() throws IOException {
+        if (this.keystore.getValidKey().isPresent()) {
+            return true;
+        }
+        final KeyIssuance issuance = awaitKeyIssuance(null);
+        if (issuance.failedResponse != null) {
+            issuance.failedResponse.close();
+        }
+        return issuance.key != null;
+    }
+
+    /**
+     * Issues a new signing key or joins the issuance which is already in flight, so concurrent callers make only one
+     * issue request.
+     *
+     * @param staleKeyId id of the key which must not be accepted as a result, or null if any valid key fits
+     */
+    @SuppressLint("NewApi")
+    @NonNull
+    private KeyIssuance awaitKeyIssuance(@Nullable String staleKeyId) throws IOException {
+        while (true) {
+            final CompletableFuture<KeyIssuance> inFlightIssuance = this.inFlightIssuance.get();
+            if (inFlightIssuance != null) {
+                final KeyIssuance issuance = awaitInFlightIssuance(inFlightIssuance);
+                if (issuance.key != null && issuance.key.getId().equals(staleKeyId)) {
+                    // NOTE: the joined issuance ended up with the key which is known to be rejected
+                    continue;
+                }
+                return issuance;
+            }
+            final CompletableFuture<KeyIssuance> newIssuance = new CompletableFuture<>();
+            if (this.inFlightIssuance.compareAndSet(null, newIssuance)) {
+                return runKeyIssuance(newIssuance, staleKeyId);
             }
-            // if still no valid key => request new one
-            Logger.get().d("retrieving a new signing key");
-            final retrofit2.Response<SigningKey> newKeyResponse = issueNewKey();
-            if (newKeyResponse.isSuccessful()) {
-                final SigningKey newKey = newKeyResponse.body();
-                keystore.setKey(newKey);
-                return requestSigner.signRequestByKey(response.request(), newKey);
+        }
+    }
+
+    @SuppressLint("NewApi")
+    @NonNull
+    private KeyIssuance runKeyIssuance(@NonNull CompletableFuture<KeyIssuance> issuance, @Nullable String staleKeyId)
+        throws IOException {
+        try {
+            final KeyIssuance result;
+            // double check if we have now new signing key (the previous issuance could have just finished)
+            final Optional<SigningKey> keyOptional = this.keystore.getValidKey();
+            if (keyOptional.isPresent() && !keyOptional.get().getId().equals(staleKeyId)) {
+                result = KeyIssuance.ofKey(keyOptional.get());
             } else {
-                Logger.get().d("failed to retrieve the signing key");
-                return null;
+                Logger.get().d("retrieving a new signing key");
+                final retrofit2.Response<SigningKey> newKeyResponse = issueNewKey();
+                if (newKeyResponse.isSuccessful() && newKeyResponse.body() != null) {
+                    final SigningKey newKey = newKeyResponse.body();
+                    keystore.setKey(newKey);
+                    result = KeyIssuance.ofKey(newKey);
+                } else if (newKeyResponse.isSuccessful()) {
+                    // NOTE: the successful response without a key has no error body to return instead of the
+                    // original response
+                    Logger.get().d("failed to retrieve the signing key");
+                    throw new IOException("The issue-key response has no signing key");
+                } else {
+                    Logger.get().d("failed to retrieve the signing key");
+                    result = KeyIssuance.ofFailedResponse(extractOriginalRawResponse(newKeyResponse));
+                }
+            }
+            issuance.complete(result);
+            return result;
+        } catch (IOException | RuntimeException exception) {
+            issuance.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlightIssuance.compareAndSet(issuance, null);
+        }
+    }
+
+    @SuppressLint("NewApi")
+    @NonNull
+    private static KeyIssuance awaitInFlightIssuance(@NonNull CompletableFuture<KeyIssuance> issuance)
+        throws IOException {
+        try {
+            return issuance.get(KEY_ISSUANCE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).copyForJoinedCaller();
+        } catch (TimeoutException exception) {
+            throw new InterruptedIOException("Timed out waiting for the signing key");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the signing key");
+        } catch (ExecutionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw new IOException(cause);
         }
     }
 
@@ -143,4 +250,48 @@ public class SigningAuthInterceptor implements Interceptor, Authenticator {
         }
         return result;
     }
+
+    /**
+     * Outcome of an issue request shared between the concurrent callers.
+     */
+    private static final class KeyIssuance {
+        @Nullable
+        final SigningKey key;
+        @Nullable
+        final Response failedResponse;
+        @Nullable
+        final byte[] failedResponseBody;
+
+        private KeyIssuance(@Nullable SigningKey key,
+            @Nullable Response failedResponse,
+            @Nullable byte[] failedResponseBody) {
+            this.key = key;
+            this.failedResponse = failedResponse;
+            this.failedResponseBody = failedResponseBody;
+        }
+
+        @NonNull
+        static KeyIssuance ofKey(@NonNull SigningKey key) {
+            return new KeyIssuance(key, null, null);
+        }
+
+        @NonNull
+        static KeyIssuance ofFailedResponse(@NonNull Response failedResponse) throws IOException {
+            // NOTE: the body is peeked to not consume it for the caller which made the issue request
+            final byte[] body = failedResponse.body().source().peek().readByteArray();
+            return new KeyIssuance(null, failedResponse, body);
+        }
+
+        /**
+         * @return the outcome with an own copy of the error body which can be consumed independently
+         */
+        @NonNull
+        KeyIssuance copyForJoinedCaller() {
+            if (failedResponse == null) {
+                return this;
+            }
+            final ResponseBody body = ResponseBody.create(failedResponseBody, failedResponse.body().contentType());
+            return new KeyIssuance(null, failedResponse.newBuilder().body(body).build(), failedResponseBody);
+        }
+    }
 }
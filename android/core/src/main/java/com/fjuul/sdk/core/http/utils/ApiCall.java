@@ -1,11 +1,12 @@
 package com.fjuul.sdk.core.http.utils;
 
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import com.fjuul.sdk.core.exceptions.ApiExceptions;
 
-import android.os.Handler;
-import android.os.Looper;
 import androidx.annotation.NonNull;
 import okhttp3.Request;
 import okio.Timeout;
@@ -20,14 +21,27 @@ import retrofit2.Response;
 public class ApiCall<T> {
     private final Call<T> delegate;
     private final IApiResponseTransformer<T> responseTransformer;
+    private final Executor callbackExecutor;
 
     /**
      * @param delegate instance of retrofit's call to be wrapped.
      * @param responseTransformer transformer which decides how to build the result of api call by the response.
      */
     public ApiCall(@NonNull Call<T> delegate, @NonNull IApiResponseTransformer<T> responseTransformer) {
+        this(delegate, responseTransformer, CallbackExecutors.mainThread());
+    }
+
+    /**
+     * @param delegate instance of retrofit's call to be wrapped.
+     * @param responseTransformer transformer which decides how to build the result of api call by the response.
+     * @param callbackExecutor executor of callbacks passed to {@link #enqueue(ApiCallCallback)}.
+     */
+    public ApiCall(@NonNull Call<T> delegate,
+        @NonNull IApiResponseTransformer<T> responseTransformer,
+        @NonNull Executor callbackExecutor) {
         this.delegate = delegate;
         this.responseTransformer = responseTransformer;
+        this.callbackExecutor = callbackExecutor;
     }
 
 
@@ -51,33 +65,67 @@ public class ApiCall<T> {
     /**
      * Asynchronously send the request and notify {@code callback} of its response or if an error occurred talking to
      * the server, creating the request, or processing the response. <br>
-     * The callback will be executed in the main thread.
+     * The callback will be executed by the default callback executor of the api-client, which is the main thread
+     * unless another one was set up.
      *
      * @param callback callback for the api call result
+     * @see #enqueue(Executor, ApiCallCallback)
      */
     public void enqueue(@NonNull ApiCallCallback<T> callback) {
-        delegate.enqueue(new Callback<T>() {
-            // Since we use custom Call adapter, a retrofit executor does not run a callback in the
-            // main thread as it stated in the docs.
-            // see
-            // https://square.github.io/retrofit/2.x/retrofit/retrofit2/Retrofit.Builder.html#callbackExecutor-java.util.concurrent.Executor-
-            Handler mainHandler = new Handler(Looper.getMainLooper());
+        enqueue(callbackExecutor, callback);
+    }
 
+    /**
+     * Asynchronously send the request and notify {@code callback} of its response or if an error occurred talking to
+     * the server, creating the request, or processing the response. <br>
+     * The response is transformed to the api call result on the background thread, and only the callback is executed by
+     * the given executor.
+     *
+     * @param executor executor of the callback, e.g. {@link CallbackExecutors#direct()} to stay on the background
+     *        thread
+     * @param callback callback for the api call result
+     */
+    public void enqueue(@NonNull Executor executor, @NonNull ApiCallCallback<T> callback) {
+        // NOTE: since we use the custom call adapter, the retrofit's callback executor isn't involved here
+        delegate.enqueue(new Callback<T>() {
             @Override
             public void onResponse(Call<T> call, Response<T> response) {
-                mainHandler.post(() -> {
-                    callback.onResult(ApiCall.this, responseTransformer.transform(response));
-                });
+                final ApiCallResult<T> result = responseTransformer.transform(response);
+                executor.execute(() -> callback.onResult(ApiCall.this, result));
             }
 
             @Override
             public void onFailure(Call<T> call, Throwable t) {
-                mainHandler.post(() -> {
-                    callback.onResult(ApiCall.this, ApiCallResult.error(new ApiExceptions.InternalClientException(t)));
-                });
+                final ApiCallResult<T> result = ApiCallResult.error(new ApiExceptions.InternalClientException(t));
+                executor.execute(() -> callback.onResult(ApiCall.this, result));
+            }
+        });
+    }
+
+    /**
+     * Asynchronously send the request and return the future of its value. The future is completed on the background
+     * thread: with the value of the api call result, or exceptionally with its error. <br>
+     * Cancelling the returned future cancels the request.
+     *
+     * @return future of the api call value
+     * @see #enqueue(Executor, ApiCallCallback)
+     */
+    public @NonNull CompletableFuture<T> toCompletableFuture() {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((value, throwable) -> {
+            if (throwable instanceof CancellationException) {
+                cancel();
             }
         });
-    };
+        enqueue(CallbackExecutors.direct(), (call, result) -> {
+            if (result.isError()) {
+                future.completeExceptionally(result.getError());
+            } else {
+                future.complete(result.getValue());
+            }
+        });
+        return future;
+    }
 
     /**
      * Returns true if this call has been either {@linkplain #execute() executed} or
@@ -104,7 +152,7 @@ public class ApiCall<T> {
      * Create a new, identical call to this one which can be enqueued or executed even if this call has already been.
      */
     public @NonNull ApiCall<T> clone() {
-        return new ApiCall(delegate.clone(), responseTransformer);
+        return new ApiCall(delegate.clone(), responseTransformer, callbackExecutor);
     }
 
     protected @NonNull Request request() {
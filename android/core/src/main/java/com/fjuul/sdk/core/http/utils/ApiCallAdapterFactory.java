@@ -3,6 +3,7 @@ package com.fjuul.sdk.core.http.utils;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.concurrent.Executor;
 
 import android.annotation.SuppressLint;
 import androidx.annotation.NonNull;
@@ -13,18 +14,30 @@ import retrofit2.Retrofit;
 public class ApiCallAdapterFactory extends CallAdapter.Factory {
     @NonNull
     public static ApiCallAdapterFactory create(@NonNull IApiResponseTransformer responseTransformer) {
-        return new ApiCallAdapterFactory(responseTransformer);
+        return new ApiCallAdapterFactory(responseTransformer, CallbackExecutors.mainThread());
+    }
+
+    /**
+     * @param responseTransformer transformer of responses to api call results
+     * @param callbackExecutor default executor of callbacks of the created api calls
+     */
+    @NonNull
+    public static ApiCallAdapterFactory create(@NonNull IApiResponseTransformer responseTransformer,
+        @NonNull Executor callbackExecutor) {
+        return new ApiCallAdapterFactory(responseTransformer, callbackExecutor);
     }
 
     @NonNull
     public static ApiCallAdapterFactory create() {
-        return new ApiCallAdapterFactory(new DefaultApiResponseTransformer());
+        return new ApiCallAdapterFactory(new DefaultApiResponseTransformer(), CallbackExecutors.mainThread());
     }
 
     private IApiResponseTransformer responseTransformer;
+    private Executor callbackExecutor;
 
-    private ApiCallAdapterFactory(IApiResponseTransformer responseTransformer) {
+    private ApiCallAdapterFactory(IApiResponseTransformer responseTransformer, Executor callbackExecutor) {
         this.responseTransformer = responseTransformer;
+        this.callbackExecutor = callbackExecutor;
     }
 
     @SuppressLint("UnknownNullness")
@@ -39,16 +52,20 @@ public class ApiCallAdapterFactory extends CallAdapter.Factory {
         }
         Type innerType = getParameterUpperBound(0, (ParameterizedType) returnType);
 
-        return new ApiCallAdapter<>(innerType, responseTransformer);
+        return new ApiCallAdapter<>(innerType, responseTransformer, callbackExecutor);
     }
 
     private static final class ApiCallAdapter<R> implements CallAdapter<R, ApiCall<R>> {
         private final Type responseType;
         private final IApiResponseTransformer<R> responseTransformer;
+        private final Executor callbackExecutor;
 
-        ApiCallAdapter(Type responseType, IApiResponseTransformer<R> responseTransformer) {
+        ApiCallAdapter(Type responseType,
+            IApiResponseTransformer<R> responseTransformer,
+            Executor callbackExecutor) {
             this.responseType = responseType;
             this.responseTransformer = responseTransformer;
+            this.callbackExecutor = callbackExecutor;
         }
 
         @Override
@@ -58,7 +75,7 @@ public class ApiCallAdapterFactory extends CallAdapter.Factory {
 
         @Override
         public ApiCall<R> adapt(final Call<R> call) {
-            return new ApiCall<>(call, responseTransformer);
+            return new ApiCall<>(call, responseTransformer, callbackExecutor);
         }
     }
 }
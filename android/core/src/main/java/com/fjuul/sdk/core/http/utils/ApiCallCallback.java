@@ -6,13 +6,9 @@ import androidx.annotation.NonNull;
 /**
  * Communicates responses from a server or offline requests.
  * <p>
- * Callback method is executed using the
- * <a href="https://square.github.io/retrofit/2.x/retrofit/retrofit2/Retrofit.html">Retrofit</a> callback executor. When
- * none is specified, the following defaults are used:
- * <ul>
- * <li>Android: Callbacks are executed on the application's main (UI) thread.
- * <li>JVM: Callbacks are executed on the background thread which performed the request.
- * </ul>
+ * Callback method is executed by the executor passed to {@link ApiCall#enqueue(java.util.concurrent.Executor,
+ * ApiCallCallback)} or, otherwise, by the default callback executor of the api-client. When none is specified,
+ * callbacks are executed on the application's main (UI) thread.
  *
  * @param <T> Successful response body type.
  */
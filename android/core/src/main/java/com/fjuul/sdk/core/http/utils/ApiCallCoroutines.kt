@@ -0,0 +1,41 @@
+@file:JvmName("ApiCallCoroutines")
+
+package com.fjuul.sdk.core.http.utils
+
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlin.coroutines.resume
+
+/**
+ * Sends the request without blocking the current thread and suspends until its result is ready.
+ * Cancelling the calling coroutine cancels the request.
+ *
+ * @return api-call result
+ */
+suspend fun <T> ApiCall<T>.awaitResult(): ApiCallResult<T> =
+    suspendCancellableCoroutine { continuation ->
+        continuation.invokeOnCancellation { cancel() }
+        // NOTE: the continuation is resumed on the dispatcher of the coroutine, so there is no need to hop to another
+        // thread here
+        enqueue(CallbackExecutors.direct()) { _, result -> continuation.resume(result) }
+    }
+
+/**
+ * Sends the request without blocking the current thread and suspends until its value is ready.
+ * Cancelling the calling coroutine cancels the request.
+ *
+ * @return value of the api-call result
+ * @throws com.fjuul.sdk.core.exceptions.ApiExceptions.CommonException if the api call resulted in an error
+ */
+suspend fun <T> ApiCall<T>.await(): T? {
+    val result = awaitResult()
+    result.error?.let { throw it }
+    return result.value
+}
+
+/**
+ * Returns a cold flow which sends a fresh copy of the request on every collection and emits its value.
+ * The flow fails with the error of the api-call result, if any.
+ */
+fun <T> ApiCall<T>.asFlow(): Flow<T?> = flow { emit(clone().await()) }
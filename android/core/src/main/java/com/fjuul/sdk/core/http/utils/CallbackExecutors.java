@@ -0,0 +1,50 @@
+package com.fjuul.sdk.core.http.utils;
+
+import java.util.concurrent.Executor;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+
+/**
+ * Executors to deliver results of asynchronous api calls.
+ */
+public final class CallbackExecutors {
+    private static final Executor DIRECT = Runnable::run;
+    private static final Executor MAIN_THREAD = new MainThreadExecutor();
+
+    private CallbackExecutors() {}
+
+    /**
+     * @return executor which runs callbacks on the main (UI) thread of the application
+     */
+    @NonNull
+    public static Executor mainThread() {
+        return MAIN_THREAD;
+    }
+
+    /**
+     * Returns the executor which runs callbacks right on the background thread that completed the call. Callbacks run
+     * by it must be short and must not block, because they hold the thread of the http client.
+     *
+     * @return executor which runs callbacks on the calling thread
+     */
+    @NonNull
+    public static Executor direct() {
+        return DIRECT;
+    }
+
+    private static final class MainThreadExecutor implements Executor {
+        private volatile Handler handler;
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            Handler currentHandler = handler;
+            if (currentHandler == null || currentHandler.getLooper() != Looper.getMainLooper()) {
+                currentHandler = new Handler(Looper.getMainLooper());
+                handler = currentHandler;
+            }
+            currentHandler.post(command);
+        }
+    }
+}
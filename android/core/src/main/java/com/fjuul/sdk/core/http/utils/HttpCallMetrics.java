@@ -0,0 +1,203 @@
+package com.fjuul.sdk.core.http.utils;
+
+import java.io.IOException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Timings and traffic of one http call made by the SDK. A call spans all its attempts (e.g. retries and the repetition
+ * with a renewed signing key), so the phase durations and byte counts are summed over the attempts.<br>
+ * The duration of a phase which didn't happen (e.g. DNS lookup and connecting when a pooled connection was reused) is
+ * zero.
+ */
+public final class HttpCallMetrics {
+    /**
+     * Kind of the Fjuul API endpoint which was called.
+     */
+    public enum Endpoint {
+        /** Issuing of signing keys. */
+        SIGNING,
+        /** Uploads of fitness data and profile params from activity sources (Google Fit, Health Connect). */
+        UPLOAD,
+        /** Other endpoints of activity sources, e.g. connections. */
+        ACTIVITY_SOURCES,
+        ANALYTICS,
+        USER,
+        OTHER
+    }
+
+    @NonNull
+    private final Endpoint endpoint;
+    @NonNull
+    private final String method;
+    @Nullable
+    private final String requestName;
+    private final int statusCode;
+    @Nullable
+    private final IOException failure;
+    private final int attempts;
+    private final long totalMillis;
+    private final long dnsMillis;
+    private final long connectMillis;
+    private final long secureConnectMillis;
+    private final long requestWriteMillis;
+    private final long serverMillis;
+    private final long responseReadMillis;
+    private final long bytesSent;
+    private final long bytesReceived;
+
+    HttpCallMetrics(@NonNull Endpoint endpoint,
+        @NonNull String method,
+        @Nullable String requestName,
+        int statusCode,
+        @Nullable IOException failure,
+        int attempts,
+        long totalMillis,
+        long dnsMillis,
+        long connectMillis,
+        long secureConnectMillis,
+        long requestWriteMillis,
+        long serverMillis,
+        long responseReadMillis,
+        long bytesSent,
+        long bytesReceived) {
+        this.endpoint = endpoint;
+        this.method = method;
+        this.requestName = requestName;
+        this.statusCode = statusCode;
+        this.failure = failure;
+        this.attempts = attempts;
+        this.totalMillis = totalMillis;
+        this.dnsMillis = dnsMillis;
+        this.connectMillis = connectMillis;
+        this.secureConnectMillis = secureConnectMillis;
+        this.requestWriteMillis = requestWriteMillis;
+        this.serverMillis = serverMillis;
+        this.responseReadMillis = responseReadMillis;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+    }
+
+    @NonNull
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return http method of the request, e.g. {@code POST}
+     */
+    @NonNull
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return name of the api method which made the request, e.g. {@code ActivitySourcesApi.uploadGoogleFitData}, or
+     *         null if the request wasn't made through an api interface
+     */
+    @Nullable
+    public String getRequestName() {
+        return requestName;
+    }
+
+    /**
+     * @return status code of the last received response, or -1 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the error the call failed with (including the cancellation), or null if the call got a response
+     */
+    @Nullable
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return true if the call got a response with a 2xx status code
+     */
+    public boolean isSuccessful() {
+        return failure == null && statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * @return number of requests sent to the server within the call
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return duration of the whole call, including the waiting between attempts
+     */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getDnsMillis() {
+        return dnsMillis;
+    }
+
+    /**
+     * @return duration of establishing connections, including the TLS handshake
+     */
+    public long getConnectMillis() {
+        return connectMillis;
+    }
+
+    /**
+     * @return duration of the TLS handshake
+     */
+    public long getSecureConnectMillis() {
+        return secureConnectMillis;
+    }
+
+    /**
+     * @return duration of writing request headers and bodies
+     */
+    public long getRequestWriteMillis() {
+        return requestWriteMillis;
+    }
+
+    /**
+     * @return time between the end of writing a request and the start of reading its response
+     */
+    public long getServerMillis() {
+        return serverMillis;
+    }
+
+    /**
+     * @return duration of reading response headers and bodies
+     */
+    public long getResponseReadMillis() {
+        return responseReadMillis;
+    }
+
+    /**
+     * @return number of bytes of request headers and bodies
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return number of bytes of response headers and bodies
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "HttpCallMetrics{" + "endpoint=" + endpoint + ", method='" + method + '\'' + ", requestName='"
+            + requestName + '\'' + ", statusCode=" + statusCode + ", failure=" + failure + ", attempts=" + attempts
+            + ", totalMillis=" + totalMillis + ", dnsMillis=" + dnsMillis + ", connectMillis=" + connectMillis
+            + ", secureConnectMillis=" + secureConnectMillis + ", requestWriteMillis=" + requestWriteMillis
+            + ", serverMillis=" + serverMillis + ", responseReadMillis=" + responseReadMillis + ", bytesSent="
+            + bytesSent + ", bytesReceived=" + bytesReceived + '}';
+    }
+}
@@ -0,0 +1,264 @@
+package com.fjuul.sdk.core.http.utils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fjuul.sdk.core.utils.Logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+/**
+ * Measures phases of one http call and reports them to {@link IHttpMetricsListener} once the call completes. Use
+ * {@link #factory(IHttpMetricsListener)} to install it to an http client.
+ */
+public class HttpMetricsEventListener extends EventListener {
+    @NonNull
+    private final IHttpMetricsListener metricsListener;
+
+    private HttpCallMetrics.Endpoint endpoint = HttpCallMetrics.Endpoint.OTHER;
+    private String method = "";
+    private String requestName;
+    private int statusCode = -1;
+    private int attempts;
+    private long callStartNanos;
+    private long dnsStartNanos;
+    private long dnsNanos;
+    private long connectStartNanos;
+    private long connectNanos;
+    private long secureConnectStartNanos;
+    private long secureConnectNanos;
+    private long requestStartNanos = -1;
+    private long requestEndNanos;
+    private long requestWriteNanos;
+    private long serverNanos;
+    private long responseStartNanos = -1;
+    private long responseEndNanos;
+    private long responseReadNanos;
+    private long bytesSent;
+    private long bytesReceived;
+
+    HttpMetricsEventListener(@NonNull IHttpMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * @param metricsListener listener to report metrics of every call to
+     * @return factory of event listeners for {@link okhttp3.OkHttpClient.Builder#eventListenerFactory}
+     */
+    @NonNull
+    public static EventListener.Factory factory(@NonNull IHttpMetricsListener metricsListener) {
+        return call -> new HttpMetricsEventListener(metricsListener);
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStartNanos = System.nanoTime();
+        final Request request = call.request();
+        method = request.method();
+        endpoint = classifyEndpoint(request);
+        final Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            requestName =
+                invocation.method().getDeclaringClass().getSimpleName() + "." + invocation.method().getName();
+        }
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        dnsStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+        dnsNanos += System.nanoTime() - dnsStartNanos;
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        connectStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        secureConnectStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+        secureConnectNanos += System.nanoTime() - secureConnectStartNanos;
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call,
+        @NonNull InetSocketAddress inetSocketAddress,
+        @NonNull Proxy proxy,
+        @Nullable Protocol protocol) {
+        connectNanos += System.nanoTime() - connectStartNanos;
+    }
+
+    @Override
+    public void connectFailed(@NonNull Call call,
+        @NonNull InetSocketAddress inetSocketAddress,
+        @NonNull Proxy proxy,
+        @Nullable Protocol protocol,
+        @NonNull IOException ioe) {
+        connectNanos += System.nanoTime() - connectStartNanos;
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        // NOTE: a new attempt starts, so the response of the previous one (if any) is done
+        completeResponsePhase();
+        attempts++;
+        requestStartNanos = System.nanoTime();
+        requestEndNanos = requestStartNanos;
+    }
+
+    @Override
+    public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+        requestEndNanos = System.nanoTime();
+        bytesSent += request.headers().byteCount();
+    }
+
+    @Override
+    public void requestBodyEnd(@NonNull Call call, long byteCount) {
+        requestEndNanos = System.nanoTime();
+        bytesSent += byteCount;
+    }
+
+    @Override
+    public void requestFailed(@NonNull Call call, @NonNull IOException ioe) {
+        completeRequestPhase(System.nanoTime());
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        final long now = System.nanoTime();
+        completeRequestPhase(now);
+        responseStartNanos = now;
+        responseEndNanos = now;
+    }
+
+    @Override
+    public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+        responseEndNanos = System.nanoTime();
+        statusCode = response.code();
+        bytesReceived += response.headers().byteCount();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        responseEndNanos = System.nanoTime();
+        bytesReceived += byteCount;
+    }
+
+    @Override
+    public void responseFailed(@NonNull Call call, @NonNull IOException ioe) {
+        responseEndNanos = System.nanoTime();
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        report(null);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        report(ioe);
+    }
+
+    private void completeRequestPhase(long now) {
+        if (requestStartNanos < 0) {
+            return;
+        }
+        requestWriteNanos += requestEndNanos - requestStartNanos;
+        serverNanos += now - requestEndNanos;
+        requestStartNanos = -1;
+    }
+
+    private void completeResponsePhase() {
+        if (responseStartNanos < 0) {
+            return;
+        }
+        responseReadNanos += responseEndNanos - responseStartNanos;
+        responseStartNanos = -1;
+    }
+
+    private void report(@Nullable IOException failure) {
+        completeRequestPhase(System.nanoTime());
+        completeResponsePhase();
+        final HttpCallMetrics metrics = new HttpCallMetrics(endpoint,
+            method,
+            requestName,
+            statusCode,
+            failure,
+            attempts,
+            toMillis(System.nanoTime() - callStartNanos),
+            toMillis(dnsNanos),
+            toMillis(connectNanos),
+            toMillis(secureConnectNanos),
+            toMillis(requestWriteNanos),
+            toMillis(serverNanos),
+            toMillis(responseReadNanos),
+            bytesSent,
+            bytesReceived);
+        try {
+            metricsListener.onCallCompleted(metrics);
+        } catch (RuntimeException exception) {
+            // NOTE: a faulty listener must not break the http call
+            Logger.get().w(exception, "http metrics listener failed");
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @NonNull
+    static HttpCallMetrics.Endpoint classifyEndpoint(@NonNull Request request) {
+        final String path = request.url().encodedPath();
+        if (path.startsWith("/sdk/signing/")) {
+            return HttpCallMetrics.Endpoint.SIGNING;
+        }
+        if (path.startsWith("/sdk/activity-sources/")) {
+            return isDataPush(request) ? HttpCallMetrics.Endpoint.UPLOAD : HttpCallMetrics.Endpoint.ACTIVITY_SOURCES;
+        }
+        if (path.startsWith("/sdk/analytics/")) {
+            return HttpCallMetrics.Endpoint.ANALYTICS;
+        }
+        if (path.startsWith("/sdk/users/")) {
+            return HttpCallMetrics.Endpoint.USER;
+        }
+        return HttpCallMetrics.Endpoint.OTHER;
+    }
+
+    /**
+     * Uploads go to "/sdk/activity-sources/v1/{userToken}/{source}" and its sub-paths, e.g. "/healthconnect/dailies"
+     * or "/googlefit/profile". Other requests with the source in the path, like the connection to the source by
+     * "/connections/{source}", are not uploads.
+     */
+    private static boolean isDataPush(@NonNull Request request) {
+        if ("GET".equals(request.method()) || "DELETE".equals(request.method())) {
+            return false;
+        }
+        // NOTE: segments are "sdk", "activity-sources", version, user token, source, ...
+        final List<String> segments = request.url().pathSegments();
+        if (segments.size() < 5) {
+            return false;
+        }
+        final String source = segments.get(4);
+        return "googlefit".equals(source) || "healthconnect".equals(source);
+    }
+}
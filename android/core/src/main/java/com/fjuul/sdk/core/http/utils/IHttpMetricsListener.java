@@ -0,0 +1,14 @@
+package com.fjuul.sdk.core.http.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * An interface for receiving timings of http calls made by the SDK, e.g. to forward them to the monitoring of the
+ * application.<br>
+ * The listener is notified on the http thread once a call completes, so it must be thread-safe and return quickly.
+ *
+ * @see HttpCallMetrics
+ */
+public interface IHttpMetricsListener {
+    public void onCallCompleted(@NonNull HttpCallMetrics metrics);
+}
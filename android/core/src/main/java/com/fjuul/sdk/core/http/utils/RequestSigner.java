@@ -1,17 +1,13 @@
 package com.fjuul.sdk.core.http.utils;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
 import java.time.Instant;
-import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.Locale;
 
 import javax.crypto.Mac;
@@ -22,12 +18,21 @@ import com.fjuul.sdk.core.entities.SigningKey;
 import android.annotation.SuppressLint;
 import android.util.Base64;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okio.Buffer;
+import okio.BufferedSink;
+import okio.HashingSink;
+import okio.Okio;
 
 public class RequestSigner {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
     Clock clock;
+    // NOTE: Mac isn't thread-safe, so every thread keeps its own instance initialized with the last used key
+    private final ThreadLocal<KeyedMac> keyedMac = new ThreadLocal<>();
+    private volatile FormattedDate lastFormattedDate;
 
     public RequestSigner(@NonNull Clock clock) {
         this.clock = clock;
@@ -41,101 +46,156 @@ public class RequestSigner {
     @NonNull
     public Request signRequestByKey(@NonNull Request request, @NonNull SigningKey key) {
         Request.Builder signedRequestBuilder = request.newBuilder();
-        String checkingRequestHeaders =
-            this.isRequestWithDigestChecking(request) ? "(request-target) date digest" : "(request-target) date";
-        StringBuilder encodedRequestTargetBuilder = new StringBuilder(
-            String.format("%s %s", request.method().toLowerCase(Locale.ROOT), request.url().encodedPath()));
+        final boolean withDigestChecking = isRequestWithDigestChecking(request);
+        String checkingRequestHeaders = withDigestChecking ? "(request-target) date digest" : "(request-target) date";
+        final String formattedDate = formatCurrentDate();
+        signedRequestBuilder.header("Date", formattedDate);
+
+        final StringBuilder signingStringBuilder = new StringBuilder(256);
+        signingStringBuilder.append("(request-target): ")
+            .append(request.method().toLowerCase(Locale.ROOT))
+            .append(' ')
+            .append(request.url().encodedPath());
         String encodedQuery = request.url().encodedQuery();
         if (encodedQuery != null) {
-            encodedRequestTargetBuilder.append("?").append(encodedQuery);
+            signingStringBuilder.append('?').append(encodedQuery);
         }
         String encodedFragment = request.url().encodedFragment();
         if (encodedFragment != null) {
-            encodedRequestTargetBuilder.append("#").append(encodedFragment);
+            signingStringBuilder.append('#').append(encodedFragment);
         }
-
-        String requestTargetPart = String.format("(request-target): %s", encodedRequestTargetBuilder.toString());
-
-        @SuppressLint({"NewApi", "LocalSuppress"})
-        Instant instant = Instant.now(clock);
-        @SuppressLint({"NewApi", "LocalSuppress"})
-        OffsetDateTime offset = instant.atOffset(ZoneOffset.UTC);
-        @SuppressLint({"NewApi", "LocalSuppress"})
-        String formattedDate = offset.format(DateTimeFormatter.RFC_1123_DATE_TIME);
-        signedRequestBuilder.header("Date", formattedDate);
-
-        String datePart = String.format("date: %s", formattedDate);
-        StringBuilder signingStringBuilder = new StringBuilder(String.format("%s\n%s", requestTargetPart, datePart));
-        if (isRequestWithDigestChecking(request)) {
-            RequestBody body = request.body();
-            if (body == null || RequestSigner.requestBodyToString(body).isEmpty()) {
+        signingStringBuilder.append("\ndate: ").append(formattedDate);
+        if (withDigestChecking) {
+            final DigestedBody digestedBody = digestBody(request.body());
+            if (digestedBody == null) {
                 signingStringBuilder.append("\ndigest: ");
                 signedRequestBuilder.header("Digest", "");
             } else {
-                String bodyDigest = this.buildDigestOfBody(body);
-                String headerValue = String.format("SHA-256=%s", bodyDigest);
-                String digestPart = String.format("\ndigest: %s", headerValue);
-                signingStringBuilder.append(digestPart);
+                final String headerValue = "SHA-256=" + digestedBody.digest;
+                signingStringBuilder.append("\ndigest: ").append(headerValue);
                 signedRequestBuilder.header("Digest", headerValue);
+                // NOTE: send exactly the bytes which were digested instead of writing the original body once again
+                signedRequestBuilder.method(request.method(), digestedBody.body);
             }
         }
-        String signingString = signingStringBuilder.toString();
-        String signature = buildEncodedEncryptedSignature(signingString, key.getSecret());
-        String signatureHeader = String.format("keyId=\"%s\",algorithm=\"hmac-sha256\",headers=\"%s\",signature=\"%s\"",
-            key.getId(),
-            checkingRequestHeaders,
-            signature);
+        String signature = buildEncodedEncryptedSignature(signingStringBuilder.toString(), key);
+        String signatureHeader = "keyId=\"" + key.getId() + "\",algorithm=\"hmac-sha256\",headers=\""
+            + checkingRequestHeaders + "\",signature=\"" + signature + "\"";
         signedRequestBuilder.header("Signature", signatureHeader);
         return signedRequestBuilder.build();
     }
 
-    private String buildDigestOfBody(RequestBody body) {
-        MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException ex) {
-            throw new RuntimeException(ex);
+    /**
+     * Returns the current time in the RFC-1123 format. The value is formatted at most once per second because the
+     * header doesn't have a better resolution.
+     */
+    @SuppressLint("NewApi")
+    @NonNull
+    private String formatCurrentDate() {
+        final long epochSecond = Math.floorDiv(clock.millis(), 1000L);
+        final FormattedDate cachedDate = lastFormattedDate;
+        if (cachedDate != null && cachedDate.epochSecond == epochSecond) {
+            return cachedDate.value;
         }
-
-        byte[] stringBodyBytes = RequestSigner.requestBodyToString(body).getBytes(StandardCharsets.UTF_8);
-        byte[] hashedBodyBytes = digest.digest(stringBodyBytes);
-        String encodedDigest = Base64.encodeToString(hashedBodyBytes, Base64.NO_WRAP);
-        return encodedDigest;
+        final String value =
+            Instant.ofEpochSecond(epochSecond).atOffset(ZoneOffset.UTC).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        lastFormattedDate = new FormattedDate(epochSecond, value);
+        return value;
     }
 
-    private static String requestBodyToString(final RequestBody body) {
-        try {
-            final RequestBody copy = body;
-            final Buffer buffer = new Buffer();
-            if (copy != null) {
-                copy.writeTo(buffer);
-            } else {
-                return "";
-            }
-            return buffer.readUtf8();
+    /**
+     * Writes the body once into the memory while computing its SHA-256 digest on the fly.
+     *
+     * @return the digest with the buffered body, or null if the body is absent or empty
+     */
+    @Nullable
+    private static DigestedBody digestBody(@Nullable RequestBody body) {
+        if (body == null) {
+            return null;
+        }
+        final Buffer buffer = new Buffer();
+        final HashingSink hashingSink = HashingSink.sha256(buffer);
+        try (BufferedSink sink = Okio.buffer(hashingSink)) {
+            body.writeTo(sink);
         } catch (final IOException e) {
             throw new IllegalArgumentException(e);
         }
+        if (buffer.size() == 0) {
+            return null;
+        }
+        // NOTE: the snapshot shares segments of the buffer, so the body bytes aren't copied
+        final RequestBody bufferedBody = RequestBody.create(buffer.snapshot(), body.contentType());
+        return new DigestedBody(bufferedBody, hashingSink.hash().base64());
     }
 
-    private Boolean isRequestWithDigestChecking(Request request) {
-        return Arrays.asList("PUT", "POST").contains(request.method());
+    private boolean isRequestWithDigestChecking(Request request) {
+        return "PUT".equals(request.method()) || "POST".equals(request.method());
     }
 
-    private String buildEncodedEncryptedSignature(String string, String key) {
-        try {
-            Mac sha256HMAC = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes("UTF-8"), "HmacSHA256");
-            sha256HMAC.init(secretKeySpec);
-            final byte[] signatureBytes = sha256HMAC.doFinal(string.getBytes(StandardCharsets.UTF_8));
-            final String result = new String(Base64.encode(signatureBytes, Base64.NO_WRAP), "UTF-8");
-            return result;
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException(e);
-        } catch (InvalidKeyException e) {
-            throw new IllegalArgumentException(e);
-        } catch (UnsupportedEncodingException e) {
-            throw new IllegalArgumentException(e);
+    private String buildEncodedEncryptedSignature(String string, SigningKey key) {
+        final Mac mac = getMacForKey(key);
+        final byte[] signatureBytes = mac.doFinal(string.getBytes(StandardCharsets.UTF_8));
+        return Base64.encodeToString(signatureBytes, Base64.NO_WRAP);
+    }
+
+    @NonNull
+    private Mac getMacForKey(@NonNull SigningKey key) {
+        KeyedMac current = keyedMac.get();
+        if (current == null || !current.isInitializedWith(key)) {
+            try {
+                final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(new SecretKeySpec(key.getSecret().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+                current = new KeyedMac(key.getId(), key.getSecret(), mac);
+                keyedMac.set(current);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            } catch (InvalidKeyException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        // NOTE: doFinal resets the mac, so it's ready for the next signature
+        return current.mac;
+    }
+
+    private static final class KeyedMac {
+        @NonNull
+        final String keyId;
+        @NonNull
+        final String secret;
+        @NonNull
+        final Mac mac;
+
+        KeyedMac(@NonNull String keyId, @NonNull String secret, @NonNull Mac mac) {
+            this.keyId = keyId;
+            this.secret = secret;
+            this.mac = mac;
+        }
+
+        boolean isInitializedWith(@NonNull SigningKey key) {
+            return keyId.equals(key.getId()) && secret.equals(key.getSecret());
+        }
+    }
+
+    private static final class FormattedDate {
+        final long epochSecond;
+        @NonNull
+        final String value;
+
+        FormattedDate(long epochSecond, @NonNull String value) {
+            this.epochSecond = epochSecond;
+            this.value = value;
+        }
+    }
+
+    private static final class DigestedBody {
+        @NonNull
+        final RequestBody body;
+        @NonNull
+        final String digest;
+
+        DigestedBody(@NonNull RequestBody body, @NonNull String digest) {
+            this.body = body;
+            this.digest = digest;
         }
     }
 }
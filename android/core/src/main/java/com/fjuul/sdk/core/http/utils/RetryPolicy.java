@@ -0,0 +1,113 @@
+package com.fjuul.sdk.core.http.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Describes how requests failed with a transient error (a network failure or one of 408, 429, 500, 502, 503, 504
+ * statuses) are retried. Only idempotent requests and requests of api methods marked with {@link Retryable} are
+ * retried.
+ * <p>
+ * Delays between attempts grow exponentially from the initial backoff up to the max backoff, and the actual delay is
+ * picked randomly below the grown one (full jitter). A {@code Retry-After} header of the response overrides the delay;
+ * if the server asks to wait longer than the max backoff, the failed response is returned as is.
+ * <p>
+ * All requests of an api-client share the retry budget. Every retry takes one unit from it and every successful
+ * response gives one unit back. Background workers build their own api-client for every sync, so there the budget is
+ * spent per sync.
+ *
+ * @see RetryPolicy.Builder
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    public static final int DEFAULT_RETRY_BUDGET = 10;
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final int retryBudget;
+
+    private RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, int retryBudget) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * @return max number of attempts of one request, including the first one
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * @return max number of retries shared by all requests of the api-client
+     */
+    public int getRetryBudget() {
+        return retryBudget;
+    }
+
+    public static class Builder {
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+        private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+        private int retryBudget = DEFAULT_RETRY_BUDGET;
+
+        /**
+         * @param maxAttempts max number of attempts of one request, including the first one. By default, it's 3.
+         */
+        public @NonNull Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Max attempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the range of delays between attempts. By default, delays grow from 1 second up to 30 seconds.
+         *
+         * @param initialBackoff the delay before the first retry
+         * @param maxBackoff the max delay between attempts
+         * @param timeUnit unit of the delays
+         */
+        public @NonNull Builder setBackoff(long initialBackoff, long maxBackoff, @NonNull TimeUnit timeUnit) {
+            if (initialBackoff < 0) {
+                throw new IllegalArgumentException("Initial backoff must not be negative");
+            }
+            if (maxBackoff < initialBackoff) {
+                throw new IllegalArgumentException("Max backoff must not be less than the initial one");
+            }
+            this.initialBackoffMillis = timeUnit.toMillis(initialBackoff);
+            this.maxBackoffMillis = timeUnit.toMillis(maxBackoff);
+            return this;
+        }
+
+        /**
+         * @param retryBudget max number of retries shared by all requests of the api-client. By default, it's 10.
+         */
+        public @NonNull Builder setRetryBudget(int retryBudget) {
+            if (retryBudget < 0) {
+                throw new IllegalArgumentException("Retry budget must not be negative");
+            }
+            this.retryBudget = retryBudget;
+            return this;
+        }
+
+        public @NonNull RetryPolicy build() {
+            return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis, retryBudget);
+        }
+    }
+}
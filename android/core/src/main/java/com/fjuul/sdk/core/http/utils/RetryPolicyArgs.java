@@ -0,0 +1,64 @@
+package com.fjuul.sdk.core.http.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Converts the {@link RetryPolicy} to and from the key-value arguments of background works, so workers can build
+ * api-clients with the same retry policy as the application. The arguments are plain maps: put them to the input data
+ * with {@code Data.Builder#putAll(Map)} and read them from {@code Data#getKeyValueMap()}.
+ */
+public final class RetryPolicyArgs {
+    public static final String KEY_MAX_ATTEMPTS_ARG = "RETRY_MAX_ATTEMPTS";
+    public static final String KEY_INITIAL_BACKOFF_MILLIS_ARG = "RETRY_INITIAL_BACKOFF_MILLIS";
+    public static final String KEY_MAX_BACKOFF_MILLIS_ARG = "RETRY_MAX_BACKOFF_MILLIS";
+    public static final String KEY_RETRY_BUDGET_ARG = "RETRY_BUDGET";
+
+    public static final String[] KEYS =
+        {KEY_MAX_ATTEMPTS_ARG, KEY_INITIAL_BACKOFF_MILLIS_ARG, KEY_MAX_BACKOFF_MILLIS_ARG, KEY_RETRY_BUDGET_ARG};
+
+    private RetryPolicyArgs() {}
+
+    /**
+     * @param retryPolicy retry policy, or null if failed requests aren't retried
+     * @return arguments of the policy, or an empty map if there is no policy
+     */
+    @NonNull
+    public static Map<String, Object> toArgs(@Nullable RetryPolicy retryPolicy) {
+        final Map<String, Object> args = new HashMap<>();
+        if (retryPolicy != null) {
+            args.put(KEY_MAX_ATTEMPTS_ARG, retryPolicy.getMaxAttempts());
+            args.put(KEY_INITIAL_BACKOFF_MILLIS_ARG, retryPolicy.getInitialBackoffMillis());
+            args.put(KEY_MAX_BACKOFF_MILLIS_ARG, retryPolicy.getMaxBackoffMillis());
+            args.put(KEY_RETRY_BUDGET_ARG, retryPolicy.getRetryBudget());
+        }
+        return args;
+    }
+
+    /**
+     * @param args arguments of a background work
+     * @return retry policy of the arguments, or null if they have no policy
+     */
+    @Nullable
+    public static RetryPolicy fromArgs(@NonNull Map<String, Object> args) {
+        final long maxAttempts = getNumber(args, KEY_MAX_ATTEMPTS_ARG);
+        if (maxAttempts < 1) {
+            return null;
+        }
+        return new RetryPolicy.Builder().setMaxAttempts((int) maxAttempts)
+            .setBackoff(getNumber(args, KEY_INITIAL_BACKOFF_MILLIS_ARG),
+                getNumber(args, KEY_MAX_BACKOFF_MILLIS_ARG),
+                TimeUnit.MILLISECONDS)
+            .setRetryBudget((int) getNumber(args, KEY_RETRY_BUDGET_ARG))
+            .build();
+    }
+
+    private static long getNumber(@NonNull Map<String, Object> args, @NonNull String key) {
+        final Object value = args.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+}
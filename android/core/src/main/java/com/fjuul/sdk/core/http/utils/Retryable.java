@@ -0,0 +1,16 @@
+package com.fjuul.sdk.core.http.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a non-idempotent api method (e.g. POST of data which the server deduplicates) as safe to be retried according
+ * to the {@link RetryPolicy} of the api-client.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Retryable {}
@@ -0,0 +1,147 @@
+package com.fjuul.sdk.core.http.utils;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.http.interceptors.SigningAuthInterceptor;
+import com.fjuul.sdk.core.utils.Logger;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Renews the signing key in the background once the given fraction of its lifetime has passed, so signed requests
+ * don't have to wait for issuing a new key when the current one expires.<br>
+ * The lifetime is counted from the moment when the scheduler learns about the key (i.e. when the key is issued or
+ * when the scheduler is started with a previously stored key).
+ */
+public class SigningKeyRefreshScheduler {
+    static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static volatile ScheduledExecutorService sharedExecutor;
+
+    @NonNull
+    private final Keystore keystore;
+    @NonNull
+    private final SigningAuthInterceptor signingAuthInterceptor;
+    @NonNull
+    private final ScheduledExecutorService executor;
+    @NonNull
+    private final Clock clock;
+    private final float lifetimeFraction;
+    @Nullable
+    private ScheduledFuture<?> scheduledRefresh;
+    private boolean stopped = false;
+
+    public SigningKeyRefreshScheduler(@NonNull Keystore keystore,
+        @NonNull SigningAuthInterceptor signingAuthInterceptor,
+        float lifetimeFraction,
+        @NonNull ScheduledExecutorService executor,
+        @NonNull Clock clock) {
+        if (!(lifetimeFraction > 0 && lifetimeFraction < 1)) {
+            throw new IllegalArgumentException("The lifetime fraction must be in the range (0, 1)");
+        }
+        this.keystore = keystore;
+        this.signingAuthInterceptor = signingAuthInterceptor;
+        this.lifetimeFraction = lifetimeFraction;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @SuppressLint("NewApi")
+    public SigningKeyRefreshScheduler(@NonNull Keystore keystore,
+        @NonNull SigningAuthInterceptor signingAuthInterceptor,
+        float lifetimeFraction) {
+        this(keystore, signingAuthInterceptor, lifetimeFraction, getSharedExecutor(), Clock.systemUTC());
+    }
+
+    /**
+     * Starts tracking changes of the signing key and schedules the refresh of the current key if there is one.
+     */
+    @SuppressLint("NewApi")
+    public void start() {
+        synchronized (this) {
+            stopped = false;
+        }
+        keystore.setOnKeyChangeListener(this::scheduleRefresh);
+        keystore.getValidKey().ifPresent(this::scheduleRefresh);
+    }
+
+    /**
+     * Stops tracking changes of the signing key and cancels the scheduled refresh. A refresh which is already running
+     * is not interrupted, but it doesn't schedule a retry.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        keystore.setOnKeyChangeListener(null);
+        cancelScheduledRefresh();
+    }
+
+    synchronized void scheduleRefresh(@Nullable SigningKey key) {
+        cancelScheduledRefresh();
+        if (key == null || stopped) {
+            return;
+        }
+        final long remainingLifetime = key.getExpiresAt().getTime() - clock.millis();
+        if (remainingLifetime <= 0) {
+            return;
+        }
+        final long delay = (long) (remainingLifetime * lifetimeFraction);
+        scheduledRefresh = executor.schedule(() -> refresh(key), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh(@NonNull SigningKey staleKey) {
+        boolean refreshed;
+        try {
+            // NOTE: on success, the keystore notifies about the new key and the next refresh gets scheduled
+            refreshed = signingAuthInterceptor.refreshKey(staleKey);
+        } catch (IOException | RuntimeException exception) {
+            Logger.get().d("failed to refresh the signing key in background: %s", exception.getMessage());
+            refreshed = false;
+        }
+        if (!refreshed) {
+            scheduleRetry(staleKey);
+        }
+    }
+
+    @SuppressLint("NewApi")
+    private synchronized void scheduleRetry(@NonNull SigningKey staleKey) {
+        final boolean isCurrentKey =
+            keystore.getValidKey().map(key -> key.getId().equals(staleKey.getId())).orElse(false);
+        // NOTE: if the key expires before the retry, the next signed request will issue a new key on its own
+        if (stopped || !isCurrentKey || staleKey.getExpiresAt().getTime() - clock.millis() <= RETRY_DELAY_MILLIS) {
+            return;
+        }
+        scheduledRefresh = executor.schedule(() -> refresh(staleKey), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelScheduledRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    @NonNull
+    private static ScheduledExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            synchronized (SigningKeyRefreshScheduler.class) {
+                if (sharedExecutor == null) {
+                    sharedExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "fjuul-sdk-signing-key-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return sharedExecutor;
+    }
+}
@@ -0,0 +1,206 @@
+package com.fjuul.sdk.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.entities.UserCredentials;
+
+import android.content.Context;
+import android.os.Build;
+import androidx.test.core.app.ApplicationProvider;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class ApiClientTest {
+    Context context;
+    MockWebServer mockWebServer;
+
+    @Before
+    public void beforeTest() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+    }
+
+    @After
+    public void afterTest() throws Exception {
+        mockWebServer.shutdown();
+        ApiClient.clearPersistentStorage(context, "USER_TOKEN");
+    }
+
+    ApiClient.Builder createBuilder() {
+        return new ApiClient.Builder(context, mockWebServer.url("/").toString(), "API_KEY")
+            .setUserCredentials(new UserCredentials("USER_TOKEN", "USER_SECRET"));
+    }
+
+    @Test
+    public void buildClients_shareConnectionPoolAndDispatcher() {
+        final ApiClient client = createBuilder().build();
+        final OkHttpClient plainClient = client.buildClient();
+        final OkHttpClient authorizedClient = client.buildUserAuthorizedClient();
+        final OkHttpClient signingClient = client.buildSigningClient();
+
+        assertSame(plainClient.connectionPool(), authorizedClient.connectionPool());
+        assertSame(plainClient.connectionPool(), signingClient.connectionPool());
+        assertSame(plainClient.dispatcher(), authorizedClient.dispatcher());
+        assertSame(plainClient.dispatcher(), signingClient.dispatcher());
+    }
+
+    @Test
+    public void buildClients_reuseConnectionAcrossClients() throws Exception {
+        mockWebServer.enqueue(new MockResponse());
+        mockWebServer.enqueue(new MockResponse());
+        final ApiClient client = createBuilder().build();
+
+        try (Response response =
+            client.buildClient().newCall(new Request.Builder().url(mockWebServer.url("/first")).build()).execute()) {
+            response.body().string();
+        }
+        try (Response response = client.buildUserAuthorizedClient()
+            .newCall(new Request.Builder().url(mockWebServer.url("/second")).build())
+            .execute()) {
+            response.body().string();
+        }
+
+        assertEquals("opens the first connection", 0, mockWebServer.takeRequest().getSequenceNumber());
+        assertEquals("reuses the connection", 1, mockWebServer.takeRequest().getSequenceNumber());
+        assertEquals(1, client.buildClient().connectionPool().connectionCount());
+    }
+
+    @Test
+    public void setConnectionPool_withoutIdleConnections_closesConnectionsAfterUse() throws Exception {
+        mockWebServer.enqueue(new MockResponse());
+        final ApiClient client = createBuilder().setConnectionPool(0, 1, TimeUnit.SECONDS).build();
+
+        try (Response response =
+            client.buildClient().newCall(new Request.Builder().url(mockWebServer.url("/first")).build()).execute()) {
+            response.body().string();
+        }
+
+        assertEquals("keeps no idle connections", 0, client.buildClient().connectionPool().idleConnectionCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setConnectionPool_withNegativeSize_throwsException() {
+        createBuilder().setConnectionPool(-1, 5, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void buildSigningClient_withRefreshOfSameUser_stopsRefreshOfPreviousApiClient() {
+        final ApiClient firstClient = createBuilder().setSigningKeyRefreshFraction(0.8f).build();
+        firstClient.buildSigningClient();
+        assertTrue(firstClient.isRenewingSigningKey());
+
+        final ApiClient secondClient = createBuilder().setSigningKeyRefreshFraction(0.8f).build();
+        secondClient.buildSigningClient();
+
+        assertFalse("stops the refresh of the previous api-client", firstClient.isRenewingSigningKey());
+        assertTrue(secondClient.isRenewingSigningKey());
+    }
+
+    @Test
+    public void stopSigningKeyRefresh_stopsRefreshOfApiClient() {
+        final ApiClient client = createBuilder().setSigningKeyRefreshFraction(0.8f).build();
+        client.buildSigningClient();
+
+        client.stopSigningKeyRefresh();
+
+        assertFalse(client.isRenewingSigningKey());
+    }
+
+    @Test
+    public void clearPersistentStorage_stopsRefreshOfUser() {
+        final ApiClient client = createBuilder().setSigningKeyRefreshFraction(0.8f).build();
+        client.buildSigningClient();
+
+        ApiClient.clearPersistentStorage(context, "USER_TOKEN");
+
+        assertFalse(client.isRenewingSigningKey());
+    }
+
+    @Test
+    public void prewarm_withoutSigningKey_issuesKeyOverPooledConnection() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(
+            "{\"id\":\"signing-key-id\",\"secret\":\"TOP_SECRET\",\"expiresAt\":\"2100-01-01T00:00:00.000Z\"}"));
+        mockWebServer.enqueue(new MockResponse());
+        final ApiClient client = createBuilder().build();
+
+        client.prewarm().get(5, TimeUnit.SECONDS);
+        try (Response response = client.buildSigningClient()
+            .newCall(new Request.Builder().url(mockWebServer.url("/sdk/analytics/v1/daily-stats/USER_TOKEN")).build())
+            .execute()) {
+            response.body().string();
+        }
+
+        final RecordedRequest issueRequest = mockWebServer.takeRequest();
+        assertEquals("/sdk/signing/v1/issue-key/user", issueRequest.getPath());
+        assertEquals("signing-key-id", new Keystore(client.getStorage()).getValidKey().get().getId());
+        final RecordedRequest firstRequest = mockWebServer.takeRequest();
+        assertTrue("signs by the issued key", firstRequest.getHeader("Signature").contains("signing-key-id"));
+        assertEquals("reuses the warm connection", 1, firstRequest.getSequenceNumber());
+    }
+
+    @Test
+    public void prewarm_withValidSigningKey_opensConnection() throws Exception {
+        mockWebServer.enqueue(new MockResponse());
+        mockWebServer.enqueue(new MockResponse());
+        final ApiClient client = createBuilder().build();
+        final Date expiresAt = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
+        new Keystore(client.getStorage()).setKey(new SigningKey("signing-key-id", "TOP_SECRET", expiresAt));
+
+        final CompletableFuture<Void> prewarming = client.prewarm();
+        assertSame("returns the same operation", prewarming, client.prewarm());
+        prewarming.get(5, TimeUnit.SECONDS);
+        try (Response response = client.buildSigningClient()
+            .newCall(new Request.Builder().url(mockWebServer.url("/sdk/analytics/v1/daily-stats/USER_TOKEN")).build())
+            .execute()) {
+            response.body().string();
+        }
+
+        final RecordedRequest prewarmRequest = mockWebServer.takeRequest();
+        assertEquals("HEAD", prewarmRequest.getMethod());
+        assertEquals(0, prewarmRequest.getSequenceNumber());
+        assertEquals("reuses the warm connection", 1, mockWebServer.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void prewarm_failedKeyIssuance_completesExceptionallyAndCanBeRepeated() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        final ApiClient client = createBuilder().build();
+
+        final CompletableFuture<Void> prewarming = client.prewarm();
+        final ExecutionException exception =
+            assertThrows(ExecutionException.class, () -> prewarming.get(5, TimeUnit.SECONDS));
+
+        assertEquals("Failed to issue a signing key", exception.getCause().getMessage());
+        assertTrue(prewarming.isCompletedExceptionally());
+        assertNotSame("starts over after the failure", prewarming, client.prewarm());
+    }
+}
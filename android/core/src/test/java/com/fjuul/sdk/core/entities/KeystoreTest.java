@@ -5,6 +5,9 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.emptyOrNullString;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.util.Calendar;
@@ -82,6 +85,68 @@ public class KeystoreTest {
             assertEquals(key.getSecret(), savedKey.getSecret());
             assertEquals(0, key.getExpiresAt().compareTo(savedKey.getExpiresAt()));
         }
+
+        @Test
+        public void getValidKey_AfterFirstRead_doesNotTouchStorage() {
+            Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.MINUTE, 1);
+            storage.set("signing-key",
+                keyJsonAdapter.toJson(new SigningKey("key-id", "REAL_SECRET", calendar.getTime())));
+            final IStorage spiedStorage = spy(storage);
+            keystore = new Keystore(spiedStorage);
+            keystore.getValidKey();
+            keystore.getValidKey();
+            assertEquals("returns cached key", "key-id", keystore.getValidKey().get().getId());
+            verify(spiedStorage, times(1)).get("signing-key");
+        }
+
+        @Test
+        public void getValidKey_AfterSetKey_returnsNewKeyWithoutReadingStorage() {
+            Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.MINUTE, 1);
+            final IStorage spiedStorage = spy(storage);
+            keystore = new Keystore(spiedStorage);
+            assertFalse(keystore.getValidKey().isPresent());
+            keystore.setKey(new SigningKey("new-key-id", "REAL_SECRET", calendar.getTime()));
+            assertEquals("returns the new key", "new-key-id", keystore.getValidKey().get().getId());
+            verify(spiedStorage, times(1)).get("signing-key");
+        }
+
+        @Test
+        public void getValidKey_WhenCachedKeyExpires_returnsEmptyOptional() throws InterruptedException {
+            final Date expiresAt = new Date(System.currentTimeMillis() + 50);
+            keystore.setKey(new SigningKey("key-id", "REAL_SECRET", expiresAt));
+            assertTrue("returns the key before the expiration", keystore.getValidKey().isPresent());
+            Thread.sleep(100);
+            assertFalse("returns empty optional after the expiration", keystore.getValidKey().isPresent());
+        }
+
+        @Test
+        public void getValidKey_WhenCachedKeyExpiresAndAnotherKeystoreRefreshesIt_returnsRefreshedKey()
+            throws InterruptedException {
+            keystore.setKey(new SigningKey("key-id", "REAL_SECRET", new Date(System.currentTimeMillis() + 50)));
+            assertTrue("returns the key before the expiration", keystore.getValidKey().isPresent());
+            Thread.sleep(100);
+            assertFalse("returns empty optional after the expiration", keystore.getValidKey().isPresent());
+
+            final Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.MINUTE, 1);
+            new Keystore(storage).setKey(new SigningKey("new-key-id", "REAL_SECRET", calendar.getTime()));
+
+            assertEquals("returns the key of another keystore", "new-key-id", keystore.getValidKey().get().getId());
+        }
+
+        @Test
+        public void getValidKey_AfterInvalidationOfCachedKeys_readsStorage() {
+            final Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.MINUTE, 1);
+            keystore.setKey(new SigningKey("key-id", "REAL_SECRET", calendar.getTime()));
+            storage.remove();
+
+            Keystore.invalidateCachedKeys();
+
+            assertFalse("doesn't return the removed key", keystore.getValidKey().isPresent());
+        }
     }
 
     @RunWith(RobolectricTestRunner.class)
@@ -0,0 +1,219 @@
+package com.fjuul.sdk.core.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class LogStructuredStorageTest {
+    public static final String DUMMY_USER_TOKEN = "USER_TOKEN";
+
+    Context context;
+    File logFile;
+
+    @Before
+    public void beforeSetup() {
+        context = ApplicationProvider.getApplicationContext();
+        logFile = new File(context.getFilesDir(), "com.fjuul.sdk.persistence." + DUMMY_USER_TOKEN + ".log");
+    }
+
+    @After
+    public void afterTest() {
+        LogStructuredStorage.delete(context, DUMMY_USER_TOKEN);
+    }
+
+    @Test
+    public void set_persistsValueBetweenInstances() {
+        LogStructuredStorage storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        storage.set("key", "value");
+        storage.set("removed-key", "value");
+        storage.set("removed-key", null);
+
+        LogStructuredStorage reopenedStorage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        assertEquals("value", reopenedStorage.get("key"));
+        assertNull(reopenedStorage.get("removed-key"));
+    }
+
+    @Test
+    public void commit_persistsAllChangesOfTransaction() {
+        LogStructuredStorage storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        storage.set("stale", "value");
+        final boolean result = storage.beginTransaction().put("first", "1").put("second", "2").remove("stale").commit();
+        assertTrue("returns successful result", result);
+
+        LogStructuredStorage reopenedStorage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        assertEquals("1", reopenedStorage.get("first"));
+        assertEquals("2", reopenedStorage.get("second"));
+        assertNull(reopenedStorage.get("stale"));
+    }
+
+    @Test
+    public void open_withTornTail_dropsIncompleteBatchAndTruncatesLog() throws IOException {
+        LogStructuredStorage storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        storage.set("key", "value");
+        final long validLength = logFile.length();
+        try (FileOutputStream output = new FileOutputStream(logFile, true)) {
+            // header of a batch with 100 bytes of payload but only 3 bytes written
+            output.write(new byte[] {0, 0, 0, 100, 1, 2, 3, 4, 1, 2, 3});
+        }
+
+        LogStructuredStorage reopenedStorage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        assertEquals("value", reopenedStorage.get("key"));
+        assertEquals("truncates the log", validLength, logFile.length());
+        reopenedStorage.set("other-key", "other-value");
+        assertEquals("other-value", new LogStructuredStorage(context, DUMMY_USER_TOKEN).get("other-key"));
+    }
+
+    @Test
+    public void open_withUnknownOperation_dropsBatchAndTruncatesLog() throws IOException {
+        LogStructuredStorage storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        storage.set("key", "value");
+        final long validLength = logFile.length();
+        final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        final DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(1);
+        payload.writeByte(42);
+        payload.writeInt(3);
+        payload.write("new".getBytes(StandardCharsets.UTF_8));
+        final CRC32 crc = new CRC32();
+        crc.update(payloadBytes.toByteArray());
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(logFile, true))) {
+            output.writeInt(payloadBytes.size());
+            output.writeInt((int) crc.getValue());
+            output.write(payloadBytes.toByteArray());
+        }
+
+        LogStructuredStorage reopenedStorage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        assertEquals("value", reopenedStorage.get("key"));
+        assertNull(reopenedStorage.get("new"));
+        assertEquals("truncates the log", validLength, logFile.length());
+    }
+
+    @Test
+    public void commit_afterFailedWrite_keepsLaterBatchesAfterReopening() {
+        final AtomicBoolean failWrites = new AtomicBoolean();
+        LogStructuredStorage storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN) {
+            @NonNull
+            @Override
+            FileOutputStream openLogOutput(@NonNull File file) throws IOException {
+                return new FileOutputStream(file, true) {
+                    @Override
+                    public void write(@NonNull byte[] bytes) throws IOException {
+                        if (failWrites.get()) {
+                            // NOTE: a part of the batch reaches the file, e.g. when the disk gets full
+                            super.write(bytes, 0, bytes.length / 2);
+                            throw new IOException("No space left on device");
+                        }
+                        super.write(bytes);
+                    }
+                };
+            }
+        };
+        storage.set("first", "1");
+
+        failWrites.set(true);
+        assertFalse("fails the write", storage.beginTransaction().put("failed", "value").commit());
+        failWrites.set(false);
+        assertTrue(storage.beginTransaction().put("second", "2").commit());
+
+        LogStructuredStorage reopenedStorage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        assertEquals("1", reopenedStorage.get("first"));
+        assertNull(reopenedStorage.get("failed"));
+        assertEquals("keeps the batch committed after the failure", "2", reopenedStorage.get("second"));
+        assertEquals(storage.getLogSize(), logFile.length());
+    }
+
+    @Test
+    public void set_whenLogIsMostlyStale_compactsLog() {
+        LogStructuredStorage storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        final String value = new String(new char[1024]).replace('\0', 'x');
+        for (int i = 0; i < 200; i++) {
+            storage.set("key", value + i);
+        }
+        assertTrue("keeps the log small", storage.getLogSize() < LogStructuredStorage.MIN_COMPACTION_LOG_SIZE);
+        assertEquals(storage.getLogSize(), logFile.length());
+        assertEquals(value + 199, new LogStructuredStorage(context, DUMMY_USER_TOKEN).get("key"));
+    }
+
+    @Test
+    public void open_withSharedPreferencesFile_migratesEntries() {
+        final SharedPreferences preferences =
+            context.getSharedPreferences("com.fjuul.sdk.persistence." + DUMMY_USER_TOKEN, Context.MODE_PRIVATE);
+        preferences.edit().putString("signing-key", "{}").putString("activity-sources-state", "[]").commit();
+
+        LogStructuredStorage storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+        assertEquals("{}", storage.get("signing-key"));
+        assertEquals("[]", storage.get("activity-sources-state"));
+        assertTrue("creates the log file", LogStructuredStorage.exists(context, DUMMY_USER_TOKEN));
+        assertFalse("clears the shared preferences", preferences.contains("signing-key"));
+    }
+
+    @Test
+    public void delete_clearsOpenedInstance() {
+        LogStructuredStorage storage = LogStructuredStorage.getInstance(context, DUMMY_USER_TOKEN);
+        storage.set("key", "value");
+        assertTrue(LogStructuredStorage.delete(context, DUMMY_USER_TOKEN));
+        assertFalse(logFile.exists());
+        assertNull(storage.get("key"));
+    }
+
+    @Test
+    public void remove_keepsSharedInstanceUsable() {
+        final LogStructuredStorage storage = LogStructuredStorage.getInstance(context, DUMMY_USER_TOKEN);
+        storage.set("key", "value");
+
+        assertTrue("returns successful result", storage.remove());
+        assertFalse("deletes the log file", logFile.exists());
+        assertNull(LogStructuredStorage.getInstance(context, DUMMY_USER_TOKEN).get("key"));
+        storage.set("key", "new value");
+        assertEquals("new value", LogStructuredStorage.getInstance(context, DUMMY_USER_TOKEN).get("key"));
+    }
+
+    @Test
+    public void exists_tracksLogOfOpenedAndDeletedStorage() {
+        assertFalse(LogStructuredStorage.exists(context, DUMMY_USER_TOKEN));
+        LogStructuredStorage.getInstance(context, DUMMY_USER_TOKEN).set("key", "value");
+        assertTrue(LogStructuredStorage.exists(context, DUMMY_USER_TOKEN));
+        LogStructuredStorage.delete(context, DUMMY_USER_TOKEN);
+        assertFalse(LogStructuredStorage.exists(context, DUMMY_USER_TOKEN));
+        LogStructuredStorage.getInstance(context, DUMMY_USER_TOKEN).set("key", "value");
+        assertTrue("tracks the log re-created by the next write",
+            LogStructuredStorage.exists(context, DUMMY_USER_TOKEN));
+    }
+
+    @Test
+    public void migration_withPersistentStorageInUse_forwardsItsOperationsToLog() {
+        final PersistentStorage persistentStorage = new PersistentStorage(context, DUMMY_USER_TOKEN);
+        persistentStorage.set("key", "value");
+
+        final LogStructuredStorage storage = LogStructuredStorage.getInstance(context, DUMMY_USER_TOKEN);
+        persistentStorage.set("new-key", "new value");
+
+        assertEquals("value", persistentStorage.get("key"));
+        assertEquals("new value", storage.get("new-key"));
+    }
+}
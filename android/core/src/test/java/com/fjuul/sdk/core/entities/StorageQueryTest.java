@@ -0,0 +1,122 @@
+package com.fjuul.sdk.core.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.Context;
+import android.os.Build;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(Enclosed.class)
+public class StorageQueryTest {
+    public static final String DUMMY_USER_TOKEN = "USER_TOKEN";
+
+    static void fillStorage(IStorage storage) {
+        storage.set("gf-sync-metadata.steps.1-2", "a");
+        storage.set("gf-sync-metadata.session.id", "b");
+        storage.set("signing-key", "c");
+    }
+
+    static Map<String, String> expectedPrefixEntries() {
+        final Map<String, String> entries = new HashMap<>();
+        entries.put("gf-sync-metadata.steps.1-2", "a");
+        entries.put("gf-sync-metadata.session.id", "b");
+        return entries;
+    }
+
+    public static class WithInMemoryStorage {
+        InMemoryStorage storage;
+
+        @Before
+        public void beforeSetup() {
+            storage = new InMemoryStorage();
+            fillStorage(storage);
+        }
+
+        @Test
+        public void getAllByPrefix_returnsOnlyMatchedEntries() {
+            assertEquals(expectedPrefixEntries(), storage.getAllByPrefix("gf-sync-metadata."));
+        }
+
+        @Test
+        public void getAllByPrefix_returnsSnapshot() {
+            final Map<String, String> entries = storage.getAllByPrefix("gf-sync-metadata.");
+            storage.set("gf-sync-metadata.steps.1-2", null);
+            assertEquals(expectedPrefixEntries(), entries);
+        }
+
+        @Test
+        public void getStats_returnsEntriesCountAndSize() {
+            final StorageStats stats = storage.getStats();
+            assertEquals(3, stats.getEntriesCount());
+            // keys and values in utf-8
+            assertEquals(26 + 1 + 27 + 1 + 11 + 1, stats.getSizeInBytes());
+        }
+    }
+
+    @RunWith(RobolectricTestRunner.class)
+    @Config(sdk = {Build.VERSION_CODES.P})
+    public static class WithPersistentStorage {
+        PersistentStorage storage;
+
+        @Before
+        public void beforeSetup() {
+            Context context = ApplicationProvider.getApplicationContext();
+            storage = new PersistentStorage(context, DUMMY_USER_TOKEN);
+            fillStorage(storage);
+        }
+
+        @Test
+        public void getAllByPrefix_returnsOnlyMatchedEntries() {
+            assertEquals(expectedPrefixEntries(), storage.getAllByPrefix("gf-sync-metadata."));
+        }
+
+        @Test
+        public void getStats_returnsEntriesCount() {
+            assertEquals(3, storage.getStats().getEntriesCount());
+        }
+    }
+
+    @RunWith(RobolectricTestRunner.class)
+    @Config(sdk = {Build.VERSION_CODES.P})
+    public static class WithLogStructuredStorage {
+        Context context;
+        LogStructuredStorage storage;
+
+        @Before
+        public void beforeSetup() {
+            context = ApplicationProvider.getApplicationContext();
+            storage = new LogStructuredStorage(context, DUMMY_USER_TOKEN);
+            fillStorage(storage);
+        }
+
+        @After
+        public void afterTest() {
+            LogStructuredStorage.delete(context, DUMMY_USER_TOKEN);
+        }
+
+        @Test
+        public void getAllByPrefix_returnsOnlyMatchedEntries() {
+            assertEquals(expectedPrefixEntries(), storage.getAllByPrefix("gf-sync-metadata."));
+        }
+
+        @Test
+        public void getStats_returnsEntriesCountAndLogSize() {
+            final StorageStats stats = storage.getStats();
+            assertEquals(3, stats.getEntriesCount());
+            assertEquals(storage.getLogSize(), stats.getSizeInBytes());
+            assertTrue("counts the written log", stats.getSizeInBytes() > 0);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.fjuul.sdk.core.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(Enclosed.class)
+public class StorageTransactionTest {
+    public static final String DUMMY_USER_TOKEN = "USER_TOKEN";
+
+    public static class WithInMemoryStorage {
+        InMemoryStorage storage;
+
+        @Before
+        public void beforeSetup() {
+            storage = new InMemoryStorage();
+        }
+
+        @Test
+        public void commit_appliesAllChanges() {
+            storage.set("stale", "value");
+            final boolean result = storage.beginTransaction()
+                .put("first", "1")
+                .put("second", "2")
+                .remove("stale")
+                .commit();
+            assertTrue("returns successful result", result);
+            assertEquals("1", storage.get("first"));
+            assertEquals("2", storage.get("second"));
+            assertNull(storage.get("stale"));
+        }
+
+        @Test
+        public void put_withoutCommit_doesNotChangeStorage() {
+            storage.beginTransaction().put("first", "1");
+            assertNull(storage.get("first"));
+        }
+    }
+
+    @RunWith(RobolectricTestRunner.class)
+    @Config(sdk = {Build.VERSION_CODES.P})
+    public static class WithPersistentStorage {
+        PersistentStorage storage;
+        SharedPreferences preferences;
+
+        @Before
+        public void beforeSetup() {
+            Context context = ApplicationProvider.getApplicationContext();
+            preferences =
+                context.getSharedPreferences("com.fjuul.sdk.persistence." + DUMMY_USER_TOKEN, Context.MODE_PRIVATE);
+            storage = new PersistentStorage(context, DUMMY_USER_TOKEN);
+        }
+
+        @Test
+        public void commit_appliesAllChanges() {
+            preferences.edit().putString("stale", "value").commit();
+            final boolean result = storage.beginTransaction()
+                .put("first", "1")
+                .put("second", null)
+                .remove("stale")
+                .commit();
+            assertTrue("returns successful result", result);
+            assertEquals("1", preferences.getString("first", null));
+            assertFalse(preferences.contains("second"));
+            assertFalse(preferences.contains("stale"));
+        }
+
+        @Test
+        public void put_withoutCommit_doesNotChangeStorage() {
+            storage.beginTransaction().put("first", "1");
+            assertNull(preferences.getString("first", null));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.ApiClient;
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.entities.UserCredentials;
+
+import android.content.Context;
+import android.os.Build;
+import androidx.test.core.app.ApplicationProvider;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class GzipRequestInterceptorTest {
+    static final String USER_TOKEN = "USER_TOKEN";
+    static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+
+    Context context;
+    MockWebServer mockWebServer;
+
+    @Before
+    public void beforeTest() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        mockWebServer.shutdown();
+        ApiClient.clearPersistentStorage(context, USER_TOKEN);
+    }
+
+    OkHttpClient buildSigningClient(ApiClient.Builder builder) {
+        final ApiClient client = builder.setUserCredentials(new UserCredentials(USER_TOKEN, "USER_SECRET")).build();
+        final Date expiresAt = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
+        new Keystore(client.getStorage()).setKey(new SigningKey("signing-key-id", "TOP_SECRET", expiresAt));
+        return client.buildSigningClient();
+    }
+
+    ApiClient.Builder createBuilder() {
+        return new ApiClient.Builder(context, mockWebServer.url("/").toString(), "API_KEY");
+    }
+
+    RecordedRequest upload(OkHttpClient client, String payload) throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(202));
+        final Request request = new Request.Builder().url(mockWebServer.url("/sdk/activity-sources/v1/USER_TOKEN/gf"))
+            .post(RequestBody.create(payload, JSON))
+            .build();
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals(202, response.code());
+        }
+        return mockWebServer.takeRequest();
+    }
+
+    static String gunzip(Buffer body) throws IOException {
+        final Buffer decompressed = new Buffer();
+        try (GzipSource source = new GzipSource(body)) {
+            while (source.read(decompressed, 8192) != -1) {}
+        }
+        return decompressed.readUtf8();
+    }
+
+    /**
+     * Builds the json of intraday data of 3 days in the format of Google Fit uploads (minutely calories, steps and
+     * heart rate samples).
+     */
+    static String buildThreeDaysIntradayPayload() {
+        final Random random = new Random(42);
+        final Instant start = Instant.parse("2020-09-10T00:00:00Z");
+        final int minutes = 3 * 24 * 60;
+        final StringBuilder json = new StringBuilder("{\"caloriesData\":[{\"dataSource\":\"derived:com.google.calories."
+            + "expended:com.google.android.gms:merge_calories_expended\",\"entries\":[");
+        for (int i = 0; i < minutes; i++) {
+            json.append(i == 0 ? "" : ",")
+                .append(String.format(Locale.US,
+                    "{\"start\":\"%s\",\"value\":%.4f}",
+                    start.plus(i, ChronoUnit.MINUTES),
+                    1 + random.nextFloat() * 3));
+        }
+        json.append("]}],\"hrData\":[{\"dataSource\":\"raw:com.google.heart_rate.bpm:com.mc.miband2\",\"entries\":[");
+        for (int i = 0; i < minutes; i++) {
+            final int min = 55 + random.nextInt(40);
+            json.append(i == 0 ? "" : ",")
+                .append(String.format(Locale.US,
+                    "{\"avg\":%.5f,\"max\":%d.0,\"min\":%d.0,\"start\":\"%s\"}",
+                    min + random.nextFloat() * 5,
+                    min + 5,
+                    min,
+                    start.plus(i, ChronoUnit.MINUTES)));
+        }
+        json.append("]}],\"sessionsData\":[],\"stepsData\":[{\"dataSource\":\"derived:com.google.step_count.delta:"
+            + "com.google.android.gms:estimated_steps\",\"entries\":[");
+        for (int i = 0; i < minutes; i++) {
+            json.append(i == 0 ? "" : ",")
+                .append(String.format(Locale.US,
+                    "{\"start\":\"%s\",\"value\":%d}",
+                    start.plus(i, ChronoUnit.MINUTES),
+                    random.nextInt(120)));
+        }
+        return json.append("]}]}").toString();
+    }
+
+    @Test
+    public void intercept_signedUploadAboveThreshold_sendsCompressedBodyCoveredByDigest() throws Exception {
+        final OkHttpClient client =
+            buildSigningClient(createBuilder().setRequestCompression(GzipRequestInterceptor.DEFAULT_MIN_BODY_BYTES));
+        final String payload = buildThreeDaysIntradayPayload();
+
+        final RecordedRequest request = upload(client, payload);
+
+        final long sentBytes = request.getBodySize();
+        final long payloadBytes = payload.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertEquals("has the length of the compressed body",
+            String.valueOf(sentBytes),
+            request.getHeader("Content-Length"));
+        assertEquals("digest covers the sent bytes",
+            "SHA-256=" + request.getBody().snapshot().sha256().base64(),
+            request.getHeader("Digest"));
+        assertTrue("signs the digest",
+            request.getHeader("Signature").contains("headers=\"(request-target) date digest\""));
+        assertEquals(payload, gunzip(request.getBody()));
+        assertTrue("compresses the payload at least 4 times", sentBytes * 4 < payloadBytes);
+    }
+
+    @Test
+    public void intercept_bodyBelowThreshold_sendsBodyAsIs() throws Exception {
+        final OkHttpClient client = buildSigningClient(createBuilder().setRequestCompression(1024));
+        final String payload = "{\"caloriesData\":[],\"hrData\":[],\"sessionsData\":[],\"stepsData\":[]}";
+
+        final RecordedRequest request = upload(client, payload);
+
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals(payload, request.getBody().readUtf8());
+    }
+
+    @Test
+    public void intercept_incompressibleBody_sendsBodyAsIs() throws Exception {
+        final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new GzipRequestInterceptor(0)).build();
+        final byte[] randomBytes = new byte[4096];
+        new Random(42).nextBytes(randomBytes);
+        mockWebServer.enqueue(new MockResponse());
+        final Request request = new Request.Builder().url(mockWebServer.url("/"))
+            .post(RequestBody.create(randomBytes, MediaType.get("application/octet-stream")))
+            .build();
+
+        client.newCall(request).execute().close();
+
+        final RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        assertNull(recordedRequest.getHeader("Content-Encoding"));
+        assertEquals(randomBytes.length, recordedRequest.getBodySize());
+    }
+
+    @Test
+    public void buildSigningClient_withoutRequestCompression_sendsBodyAsIs() throws Exception {
+        final OkHttpClient client = buildSigningClient(createBuilder());
+        final String payload = buildThreeDaysIntradayPayload();
+
+        final RecordedRequest request = upload(client, payload);
+
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals(payload, request.getBody().readUtf8());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setRequestCompression_withNegativeThreshold_throwsException() {
+        createBuilder().setRequestCompression(-1);
+    }
+}
@@ -0,0 +1,249 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.ApiClient;
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.entities.UserCredentials;
+import com.fjuul.sdk.core.http.utils.RetryPolicy;
+import com.fjuul.sdk.core.http.utils.Retryable;
+
+import android.content.Context;
+import android.os.Build;
+import androidx.test.core.app.ApplicationProvider;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.http.Body;
+import retrofit2.http.POST;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class RetryInterceptorTest {
+    static final String USER_TOKEN = "USER_TOKEN";
+    static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+
+    interface TestApi {
+        @POST("/upload")
+        @Retryable
+        Call<ResponseBody> retryableUpload(@Body RequestBody body);
+
+        @POST("/upload")
+        Call<ResponseBody> upload(@Body RequestBody body);
+    }
+
+    Context context;
+    MockWebServer mockWebServer;
+
+    @Before
+    public void beforeTest() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        mockWebServer.shutdown();
+        ApiClient.clearPersistentStorage(context, USER_TOKEN);
+    }
+
+    static RetryPolicy.Builder createImmediatePolicyBuilder() {
+        return new RetryPolicy.Builder().setBackoff(0, 100, TimeUnit.MILLISECONDS);
+    }
+
+    OkHttpClient buildClient(RetryInterceptor interceptor) {
+        return new OkHttpClient.Builder().addInterceptor(interceptor).readTimeout(300, TimeUnit.MILLISECONDS).build();
+    }
+
+    Response get(OkHttpClient client) throws IOException {
+        return client.newCall(new Request.Builder().url(mockWebServer.url("/")).build()).execute();
+    }
+
+    @Test
+    public void intercept_signedRequestWithRetryAfter_retriesSignedAnewAfterDelay() throws Exception {
+        final ApiClient apiClient = new ApiClient.Builder(context, mockWebServer.url("/").toString(), "API_KEY")
+            .setUserCredentials(new UserCredentials(USER_TOKEN, "USER_SECRET"))
+            .setRetryPolicy(new RetryPolicy.Builder().build())
+            .build();
+        final Date expiresAt = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
+        new Keystore(apiClient.getStorage()).setKey(new SigningKey("signing-key-id", "TOP_SECRET", expiresAt));
+        final OkHttpClient client = apiClient.buildSigningClient();
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        mockWebServer.enqueue(new MockResponse().setBody("ok"));
+
+        final long start = System.nanoTime();
+        try (Response response = get(client)) {
+            assertEquals(200, response.code());
+        }
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        final RecordedRequest firstAttempt = mockWebServer.takeRequest();
+        final RecordedRequest secondAttempt = mockWebServer.takeRequest();
+        assertTrue("waits as the server asked", elapsedMillis >= 1000);
+        assertNotEquals("has the fresh date", firstAttempt.getHeader("Date"), secondAttempt.getHeader("Date"));
+        assertNotEquals("is signed anew", firstAttempt.getHeader("Signature"), secondAttempt.getHeader("Signature"));
+    }
+
+    @Test
+    public void intercept_callCanceledDuringBackoff_stopsWaiting() throws Exception {
+        final OkHttpClient client = buildClient(
+            new RetryInterceptor(new RetryPolicy.Builder().setBackoff(0, 30, TimeUnit.SECONDS).build()));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "30"));
+        final okhttp3.Call call = client.newCall(new Request.Builder().url(mockWebServer.url("/")).build());
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        executor.schedule(call::cancel, 500, TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        assertThrows(IOException.class, call::execute);
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+
+        assertTrue("stops waiting soon after the cancellation", elapsedMillis < 5000);
+        assertEquals("doesn't retry the canceled call", 1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void intercept_readTimeout_retriesRequest() throws Exception {
+        final OkHttpClient client = buildClient(new RetryInterceptor(createImmediatePolicyBuilder().build()));
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        mockWebServer.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = get(client)) {
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void intercept_persistentFailure_givesUpAfterMaxAttempts() throws Exception {
+        final OkHttpClient client =
+            buildClient(new RetryInterceptor(createImmediatePolicyBuilder().setMaxAttempts(3).build()));
+        for (int i = 0; i < 4; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        try (Response response = get(client)) {
+            assertEquals(500, response.code());
+        }
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void intercept_retryAfterLongerThanMaxBackoff_returnsResponse() throws Exception {
+        final OkHttpClient client = buildClient(new RetryInterceptor(createImmediatePolicyBuilder().build()));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "3600"));
+
+        try (Response response = get(client)) {
+            assertEquals(429, response.code());
+        }
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void intercept_clientError_returnsResponse() throws Exception {
+        final OkHttpClient client = buildClient(new RetryInterceptor(createImmediatePolicyBuilder().build()));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(400));
+
+        try (Response response = get(client)) {
+            assertEquals(400, response.code());
+        }
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void intercept_exhaustedBudget_returnsResponse() throws Exception {
+        final RetryInterceptor interceptor =
+            new RetryInterceptor(createImmediatePolicyBuilder().setMaxAttempts(5).setRetryBudget(1).build());
+        final OkHttpClient client = buildClient(interceptor);
+        for (int i = 0; i < 5; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(502));
+        }
+
+        try (Response response = get(client)) {
+            assertEquals(502, response.code());
+        }
+        assertEquals("retries only once", 2, mockWebServer.getRequestCount());
+        assertEquals(0, interceptor.getRemainingBudget());
+    }
+
+    @Test
+    public void intercept_successfulResponse_givesRetryBackToBudget() throws Exception {
+        final RetryInterceptor interceptor =
+            new RetryInterceptor(createImmediatePolicyBuilder().setRetryBudget(2).build());
+        final OkHttpClient client = buildClient(interceptor);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse());
+
+        get(client).close();
+        assertEquals(1, interceptor.getRemainingBudget());
+        mockWebServer.enqueue(new MockResponse());
+        get(client).close();
+
+        assertEquals(2, interceptor.getRemainingBudget());
+    }
+
+    @Test
+    public void intercept_postOfApiMethod_retriesOnlyMarkedOne() throws Exception {
+        final OkHttpClient client = buildClient(new RetryInterceptor(createImmediatePolicyBuilder().build()));
+        final TestApi testApi =
+            new Retrofit.Builder().baseUrl(mockWebServer.url("/")).client(client).build().create(TestApi.class);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse());
+
+        assertEquals(503, testApi.upload(RequestBody.create("{}", JSON)).execute().code());
+        assertEquals(1, mockWebServer.getRequestCount());
+        assertEquals(200, testApi.retryableUpload(RequestBody.create("{}", JSON)).execute().code());
+        assertEquals(3, mockWebServer.getRequestCount());
+        mockWebServer.takeRequest();
+        mockWebServer.takeRequest();
+        assertEquals("sends the same body", "{}", mockWebServer.takeRequest().getBody().readUtf8());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setBackoff_withMaxLessThanInitial_throwsException() {
+        new RetryPolicy.Builder().setBackoff(10, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void buildClient_withoutRetryPolicy_returnsFailedResponse() throws Exception {
+        final ApiClient apiClient =
+            new ApiClient.Builder(context, mockWebServer.url("/").toString(), "API_KEY").build();
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+        try (Response response = get(apiClient.buildClient())) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+}
@@ -0,0 +1,136 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.os.Build;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor.Level;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class SDKHttpLoggingInterceptorTest {
+    MockWebServer mockWebServer;
+    List<String> logLines;
+
+    @Before
+    public void beforeTest() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        logLines = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    Response execute(SDKHttpLoggingInterceptor interceptor, String requestBody) throws IOException {
+        final OkHttpClient client = new OkHttpClient.Builder().addNetworkInterceptor(interceptor).build();
+        final Request request = new Request.Builder().url(mockWebServer.url("/sdk/activity-sources/v1/upload"))
+            .header("Authorization", "Bearer USER_SECRET")
+            .header("x-api-key", "API_KEY")
+            .post(RequestBody.create(requestBody, MediaType.get("application/json")))
+            .build();
+        return client.newCall(request).execute();
+    }
+
+    static String repeat(char character, int count) {
+        return new String(new char[count]).replace('\0', character);
+    }
+
+    @Test
+    public void intercept_withBodyLevel_truncatesBodiesAtCap() throws IOException {
+        final String responseBody = repeat('r', 100);
+        mockWebServer.enqueue(new MockResponse().setBody(responseBody));
+        final SDKHttpLoggingInterceptor interceptor = new SDKHttpLoggingInterceptor(Level.BODY, 10, 1f, logLines::add);
+
+        try (Response response = execute(interceptor, repeat('q', 50))) {
+            assertEquals("keeps the response body for the caller", responseBody, response.body().string());
+        }
+
+        assertTrue(logLines.contains(repeat('q', 10)));
+        assertTrue(logLines.contains("(50-byte body, truncated to 10 bytes)"));
+        assertTrue(logLines.contains(repeat('r', 10)));
+        assertTrue(logLines.contains("(100-byte body, truncated to 10 bytes)"));
+        assertTrue("redacts the credentials", logLines.contains("Authorization: ██"));
+        assertTrue("redacts the api key", logLines.contains("x-api-key: ██"));
+    }
+
+    @Test
+    public void intercept_withBodyLevelForIssuedSigningKey_omitsResponseBody() throws IOException {
+        final String responseBody =
+            "{\"id\":\"signing-key-id\",\"secret\":\"TOP_SECRET\",\"expiresAt\":\"2100-01-01T00:00:00.000Z\"}";
+        mockWebServer.enqueue(new MockResponse().setBody(responseBody));
+        final SDKHttpLoggingInterceptor interceptor =
+            new SDKHttpLoggingInterceptor(Level.BODY, 1024, 1f, logLines::add);
+        final OkHttpClient client = new OkHttpClient.Builder().addNetworkInterceptor(interceptor).build();
+        final Request request =
+            new Request.Builder().url(mockWebServer.url("/sdk/signing/v1/issue-key/user")).get().build();
+
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals("keeps the response body for the caller", responseBody, response.body().string());
+        }
+
+        assertTrue(logLines.contains("(body with secrets omitted)"));
+        assertFalse("doesn't log the secret", logLines.stream().anyMatch(line -> line.contains("TOP_SECRET")));
+    }
+
+    @Test
+    public void intercept_withBodyLevelAndSmallBody_logsWholeBody() throws IOException {
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        final SDKHttpLoggingInterceptor interceptor =
+            new SDKHttpLoggingInterceptor(Level.BODY, 1024, 1f, logLines::add);
+
+        execute(interceptor, "{\"hello\":\"world\"}").close();
+
+        assertTrue(logLines.contains("{\"hello\":\"world\"}"));
+        assertTrue(logLines.contains("(17-byte body)"));
+        assertTrue(logLines.contains("{}"));
+    }
+
+    @Test
+    public void intercept_withZeroSampleRate_omitsBodies() throws IOException {
+        mockWebServer.enqueue(new MockResponse().setBody("response"));
+        final SDKHttpLoggingInterceptor interceptor =
+            new SDKHttpLoggingInterceptor(Level.BODY, 1024, 0f, logLines::add);
+
+        execute(interceptor, "request").close();
+
+        assertFalse(logLines.contains("request"));
+        assertFalse(logLines.contains("response"));
+        assertTrue("still logs the request line",
+            logLines.stream().anyMatch(line -> line.startsWith("--> POST")));
+        assertTrue(logLines.contains("<-- END HTTP"));
+    }
+
+    @Test
+    public void intercept_withNoneLevel_logsNothing() throws IOException {
+        mockWebServer.enqueue(new MockResponse().setBody("response"));
+        final SDKHttpLoggingInterceptor interceptor =
+            new SDKHttpLoggingInterceptor(Level.NONE, 1024, 1f, logLines::add);
+
+        execute(interceptor, "request").close();
+
+        assertTrue(logLines.isEmpty());
+    }
+}
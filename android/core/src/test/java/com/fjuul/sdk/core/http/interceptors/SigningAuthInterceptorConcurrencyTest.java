@@ -0,0 +1,149 @@
+package com.fjuul.sdk.core.http.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.entities.InMemoryStorage;
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.http.services.ISigningService;
+import com.fjuul.sdk.core.http.utils.RequestSigner;
+
+import android.os.Build;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class SigningAuthInterceptorConcurrencyTest {
+    private static final int THREADS_COUNT = 32;
+
+    ExecutorService executor;
+    Request outboundRequest;
+    Interceptor.Chain chain;
+
+    @Before
+    public void beforeTest() throws Exception {
+        executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        outboundRequest = new Request.Builder().url("https://apibase/sdk/v1/analytics").build();
+        chain = mock(Interceptor.Chain.class, withSettings().stubOnly());
+        when(chain.request()).thenReturn(outboundRequest);
+        when(chain.proceed(any())).thenAnswer(invocation -> {
+            final Request signedRequest = invocation.getArgument(0);
+            return new Response.Builder().request(signedRequest)
+                .protocol(Protocol.HTTP_1_1)
+                .code(HttpURLConnection.HTTP_OK)
+                .message("OK")
+                .build();
+        });
+    }
+
+    @After
+    public void afterTest() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    ISigningService createSlowSigningService(AtomicInteger issueCalls, retrofit2.Response<SigningKey> response)
+        throws Exception {
+        final Call<SigningKey> call = mock(Call.class, withSettings().stubOnly());
+        when(call.execute()).thenAnswer(invocation -> {
+            issueCalls.incrementAndGet();
+            // NOTE: keep the issuance in flight long enough for all threads to pile up
+            Thread.sleep(300);
+            return response;
+        });
+        return () -> call;
+    }
+
+    List<Response> interceptConcurrently(SigningAuthInterceptor interceptor) throws Exception {
+        final CountDownLatch startGate = new CountDownLatch(1);
+        final List<Future<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS_COUNT; i++) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                return interceptor.intercept(chain);
+            }));
+        }
+        startGate.countDown();
+        final List<Response> responses = new ArrayList<>();
+        for (Future<Response> future : futures) {
+            responses.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return responses;
+    }
+
+    @Test
+    public void intercept_concurrentRequestsWithEmptyKeystore_issueKeyOnlyOnce() throws Exception {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.HOUR, 1);
+        final SigningKey newKey = new SigningKey("valid-key-id", "TOP_SECRET", calendar.getTime());
+        final AtomicInteger issueCalls = new AtomicInteger();
+        final ISigningService signingService =
+            createSlowSigningService(issueCalls, retrofit2.Response.success(HttpURLConnection.HTTP_OK, newKey));
+        final Keystore keystore = new Keystore(new InMemoryStorage());
+        final SigningAuthInterceptor interceptor =
+            new SigningAuthInterceptor(keystore, new RequestSigner(), signingService);
+
+        final List<Response> responses = interceptConcurrently(interceptor);
+
+        assertEquals("issues the key exactly once", 1, issueCalls.get());
+        assertEquals("valid-key-id", keystore.getValidKey().get().getId());
+        for (Response response : responses) {
+            assertTrue("signs every request with the new key",
+                response.request().header("Signature").contains("keyId=\"valid-key-id\""));
+        }
+    }
+
+    @Test
+    public void intercept_concurrentRequestsWithFailedIssuance_returnErrorBodyToEveryCaller() throws Exception {
+        final Request issueRequest = new Request.Builder().url("https://apibase/sdk/signing/v1/issue-key/user").build();
+        final okhttp3.Response rawErrorResponse = new okhttp3.Response.Builder().request(issueRequest)
+            .protocol(Protocol.HTTP_1_1)
+            .code(HttpURLConnection.HTTP_UNAUTHORIZED)
+            .message("Unauthorized")
+            .build();
+        final String errorJson = "{ \"message\": \"error message\", \"errorCode\": \"wrong_credentials\" }";
+        final retrofit2.Response<SigningKey> errorResponse = retrofit2.Response
+            .error(ResponseBody.create(errorJson, MediaType.get("application/json")), rawErrorResponse);
+        final AtomicInteger issueCalls = new AtomicInteger();
+        final SigningAuthInterceptor interceptor = new SigningAuthInterceptor(new Keystore(new InMemoryStorage()),
+            new RequestSigner(),
+            createSlowSigningService(issueCalls, errorResponse));
+
+        final List<Response> responses = interceptConcurrently(interceptor);
+
+        assertEquals("issues the key exactly once", 1, issueCalls.get());
+        for (Response response : responses) {
+            assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, response.code());
+            assertEquals(errorJson, response.body().string());
+        }
+    }
+}
@@ -94,6 +94,30 @@ public class SigningAuthInterceptorTest extends LoggableTestSuite {
         assertEquals(Log.DEBUG, secondEntry.getPriority());
     }
 
+    @Test
+    public void intercept_EmptyKeystoreWithSuccessIssueResultWithoutBody_throwsIOException() throws Exception {
+        MockWebServer mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        Keystore testKeychain = new Keystore(new InMemoryStorage());
+        UserSigningService mockedSigningService = mock(UserSigningService.class, Mockito.RETURNS_DEEP_STUBS);
+        Response<SigningKey> mockedSigningKeyResponse = Response.success(HttpURLConnection.HTTP_OK, null);
+        when(mockedSigningService.issueKey().execute()).thenReturn(mockedSigningKeyResponse);
+        SigningAuthInterceptor interceptorWithAuthenticator =
+            new SigningAuthInterceptor(testKeychain, new RequestSigner(), mockedSigningService);
+        OkHttpClient okHttpClient = new OkHttpClient().newBuilder()
+            .addInterceptor(interceptorWithAuthenticator)
+            .authenticator(interceptorWithAuthenticator)
+            .build();
+
+        final IOException exception = assertThrows(IOException.class,
+            () -> okHttpClient.newCall(new Request.Builder().url(mockWebServer.url("/sdk/v1/analytics")).build())
+                .execute());
+        assertEquals("The issue-key response has no signing key", exception.getMessage());
+        assertEquals("doesn't send the unsigned request", 0, mockWebServer.getRequestCount());
+        mockWebServer.shutdown();
+    }
+
     @Test
     public void intercept_KeystoreWithExpiredKeyAndSuccessIssueResult_returnResponse() throws Exception {
         MockWebServer mockWebServer = new MockWebServer();
@@ -0,0 +1,101 @@
+package com.fjuul.sdk.core.http.utils
+
+import android.os.Build
+import com.fjuul.sdk.core.exceptions.ApiExceptions
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.async
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.ResponseBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import retrofit2.Retrofit
+import retrofit2.http.GET
+import java.util.concurrent.TimeUnit
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [Build.VERSION_CODES.P])
+class ApiCallCoroutinesTest {
+    interface TestApi {
+        @GET("/test")
+        fun get(): ApiCall<ResponseBody>
+    }
+
+    private lateinit var mockWebServer: MockWebServer
+    private lateinit var testApi: TestApi
+
+    @Before
+    fun beforeTest() {
+        mockWebServer = MockWebServer()
+        mockWebServer.start()
+        testApi = Retrofit.Builder().baseUrl(mockWebServer.url("/"))
+            .client(OkHttpClient())
+            .addCallAdapterFactory(
+                ApiCallAdapterFactory.create(DefaultApiResponseTransformer<Any>(), CallbackExecutors.direct())
+            )
+            .build()
+            .create(TestApi::class.java)
+    }
+
+    @After
+    fun afterTest() {
+        mockWebServer.shutdown()
+    }
+
+    @Test
+    fun await_successfulResponse_returnsValue() = runBlocking {
+        mockWebServer.enqueue(MockResponse().setBody("body"))
+
+        val value = testApi.get().await()
+
+        assertEquals("returns the value", "body", value?.string())
+    }
+
+    @Test
+    fun await_errorResponse_throwsError() = runBlocking {
+        mockWebServer.enqueue(MockResponse().setResponseCode(500))
+
+        try {
+            testApi.get().await()
+            fail("must throw the error of the result")
+        } catch (exception: ApiExceptions.CommonException) {
+            // expected
+        }
+    }
+
+    @Test
+    fun awaitResult_cancelCoroutine_cancelsCall() = runBlocking {
+        mockWebServer.enqueue(MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE))
+        val call = testApi.get()
+
+        val deferred = async(start = CoroutineStart.UNDISPATCHED) { call.awaitResult() }
+        assertNotNull("sends the request", mockWebServer.takeRequest(5, TimeUnit.SECONDS))
+        deferred.cancel()
+        deferred.join()
+
+        assertTrue("cancels the call", call.isCanceled)
+    }
+
+    @Test
+    fun asFlow_collectTwice_sendsRequestPerCollection() = runBlocking {
+        mockWebServer.enqueue(MockResponse().setBody("first"))
+        mockWebServer.enqueue(MockResponse().setBody("second"))
+        val flow = testApi.get().asFlow()
+
+        val values = flow.toList() + flow.toList()
+
+        assertEquals("emits the value of every request", listOf("first", "second"), values.map { it?.string() })
+    }
+}
@@ -0,0 +1,150 @@
+package com.fjuul.sdk.core.http.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.exceptions.ApiExceptions;
+
+import android.os.Build;
+import android.os.Looper;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class ApiCallTest {
+    interface TestApi {
+        @GET("/test")
+        ApiCall<ResponseBody> get();
+    }
+
+    MockWebServer mockWebServer;
+    AtomicInteger defaultExecutorRuns;
+    TestApi testApi;
+
+    @Before
+    public void beforeTest() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        defaultExecutorRuns = new AtomicInteger();
+        final Executor defaultExecutor = command -> {
+            defaultExecutorRuns.incrementAndGet();
+            command.run();
+        };
+        testApi = new Retrofit.Builder().baseUrl(mockWebServer.url("/"))
+            .client(new OkHttpClient())
+            .addCallAdapterFactory(ApiCallAdapterFactory.create(new DefaultApiResponseTransformer(), defaultExecutor))
+            .build()
+            .create(TestApi.class);
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void enqueue_withExecutor_runsCallbackByExecutorOffMainThread() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody("body"));
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Thread> callbackThread = new AtomicReference<>();
+        final AtomicReference<ApiCallResult<ResponseBody>> callbackResult = new AtomicReference<>();
+
+        testApi.get().enqueue(CallbackExecutors.direct(), (call, result) -> {
+            callbackThread.set(Thread.currentThread());
+            callbackResult.set(result);
+            latch.countDown();
+        });
+
+        assertTrue("runs the callback", latch.await(5, TimeUnit.SECONDS));
+        assertFalse("has successful result", callbackResult.get().isError());
+        assertNotSame("stays off the main thread", Looper.getMainLooper().getThread(), callbackThread.get());
+        assertEquals("doesn't use the default executor", 0, defaultExecutorRuns.get());
+    }
+
+    @Test
+    public void enqueue_withoutExecutor_runsCallbackByDefaultExecutor() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<ApiCallResult<ResponseBody>> callbackResult = new AtomicReference<>();
+
+        testApi.get().enqueue((call, result) -> {
+            callbackResult.set(result);
+            latch.countDown();
+        });
+
+        assertTrue("runs the callback", latch.await(5, TimeUnit.SECONDS));
+        assertTrue("has error result", callbackResult.get().isError());
+        assertEquals("uses the default executor", 1, defaultExecutorRuns.get());
+    }
+
+    @Test
+    public void clone_keepsDefaultExecutor() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody("body"));
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        testApi.get().clone().enqueue((call, result) -> latch.countDown());
+
+        assertTrue("runs the callback", latch.await(5, TimeUnit.SECONDS));
+        assertEquals("uses the default executor", 1, defaultExecutorRuns.get());
+    }
+
+    @Test
+    public void toCompletableFuture_successfulResponse_completesWithValue() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("body"));
+
+        final ResponseBody value = testApi.get().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals("completes with the value", "body", value.string());
+        assertEquals("doesn't use the default executor", 0, defaultExecutorRuns.get());
+    }
+
+    @Test
+    public void toCompletableFuture_errorResponse_completesExceptionally() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+        final CompletableFuture<ResponseBody> future = testApi.get().toCompletableFuture();
+        final ExecutionException exception =
+            assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+
+        assertTrue("completes with the error of the result",
+            exception.getCause() instanceof ApiExceptions.CommonException);
+    }
+
+    @Test
+    public void toCompletableFuture_cancelFuture_cancelsCall() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        final ApiCall<ResponseBody> call = testApi.get();
+
+        final CompletableFuture<ResponseBody> future = call.toCompletableFuture();
+        assertNotNull("sends the request", mockWebServer.takeRequest(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        assertTrue("cancels the call", call.isCanceled());
+    }
+}
@@ -0,0 +1,224 @@
+package com.fjuul.sdk.core.http.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.fjuul.sdk.core.ApiClient;
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.entities.UserCredentials;
+
+import android.content.Context;
+import android.os.Build;
+import androidx.test.core.app.ApplicationProvider;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.http.Body;
+import retrofit2.http.POST;
+import retrofit2.http.Path;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.P})
+public class HttpMetricsEventListenerTest {
+    static final String USER_TOKEN = "USER_TOKEN";
+    static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+
+    interface TestUploadApi {
+        @POST("/sdk/activity-sources/v1/{userToken}/googlefit")
+        Call<ResponseBody> upload(@Path("userToken") String userToken, @Body RequestBody body);
+    }
+
+    Context context;
+    MockWebServer mockWebServer;
+    BlockingQueue<HttpCallMetrics> reportedMetrics;
+
+    @Before
+    public void beforeTest() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        reportedMetrics = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        mockWebServer.shutdown();
+        ApiClient.setDefaultHttpMetricsListener(null);
+        ApiClient.clearPersistentStorage(context, USER_TOKEN);
+    }
+
+    ApiClient.Builder createBuilder() {
+        return new ApiClient.Builder(context, mockWebServer.url("/").toString(), "API_KEY")
+            .setUserCredentials(new UserCredentials(USER_TOKEN, "USER_SECRET"));
+    }
+
+    OkHttpClient buildSigningClient(ApiClient client) {
+        final Date expiresAt = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
+        new Keystore(client.getStorage()).setKey(new SigningKey("signing-key-id", "TOP_SECRET", expiresAt));
+        return client.buildSigningClient();
+    }
+
+    HttpCallMetrics takeMetrics() throws InterruptedException {
+        final HttpCallMetrics metrics = reportedMetrics.poll(5, TimeUnit.SECONDS);
+        assertNotNull("reports metrics of the call", metrics);
+        return metrics;
+    }
+
+    @Test
+    public void callEnd_signedUpload_reportsTimingsAndTraffic() throws Exception {
+        final OkHttpClient client =
+            buildSigningClient(createBuilder().setHttpMetricsListener(reportedMetrics::add).build());
+        final TestUploadApi api =
+            new Retrofit.Builder().baseUrl(mockWebServer.url("/")).client(client).build().create(TestUploadApi.class);
+        final String payload = "{\"caloriesData\":[],\"hrData\":[],\"sessionsData\":[],\"stepsData\":[]}";
+        mockWebServer.enqueue(new MockResponse().setResponseCode(202)
+            .setHeadersDelay(200, TimeUnit.MILLISECONDS)
+            .setBody("accepted"));
+
+        assertEquals(202, api.upload(USER_TOKEN, RequestBody.create(payload, JSON)).execute().code());
+
+        final HttpCallMetrics metrics = takeMetrics();
+        assertEquals(HttpCallMetrics.Endpoint.UPLOAD, metrics.getEndpoint());
+        assertEquals("POST", metrics.getMethod());
+        assertEquals("TestUploadApi.upload", metrics.getRequestName());
+        assertEquals(202, metrics.getStatusCode());
+        assertTrue(metrics.isSuccessful());
+        assertNull(metrics.getFailure());
+        assertEquals(1, metrics.getAttempts());
+        assertTrue("counts the body and signed headers", metrics.getBytesSent() > payload.length());
+        assertTrue("counts the body and headers", metrics.getBytesReceived() > "accepted".length());
+        assertTrue("measures the server time", metrics.getServerMillis() >= 200);
+        assertTrue(metrics.getTotalMillis() >= metrics.getServerMillis());
+        assertEquals("doesn't make TLS handshakes with the plain http server", 0, metrics.getSecureConnectMillis());
+    }
+
+    @Test
+    public void callEnd_retriedCall_reportsAllAttempts() throws Exception {
+        final ApiClient apiClient = createBuilder().setHttpMetricsListener(reportedMetrics::add)
+            .setRetryPolicy(new RetryPolicy.Builder().setBackoff(0, 10, TimeUnit.MILLISECONDS).build())
+            .build();
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setBody("[]"));
+
+        apiClient.buildClient()
+            .newCall(new Request.Builder().url(mockWebServer.url("/sdk/analytics/v1/daily-stats/USER_TOKEN")).build())
+            .execute()
+            .close();
+
+        final HttpCallMetrics metrics = takeMetrics();
+        assertEquals(HttpCallMetrics.Endpoint.ANALYTICS, metrics.getEndpoint());
+        assertEquals(2, metrics.getAttempts());
+        assertEquals(200, metrics.getStatusCode());
+    }
+
+    @Test
+    public void callFailed_readTimeout_reportsFailure() throws Exception {
+        final OkHttpClient client = new OkHttpClient.Builder().readTimeout(200, TimeUnit.MILLISECONDS)
+            .eventListenerFactory(HttpMetricsEventListener.factory(reportedMetrics::add))
+            .build();
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+        assertThrows(IOException.class,
+            () -> client.newCall(new Request.Builder().url(mockWebServer.url("/sdk/users/v1/USER_TOKEN")).build())
+                .execute());
+
+        final HttpCallMetrics metrics = takeMetrics();
+        assertEquals(HttpCallMetrics.Endpoint.USER, metrics.getEndpoint());
+        assertNotNull(metrics.getFailure());
+        assertEquals(-1, metrics.getStatusCode());
+        assertFalse(metrics.isSuccessful());
+    }
+
+    @Test
+    public void callEnd_faultyListener_completesCall() throws Exception {
+        final IHttpMetricsListener faultyListener = metrics -> {
+            throw new IllegalStateException("faulty listener");
+        };
+        final OkHttpClient client =
+            new OkHttpClient.Builder().eventListenerFactory(HttpMetricsEventListener.factory(faultyListener)).build();
+        mockWebServer.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = client.newCall(new Request.Builder().url(mockWebServer.url("/")).build())
+            .execute()) {
+            assertEquals("ok", response.body().string());
+        }
+    }
+
+    @Test
+    public void build_withDefaultListener_reportsCallsOfApiClient() throws Exception {
+        ApiClient.setDefaultHttpMetricsListener(reportedMetrics::add);
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+
+        createBuilder().build()
+            .buildClient()
+            .newCall(new Request.Builder().url(mockWebServer.url("/sdk/signing/v1/issue-key/user")).build())
+            .execute()
+            .close();
+
+        assertEquals(HttpCallMetrics.Endpoint.SIGNING, takeMetrics().getEndpoint());
+    }
+
+    @Test
+    public void classifyEndpoint_activitySourcesRequests_separatesUploads() {
+        assertEquals(HttpCallMetrics.Endpoint.UPLOAD,
+            HttpMetricsEventListener.classifyEndpoint(new Request.Builder()
+                .url(mockWebServer.url("/sdk/activity-sources/v1/USER_TOKEN/healthconnect/profile"))
+                .put(RequestBody.create("{}", JSON))
+                .build()));
+        assertEquals(HttpCallMetrics.Endpoint.ACTIVITY_SOURCES,
+            HttpMetricsEventListener.classifyEndpoint(new Request.Builder()
+                .url(mockWebServer.url("/sdk/activity-sources/v1/USER_TOKEN/connections"))
+                .build()));
+        assertEquals(HttpCallMetrics.Endpoint.OTHER,
+            HttpMetricsEventListener.classifyEndpoint(new Request.Builder().url(mockWebServer.url("/")).build()));
+    }
+
+    @Test
+    public void classifyEndpoint_connectionToSource_isNotUpload() {
+        for (String source : new String[] {"googlefit", "healthconnect"}) {
+            assertEquals(HttpCallMetrics.Endpoint.ACTIVITY_SOURCES,
+                HttpMetricsEventListener.classifyEndpoint(new Request.Builder()
+                    .url(mockWebServer.url("/sdk/activity-sources/v1/USER_TOKEN/connections/" + source))
+                    .post(RequestBody.create("", JSON))
+                    .build()));
+        }
+        assertEquals(HttpCallMetrics.Endpoint.UPLOAD,
+            HttpMetricsEventListener.classifyEndpoint(new Request.Builder()
+                .url(mockWebServer.url("/sdk/activity-sources/v1/USER_TOKEN/googlefit"))
+                .post(RequestBody.create("{}", JSON))
+                .build()));
+        assertEquals(HttpCallMetrics.Endpoint.UPLOAD,
+            HttpMetricsEventListener.classifyEndpoint(new Request.Builder()
+                .url(mockWebServer.url("/sdk/activity-sources/v1/USER_TOKEN/healthconnect/dailies"))
+                .post(RequestBody.create("{}", JSON))
+                .build()));
+    }
+}
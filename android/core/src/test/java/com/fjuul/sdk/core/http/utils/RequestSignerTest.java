@@ -2,10 +2,14 @@ package com.fjuul.sdk.core.http.utils;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -17,9 +21,12 @@ import org.robolectric.annotation.Config;
 import com.fjuul.sdk.core.entities.SigningKey;
 
 import android.os.Build;
+import android.util.Base64;
 import okhttp3.MediaType;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
 
 @RunWith(Enclosed.class)
 public class RequestSignerTest {
@@ -74,6 +81,53 @@ public class RequestSignerTest {
         }
     }
 
+    public static class ReusedSignerTest extends GivenRobolectricContext {
+        final String expectedSignatureHeader =
+            "keyId=\"signing-key-id-1234\",algorithm=\"hmac-sha256\",headers=\"(request-target) date\",signature=\"tu8E+96kyaexTmJ7Oep4Ds4bDFYE5ZdDWafqS8yEd20=\"";
+        Request testRequest;
+
+        @Before
+        public void beforeTests() {
+            testRequest =
+                new Request.Builder().url("https://fjuul.dev.api/analytics/v1/dailyStats/userToken/2020-01-15")
+                    .get()
+                    .build();
+        }
+
+        @Test
+        public void signRequest_WithAnotherKeyAfterwards_signsByEachKey() {
+            final Clock fixedClock = Clock.fixed(Instant.parse("2020-02-13T15:56:23Z"), ZoneId.of("UTC"));
+            final RequestSigner subject = new RequestSigner(fixedClock);
+            final SigningKey key = new SigningKey(KEY_ID, SECRET_KEY, new Date());
+            final SigningKey otherKey = new SigningKey("other-key-id", "OTHER_SECRET_KEY", new Date());
+
+            assertEquals(expectedSignatureHeader, subject.signRequestByKey(testRequest, key).header("Signature"));
+            final String otherSignatureHeader = subject.signRequestByKey(testRequest, otherKey).header("Signature");
+            assertTrue("signs by the other key", otherSignatureHeader.startsWith("keyId=\"other-key-id\""));
+            assertFalse("uses the other secret",
+                otherSignatureHeader.endsWith("tu8E+96kyaexTmJ7Oep4Ds4bDFYE5ZdDWafqS8yEd20=\""));
+            assertEquals("signs by the first key again",
+                expectedSignatureHeader,
+                subject.signRequestByKey(testRequest, key).header("Signature"));
+        }
+
+        @Test
+        public void signRequest_WhenSecondChanges_updatesDateHeader() {
+            final RequestSigner subject =
+                new RequestSigner(Clock.fixed(Instant.parse("2020-02-13T15:56:23.100Z"), ZoneId.of("UTC")));
+            final SigningKey key = new SigningKey(KEY_ID, SECRET_KEY, new Date());
+            assertEquals("Thu, 13 Feb 2020 15:56:23 GMT", subject.signRequestByKey(testRequest, key).header("Date"));
+
+            subject.clock = Clock.fixed(Instant.parse("2020-02-13T15:56:23.900Z"), ZoneId.of("UTC"));
+            final Request signedRequest = subject.signRequestByKey(testRequest, key);
+            assertEquals("Thu, 13 Feb 2020 15:56:23 GMT", signedRequest.header("Date"));
+            assertEquals(expectedSignatureHeader, signedRequest.header("Signature"));
+
+            subject.clock = Clock.fixed(Instant.parse("2020-02-13T15:56:24Z"), ZoneId.of("UTC"));
+            assertEquals("Thu, 13 Feb 2020 15:56:24 GMT", subject.signRequestByKey(testRequest, key).header("Date"));
+        }
+    }
+
     public static class RequestWithDigestTest extends GivenRobolectricContext {
         Clock fixedClock;
 
@@ -121,5 +175,71 @@ public class RequestSignerTest {
                 "SHA-256=Q95/OQtk+2T6qHbUBZyTr/JITn+2qDMFeqAKJee0Uz0=",
                 signedRequest.header("Digest"));
         }
+
+        @Test
+        public void signRequest_PostWithOneShotRequestBody_writesBodyOnceAndSendsDigestedBytes() throws IOException {
+            final String json = "{\"hello\":\"world\",\"foo\":\"bar\"}";
+            final AtomicInteger writesCount = new AtomicInteger();
+            final RequestBody oneShotBody = new RequestBody() {
+                @Override
+                public MediaType contentType() {
+                    return MediaType.get("application/json");
+                }
+
+                @Override
+                public boolean isOneShot() {
+                    return true;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    writesCount.incrementAndGet();
+                    sink.writeUtf8(json);
+                }
+            };
+            Request testRequest =
+                new Request.Builder().url("https://fjuul.dev.api/analytics/v1/dailyStats/userToken/2020-01-15")
+                    .post(oneShotBody)
+                    .build();
+            SigningKey key = new SigningKey(KEY_ID, SECRET_KEY, new Date());
+            RequestSigner subject = new RequestSigner(fixedClock);
+
+            final Request signedRequest = subject.signRequestByKey(testRequest, key);
+            assertEquals("writes the original body once", 1, writesCount.get());
+            assertEquals("request has a digest header",
+                "SHA-256=Q95/OQtk+2T6qHbUBZyTr/JITn+2qDMFeqAKJee0Uz0=",
+                signedRequest.header("Digest"));
+            final Buffer sentBody = new Buffer();
+            signedRequest.body().writeTo(sentBody);
+            assertEquals("sends the digested bytes", json, sentBody.readUtf8());
+            assertEquals(MediaType.get("application/json"), signedRequest.body().contentType());
+            assertEquals(json.length(), signedRequest.body().contentLength());
+        }
+
+        @Test
+        public void signRequest_PostWithLargeRequestBody_digestsAllBytes() throws Exception {
+            final String entry = "{\"start\":\"2020-10-16T21:30:00Z\",\"value\":123.4567,\"dataSource\":\"derived\"},";
+            final StringBuilder jsonBuilder = new StringBuilder("[");
+            while (jsonBuilder.length() < 1024 * 1024) {
+                jsonBuilder.append(entry);
+            }
+            jsonBuilder.setCharAt(jsonBuilder.length() - 1, ']');
+            final byte[] bodyBytes = jsonBuilder.toString().getBytes(StandardCharsets.UTF_8);
+            Request testRequest =
+                new Request.Builder().url("https://fjuul.dev.api/sdk/activity-sources/v1/userToken/googlefit")
+                    .post(RequestBody.create(bodyBytes, MediaType.get("application/json")))
+                    .build();
+            SigningKey key = new SigningKey(KEY_ID, SECRET_KEY, new Date());
+            RequestSigner subject = new RequestSigner(fixedClock);
+
+            final Request signedRequest = subject.signRequestByKey(testRequest, key);
+            final byte[] expectedDigest = MessageDigest.getInstance("SHA-256").digest(bodyBytes);
+            assertEquals("request has a digest of the whole body",
+                "SHA-256=" + Base64.encodeToString(expectedDigest, Base64.NO_WRAP),
+                signedRequest.header("Digest"));
+            final Buffer sentBody = new Buffer();
+            signedRequest.body().writeTo(sentBody);
+            assertArrayEquals("sends the digested bytes", bodyBytes, sentBody.readByteArray());
+        }
     }
 }
@@ -0,0 +1,55 @@
+package com.fjuul.sdk.core.http.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RetryPolicyArgsTest {
+    @Test
+    public void fromArgs_argsOfPolicy_returnsSamePolicy() {
+        final RetryPolicy policy = new RetryPolicy.Builder().setMaxAttempts(5)
+            .setBackoff(2, 20, TimeUnit.SECONDS)
+            .setRetryBudget(7)
+            .build();
+
+        final RetryPolicy result = RetryPolicyArgs.fromArgs(RetryPolicyArgs.toArgs(policy));
+
+        assertEquals(5, result.getMaxAttempts());
+        assertEquals(2000, result.getInitialBackoffMillis());
+        assertEquals(20000, result.getMaxBackoffMillis());
+        assertEquals(7, result.getRetryBudget());
+    }
+
+    @Test
+    public void fromArgs_argsOfWorkData_returnsPolicy() {
+        // NOTE: the work data keeps ints and longs as they were put
+        final Map<String, Object> args = new HashMap<>();
+        args.put(RetryPolicyArgs.KEY_MAX_ATTEMPTS_ARG, 4);
+        args.put(RetryPolicyArgs.KEY_INITIAL_BACKOFF_MILLIS_ARG, 500L);
+        args.put(RetryPolicyArgs.KEY_MAX_BACKOFF_MILLIS_ARG, 5000L);
+        args.put(RetryPolicyArgs.KEY_RETRY_BUDGET_ARG, 3);
+
+        final RetryPolicy result = RetryPolicyArgs.fromArgs(args);
+
+        assertEquals(4, result.getMaxAttempts());
+        assertEquals(500, result.getInitialBackoffMillis());
+        assertEquals(5000, result.getMaxBackoffMillis());
+        assertEquals(3, result.getRetryBudget());
+    }
+
+    @Test
+    public void toArgs_noPolicy_returnsEmptyArgs() {
+        assertTrue(RetryPolicyArgs.toArgs(null).isEmpty());
+    }
+
+    @Test
+    public void fromArgs_argsWithoutPolicy_returnsNull() {
+        assertNull(RetryPolicyArgs.fromArgs(new HashMap<>()));
+    }
+}
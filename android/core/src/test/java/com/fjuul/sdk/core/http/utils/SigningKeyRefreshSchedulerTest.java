@@ -0,0 +1,131 @@
+package com.fjuul.sdk.core.http.utils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fjuul.sdk.core.entities.InMemoryStorage;
+import com.fjuul.sdk.core.entities.Keystore;
+import com.fjuul.sdk.core.entities.SigningKey;
+import com.fjuul.sdk.core.http.interceptors.SigningAuthInterceptor;
+
+public class SigningKeyRefreshSchedulerTest {
+    // NOTE: the keystore checks the expiration by the system time
+    final Instant now = Instant.now();
+    Clock fixedClock;
+    Keystore keystore;
+    SigningAuthInterceptor mockedInterceptor;
+    ScheduledExecutorService mockedExecutor;
+    ScheduledFuture<?> mockedFuture;
+    SigningKeyRefreshScheduler subject;
+
+    @Before
+    public void beforeTest() {
+        fixedClock = Clock.fixed(now, ZoneId.of("UTC"));
+        keystore = new Keystore(new InMemoryStorage());
+        mockedInterceptor = mock(SigningAuthInterceptor.class);
+        mockedExecutor = mock(ScheduledExecutorService.class);
+        mockedFuture = mock(ScheduledFuture.class);
+        doReturn(mockedFuture).when(mockedExecutor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        subject = new SigningKeyRefreshScheduler(keystore, mockedInterceptor, 0.8f, mockedExecutor, fixedClock);
+    }
+
+    SigningKey createKey(String id, long lifetimeSeconds) {
+        return new SigningKey(id, "REAL_SECRET", Date.from(now.plusSeconds(lifetimeSeconds)));
+    }
+
+    @Test
+    public void start_withStoredKey_schedulesRefreshAfterFractionOfLifetime() {
+        keystore.setKey(createKey("key-id", 1000));
+        subject.start();
+        verify(mockedExecutor).schedule(any(Runnable.class), eq(800_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void start_withoutKey_doesNotScheduleRefresh() {
+        subject.start();
+        verify(mockedExecutor, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void setKey_afterStart_reschedulesRefreshOfNewKey() {
+        keystore.setKey(createKey("key-id", 1000));
+        subject.start();
+        keystore.setKey(createKey("new-key-id", 2000));
+        verify(mockedFuture).cancel(false);
+        verify(mockedExecutor).schedule(any(Runnable.class), eq(1_600_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void scheduledRefresh_refreshesKeyThroughInterceptor() throws Exception {
+        final SigningKey key = createKey("key-id", 1000);
+        keystore.setKey(key);
+        when(mockedInterceptor.refreshKey(key)).thenReturn(true);
+        subject.start();
+        final ArgumentCaptor<Runnable> refreshCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockedExecutor).schedule(refreshCaptor.capture(), anyLong(), any(TimeUnit.class));
+
+        refreshCaptor.getValue().run();
+        verify(mockedInterceptor).refreshKey(key);
+        verify(mockedExecutor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void scheduledRefresh_whenIssueFailed_schedulesRetry() throws Exception {
+        final SigningKey key = createKey("key-id", 1000);
+        keystore.setKey(key);
+        when(mockedInterceptor.refreshKey(key)).thenReturn(false);
+        subject.start();
+        final ArgumentCaptor<Runnable> refreshCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockedExecutor).schedule(refreshCaptor.capture(), anyLong(), any(TimeUnit.class));
+
+        refreshCaptor.getValue().run();
+        verify(mockedExecutor).schedule(any(Runnable.class),
+            eq(SigningKeyRefreshScheduler.RETRY_DELAY_MILLIS),
+            eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void stop_cancelsScheduledRefreshAndIgnoresNewKeys() {
+        keystore.setKey(createKey("key-id", 1000));
+        subject.start();
+        subject.stop();
+        keystore.setKey(createKey("new-key-id", 2000));
+        verify(mockedFuture).cancel(false);
+        verify(mockedExecutor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void stop_duringFailedRefresh_doesNotScheduleRetry() throws Exception {
+        final SigningKey key = createKey("key-id", 1000);
+        keystore.setKey(key);
+        subject.start();
+        final ArgumentCaptor<Runnable> refreshCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockedExecutor).schedule(refreshCaptor.capture(), anyLong(), any(TimeUnit.class));
+        when(mockedInterceptor.refreshKey(key)).thenAnswer(invocation -> {
+            subject.stop();
+            return false;
+        });
+
+        refreshCaptor.getValue().run();
+        verify(mockedExecutor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+}
@@ -47,7 +47,8 @@ public class UserService {
             .build();
         Retrofit retrofit = new Retrofit.Builder().baseUrl(clientBuilder.getBaseUrl())
             .client(httpClient)
-            .addCallAdapterFactory(ApiCallAdapterFactory.create(new UserApiResponseTransformer()))
+            .addCallAdapterFactory(
+                ApiCallAdapterFactory.create(new UserApiResponseTransformer(), clientBuilder.getCallbackExecutor()))
             .addConverterFactory(MoshiConverterFactory.create(moshi))
             .build();
         return retrofit;